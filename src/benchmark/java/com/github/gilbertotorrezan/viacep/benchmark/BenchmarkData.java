@@ -0,0 +1,62 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.benchmark;
+
+/**
+ * Respostas no formato da ViaCEP utilizadas nos benchmarks.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+public class BenchmarkData {
+	
+	private BenchmarkData(){};
+	
+	/**
+	 * Retorna o JSON de um endereço, com CEP derivado de <code>i</code>.
+	 */
+	public static String endereco(int i) {
+		String cep = String.valueOf(20000000 + i);
+		return "{\n  \"cep\": \"" + cep.substring(0, 5) + "-" + cep.substring(5) + "\",\n  \"logradouro\": \"Avenida Brasil\",\n"
+				+ "  \"complemento\": \"de 11001 a 13000 - lado par\",\n  \"bairro\": \"Bonsucesso\",\n  \"localidade\": \"Rio de Janeiro\",\n"
+				+ "  \"uf\": \"RJ\",\n  \"ibge\": \"3304557\",\n  \"gia\": \"\",\n  \"ddd\": \"21\",\n  \"siafi\": \"6001\"\n}";
+	}
+	
+	/**
+	 * Retorna o JSON de uma lista com <code>size</code> endereços.
+	 */
+	public static String enderecos(int size) {
+		StringBuilder builder = new StringBuilder("[\n");
+		for (int i = 0; i < size; i++){
+			if (i > 0){
+				builder.append(",\n");
+			}
+			builder.append(endereco(i));
+		}
+		return builder.append("\n]").toString();
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPEnderecoHandler;
+import com.github.gilbertotorrezan.viacep.server.ViaCEPStubServer;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Benchmark de ponta a ponta do {@link ViaCEPClient} contra o {@link ViaCEPStubServer} local: vazão e distribuição
+ * da latência das consultas.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ClientBenchmark {
+	
+	private ViaCEPStubServer server;
+	private ViaCEPClient client;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		server = new ViaCEPStubServer();
+		server.addResponse("20000000/json/", BenchmarkData.endereco(0));
+		server.addResponse("RJ/Rio/Brasil/json/", BenchmarkData.enderecos(50));
+		client = new ViaCEPClient();
+		client.setHost(server.getHost());
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		server.stop();
+	}
+	
+	@Benchmark
+	public ViaCEPEndereco getEndereco() throws IOException {
+		return client.getEndereco("20000-000");
+	}
+	
+	@Benchmark
+	public List<ViaCEPEndereco> getEnderecos() throws IOException {
+		return client.getEnderecos("RJ", "Rio", "Brasil");
+	}
+	
+	@Benchmark
+	public int getEnderecosStreaming(final Blackhole blackhole) throws IOException {
+		return client.getEnderecos("RJ", "Rio", "Brasil", new ViaCEPEnderecoHandler() {
+			@Override
+			public void onEndereco(ViaCEPEndereco endereco) throws IOException {
+				blackhole.consume(endereco);
+			}
+		});
+	}
+
+}
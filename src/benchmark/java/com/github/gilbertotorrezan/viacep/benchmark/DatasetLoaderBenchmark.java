@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPDatasetFormat;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPDatasetLoader;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPDatasetWriter;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPEnderecoHandler;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Benchmark da carga de um arquivo com {@link #SIZE} endereços pelo {@link ViaCEPDatasetLoader}, com 
+ * <code>parallelism</code> threads.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DatasetLoaderBenchmark {
+	
+	public static final int SIZE = 200000;
+	
+	@Param({"JSON", "CSV"})
+	public ViaCEPDatasetFormat format;
+	
+	@Param({"1", "4"})
+	public int parallelism;
+	
+	private File file;
+	private ViaCEPDatasetLoader loader;
+	
+	@Setup
+	public void setUp() throws IOException {
+		file = File.createTempFile("viacep-benchmark", "." + format.name().toLowerCase());
+		ViaCEPDatasetWriter writer = new ViaCEPDatasetWriter(file);
+		try {
+			for (int i = 0; i < SIZE; i++){
+				ViaCEPEndereco endereco = new ViaCEPEndereco();
+				endereco.setCep(String.format("%05d-%03d", 20000 + i / 1000, i % 1000));
+				endereco.setLogradouro("Avenida Brasil " + i);
+				endereco.setComplemento("de 11001 a 13000 - lado par");
+				endereco.setBairro("Bonsucesso");
+				endereco.setLocalidade("Rio de Janeiro");
+				endereco.setUf("RJ");
+				endereco.setIbge("3304557");
+				writer.onEndereco(endereco);
+			}
+		}
+		finally {
+			writer.close();
+		}
+		loader = new ViaCEPDatasetLoader();
+		loader.setParallelism(parallelism);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+	
+	@Benchmark
+	public long load() throws IOException {
+		final long[] count = new long[1];
+		loader.load(file, new ViaCEPEnderecoHandler() {
+			@Override
+			public void onEndereco(ViaCEPEndereco endereco) {
+				count[0]++;
+			}
+		});
+		return count[0];
+	}
+
+}
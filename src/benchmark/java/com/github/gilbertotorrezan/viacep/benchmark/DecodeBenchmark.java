@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.jr.ob.JSON;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPEnderecoHandler;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPStreamingDecoder;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Benchmark da desserialização das respostas da ViaCEP: um endereço, e listas de endereços completas ou lidas 
+ * incrementalmente, através do binding de beans do Jackson-jr e do {@link ViaCEPStreamingDecoder}.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DecodeBenchmark {
+	
+	@Param({"10", "1000"})
+	public int listSize;
+	
+	private byte[] single;
+	private byte[] list;
+	private final ViaCEPStreamingDecoder decoder = new ViaCEPStreamingDecoder();
+	
+	@Setup
+	public void setUp() throws Exception {
+		single = BenchmarkData.endereco(0).getBytes("UTF-8");
+		list = BenchmarkData.enderecos(listSize).getBytes("UTF-8");
+	}
+	
+	@Benchmark
+	public ViaCEPEndereco beanFrom() throws IOException {
+		return JSON.std.beanFrom(ViaCEPEndereco.class, single);
+	}
+	
+	@Benchmark
+	public List<ViaCEPEndereco> listOfFrom() throws IOException {
+		return JSON.std.listOfFrom(ViaCEPEndereco.class, list);
+	}
+	
+	@Benchmark
+	public void streaming(Blackhole blackhole) throws IOException {
+		JsonParser parser = JSON.std.getStreamingFactory().createParser(list);
+		try {
+			parser.nextToken();
+			while (parser.nextToken() == JsonToken.START_OBJECT){
+				blackhole.consume(JSON.std.beanFrom(ViaCEPEndereco.class, parser));
+			}
+		}
+		finally {
+			parser.close();
+		}
+	}
+	
+	@Benchmark
+	public ViaCEPEndereco decoder() throws IOException {
+		return decoder.readEndereco(new ByteArrayInputStream(single), ViaCEPEndereco.class);
+	}
+	
+	@Benchmark
+	public List<ViaCEPEndereco> decoderList() throws IOException {
+		return decoder.readEnderecos(new ByteArrayInputStream(list), ViaCEPEndereco.class);
+	}
+	
+	@Benchmark
+	public int decoderStreaming(final Blackhole blackhole) throws IOException {
+		return decoder.readEnderecos(new ByteArrayInputStream(list), ViaCEPEndereco.class, new ViaCEPEnderecoHandler() {
+			@Override
+			public void onEndereco(ViaCEPEndereco endereco) {
+				blackhole.consume(endereco);
+			}
+		});
+	}
+
+}
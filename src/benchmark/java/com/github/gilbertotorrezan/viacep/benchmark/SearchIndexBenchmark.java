@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPSearchIndex;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Benchmark das buscas por prefixo do {@link ViaCEPSearchIndex}, em uma partição com <code>size</code> endereços.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SearchIndexBenchmark {
+	
+	private static final String[] TIPOS = {"Rua", "Avenida", "Travessa", "Alameda", "Praça"};
+	private static final String[] NOMES = {"Paulista", "Consolação", "Augusta", "São João", "Ipiranga", "Brigadeiro Luís Antônio",
+			"Rebouças", "Faria Lima", "Pamplona", "Haddock Lobo", "Oscar Freire", "Bela Cintra", "Peixoto Gomide", "Pedroso de Morais"};
+	
+	@Param({"1000", "50000"})
+	public int size;
+	
+	@Param({"pa", "av paul", "rua sao jo"})
+	public String query;
+	
+	private ViaCEPSearchIndex index;
+	
+	@Setup
+	public void setUp() {
+		index = new ViaCEPSearchIndex();
+		for (int i = 0; i < size; i++){
+			ViaCEPEndereco endereco = new ViaCEPEndereco();
+			endereco.setCep(String.format("%05d-%03d", 1000 + i / 1000, i % 1000));
+			endereco.setLogradouro(TIPOS[i % TIPOS.length] + " " + NOMES[(i / TIPOS.length) % NOMES.length] + " " + (i / 70));
+			endereco.setBairro("Bairro " + (i % 300));
+			endereco.setLocalidade("São Paulo");
+			endereco.setUf("SP");
+			index.add(endereco);
+		}
+	}
+	
+	@Benchmark
+	public List<ViaCEPEndereco> search() {
+		return index.search("SP", "São Paulo", query, ViaCEPSearchIndex.REMOTE_RESULT_LIMIT);
+	}
+
+}
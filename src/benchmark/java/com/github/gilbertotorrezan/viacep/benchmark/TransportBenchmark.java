@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.gilbertotorrezan.viacep.se.HttpURLConnectionTransport;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPTransport;
+import com.github.gilbertotorrezan.viacep.server.ViaCEPStubServer;
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Benchmark dos transports sob alta concorrência: tempo para concluir <code>concurrency</code> consultas simultâneas 
+ * (a CEPs distintos) contra o {@link ViaCEPStubServer}, com {@link #LATENCY} ms de latência por resposta.
+ * 
+ * As consultas são feitas em virtual threads quando a JVM as suporta (Java 21 ou superior), ou em uma thread por 
+ * consulta nas demais. O transport <code>httpclient</code> exige Java 11 ou superior.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class TransportBenchmark {
+	
+	public static final long LATENCY = 20;
+	
+	@Param({"urlconnection", "httpclient"})
+	public String transport;
+	
+	@Param({"100", "1000"})
+	public int concurrency;
+	
+	private ViaCEPStubServer server;
+	private ViaCEPClient client;
+	private ExecutorService executor;
+	private int next;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		server = new ViaCEPStubServer();
+		server.loadDefaultFixtures();
+		server.setLatency(LATENCY);
+		
+		ViaCEPTransport instance;
+		if ("httpclient".equals(transport)){
+			instance = (ViaCEPTransport) Class.forName(ViaCEPClient.HTTP_CLIENT_TRANSPORT).getConstructor(int.class).newInstance(concurrency);
+		}
+		else {
+			instance = new HttpURLConnectionTransport(concurrency);
+		}
+		client = new ViaCEPClient();
+		client.setHost(server.getHost());
+		client.setTransport(instance);
+		
+		try {
+			executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (NoSuchMethodException e) {
+			executor = Executors.newCachedThreadPool();
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		executor.shutdownNow();
+		server.stop();
+	}
+	
+	@Benchmark
+	public int lookups() throws Exception {
+		List<Future<ViaCEPEndereco>> futures = new ArrayList<Future<ViaCEPEndereco>>(concurrency);
+		for (int i = 0; i < concurrency; i++){
+			//CEPs distintos, para que as consultas não sejam agrupadas pelo client
+			final Cep cep = Cep.valueOf(10000000 + next++ % 80000000);
+			futures.add(executor.submit(new Callable<ViaCEPEndereco>() {
+				@Override
+				public ViaCEPEndereco call() throws Exception {
+					return client.getEndereco(cep);
+				}
+			}));
+		}
+		int found = 0;
+		for (Future<ViaCEPEndereco> future : futures){
+			if (future.get() != null){
+				found++;
+			}
+		}
+		return found;
+	}
+
+}
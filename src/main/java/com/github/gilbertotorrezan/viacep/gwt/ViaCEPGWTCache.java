@@ -0,0 +1,227 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.gwt;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.fusesource.restygwt.client.JsonEncoderDecoder;
+
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.storage.client.Storage;
+
+/**
+ * Cache dos endereços consultados pelo {@link ViaCEPGWTClient}, indexado por {@link Cep}.
+ * 
+ * O cache em memória dura enquanto a página estiver aberta, e é limitado em número de entradas, descartando as menos 
+ * recentemente utilizadas (LRU). Opcionalmente, os endereços também são gravados no <code>localStorage</code> do 
+ * navegador, com um tempo de vida, e ficam disponíveis em visitas futuras. Quando o navegador não suporta 
+ * <code>localStorage</code>, apenas o cache em memória é utilizado.
+ * 
+ * Apenas endereços encontrados são armazenados.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPGWTClient#setCache(ViaCEPGWTCache)
+ */
+public class ViaCEPGWTCache {
+	
+	/**
+	 * Número máximo padrão de entradas no cache.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 200;
+	
+	/**
+	 * Tempo de vida padrão, em milissegundos, das entradas gravadas no <code>localStorage</code>: 30 dias.
+	 */
+	public static final long DEFAULT_STORAGE_TTL = 30L * 24 * 60 * 60 * 1000;
+	
+	/**
+	 * Prefixo das chaves gravadas no <code>localStorage</code>.
+	 */
+	public static final String STORAGE_PREFIX = "viacep.";
+	
+	/**
+	 * Codificador JSON dos endereços gravados no <code>localStorage</code>.
+	 */
+	public interface EnderecoCodec extends JsonEncoderDecoder<ViaCEPEndereco> {
+	}
+	
+	protected final int maxSize;
+	protected final long storageTtl;
+	protected final LinkedHashMap<String, ViaCEPEndereco> entries;
+	protected Storage storage;
+	protected LinkedHashMap<String, Boolean> storedKeys;
+	protected EnderecoCodec codec;
+	
+	/**
+	 * Construtor padrão. Cache apenas em memória, com {@link #DEFAULT_MAX_SIZE} entradas.
+	 */
+	public ViaCEPGWTCache() {
+		this(DEFAULT_MAX_SIZE, false);
+	}
+	
+	/**
+	 * Construtor que permite configurar o tamanho do cache e a gravação no <code>localStorage</code>, com o tempo de vida
+	 * {@link #DEFAULT_STORAGE_TTL}.
+	 * 
+	 * @param maxSize Número máximo de entradas, em memória e no <code>localStorage</code>.
+	 * @param persistent Se os endereços devem ser gravados no <code>localStorage</code>.
+	 */
+	public ViaCEPGWTCache(int maxSize, boolean persistent) {
+		this(maxSize, persistent, DEFAULT_STORAGE_TTL);
+	}
+	
+	/**
+	 * Construtor que permite configurar o tamanho do cache e a gravação no <code>localStorage</code>.
+	 * 
+	 * @param maxSize Número máximo de entradas, em memória e no <code>localStorage</code>.
+	 * @param persistent Se os endereços devem ser gravados no <code>localStorage</code>.
+	 * @param storageTtl Tempo de vida, em milissegundos, das entradas gravadas no <code>localStorage</code>.
+	 */
+	public ViaCEPGWTCache(final int maxSize, boolean persistent, long storageTtl) {
+		if (maxSize < 1){
+			throw new IllegalArgumentException("O tamanho máximo do cache deve ser positivo: " + maxSize);
+		}
+		this.maxSize = maxSize;
+		this.storageTtl = storageTtl;
+		this.entries = new LinkedHashMap<String, ViaCEPEndereco>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ViaCEPEndereco> eldest) {
+				return size() > maxSize;
+			}
+		};
+		if (persistent){
+			storage = Storage.getLocalStorageIfSupported();
+		}
+		if (storage != null){
+			codec = GWT.create(EnderecoCodec.class);
+			storedKeys = new LinkedHashMap<String, Boolean>();
+			for (int i = 0; i < storage.getLength(); i++){
+				String key = storage.key(i);
+				if (key != null && key.startsWith(STORAGE_PREFIX)){
+					storedKeys.put(key, Boolean.TRUE);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Retorna o endereço armazenado para o CEP, ou <code>null</code> caso o CEP não esteja no cache.
+	 */
+	public ViaCEPEndereco get(Cep cep) {
+		String key = cep.toString();
+		ViaCEPEndereco endereco = entries.get(key);
+		if (endereco == null && storage != null){
+			endereco = load(STORAGE_PREFIX + key);
+			if (endereco != null){
+				entries.put(key, endereco);
+			}
+		}
+		return endereco;
+	}
+	
+	/**
+	 * Armazena o endereço encontrado para o CEP. Endereços <code>null</code> ou sem CEP são ignorados.
+	 */
+	public void put(Cep cep, ViaCEPEndereco endereco) {
+		if (endereco == null || endereco.getCep() == null){
+			return;
+		}
+		String key = cep.toString();
+		entries.put(key, endereco);
+		if (storage != null){
+			store(STORAGE_PREFIX + key, endereco);
+		}
+	}
+	
+	/**
+	 * Remove todas as entradas do cache, inclusive as gravadas no <code>localStorage</code>.
+	 */
+	public void clear() {
+		entries.clear();
+		if (storage != null){
+			for (String key : storedKeys.keySet()){
+				storage.removeItem(key);
+			}
+			storedKeys.clear();
+		}
+	}
+	
+	/**
+	 * Retorna o número de entradas em memória.
+	 */
+	public int size() {
+		return entries.size();
+	}
+	
+	/**
+	 * Retorna se os endereços são gravados no <code>localStorage</code>.
+	 */
+	public boolean isPersistent() {
+		return storage != null;
+	}
+	
+	private ViaCEPEndereco load(String key) {
+		String value = storage.getItem(key);
+		if (value == null){
+			return null;
+		}
+		try {
+			//formato: <expiração em milissegundos>|<endereço em JSON>
+			int separator = value.indexOf('|');
+			if (separator > 0 && Long.parseLong(value.substring(0, separator)) > System.currentTimeMillis()){
+				return codec.decode(value.substring(separator + 1));
+			}
+		} catch (RuntimeException e) {
+			//entrada corrompida ou gravada por uma versão incompatível
+		}
+		storage.removeItem(key);
+		storedKeys.remove(key);
+		return null;
+	}
+	
+	private void store(String key, ViaCEPEndereco endereco) {
+		try {
+			storage.setItem(key, (System.currentTimeMillis() + storageTtl) + "|" + codec.encode(endereco).toString());
+		} catch (RuntimeException e) {
+			//cota do localStorage excedida: o endereço fica apenas em memória
+			return;
+		}
+		storedKeys.remove(key);
+		storedKeys.put(key, Boolean.TRUE);
+		while (storedKeys.size() > maxSize){
+			String eldest = storedKeys.keySet().iterator().next();
+			storedKeys.remove(eldest);
+			storage.removeItem(eldest);
+		}
+	}
+
+}
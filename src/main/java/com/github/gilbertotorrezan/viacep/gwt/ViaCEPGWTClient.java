@@ -24,11 +24,16 @@
  */
 package com.github.gilbertotorrezan.viacep.gwt;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.fusesource.restygwt.client.Method;
 import org.fusesource.restygwt.client.MethodCallback;
 import org.fusesource.restygwt.client.ServiceRoots;
 
+import com.github.gilbertotorrezan.viacep.shared.Cep;
 import com.github.gilbertotorrezan.viacep.shared.ViaCEPConstants;
 import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
 import com.google.gwt.core.client.GWT;
@@ -46,6 +51,11 @@ import com.google.gwt.core.client.GWT;
  * </code>
  * </pre>
  * 
+ * Consultas idênticas feitas enquanto uma requisição ainda está em andamento (p.e. disparadas pelos eventos de "blur" e 
+ * "change" do mesmo campo) são agrupadas: apenas uma requisição é feita, e todos os callbacks recebem o seu resultado.
+ * Opcionalmente, os endereços encontrados por CEP podem ser mantidos em um {@link ViaCEPGWTCache} (veja 
+ * {@link #setCache(ViaCEPGWTCache)}), e consultas repetidas são respondidas sem requisições.
+ * 
  * @author Gilberto Torrezan Filho
  *
  * @since v.1.0.0
@@ -61,6 +71,9 @@ public class ViaCEPGWTClient {
 	}
 	
 	protected ViaCEPGWTService service;
+	protected ViaCEPGWTCache cache;
+	protected final Map<String, PendingCall<ViaCEPEndereco>> pendingEnderecos = new HashMap<String, PendingCall<ViaCEPEndereco>>();
+	protected final Map<String, PendingCall<List<ViaCEPEndereco>>> pendingListas = new HashMap<String, PendingCall<List<ViaCEPEndereco>>>();
 	
 	/**
 	 * Construtor padrão.
@@ -83,25 +96,46 @@ public class ViaCEPGWTClient {
 	 * CEPs válidos (que contém 8 dígitos): "20930-040", "abc0 1311000xy z", "20930 040". CEPs inválidos (que não contém 8 dígitos): "00000", "abc", "123456789"
 	 * 
 	 * @param callback O retorno da chamada ao webservice. Erros de validação de campos e de conexão são tratados no callback.
+	 * Assim como nos erros de validação, o {@link Method} informado ao callback é <code>null</code> quando o endereço é 
+	 * obtido do {@link #getCache() cache}.
 	 */
 	public void getEndereco(String cep, MethodCallback<ViaCEPEndereco> callback){
-		char[] chars = cep.toCharArray();
+		final Cep parsed;
+		try {
+			parsed = Cep.parse(cep);
+		} catch (IllegalArgumentException e) {
+			callback.onFailure(null, e);
+			return;
+		}
 		
-		StringBuilder builder = new StringBuilder();
-		for (int i = 0; i< chars.length; i++){
-			if (Character.isDigit(chars[i])){
-				builder.append(chars[i]);
+		final ViaCEPGWTCache cache = getCache();
+		if (cache != null){
+			ViaCEPEndereco endereco = cache.get(parsed);
+			if (endereco != null){
+				callback.onSuccess(null, endereco);
+				return;
 			}
 		}
-		cep = builder.toString();
 		
-		if (cep.length() != 8){
-			callback.onFailure(null, new IllegalArgumentException("CEP inválido - deve conter 8 dígitos: " + cep));
+		String key = parsed.toString();
+		PendingCall<ViaCEPEndereco> pending = pendingEnderecos.get(key);
+		if (pending != null){
+			pending.callbacks.add(callback);
 			return;
 		}
+		pending = new PendingCall<ViaCEPEndereco>(pendingEnderecos, key, callback) {
+			@Override
+			public void onSuccess(Method method, ViaCEPEndereco response) {
+				if (cache != null){
+					cache.put(parsed, response);
+				}
+				super.onSuccess(method, response);
+			}
+		};
+		pendingEnderecos.put(key, pending);
 		
 		ViaCEPGWTService service = getService();
-		service.getEndereco(cep, callback);
+		service.getEndereco(key, pending);
 	}
 	
 	/**
@@ -127,8 +161,17 @@ public class ViaCEPGWTClient {
 			return;
 		}
 		
+		String key = uf + "/" + localidade + "/" + logradouro;
+		PendingCall<List<ViaCEPEndereco>> pending = pendingListas.get(key);
+		if (pending != null){
+			pending.callbacks.add(callback);
+			return;
+		}
+		pending = new PendingCall<List<ViaCEPEndereco>>(pendingListas, key, callback);
+		pendingListas.put(key, pending);
+		
 		ViaCEPGWTService service = getService();
-		service.getEnderecos(uf, localidade, logradouro, callback);
+		service.getEnderecos(uf, localidade, logradouro, pending);
 	}
 	
 	/**
@@ -144,5 +187,77 @@ public class ViaCEPGWTClient {
 	public void setService(ViaCEPGWTService service) {
 		this.service = service;
 	}
+	
+	/**
+	 * Retorna o {@link ViaCEPGWTCache} utilizado nas consultas por CEP, ou <code>null</code> caso o cache esteja desabilitado.
+	 */
+	public ViaCEPGWTCache getCache() {
+		return cache;
+	}
+	
+	/**
+	 * Seta o {@link ViaCEPGWTCache} utilizado nas consultas por CEP, p.e. <code>new ViaCEPGWTCache(500, true)</code> para 
+	 * gravar os endereços no <code>localStorage</code>. Por padrão é <code>null</code> (desabilitado).
+	 * 
+	 * Quando habilitado, os endereços obtidos do cache são informados ao callback com o {@link Method} 
+	 * <code>null</code>, já que nenhuma requisição é feita - callbacks que acessam a resposta HTTP precisam tratar 
+	 * esse caso.
+	 */
+	public void setCache(ViaCEPGWTCache cache) {
+		this.cache = cache;
+	}
+	
+	/**
+	 * Requisição em andamento, que repassa o seu resultado a todos os callbacks agrupados.
+	 */
+	protected static class PendingCall<T> implements MethodCallback<T> {
+		
+		protected final Map<String, PendingCall<T>> pending;
+		protected final String key;
+		protected final List<MethodCallback<T>> callbacks = new ArrayList<MethodCallback<T>>(1);
+		
+		protected PendingCall(Map<String, PendingCall<T>> pending, String key, MethodCallback<T> callback) {
+			this.pending = pending;
+			this.key = key;
+			this.callbacks.add(callback);
+		}
+		
+		@Override
+		public void onSuccess(Method method, T response) {
+			pending.remove(key);
+			RuntimeException error = null;
+			for (MethodCallback<T> callback : callbacks){
+				try {
+					callback.onSuccess(method, response);
+				} catch (RuntimeException e) {
+					//um callback com erro não impede que os demais sejam notificados
+					if (error == null){
+						error = e;
+					}
+				}
+			}
+			if (error != null){
+				throw error;
+			}
+		}
+		
+		@Override
+		public void onFailure(Method method, Throwable exception) {
+			pending.remove(key);
+			RuntimeException error = null;
+			for (MethodCallback<T> callback : callbacks){
+				try {
+					callback.onFailure(method, exception);
+				} catch (RuntimeException e) {
+					if (error == null){
+						error = e;
+					}
+				}
+			}
+			if (error != null){
+				throw error;
+			}
+		}
+	}
 
 }
@@ -0,0 +1,236 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.util.Arrays;
+
+/**
+ * Índice de CEPs para posições (<code>long</code>) em arquivo, mantido em arrays de tipos primitivos: um array ordenado
+ * de CEPs, com as posições correspondentes, e uma tabela hash de endereçamento aberto com as alterações mais recentes.
+ * Quando a tabela cresce além de uma fração do array ordenado, as duas partes são intercaladas em novos arrays.
+ * 
+ * Os arrays ordenados nunca são alterados após a criação: os arrays retornados por {@link #getKeys()} e 
+ * {@link #getValues()} após um {@link #merge()} podem ser lidos sem sincronização enquanto o índice continua 
+ * recebendo alterações.
+ * 
+ * Essa classe não é thread-safe.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPDiskStore
+ */
+class CepOffsetIndex {
+	
+	private static final int MIN_OVERLAY_SIZE = 1024;
+	private static final int EMPTY = -1;
+	
+	private int[] keys;
+	private long[] values;
+	private int baseSize;
+	
+	private int[] overlayKeys;
+	private long[] overlayValues;
+	private int overlaySize;
+	
+	private int size;
+	
+	CepOffsetIndex() {
+		this(new int[0], new long[0], 0);
+	}
+	
+	/**
+	 * @param keys CEPs em ordem crescente, sem repetições.
+	 * @param values A posição de cada CEP.
+	 * @param count Número de posições utilizadas dos arrays.
+	 */
+	CepOffsetIndex(int[] keys, long[] values, int count) {
+		this.keys = keys;
+		this.values = values;
+		this.baseSize = count;
+		this.size = count;
+		clearOverlay();
+	}
+	
+	/**
+	 * Retorna a posição do CEP, ou -1 caso o CEP não esteja no índice.
+	 */
+	long get(int key) {
+		if (overlaySize > 0){
+			int slot = find(key);
+			if (overlayKeys[slot] != EMPTY){
+				return overlayValues[slot];
+			}
+		}
+		int i = Arrays.binarySearch(keys, 0, baseSize, key);
+		return i >= 0 ? values[i] : -1;
+	}
+	
+	/**
+	 * Associa a posição ao CEP.
+	 * 
+	 * @return A posição anterior do CEP, ou -1 caso o CEP não estivesse no índice.
+	 */
+	long put(int key, long value) {
+		long previous = get(key);
+		if (previous < 0){
+			size++;
+		}
+		if ((overlaySize + 1) * 2 > overlayKeys.length){
+			resizeOverlay(overlayKeys.length * 2);
+		}
+		int slot = find(key);
+		if (overlayKeys[slot] == EMPTY){
+			overlayKeys[slot] = key;
+			overlaySize++;
+		}
+		overlayValues[slot] = value;
+		if (overlaySize > Math.max(MIN_OVERLAY_SIZE, baseSize / 4)){
+			merge();
+		}
+		return previous;
+	}
+	
+	/**
+	 * Intercala as alterações recentes no array ordenado. Após a chamada, {@link #getKeys()} e {@link #getValues()}
+	 * contêm todo o índice.
+	 */
+	void merge() {
+		if (overlaySize == 0){
+			return;
+		}
+		int[] changed = new int[overlaySize];
+		int n = 0;
+		for (int key : overlayKeys){
+			if (key != EMPTY){
+				changed[n++] = key;
+			}
+		}
+		Arrays.sort(changed);
+		
+		int[] mergedKeys = new int[size];
+		long[] mergedValues = new long[size];
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		while (i < baseSize || j < n){
+			if (j == n || (i < baseSize && keys[i] < changed[j])){
+				mergedKeys[k] = keys[i];
+				mergedValues[k++] = values[i++];
+			}
+			else {
+				if (i < baseSize && keys[i] == changed[j]){
+					i++;
+				}
+				mergedKeys[k] = changed[j];
+				mergedValues[k++] = overlayValues[find(changed[j++])];
+			}
+		}
+		keys = mergedKeys;
+		values = mergedValues;
+		baseSize = k;
+		clearOverlay();
+	}
+	
+	/**
+	 * Retorna o número de CEPs no índice.
+	 */
+	int size() {
+		return size;
+	}
+	
+	/**
+	 * Retorna o número de CEPs utilizados do array ordenado.
+	 */
+	int baseSize() {
+		return baseSize;
+	}
+	
+	/**
+	 * Retorna, em ordem crescente, os CEPs das alterações recentes que ainda não estão no array ordenado. Junto com os
+	 * primeiros {@link #baseSize()} CEPs de {@link #getKeys()}, contém todos os CEPs do índice sem a necessidade de um
+	 * {@link #merge()}. O custo é proporcional apenas às alterações recentes.
+	 */
+	int[] getAddedKeys() {
+		int[] added = new int[size - baseSize];
+		if (added.length > 0){
+			int n = 0;
+			for (int key : overlayKeys){
+				if (key != EMPTY && Arrays.binarySearch(keys, 0, baseSize, key) < 0){
+					added[n++] = key;
+				}
+			}
+			Arrays.sort(added);
+		}
+		return added;
+	}
+	
+	/**
+	 * Retorna os CEPs do array ordenado. Contém todo o índice apenas após um {@link #merge()}.
+	 */
+	int[] getKeys() {
+		return keys;
+	}
+	
+	/**
+	 * Retorna as posições do array ordenado, na mesma ordem de {@link #getKeys()}.
+	 */
+	long[] getValues() {
+		return values;
+	}
+	
+	private int find(int key) {
+		int mask = overlayKeys.length - 1;
+		int h = key * 0x9E3779B9;
+		int slot = (h ^ (h >>> 16)) & mask;
+		while (overlayKeys[slot] != EMPTY && overlayKeys[slot] != key){
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+	
+	private void clearOverlay() {
+		overlayKeys = new int[16];
+		overlayValues = new long[16];
+		Arrays.fill(overlayKeys, EMPTY);
+		overlaySize = 0;
+	}
+	
+	private void resizeOverlay(int capacity) {
+		int[] oldKeys = overlayKeys;
+		long[] oldValues = overlayValues;
+		overlayKeys = new int[capacity];
+		overlayValues = new long[capacity];
+		Arrays.fill(overlayKeys, EMPTY);
+		for (int i = 0; i < oldKeys.length; i++){
+			if (oldKeys[i] != EMPTY){
+				int slot = find(oldKeys[i]);
+				overlayKeys[slot] = oldKeys[i];
+				overlayValues[slot] = oldValues[i];
+			}
+		}
+	}
+
+}
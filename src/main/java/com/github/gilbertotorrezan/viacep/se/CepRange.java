@@ -0,0 +1,215 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.Serializable;
+import java.nio.IntBuffer;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+
+/**
+ * Intervalo de CEPs, utilizado nas consultas de um {@link CepRangeIndex}. 
+ * 
+ * Os dígitos do CEP são hierárquicos - o primeiro dígito identifica a região, o segundo a sub-região, e assim por 
+ * diante - então as consultas por região ou setor são consultas por prefixo: {@link #prefix(CharSequence)} com
+ * "2" corresponde à região 2 (CEPs 20000-000 a 29999-999), e com "01310-xxx" aos CEPs 01310-000 a 01310-999.
+ * 
+ * Instâncias dessa classe são imutáveis.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+public final class CepRange implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private static final int[] POWERS = {1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000};
+	
+	private final int first;
+	private final int last;
+	
+	private CepRange(int first, int last) {
+		this.first = first;
+		this.last = last;
+	}
+	
+	/**
+	 * Retorna o intervalo entre os CEPs informados, inclusive.
+	 * 
+	 * @throws IllegalArgumentException caso <code>first</code> seja maior do que <code>last</code>.
+	 */
+	public static CepRange of(Cep first, Cep last) {
+		if (first.intValue() > last.intValue()){
+			throw new IllegalArgumentException("Intervalo de CEPs inválido: " + first.format() + " a " + last.format());
+		}
+		return new CepRange(first.intValue(), last.intValue());
+	}
+	
+	/**
+	 * Retorna o intervalo dos CEPs que começam com os dígitos informados. Caracteres que não são dígitos são ignorados,
+	 * então "01310", "01310-" e "01310-xxx" são equivalentes.
+	 * 
+	 * @throws IllegalArgumentException caso o prefixo não possua de 1 a 8 dígitos.
+	 */
+	public static CepRange prefix(CharSequence prefix) {
+		int value = 0;
+		int digits = 0;
+		for (int i = 0; i < prefix.length(); i++){
+			int digit = Character.digit(prefix.charAt(i), 10);
+			if (digit >= 0){
+				if (++digits > 8){
+					break;
+				}
+				value = value * 10 + digit;
+			}
+		}
+		if (digits < 1 || digits > 8){
+			throw new IllegalArgumentException("Prefixo de CEP inválido - deve conter de 1 a 8 dígitos: " + prefix);
+		}
+		int width = POWERS[8 - digits];
+		return new CepRange(value * width, value * width + width - 1);
+	}
+	
+	/**
+	 * Retorna o intervalo de todos os CEPs.
+	 */
+	public static CepRange all() {
+		return new CepRange(0, Cep.MAX_VALUE);
+	}
+	
+	/**
+	 * Retorna o primeiro CEP do intervalo.
+	 */
+	public Cep getFirst() {
+		return Cep.valueOf(first);
+	}
+	
+	/**
+	 * Retorna o último CEP do intervalo (inclusive).
+	 */
+	public Cep getLast() {
+		return Cep.valueOf(last);
+	}
+	
+	/**
+	 * Retorna se o CEP pertence ao intervalo.
+	 */
+	public boolean contains(Cep cep) {
+		return cep.intValue() >= first && cep.intValue() <= last;
+	}
+	
+	/**
+	 * Método interno que retorna o número de CEPs do intervalo presentes em um array ordenado de CEPs.
+	 */
+	int count(IntBuffer ceps) {
+		return end(ceps) - start(ceps);
+	}
+	
+	/**
+	 * Método interno que retorna a posição do primeiro CEP do intervalo em um array ordenado de CEPs.
+	 */
+	int start(IntBuffer ceps) {
+		return lowerBound(ceps, 0, ceps.limit(), first);
+	}
+	
+	/**
+	 * Método interno que retorna a posição seguinte à do último CEP do intervalo em um array ordenado de CEPs.
+	 */
+	int end(IntBuffer ceps) {
+		return lowerBound(ceps, 0, ceps.limit(), last + 1);
+	}
+	
+	/**
+	 * Método interno que conta os CEPs do intervalo presentes em um array ordenado de CEPs, agrupados pelos 
+	 * <code>digits</code> primeiros dígitos. São feitas apenas buscas binárias: o custo é proporcional ao número de 
+	 * prefixos encontrados, e não ao número de CEPs.
+	 * 
+	 * @see CepRangeIndex#countByPrefix(CepRange, int)
+	 */
+	SortedMap<String, Integer> countByPrefix(IntBuffer ceps, int digits) {
+		if (digits < 1 || digits > 8){
+			throw new IllegalArgumentException("O número de dígitos do prefixo deve estar entre 1 e 8: " + digits);
+		}
+		int width = POWERS[8 - digits];
+		SortedMap<String, Integer> counts = new TreeMap<String, Integer>();
+		int end = end(ceps);
+		int i = start(ceps);
+		while (i < end){
+			int prefix = ceps.get(i) / width;
+			int next = lowerBound(ceps, i, end, (prefix + 1) * width);
+			counts.put(Cep.valueOf(prefix * width).toString().substring(0, digits), next - i);
+			i = next;
+		}
+		return counts;
+	}
+	
+	/**
+	 * Retorna a posição do primeiro valor maior ou igual a <code>key</code> entre as posições <code>from</code> 
+	 * (inclusive) e <code>to</code> (exclusive), ou <code>to</code> caso não exista.
+	 */
+	private static int lowerBound(IntBuffer ceps, int from, int to, int key) {
+		int low = from;
+		int high = to;
+		while (low < high){
+			int mid = (low + high) >>> 1;
+			if (ceps.get(mid) < key){
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+	
+	@Override
+	public int hashCode() {
+		return 31 * first + last;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj){
+			return true;
+		}
+		if (!(obj instanceof CepRange)){
+			return false;
+		}
+		CepRange other = (CepRange) obj;
+		return first == other.first && last == other.last;
+	}
+	
+	/**
+	 * Retorna o intervalo no formato "01310-000..01310-999".
+	 */
+	@Override
+	public String toString() {
+		return getFirst().format() + ".." + getLast().format();
+	}
+
+}
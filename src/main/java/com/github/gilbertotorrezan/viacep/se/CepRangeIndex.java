@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.SortedMap;
+
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Índice local de endereços ordenado por CEP, que responde a consultas por intervalo e por prefixo de CEP (p.e. todos
+ * os endereços conhecidos da região 2, ou do setor 01310-xxx) sem percorrer todos os endereços.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see CepRange
+ * @see ViaCEPOfflineDatabase
+ * @see ViaCEPDiskStore
+ */
+public interface CepRangeIndex {
+	
+	/**
+	 * Retorna o número de CEPs do intervalo presentes no índice.
+	 */
+	int count(CepRange range);
+	
+	/**
+	 * Retorna o número de CEPs do intervalo presentes no índice, agrupados pelos <code>digits</code> primeiros dígitos
+	 * do CEP. Por exemplo, com o intervalo {@link CepRange#all()} e <code>digits</code> = 1, retorna o número de CEPs 
+	 * de cada região: <code>{"0"=120, "2"=35, ...}</code>. Prefixos sem nenhum CEP não são incluídos.
+	 * 
+	 * @param digits Número de dígitos dos prefixos, de 1 a 8.
+	 * @throws IllegalArgumentException caso <code>digits</code> não esteja entre 1 e 8.
+	 */
+	SortedMap<String, Integer> countByPrefix(CepRange range, int digits);
+	
+	/**
+	 * Envia ao handler os endereços do intervalo presentes no índice, em ordem crescente de CEP.
+	 * 
+	 * @return O número de endereços enviados ao handler.
+	 * @throws IOException em casos de erro de acesso ao índice, ou repassado do handler.
+	 */
+	int getEnderecos(CepRange range, ViaCEPEnderecoHandler handler) throws IOException;
+	
+	/**
+	 * Retorna os endereços do intervalo presentes no índice, em ordem crescente de CEP.
+	 * 
+	 * @throws IOException em casos de erro de acesso ao índice.
+	 */
+	List<ViaCEPEndereco> getEnderecos(CepRange range) throws IOException;
+
+}
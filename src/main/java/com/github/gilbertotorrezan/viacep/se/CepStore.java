@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.IOException;
+
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Armazenamento de resultados de consultas por CEP, utilizado como camada intermediária pelo {@link TieredCepResolver}.
+ * 
+ * Diferente de um {@link CepResolver}, um store distingue CEPs que não estão armazenados (<code>null</code>) de CEPs
+ * armazenados como não encontrados ({@link ViaCEPCache.Entry#isNotFound()}).
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPCache
+ * @see ViaCEPDiskStore
+ */
+public interface CepStore {
+	
+	/**
+	 * Retorna a entrada armazenada para o CEP, ou <code>null</code> caso o CEP não esteja armazenado.
+	 * 
+	 * @throws IOException em casos de erro de acesso ao armazenamento.
+	 */
+	ViaCEPCache.Entry get(Cep cep) throws IOException;
+	
+	/**
+	 * Armazena o resultado da consulta de um CEP.
+	 * 
+	 * @param endereco O endereço encontrado, ou <code>null</code> caso o CEP não tenha sido encontrado.
+	 * @throws IOException em casos de erro de acesso ao armazenamento.
+	 */
+	void put(Cep cep, ViaCEPEndereco endereco) throws IOException;
+
+}
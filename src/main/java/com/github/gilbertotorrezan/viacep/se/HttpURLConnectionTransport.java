@@ -0,0 +1,345 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Implementação padrão de {@link ViaCEPTransport}, baseada em {@link HttpURLConnection}.
+ * 
+ * As conexões não são fechadas após cada consulta: o corpo da resposta é consumido até o fim quando o stream
+ * é fechado, o que permite que a JVM devolva o socket ao seu cache de conexões keep-alive e o reutilize nas
+ * próximas consultas ao mesmo host (evitando novos handshakes TCP e TLS).
+ * 
+ * O número de conexões simultâneas por host pode ser limitado por {@link #HttpURLConnectionTransport(int)} (por padrão 
+ * não há limite). Chamadas que excedam o limite aguardam até que uma conexão seja liberada, por no máximo 
+ * {@link #getConnectTimeout()}, e então falham com {@link ViaCEPConnectionUnavailableException}. A quantidade de conexões ociosas mantidas pela JVM
+ * e o tempo até que sejam descartadas são controlados pelas propriedades de sistema <code>http.keepAlive</code> e
+ * <code>http.maxConnections</code>, e pelo cabeçalho <code>Keep-Alive</code> enviado pelo servidor.
+ * 
+ * Todas as conexões HTTPS de um mesmo transport utilizam o mesmo {@link SSLSocketFactory}, de forma que as sessões
+ * TLS possam ser retomadas entre conexões.
+ * 
+ * As respostas são solicitadas compactadas (<code>Accept-Encoding: gzip, deflate</code>) e descompactadas à medida
+ * que são lidas, o que reduz o volume transferido principalmente nas consultas por logradouro.
+ * 
+ * O {@link HttpURLConnection} não expõe as fases da conexão separadamente: o tempo informado em 
+ * {@link ViaCEPInstrumentation#onConnect(long)} inclui a resolução de DNS e os handshakes TCP e TLS.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+public class HttpURLConnectionTransport implements ViaCEPTransport {
+
+	/**
+	 * Número máximo padrão de conexões simultâneas por host: sem limite.
+	 */
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = Integer.MAX_VALUE;
+
+	/**
+	 * Tempo limite padrão, em milissegundos, para estabelecer uma conexão: 5 segundos.
+	 */
+	public static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+
+	/**
+	 * Tempo limite padrão, em milissegundos, de espera por dados da resposta: 10 segundos.
+	 */
+	public static final int DEFAULT_READ_TIMEOUT = 10000;
+
+	protected final ConcurrentMap<String, Semaphore> permits = new ConcurrentHashMap<String, Semaphore>();
+	protected int maxConnectionsPerHost;
+	protected SSLSocketFactory sslSocketFactory;
+	protected int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+	protected int readTimeout = DEFAULT_READ_TIMEOUT;
+	protected boolean compression = true;
+
+	/**
+	 * Construtor padrão, sem limite de conexões simultâneas por host.
+	 */
+	public HttpURLConnectionTransport() {
+		this(DEFAULT_MAX_CONNECTIONS_PER_HOST);
+	}
+
+	/**
+	 * Construtor que permite definir o número máximo de conexões simultâneas por host.
+	 */
+	public HttpURLConnectionTransport(int maxConnectionsPerHost) {
+		if (maxConnectionsPerHost < 1){
+			throw new IllegalArgumentException("O número máximo de conexões por host deve ser positivo: " + maxConnectionsPerHost);
+		}
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+		this.sslSocketFactory = HttpsURLConnection.getDefaultSSLSocketFactory();
+	}
+
+	@Override
+	public ViaCEPResponse get(String urlString, ViaCEPValidators validators, ViaCEPInstrumentation instrumentation) throws IOException {
+		URL url = new URL(urlString);
+		Semaphore semaphore = getPermits(url);
+		try {
+			if (connectTimeout > 0){
+				if (!semaphore.tryAcquire(connectTimeout, TimeUnit.MILLISECONDS)){
+					throw new ViaCEPConnectionUnavailableException("Tempo limite excedido enquanto aguardava uma conexão livre para " + url.getHost());
+				}
+			}
+			else {
+				semaphore.acquire();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrompido enquanto aguardava uma conexão livre para " + url.getHost());
+		}
+
+		boolean success = false;
+		InputStream body = null;
+		try {
+			HttpURLConnection urlConnection = openConnection(url);
+			if (compression){
+				urlConnection.setRequestProperty("Accept-Encoding", "gzip, deflate");
+			}
+			if (validators != null){
+				if (validators.getEtag() != null){
+					urlConnection.setRequestProperty("If-None-Match", validators.getEtag());
+				}
+				if (validators.getLastModified() != null){
+					urlConnection.setRequestProperty("If-Modified-Since", validators.getLastModified());
+				}
+			}
+			long start = System.nanoTime();
+			urlConnection.connect();
+			long connected = System.nanoTime();
+			instrumentation.onConnect(connected - start);
+			
+			int statusCode;
+			InputStream in;
+			try {
+				statusCode = urlConnection.getResponseCode();
+				instrumentation.onFirstByte(statusCode, System.nanoTime() - connected);
+				if (statusCode >= 400){
+					throw new ViaCEPHttpException(statusCode, urlString);
+				}
+				in = urlConnection.getInputStream();
+			} catch (IOException e) {
+				drain(urlConnection.getErrorStream());
+				throw e;
+			}
+			body = new ConnectionInputStream(in, semaphore);
+			
+			ViaCEPValidators responseValidators = ViaCEPValidators.of(urlConnection.getHeaderField("ETag"), 
+					urlConnection.getHeaderField("Last-Modified"));
+			if (statusCode == ViaCEPResponse.NOT_MODIFIED){
+				//respostas 304 não possuem corpo, e podem omitir os validadores
+				success = true;
+				return new ViaCEPResponse(statusCode, body, responseValidators == null ? validators : responseValidators);
+			}
+			String encoding = urlConnection.getContentEncoding();
+			if ("gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)){
+				body = new GZIPInputStream(body);
+			}
+			else if ("deflate".equalsIgnoreCase(encoding)){
+				body = new InflaterInputStream(body);
+			}
+			success = true;
+			return new ViaCEPResponse(statusCode, body, responseValidators);
+		}
+		finally {
+			if (!success){
+				if (body != null){
+					//o fechamento do stream libera a conexão
+					body.close();
+				}
+				else {
+					semaphore.release();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Método interno que abre e configura a conexão para a URL informada.
+	 */
+	protected HttpURLConnection openConnection(URL url) throws IOException {
+		HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
+		urlConnection.setConnectTimeout(connectTimeout);
+		urlConnection.setReadTimeout(readTimeout);
+		if (urlConnection instanceof HttpsURLConnection && sslSocketFactory != null){
+			((HttpsURLConnection) urlConnection).setSSLSocketFactory(sslSocketFactory);
+		}
+		return urlConnection;
+	}
+
+	/**
+	 * Método interno que retorna o controle de conexões simultâneas para o host da URL.
+	 */
+	protected Semaphore getPermits(URL url) {
+		String key = url.getProtocol() + "://" + url.getAuthority();
+		Semaphore semaphore = permits.get(key);
+		if (semaphore == null){
+			semaphore = new Semaphore(maxConnectionsPerHost);
+			Semaphore existing = permits.putIfAbsent(key, semaphore);
+			if (existing != null){
+				semaphore = existing;
+			}
+		}
+		return semaphore;
+	}
+
+	/**
+	 * Consome e fecha o stream, permitindo que a conexão subjacente seja reutilizada.
+	 */
+	protected static void drain(InputStream in) {
+		if (in == null){
+			return;
+		}
+		try {
+			byte[] buffer = new byte[512];
+			while (in.read(buffer) != -1){
+				//descarta o restante do corpo
+			}
+		} catch (IOException e) {
+			//a conexão será descartada pela JVM
+		}
+		finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+				//ignora
+			}
+		}
+	}
+
+	/**
+	 * Retorna o número máximo de conexões simultâneas por host. Por padrão não há limite 
+	 * ({@link #DEFAULT_MAX_CONNECTIONS_PER_HOST}).
+	 */
+	public int getMaxConnectionsPerHost() {
+		return maxConnectionsPerHost;
+	}
+
+	/**
+	 * Retorna o tempo limite, em milissegundos, para estabelecer uma conexão. Por padrão é {@value #DEFAULT_CONNECT_TIMEOUT}.
+	 */
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	/**
+	 * Seta o tempo limite, em milissegundos, para estabelecer uma conexão (ou aguardar uma conexão livre). Use 0 para não utilizar tempo limite.
+	 */
+	public void setConnectTimeout(int connectTimeout) {
+		if (connectTimeout < 0){
+			throw new IllegalArgumentException("O tempo limite não pode ser negativo: " + connectTimeout);
+		}
+		this.connectTimeout = connectTimeout;
+	}
+
+	/**
+	 * Retorna o tempo limite, em milissegundos, de espera por dados da resposta. Por padrão é {@value #DEFAULT_READ_TIMEOUT}.
+	 */
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	/**
+	 * Seta o tempo limite, em milissegundos, de espera por dados da resposta (incluindo a espera pelos cabeçalhos). 
+	 * Use 0 para não utilizar tempo limite.
+	 */
+	public void setReadTimeout(int readTimeout) {
+		if (readTimeout < 0){
+			throw new IllegalArgumentException("O tempo limite não pode ser negativo: " + readTimeout);
+		}
+		this.readTimeout = readTimeout;
+	}
+
+	/**
+	 * Retorna se as respostas são solicitadas compactadas (gzip ou deflate). Por padrão é <code>true</code>.
+	 */
+	public boolean isCompression() {
+		return compression;
+	}
+
+	/**
+	 * Seta se as respostas devem ser solicitadas compactadas (gzip ou deflate).
+	 */
+	public void setCompression(boolean compression) {
+		this.compression = compression;
+	}
+
+	/**
+	 * Retorna o {@link SSLSocketFactory} utilizado nas conexões HTTPS.
+	 */
+	public SSLSocketFactory getSSLSocketFactory() {
+		return sslSocketFactory;
+	}
+
+	/**
+	 * Seta o {@link SSLSocketFactory} utilizado nas conexões HTTPS. Por padrão é {@link HttpsURLConnection#getDefaultSSLSocketFactory()}.
+	 */
+	public void setSSLSocketFactory(SSLSocketFactory sslSocketFactory) {
+		this.sslSocketFactory = sslSocketFactory;
+	}
+
+	/**
+	 * Stream que, ao ser fechado, consome o restante da resposta e libera a conexão para o próximo uso.
+	 */
+	protected static class ConnectionInputStream extends FilterInputStream {
+
+		private final Semaphore semaphore;
+		private boolean closed;
+
+		protected ConnectionInputStream(InputStream in, Semaphore semaphore) {
+			super(in);
+			this.semaphore = semaphore;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed){
+				return;
+			}
+			closed = true;
+			try {
+				drain(in);
+			}
+			finally {
+				semaphore.release();
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * {@link CepResolver} que consulta uma sequência de camadas de armazenamento, da mais rápida para a mais lenta, antes
+ * de consultar a origem (normalmente o {@link ViaCEPClient}).
+ * 
+ * Resultados encontrados em uma camada são gravados em todas as camadas anteriores, e resultados obtidos da origem
+ * são gravados em todas as camadas. Exemplo, com cache em memória e em disco:
+ * 
+ * <pre>
+ * <code>
+ * CepResolver resolver = new TieredCepResolver(new ViaCEPClient(), new ViaCEPCache(), new ViaCEPDiskStore(new File("ceps.log")));
+ * ViaCEPEndereco endereco = resolver.getEndereco(Cep.parse("01311-000"));
+ * </code>
+ * </pre>
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+public class TieredCepResolver implements CepResolver {
+	
+	protected final CepResolver origin;
+	protected final List<CepStore> tiers;
+	
+	/**
+	 * Construtor que define a origem dos endereços e as camadas de armazenamento.
+	 * 
+	 * @param origin A origem dos endereços, consultada quando nenhuma camada possui o CEP.
+	 * @param tiers As camadas de armazenamento, da mais rápida para a mais lenta.
+	 */
+	public TieredCepResolver(CepResolver origin, CepStore... tiers) {
+		if (origin == null){
+			throw new IllegalArgumentException("A origem dos endereços é obrigatória");
+		}
+		this.origin = origin;
+		this.tiers = Collections.unmodifiableList(new ArrayList<CepStore>(Arrays.asList(tiers)));
+	}
+	
+	@Override
+	public ViaCEPEndereco getEndereco(Cep cep) throws IOException {
+		for (int i = 0; i < tiers.size(); i++){
+			ViaCEPCache.Entry entry = tiers.get(i).get(cep);
+			if (entry != null){
+				writeBack(cep, entry.getEndereco(), i);
+				return entry.getEndereco();
+			}
+		}
+		ViaCEPEndereco endereco = origin.getEndereco(cep);
+		writeBack(cep, endereco, tiers.size());
+		return endereco;
+	}
+	
+	/**
+	 * Método interno que grava o resultado nas camadas anteriores à camada que o encontrou.
+	 */
+	protected void writeBack(Cep cep, ViaCEPEndereco endereco, int tier) throws IOException {
+		for (int i = 0; i < tier; i++){
+			tiers.get(i).put(cep, endereco);
+		}
+	}
+	
+	/**
+	 * Retorna a origem dos endereços.
+	 */
+	public CepResolver getOrigin() {
+		return origin;
+	}
+	
+	/**
+	 * Retorna as camadas de armazenamento, da mais rápida para a mais lenta.
+	 */
+	public List<CepStore> getTiers() {
+		return tiers;
+	}
+
+}
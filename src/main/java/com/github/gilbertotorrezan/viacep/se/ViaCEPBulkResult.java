@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Resultado de uma consulta em lote feita por {@link ViaCEPClient#resolveAll(java.util.Collection)}.
+ * 
+ * Cada CEP distinto da entrada aparece em exatamente um dos conjuntos: endereços encontrados, CEPs não encontrados,
+ * falhas ou CEPs inválidos.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+public class ViaCEPBulkResult {
+	
+	private final Map<Cep, ViaCEPEndereco> enderecos = new HashMap<Cep, ViaCEPEndereco>();
+	private final Set<Cep> notFound = new HashSet<Cep>();
+	private final Map<Cep, Exception> failures = new HashMap<Cep, Exception>();
+	private final List<String> invalid = new ArrayList<String>();
+	
+	synchronized void addEndereco(Cep cep, ViaCEPEndereco endereco) {
+		if (endereco == null){
+			notFound.add(cep);
+		}
+		else {
+			enderecos.put(cep, endereco);
+		}
+	}
+	
+	synchronized void addFailure(Cep cep, Exception exception) {
+		failures.put(cep, exception);
+	}
+	
+	synchronized void addInvalid(String cep) {
+		invalid.add(cep);
+	}
+	
+	/**
+	 * Retorna o endereço encontrado para o CEP informado, ou <code>null</code> caso o CEP não tenha sido encontrado, 
+	 * seja inválido ou sua consulta tenha falhado.
+	 */
+	public synchronized ViaCEPEndereco get(String cep) {
+		int value = Cep.toInt(cep);
+		if (value < 0){
+			return null;
+		}
+		return enderecos.get(Cep.valueOf(value));
+	}
+	
+	/**
+	 * Retorna os endereços encontrados, indexados por CEP.
+	 */
+	public synchronized Map<Cep, ViaCEPEndereco> getEnderecos() {
+		return Collections.unmodifiableMap(new HashMap<Cep, ViaCEPEndereco>(enderecos));
+	}
+	
+	/**
+	 * Retorna os CEPs que não foram encontrados pelo web service.
+	 */
+	public synchronized Set<Cep> getNotFound() {
+		return Collections.unmodifiableSet(new HashSet<Cep>(notFound));
+	}
+	
+	/**
+	 * Retorna os CEPs cuja consulta falhou (p.e. por erros de conexão), com o respectivo erro.
+	 */
+	public synchronized Map<Cep, Exception> getFailures() {
+		return Collections.unmodifiableMap(new HashMap<Cep, Exception>(failures));
+	}
+	
+	/**
+	 * Retorna os valores da entrada que não são CEPs válidos (que não contém 8 dígitos).
+	 */
+	public synchronized List<String> getInvalid() {
+		return Collections.unmodifiableList(new ArrayList<String>(invalid));
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return "ViaCEPBulkResult [enderecos=" + enderecos.size() + ", notFound=" + notFound.size() + ", failures=" + failures.size()
+				+ ", invalid=" + invalid.size() + "]";
+	}
+
+}
@@ -0,0 +1,336 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Cache em memória dos endereços consultados pelo {@link ViaCEPClient}, indexado por {@link Cep}.
+ * 
+ * O cache é limitado em número de entradas, descartando as menos recentemente utilizadas (LRU) quando o limite é
+ * atingido. Cada entrada expira após um tempo de vida (TTL). CEPs não encontrados também são armazenados, com um
+ * tempo de vida separado (normalmente menor).
+ * 
+ * Entradas expiradas que possuem {@link ViaCEPValidators} (ETag ou Last-Modified) não são removidas ao serem consultadas: 
+ * elas continuam disponíveis através de {@link #getStale(Cep)} para que o {@link ViaCEPClient} as revalide com uma 
+ * requisição condicional, e são descartadas normalmente quando o limite de entradas é atingido.
+ * 
+ * Essa classe é thread-safe. Os objetos {@link ViaCEPEndereco} armazenados são compartilhados entre todos os
+ * chamadores e não devem ser alterados.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ * @see ViaCEPClient#setCache(ViaCEPCache)
+ */
+public class ViaCEPCache implements CepStore {
+
+	/**
+	 * Número máximo padrão de entradas no cache.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 10000;
+
+	/**
+	 * Tempo de vida padrão, em milissegundos, de endereços encontrados: 1 dia.
+	 */
+	public static final long DEFAULT_TTL = TimeUnit.DAYS.toMillis(1);
+
+	/**
+	 * Tempo de vida padrão, em milissegundos, de CEPs não encontrados: 10 minutos.
+	 */
+	public static final long DEFAULT_NOT_FOUND_TTL = TimeUnit.MINUTES.toMillis(10);
+
+	protected final int maxSize;
+	protected final long ttlNanos;
+	protected final long notFoundTtlNanos;
+	protected final LinkedHashMap<Cep, Entry> entries;
+
+	protected final AtomicLong hits = new AtomicLong();
+	protected final AtomicLong misses = new AtomicLong();
+	protected final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Construtor padrão. Utiliza {@link #DEFAULT_MAX_SIZE}, {@link #DEFAULT_TTL} e {@link #DEFAULT_NOT_FOUND_TTL}.
+	 */
+	public ViaCEPCache() {
+		this(DEFAULT_MAX_SIZE, DEFAULT_TTL, DEFAULT_NOT_FOUND_TTL, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Construtor que permite configurar o tamanho e os tempos de vida das entradas.
+	 * 
+	 * @param maxSize Número máximo de entradas no cache.
+	 * @param ttl Tempo de vida de endereços encontrados.
+	 * @param notFoundTtl Tempo de vida de CEPs não encontrados. Use 0 para não armazená-los.
+	 * @param unit Unidade de tempo de <code>ttl</code> e <code>notFoundTtl</code>.
+	 */
+	public ViaCEPCache(int maxSize, long ttl, long notFoundTtl, TimeUnit unit) {
+		if (maxSize < 1){
+			throw new IllegalArgumentException("O tamanho máximo do cache deve ser positivo: " + maxSize);
+		}
+		if (ttl < 0 || notFoundTtl < 0){
+			throw new IllegalArgumentException("Os tempos de vida não podem ser negativos: " + ttl + ", " + notFoundTtl);
+		}
+		this.maxSize = maxSize;
+		this.ttlNanos = unit.toNanos(ttl);
+		this.notFoundTtlNanos = unit.toNanos(notFoundTtl);
+		this.entries = new LinkedHashMap<Cep, ViaCEPCache.Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Cep, ViaCEPCache.Entry> eldest) {
+				if (size() > ViaCEPCache.this.maxSize){
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Retorna a entrada armazenada para o CEP, ou <code>null</code> caso o CEP não esteja no cache ou a entrada tenha expirado.
+	 */
+	@Override
+	public Entry get(Cep cep) {
+		long now = now();
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(cep);
+			if (entry != null && entry.isExpired(now)){
+				if (entry.getValidators() == null){
+					entries.remove(cep);
+					evictions.incrementAndGet();
+				}
+				entry = null;
+			}
+		}
+		if (entry == null){
+			misses.incrementAndGet();
+		}
+		else {
+			hits.incrementAndGet();
+		}
+		return entry;
+	}
+
+	/**
+	 * Retorna a entrada armazenada para o CEP mesmo que ela tenha expirado, desde que possua {@link ViaCEPValidators}
+	 * para revalidação. Retorna <code>null</code> caso contrário. Os contadores não são alterados.
+	 */
+	public Entry getStale(Cep cep) {
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(cep);
+		}
+		return entry == null || entry.getValidators() == null ? null : entry;
+	}
+
+	/**
+	 * Retorna se a entrada já consumiu a proporção <code>refreshAfter</code> do seu tempo de vida, e deve ser atualizada
+	 * antecipadamente.
+	 * 
+	 * @see ViaCEPRefreshAhead
+	 */
+	public boolean isRefreshDue(Entry entry, double refreshAfter) {
+		long ttl = entry.isNotFound() ? notFoundTtlNanos : ttlNanos;
+		return entry.expiresAt - now() <= (long) (ttl * (1 - refreshAfter));
+	}
+
+	/**
+	 * Armazena o resultado da consulta de um CEP.
+	 * 
+	 * @param endereco O endereço encontrado, ou <code>null</code> caso o CEP não tenha sido encontrado.
+	 */
+	@Override
+	public void put(Cep cep, ViaCEPEndereco endereco) {
+		put(cep, endereco, null);
+	}
+
+	/**
+	 * Armazena o resultado da consulta de um CEP, junto dos validadores da resposta.
+	 * 
+	 * @param endereco O endereço encontrado, ou <code>null</code> caso o CEP não tenha sido encontrado.
+	 * @param validators Os validadores da resposta, ou <code>null</code>.
+	 */
+	public void put(Cep cep, ViaCEPEndereco endereco, ViaCEPValidators validators) {
+		long ttl = endereco == null ? notFoundTtlNanos : ttlNanos;
+		if (ttl == 0){
+			return;
+		}
+		Entry entry = new Entry(endereco, validators, now() + ttl);
+		synchronized (entries) {
+			entries.put(cep, entry);
+		}
+	}
+
+	/**
+	 * Remove o CEP do cache.
+	 */
+	public void invalidate(Cep cep) {
+		synchronized (entries) {
+			entries.remove(cep);
+		}
+	}
+
+	/**
+	 * Remove todas as entradas do cache. Os contadores não são alterados.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * Remove as entradas expiradas do cache. Assim como em {@link #get(Cep)}, entradas expiradas que possuem 
+	 * {@link ViaCEPValidators} são mantidas para revalidação. Entradas expiradas também são removidas ao serem 
+	 * consultadas, então a chamada desse método é opcional.
+	 */
+	public void cleanUp() {
+		long now = now();
+		synchronized (entries) {
+			Iterator<Entry> iterator = entries.values().iterator();
+			while (iterator.hasNext()){
+				Entry entry = iterator.next();
+				if (entry.isExpired(now) && entry.getValidators() == null){
+					iterator.remove();
+					evictions.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Retorna o número de entradas no cache, incluindo entradas expiradas que ainda não foram removidas.
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Número de consultas que encontraram uma entrada válida no cache.
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * Número de consultas que não encontraram uma entrada válida no cache.
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Número de entradas removidas por falta de espaço ou por expiração.
+	 */
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/**
+	 * Retorna o número máximo de entradas no cache.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Método interno que retorna o tempo atual, em nanossegundos.
+	 */
+	protected long now() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Entrada armazenada no cache, ou em outro {@link CepStore}.
+	 */
+	public static class Entry {
+
+		private final ViaCEPEndereco endereco;
+		private final ViaCEPValidators validators;
+		private final long expiresAt;
+
+		/**
+		 * Construtor utilizado por {@link CepStore}s cujas entradas não expiram.
+		 */
+		public Entry(ViaCEPEndereco endereco) {
+			this(endereco, null, 0);
+		}
+
+		/**
+		 * Construtor utilizado por {@link CepStore}s cujas entradas não expiram, com os validadores da resposta.
+		 */
+		public Entry(ViaCEPEndereco endereco, ViaCEPValidators validators) {
+			this(endereco, validators, 0);
+		}
+
+		protected Entry(ViaCEPEndereco endereco, long expiresAt) {
+			this(endereco, null, expiresAt);
+		}
+
+		protected Entry(ViaCEPEndereco endereco, ViaCEPValidators validators, long expiresAt) {
+			this.endereco = endereco;
+			this.validators = validators;
+			this.expiresAt = expiresAt;
+		}
+
+		/**
+		 * Retorna o endereço armazenado, ou <code>null</code> caso o CEP não tenha sido encontrado.
+		 */
+		public ViaCEPEndereco getEndereco() {
+			return endereco;
+		}
+
+		/**
+		 * Retorna se a entrada representa um CEP não encontrado.
+		 */
+		public boolean isNotFound() {
+			return endereco == null;
+		}
+
+		/**
+		 * Retorna os validadores (ETag ou Last-Modified) da resposta que originou a entrada, ou <code>null</code>.
+		 */
+		public ViaCEPValidators getValidators() {
+			return validators;
+		}
+
+		protected boolean isExpired(long now) {
+			return now - expiresAt >= 0;
+		}
+	}
+
+}
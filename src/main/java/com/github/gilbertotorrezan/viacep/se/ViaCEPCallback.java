@@ -0,0 +1,56 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+/**
+ * Callback utilizado nas consultas assíncronas do {@link ViaCEPClient}. É o equivalente, para Java SE e Android,
+ * do <code>MethodCallback</code> utilizado pelo client GWT.
+ * 
+ * Os métodos são chamados pela thread que executou a consulta, e não pela thread que a iniciou. Quando a consulta
+ * excede o tempo limite, {@link #onFailure(Throwable)} é chamado por outra thread do 
+ * {@link ViaCEPClient#getExecutor() executor do client}.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPClient#getEnderecoAsync(String, ViaCEPCallback)
+ */
+public interface ViaCEPCallback<T> {
+	
+	/**
+	 * Chamado quando a consulta é concluída com sucesso.
+	 * 
+	 * @param response O resultado da consulta. Para consultas por CEP, <code>null</code> indica que o CEP não foi encontrado.
+	 */
+	void onSuccess(T response);
+	
+	/**
+	 * Chamado quando a consulta falha. Erros de validação são recebidos como {@link IllegalArgumentException}, erros de conexão
+	 * como {@link java.io.IOException}, consultas que excederam o tempo limite como {@link java.util.concurrent.TimeoutException}
+	 * e consultas canceladas como {@link java.util.concurrent.CancellationException}.
+	 */
+	void onFailure(Throwable exception);
+
+}
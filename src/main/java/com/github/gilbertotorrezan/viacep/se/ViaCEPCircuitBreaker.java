@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker para as requisições feitas pelo {@link ViaCEPClient}: após um número de falhas temporárias 
+ * consecutivas (veja {@link ViaCEPRetryPolicy#isTransient(IOException)}), o circuito é aberto e as requisições passam
+ * a falhar imediatamente com {@link ViaCEPCircuitOpenException}, sem aguardar o web service. Após o tempo de abertura,
+ * uma única requisição de teste é permitida: se ela for bem sucedida o circuito é fechado, e caso contrário é aberto novamente.
+ * 
+ * Enquanto o circuito está aberto, as consultas por CEP podem ser respondidas por um {@link CepResolver} alternativo
+ * (veja {@link ViaCEPClient#setFallback(CepResolver)}).
+ * 
+ * Essa classe é thread-safe, e uma mesma instância pode ser compartilhada por vários clients que acessam o mesmo host.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPClient#setCircuitBreaker(ViaCEPCircuitBreaker)
+ */
+public class ViaCEPCircuitBreaker {
+	
+	/**
+	 * Estado do circuito.
+	 */
+	public enum State {
+		/** As requisições são enviadas normalmente. */
+		CLOSED,
+		/** As requisições falham imediatamente. */
+		OPEN,
+		/** Uma requisição de teste está sendo enviada. */
+		HALF_OPEN
+	}
+	
+	/**
+	 * Número padrão de falhas consecutivas que abrem o circuito.
+	 */
+	public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+	
+	/**
+	 * Tempo padrão, em milissegundos, que o circuito permanece aberto: 30 segundos.
+	 */
+	public static final long DEFAULT_OPEN_DURATION = TimeUnit.SECONDS.toMillis(30);
+	
+	protected final int failureThreshold;
+	protected final long openDurationNanos;
+	
+	protected State state = State.CLOSED;
+	protected int failures;
+	protected long openedAt;
+	
+	/**
+	 * Construtor padrão. Utiliza {@link #DEFAULT_FAILURE_THRESHOLD} e {@link #DEFAULT_OPEN_DURATION}.
+	 */
+	public ViaCEPCircuitBreaker() {
+		this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Construtor que permite configurar o número de falhas e o tempo de abertura do circuito.
+	 * 
+	 * @param failureThreshold Número de falhas consecutivas que abrem o circuito.
+	 * @param openDuration Tempo que o circuito permanece aberto antes de permitir uma requisição de teste.
+	 * @param unit Unidade de tempo de <code>openDuration</code>.
+	 */
+	public ViaCEPCircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+		if (failureThreshold < 1){
+			throw new IllegalArgumentException("O número de falhas deve ser positivo: " + failureThreshold);
+		}
+		if (openDuration < 0){
+			throw new IllegalArgumentException("O tempo de abertura não pode ser negativo: " + openDuration);
+		}
+		this.failureThreshold = failureThreshold;
+		this.openDurationNanos = unit.toNanos(openDuration);
+	}
+	
+	/**
+	 * Retorna se uma requisição pode ser enviada. Toda requisição permitida deve ter o seu resultado informado 
+	 * através de {@link #onSuccess()} ou {@link #onError(IOException)}.
+	 */
+	public synchronized boolean allowRequest() {
+		switch (state) {
+		case CLOSED:
+			return true;
+		case OPEN:
+			if (now() - openedAt >= openDurationNanos){
+				state = State.HALF_OPEN;
+				return true;
+			}
+			return false;
+		default:
+			//já existe uma requisição de teste em andamento
+			return false;
+		}
+	}
+	
+	/**
+	 * Informa que uma requisição recebeu resposta do web service.
+	 */
+	public synchronized void onSuccess() {
+		state = State.CLOSED;
+		failures = 0;
+	}
+	
+	/**
+	 * Informa que uma requisição falhou. Apenas erros temporários contam como falhas: respostas HTTP 4xx indicam que o
+	 * web service está respondendo, e requisições interrompidas não alteram o estado do circuito.
+	 */
+	public synchronized void onError(IOException e) {
+		if (ViaCEPRetryPolicy.isTransient(e)){
+			failures++;
+			if (state == State.HALF_OPEN || failures >= failureThreshold){
+				state = State.OPEN;
+				openedAt = now();
+			}
+		}
+		else if (e instanceof ViaCEPHttpException){
+			onSuccess();
+		}
+		else if (state == State.HALF_OPEN){
+			//a requisição de teste não foi concluída: permite uma nova tentativa
+			state = State.OPEN;
+			openedAt = now() - openDurationNanos;
+		}
+	}
+	
+	/**
+	 * Retorna o estado atual do circuito.
+	 */
+	public synchronized State getState() {
+		return state;
+	}
+	
+	/**
+	 * Retorna o número de falhas consecutivas que abrem o circuito.
+	 */
+	public int getFailureThreshold() {
+		return failureThreshold;
+	}
+	
+	/**
+	 * Método interno que retorna o tempo atual, em nanossegundos.
+	 */
+	protected long now() {
+		return System.nanoTime();
+	}
+
+}
@@ -24,20 +24,40 @@
  */
 package com.github.gilbertotorrezan.viacep.se;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.InterruptedIOException;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
 import com.fasterxml.jackson.jr.ob.JSON;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPInstrumentation.Operation;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPInstrumentation.Outcome;
+import com.github.gilbertotorrezan.viacep.shared.Cep;
 import com.github.gilbertotorrezan.viacep.shared.ViaCEPConstants;
 import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
 
 /**
  * Classe de acesso aos web services da ViaCEP para Java SE e Android.
- * Utiliza Jackson-jr para a serialização de JSON para objetos Java.
+ * Utiliza o parser de streaming do Jackson para a desserialização de JSON para objetos Java (veja {@link ViaCEPDecoder}).
  * 
  * @author Gilberto Torrezan Filho
  *
@@ -45,23 +65,83 @@ import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
  * @see https://github.com/FasterXML/jackson-jr
  * @see http://viacep.com.br
  */
-public class ViaCEPClient {
+public class ViaCEPClient implements CepResolver {
+	
+	/**
+	 * Número padrão de consultas simultâneas feitas por {@link #resolveAll(Collection)}.
+	 */
+	public static final int DEFAULT_BULK_PARALLELISM = 4;
+	
+	/**
+	 * Propriedade de sistema que substitui o host padrão dos web services, p.e. 
+	 * <code>-Dviacep.host=http://localhost:8080/ws/</code>.
+	 * 
+	 * @see #setHost(String)
+	 */
+	public static final String HOST_PROPERTY = "viacep.host";
+	
+	/**
+	 * Propriedade de sistema que define o {@link ViaCEPTransport} padrão dos clients: <code>httpclient</code> para o 
+	 * {@link #HTTP_CLIENT_TRANSPORT} (Java 11 ou superior), ou o nome de uma classe com construtor padrão. Quando 
+	 * ausente, é utilizado o {@link HttpURLConnectionTransport}.
+	 * 
+	 * @see #createDefaultTransport()
+	 */
+	public static final String TRANSPORT_PROPERTY = "viacep.transport";
+	
+	/**
+	 * Nome da classe do transport baseado no <code>java.net.http.HttpClient</code>, disponível apenas no Java 11 ou
+	 * superior.
+	 */
+	public static final String HTTP_CLIENT_TRANSPORT = "com.github.gilbertotorrezan.viacep.se.HttpClientTransport";
 	
 	protected boolean usingHTTPS = false;
+	protected String host;
 	protected JSON service;
+	protected ViaCEPDecoder decoder;
+	protected ViaCEPTransport transport;
+	protected ViaCEPCache cache;
+	protected ExecutorService executor;
+	protected ViaCEPRateLimiter rateLimiter;
+	protected ViaCEPConcurrencyLimiter concurrencyLimiter;
+	protected ViaCEPInstrumentation instrumentation = ViaCEPInstrumentation.NOOP;
+	protected ViaCEPRetryPolicy retryPolicy;
+	protected ViaCEPCircuitBreaker circuitBreaker;
+	protected CepResolver fallback;
+	protected ViaCEPHedgingPolicy hedgingPolicy;
+	protected long timeout;
+	protected ViaCEPRefreshAhead refreshAhead;
+	protected ViaCEPSearchIndex searchIndex;
+	protected ViaCEPSearchCache searchCache;
+	protected boolean compact;
+	protected static volatile ViaCEPRateLimiter defaultRateLimiter;
+	protected static volatile ViaCEPConcurrencyLimiter defaultConcurrencyLimiter;
+	
+	protected final ConcurrentMap<Cep, FutureTask<ViaCEPEndereco>> inFlight = new ConcurrentHashMap<Cep, FutureTask<ViaCEPEndereco>>();
+	protected final ConcurrentMap<ViaCEPSearchKey, FutureTask<List<ViaCEPEndereco>>> inFlightSearches = new ConcurrentHashMap<ViaCEPSearchKey, FutureTask<List<ViaCEPEndereco>>>();
 	
 	/**
-	 * Construtor padrão.
+	 * Construtor padrão. Utiliza o {@link ViaCEPStreamingDecoder}.
 	 */
 	public ViaCEPClient(){
-		service = JSON.std;
+		this(JSON.std);
+		this.decoder = new ViaCEPStreamingDecoder();
 	}
 	
 	/**
-	 * Construtor que permite que seja setado um {@link JSON} customizado.
+	 * Construtor que permite que seja setado um {@link JSON} customizado, utilizado através de um {@link ViaCEPJsonDecoder}.
 	 */
 	public ViaCEPClient(JSON service){
+		this(service, createDefaultTransport());
+	}
+	
+	/**
+	 * Construtor que permite que sejam setados um {@link JSON} e um {@link ViaCEPTransport} customizados.
+	 */
+	public ViaCEPClient(JSON service, ViaCEPTransport transport){
 		this.service = service;
+		this.decoder = new ViaCEPJsonDecoder(service);
+		this.transport = transport;
 	}
 
 	/**
@@ -75,38 +155,313 @@ public class ViaCEPClient {
 	 * @throws IllegalArgumentException para CEPs que não possuam 8 dígitos.
 	 */
 	public ViaCEPEndereco getEndereco(String cep) throws IOException {
-		char[] chars = cep.toCharArray();
-		
-		StringBuilder builder = new StringBuilder();
-		for (int i = 0; i< chars.length; i++){
-			if (Character.isDigit(chars[i])){
-				builder.append(chars[i]);
+		Cep parsed;
+		try {
+			parsed = Cep.parse(cep);
+		} catch (IllegalArgumentException e) {
+			getInstrumentation().onLookup(Operation.ENDERECO, Outcome.INVALID, 0);
+			throw e;
+		}
+		return getEndereco(parsed);
+	}
+	
+	/**
+	 * Executa a consulta de endereço a partir de um {@link Cep}.
+	 * 
+	 * Consultas simultâneas para o mesmo CEP são agrupadas: apenas uma requisição é feita ao web service, e todos os
+	 * chamadores recebem o mesmo resultado. Caso a requisição falhe e exista um {@link #getFallback() fallback}
+	 * configurado, o resultado do fallback é retornado (e não é armazenado no cache).
+	 * 
+	 * @return O endereço encontrado para o CEP, ou <code>null</code> caso não tenha sido encontrado.
+	 * @throws IOException em casos de erro de conexão.
+	 */
+	@Override
+	public ViaCEPEndereco getEndereco(final Cep cep) throws IOException {
+		final ViaCEPCache cache = getCache();
+		if (cache != null){
+			ViaCEPCache.Entry entry = cache.get(cep);
+			if (entry != null){
+				ViaCEPRefreshAhead refreshAhead = getRefreshAhead();
+				if (refreshAhead != null && cache.isRefreshDue(entry, refreshAhead.getRefreshAfter())){
+					scheduleRefresh(cep, cache, entry, refreshAhead);
+				}
+				return entry.getEndereco();
 			}
 		}
-		cep = builder.toString();
 		
-		if (cep.length() != 8){
-			throw new IllegalArgumentException("CEP inválido - deve conter 8 dígitos: " + cep);
+		FutureTask<ViaCEPEndereco> task = new FutureTask<ViaCEPEndereco>(new Callable<ViaCEPEndereco>() {
+			@Override
+			public ViaCEPEndereco call() throws Exception {
+				//entradas expiradas com validadores permitem uma requisição condicional
+				ViaCEPCache.Entry stale = cache == null ? null : cache.getStale(cep);
+				ViaCEPCache.Entry entry;
+				try {
+					entry = fetchEntry(cep, stale, getHedgingPolicy());
+				} catch (IOException e) {
+					CepResolver fallback = getFallback();
+					if (fallback == null){
+						throw e;
+					}
+					try {
+						return fallback.getEndereco(cep);
+					} catch (IOException fallbackError) {
+						throw e;
+					}
+				}
+				if (cache != null){
+					cache.put(cep, entry.getEndereco(), entry.getValidators());
+				}
+				return entry.getEndereco();
+			}
+		});
+		FutureTask<ViaCEPEndereco> existing = inFlight.putIfAbsent(cep, task);
+		if (existing == null){
+			try {
+				task.run();
+			}
+			finally {
+				inFlight.remove(cep, task);
+			}
 		}
+		else {
+			task = existing;
+		}
+		return await(task);
+	}
+	
+	/**
+	 * Método interno que agenda a atualização em segundo plano de uma entrada do cache próxima de expirar. A requisição
+	 * é condicional quando a entrada possui {@link ViaCEPValidators}.
+	 */
+	protected void scheduleRefresh(final Cep cep, final ViaCEPCache cache, final ViaCEPCache.Entry entry, ViaCEPRefreshAhead refreshAhead) {
+		refreshAhead.submit(cep, new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				ViaCEPCache.Entry fresh = fetchEntry(cep, entry);
+				cache.put(cep, fresh.getEndereco(), fresh.getValidators());
+				return null;
+			}
+		});
+	}
+	
+	/**
+	 * Executa a consulta em lote de vários CEPs, utilizando {@link #DEFAULT_BULK_PARALLELISM} consultas simultâneas.
+	 * 
+	 * @see #resolveAll(Collection, int)
+	 */
+	public ViaCEPBulkResult resolveAll(Collection<String> ceps) throws InterruptedException {
+		return resolveAll(ceps, DEFAULT_BULK_PARALLELISM);
+	}
+	
+	/**
+	 * Executa a consulta em lote de vários CEPs. Os CEPs são normalizados e cada CEP distinto é consultado apenas uma vez.
+	 * As consultas são feitas utilizando o {@link ExecutorService} do client, e respeitam o cache e o
+	 * {@link ViaCEPRateLimiter} configurados.
+	 * 
+	 * Erros em consultas individuais não interrompem o lote: eles são registrados no resultado.
+	 * 
+	 * @param ceps Os CEPs a serem consultados, em qualquer formato aceito por {@link #getEndereco(String)}.
+	 * @param parallelism Número máximo de consultas simultâneas.
+	 * 
+	 * @return O resultado das consultas, nunca <code>null</code>.
+	 * @throws InterruptedException caso a thread seja interrompida antes da conclusão do lote.
+	 */
+	public ViaCEPBulkResult resolveAll(Collection<String> ceps, int parallelism) throws InterruptedException {
+		if (parallelism < 1){
+			throw new IllegalArgumentException("O número de consultas simultâneas deve ser positivo: " + parallelism);
+		}
+		final ViaCEPBulkResult result = new ViaCEPBulkResult();
+		Set<Cep> distinct = new LinkedHashSet<Cep>();
+		for (String cep : ceps){
+			int value = Cep.toInt(cep);
+			if (value < 0){
+				result.addInvalid(cep);
+			}
+			else {
+				distinct.add(Cep.valueOf(value));
+			}
+		}
+		
+		final Queue<Cep> queue = new ConcurrentLinkedQueue<Cep>(distinct);
+		Runnable worker = new Runnable() {
+			@Override
+			public void run() {
+				Cep cep;
+				while (!Thread.currentThread().isInterrupted() && (cep = queue.poll()) != null){
+					try {
+						result.addEndereco(cep, getEndereco(cep));
+					} catch (IOException e) {
+						result.addFailure(cep, e);
+					} catch (RuntimeException e) {
+						result.addFailure(cep, e);
+					}
+				}
+			}
+		};
 		
+		int workers = Math.min(parallelism, distinct.size());
+		List<Future<?>> futures = new ArrayList<Future<?>>(workers);
+		try {
+			for (int i = 1; i < workers; i++){
+				futures.add(getExecutor().submit(worker));
+			}
+			worker.run();
+			for (Future<?> future : futures){
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Erro inesperado na consulta em lote", e.getCause());
+		}
+		finally {
+			for (Future<?> future : futures){
+				future.cancel(true);
+			}
+		}
+		if (Thread.interrupted()){
+			throw new InterruptedException("Consulta em lote interrompida");
+		}
+		return result;
+	}
+	
+	/**
+	 * Método interno que consulta o web service para um CEP, sem utilizar o cache.
+	 */
+	protected ViaCEPEndereco fetchEndereco(Cep cep) throws IOException {
+		return fetchEntry(cep, null).getEndereco();
+	}
+	
+	/**
+	 * Método interno que consulta o web service para um CEP, sem utilizar o cache. Quando a entrada expirada possui
+	 * {@link ViaCEPValidators}, a requisição é condicional: caso o endereço não tenha sido alterado, o web service 
+	 * responde apenas "304 Not Modified", e o endereço da entrada expirada é reaproveitado sem decodificar nenhum corpo.
+	 * 
+	 * @param stale Entrada expirada do cache para o CEP, ou <code>null</code>.
+	 * @return Uma nova entrada com o resultado da consulta e os validadores da resposta, nunca <code>null</code>.
+	 */
+	protected ViaCEPCache.Entry fetchEntry(Cep cep, ViaCEPCache.Entry stale) throws IOException {
+		return fetchEntry(cep, stale, null);
+	}
+	
+	/**
+	 * Método interno que consulta o web service para um CEP, sem utilizar o cache, de acordo com a 
+	 * {@link ViaCEPHedgingPolicy} informada. A consulta é notificada à {@link ViaCEPInstrumentation} uma única vez,
+	 * mesmo quando uma segunda requisição é enviada.
+	 * 
+	 * @param stale Entrada expirada do cache para o CEP, ou <code>null</code>.
+	 * @param hedgingPolicy A política de requisições extras, ou <code>null</code> para uma única requisição.
+	 * @return Uma nova entrada com o resultado da consulta e os validadores da resposta, nunca <code>null</code>.
+	 */
+	protected ViaCEPCache.Entry fetchEntry(Cep cep, ViaCEPCache.Entry stale, ViaCEPHedgingPolicy hedgingPolicy) throws IOException {
+		long start = System.nanoTime();
+		Outcome outcome = Outcome.IO_ERROR;
+		try {
+			ViaCEPCache.Entry entry = hedgingPolicy == null ? requestEntry(cep, stale) : fetchEntryHedged(cep, stale, hedgingPolicy);
+			outcome = entry.getEndereco() == null ? Outcome.NOT_FOUND : Outcome.FOUND;
+			return entry;
+		} catch (ViaCEPHttpException e) {
+			outcome = Outcome.HTTP_ERROR;
+			throw e;
+		}
+		finally {
+			getInstrumentation().onLookup(Operation.ENDERECO, outcome, System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * Método interno que executa uma única requisição para um CEP, sem notificar a {@link ViaCEPInstrumentation}.
+	 * 
+	 * @see #fetchEntry(Cep, ViaCEPCache.Entry)
+	 */
+	protected ViaCEPCache.Entry requestEntry(Cep cep, ViaCEPCache.Entry stale) throws IOException {
 		String urlString = getHost() + cep + "/json/";
-		URL url = new URL(urlString);
-		HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
+		ViaCEPResponse response = open(urlString, stale == null ? null : stale.getValidators());
 		try {
-			InputStream in = new BufferedInputStream(urlConnection.getInputStream());
-			ViaCEPEndereco obj = getService().beanFrom(ViaCEPEndereco.class, in);
-			if (obj == null || obj.getCep() == null){
-				return null;
+			ViaCEPEndereco obj;
+			if (response.isNotModified() && stale != null){
+				obj = stale.getEndereco();
 			}
-			return obj;
+			else {
+				obj = getDecoder().readEndereco(response.getBody(), getEnderecoClass());
+			}
+			return new ViaCEPCache.Entry(obj, response.getValidators());
+		}
+		finally {
+			response.close();
+		}
+	}
+	
+	/**
+	 * Método interno que consulta o web service para um CEP de acordo com a {@link ViaCEPHedgingPolicy}: as requisições são
+	 * executadas por um {@link ExecutorService} interno - e não pelo {@link #getExecutor() executor do client}, que pode
+	 * estar ocupado com as próprias consultas em lote ou assíncronas -, e caso a primeira não seja respondida a tempo, uma segunda 
+	 * requisição é enviada. A primeira resposta bem sucedida é retornada, e a outra requisição é cancelada.
+	 * 
+	 * As requisições individuais não são notificadas à {@link ViaCEPInstrumentation} como consultas: a consulta é 
+	 * notificada uma única vez por {@link #fetchEntry(Cep, ViaCEPCache.Entry, ViaCEPHedgingPolicy)}.
+	 */
+	protected ViaCEPCache.Entry fetchEntryHedged(final Cep cep, final ViaCEPCache.Entry stale, final ViaCEPHedgingPolicy policy) throws IOException {
+		policy.onRequest();
+		Callable<ViaCEPCache.Entry> attempt = new Callable<ViaCEPCache.Entry>() {
+			@Override
+			public ViaCEPCache.Entry call() throws Exception {
+				long start = System.nanoTime();
+				ViaCEPCache.Entry entry = requestEntry(cep, stale);
+				policy.record(System.nanoTime() - start);
+				return entry;
+			}
+		};
+		long delay = policy.getDelay();
+		if (delay < 0){
+			//ainda não há latências suficientes para calcular o tempo de espera
+			long start = System.nanoTime();
+			ViaCEPCache.Entry entry = requestEntry(cep, stale);
+			policy.record(System.nanoTime() - start);
+			return entry;
+		}
+		
+		CompletionService<ViaCEPCache.Entry> completion = new ExecutorCompletionService<ViaCEPCache.Entry>(ViaCEPFutureTask.hedgingExecutor());
+		List<Future<ViaCEPCache.Entry>> attempts = new ArrayList<Future<ViaCEPCache.Entry>>(2);
+		try {
+			attempts.add(completion.submit(attempt));
+			Future<ViaCEPCache.Entry> done = completion.poll(delay, TimeUnit.NANOSECONDS);
+			if (done == null && policy.tryHedge()){
+				attempts.add(completion.submit(attempt));
+			}
+			ExecutionException failure = null;
+			for (int pending = attempts.size(); pending > 0; pending--){
+				if (done == null){
+					done = completion.take();
+				}
+				try {
+					return done.get();
+				} catch (ExecutionException e) {
+					if (failure == null){
+						failure = e;
+					}
+				}
+				done = null;
+			}
+			throw unwrap(failure);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrompido enquanto aguardava a consulta");
 		}
 		finally {
-			urlConnection.disconnect();
+			for (Future<ViaCEPCache.Entry> future : attempts){
+				future.cancel(true);
+			}
 		}
 	}
 	
 	/**
-	 * Executa a consulta de endereços a partir da UF, localidade e logradouro
+	 * Executa a consulta de endereços a partir da UF, localidade e logradouro. Quando há um {@link ViaCEPSearchIndex}
+	 * configurado, a consulta é respondida localmente se o índice já possuir todos os endereços correspondentes - com os
+	 * mesmos endereços que o web service retornaria, mas ordenados por CEP (veja 
+	 * {@link ViaCEPSearchIndex#findByLogradouro(String, String, String, int)}).
+	 * 
+	 * Consultas equivalentes - com a mesma {@link ViaCEPSearchKey chave canônica}, como "São Paulo" e "sao paulo" - são 
+	 * armazenadas no {@link #getSearchCache() cache de consultas}, e consultas simultâneas equivalentes são agrupadas em
+	 * uma única requisição.
 	 * 
 	 * @param uf Unidade Federativa. Precisa ter 2 caracteres.
 	 * @param localidade Localidade (p.e. município). Precisa ter ao menos 3 caracteres.
@@ -117,6 +472,183 @@ public class ViaCEPClient {
 	 * @throws IllegalArgumentException para localidades e logradouros com tamanho menor do que 3 caracteres.
 	 */
 	public List<ViaCEPEndereco> getEnderecos(String uf, String localidade, String logradouro) throws IOException {
+		validateLookup(uf, localidade, logradouro);
+		final ViaCEPSearchKey key = ViaCEPSearchKey.of(uf, localidade, logradouro);
+		
+		final ViaCEPSearchCache searchCache = getSearchCache();
+		List<ViaCEPEndereco> obj = searchCache == null ? null : searchCache.get(key);
+		if (obj == null){
+			final String urlString = getHost() + encode(uf.trim()) + "/" + encode(localidade.trim()) + "/" + encode(logradouro.trim()) + "/json/";
+			FutureTask<List<ViaCEPEndereco>> task = new FutureTask<List<ViaCEPEndereco>>(new Callable<List<ViaCEPEndereco>>() {
+				@Override
+				public List<ViaCEPEndereco> call() throws Exception {
+					List<ViaCEPEndereco> enderecos = fetchEnderecos(key, urlString);
+					if (searchCache != null){
+						searchCache.put(key, enderecos);
+					}
+					return enderecos;
+				}
+			});
+			FutureTask<List<ViaCEPEndereco>> existing = inFlightSearches.putIfAbsent(key, task);
+			if (existing == null){
+				try {
+					task.run();
+				}
+				finally {
+					inFlightSearches.remove(key, task);
+				}
+			}
+			else {
+				task = existing;
+			}
+			obj = await(task);
+		}
+		//a lista é compartilhada com o cache e com as consultas agrupadas
+		return new ArrayList<ViaCEPEndereco>(obj);
+	}
+	
+	/**
+	 * Método interno que executa uma consulta por UF, localidade e logradouro, sem utilizar o cache de consultas. A consulta
+	 * é respondida pelo {@link ViaCEPSearchIndex} quando ele possui todos os endereços correspondentes. Consultas 
+	 * equivalentes agrupadas são notificadas à {@link ViaCEPInstrumentation} uma única vez, por esse método.
+	 * 
+	 * @param key A chave canônica da consulta.
+	 * @param url A URL da consulta.
+	 */
+	protected List<ViaCEPEndereco> fetchEnderecos(ViaCEPSearchKey key, String url) throws IOException {
+		long start = System.nanoTime();
+		Outcome outcome = Outcome.IO_ERROR;
+		try {
+			List<ViaCEPEndereco> obj;
+			ViaCEPSearchIndex searchIndex = getSearchIndex();
+			if (searchIndex != null && searchIndex.isComplete(key.getUf(), key.getLocalidade(), key.getLogradouro())){
+				obj = searchIndex.findByLogradouro(key.getUf(), key.getLocalidade(), key.getLogradouro(), ViaCEPSearchIndex.REMOTE_RESULT_LIMIT);
+			}
+			else {
+				InputStream in = open(url);
+				try {
+					obj = getDecoder().readEnderecos(in, getEnderecoClass());
+				}
+				finally {
+					in.close();
+				}
+				if (searchIndex != null){
+					searchIndex.addAll(obj);
+					if (obj.size() < ViaCEPSearchIndex.REMOTE_RESULT_LIMIT){
+						searchIndex.markComplete(key.getUf(), key.getLocalidade(), key.getLogradouro());
+					}
+				}
+			}
+			outcome = obj.isEmpty() ? Outcome.NOT_FOUND : Outcome.FOUND;
+			return obj;
+		} catch (ViaCEPHttpException e) {
+			outcome = Outcome.HTTP_ERROR;
+			throw e;
+		}
+		finally {
+			getInstrumentation().onLookup(Operation.ENDERECOS, outcome, System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * Executa a consulta de endereços a partir da UF, localidade e logradouro, entregando cada endereço ao 
+	 * {@link ViaCEPEnderecoHandler} à medida que ele é lido da resposta. Diferente de {@link #getEnderecos(String, String, String)},
+	 * a lista completa de endereços nunca é mantida em memória, e o processamento começa antes do fim da resposta.
+	 * 
+	 * @param uf Unidade Federativa. Precisa ter 2 caracteres.
+	 * @param localidade Localidade (p.e. município). Precisa ter ao menos 3 caracteres.
+	 * @param logradouro Logradouro (p.e. rua, avenida, estrada). Precisa ter ao menos 3 caracteres.
+	 * @param handler Recebe os endereços encontrados.
+	 * 
+	 * @return O número de endereços entregues ao handler.
+	 * @throws IOException em casos de erro de conexão, ou quando lançada pelo handler.
+	 * @throws IllegalArgumentException para localidades e logradouros com tamanho menor do que 3 caracteres.
+	 */
+	public int getEnderecos(String uf, String localidade, String logradouro, final ViaCEPEnderecoHandler handler) throws IOException {
+		validateLookup(uf, localidade, logradouro);
+		ViaCEPSearchCache searchCache = getSearchCache();
+		List<ViaCEPEndereco> cached = searchCache == null ? null : searchCache.get(ViaCEPSearchKey.of(uf, localidade, logradouro));
+		if (cached != null){
+			for (ViaCEPEndereco endereco : cached){
+				handler.onEndereco(endereco);
+			}
+			return cached.size();
+		}
+		
+		long start = System.nanoTime();
+		Outcome outcome = Outcome.IO_ERROR;
+		try {
+			final ViaCEPSearchIndex searchIndex = getSearchIndex();
+			if (searchIndex != null && searchIndex.isComplete(uf, localidade, logradouro)){
+				List<ViaCEPEndereco> local = searchIndex.findByLogradouro(uf, localidade, logradouro, ViaCEPSearchIndex.REMOTE_RESULT_LIMIT);
+				for (ViaCEPEndereco endereco : local){
+					handler.onEndereco(endereco);
+				}
+				outcome = local.isEmpty() ? Outcome.NOT_FOUND : Outcome.FOUND;
+				return local.size();
+			}
+			
+			ViaCEPEnderecoHandler target = handler;
+			if (searchIndex != null){
+				target = new ViaCEPEnderecoHandler() {
+					@Override
+					public void onEndereco(ViaCEPEndereco endereco) throws IOException {
+						searchIndex.add(endereco);
+						handler.onEndereco(endereco);
+					}
+				};
+			}
+			
+			String urlString = getHost() + encode(uf.trim()) + "/" + encode(localidade.trim()) + "/" + encode(logradouro.trim()) + "/json/";
+			InputStream in = open(urlString);
+			try {
+				int count = getDecoder().readEnderecos(in, getEnderecoClass(), target);
+				outcome = count == 0 ? Outcome.NOT_FOUND : Outcome.FOUND;
+				if (searchIndex != null && count < ViaCEPSearchIndex.REMOTE_RESULT_LIMIT){
+					searchIndex.markComplete(uf, localidade, logradouro);
+				}
+				return count;
+			}
+			finally {
+				in.close();
+			}
+		} catch (ViaCEPHttpException e) {
+			outcome = Outcome.HTTP_ERROR;
+			throw e;
+		}
+		finally {
+			getInstrumentation().onLookup(Operation.ENDERECOS, outcome, System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * Método interno que codifica um segmento do caminho da URL (p.e. "São Paulo" para "S%C3%A3o%20Paulo").
+	 */
+	protected static String encode(String segment) {
+		try {
+			return URLEncoder.encode(segment, "UTF-8").replace("+", "%20");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Método interno que valida os parâmetros das consultas por UF, localidade e logradouro, notificando a 
+	 * {@link ViaCEPInstrumentation} quando são inválidos.
+	 */
+	private void validateLookup(String uf, String localidade, String logradouro) {
+		try {
+			validate(uf, localidade, logradouro);
+		} catch (IllegalArgumentException e) {
+			getInstrumentation().onLookup(Operation.ENDERECOS, Outcome.INVALID, 0);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Método interno que valida os parâmetros das consultas por UF, localidade e logradouro.
+	 */
+	protected void validate(String uf, String localidade, String logradouro) {
 		if (uf == null || uf.length() != 2){
 			throw new IllegalArgumentException("UF inválida - deve conter 2 caracteres: " + uf);
 		}
@@ -126,28 +658,269 @@ public class ViaCEPClient {
 		if (logradouro == null || logradouro.length() < 3){
 			throw new IllegalArgumentException("Logradouro inválido - deve conter pelo menos 3 caracteres: " + logradouro);
 		}
+	}
+	
+	/**
+	 * Método interno que executa a requisição HTTP e retorna o corpo da resposta.
+	 * 
+	 * @see #open(String, ViaCEPValidators)
+	 */
+	protected InputStream open(String url) throws IOException {
+		return open(url, null).getBody();
+	}
+	
+	/**
+	 * Método interno que executa a requisição HTTP, repetindo-a de acordo com a {@link ViaCEPRetryPolicy} configurada
+	 * enquanto o {@link #getTimeout() tempo limite} não for excedido.
+	 * 
+	 * @param validators Validadores para uma requisição condicional, ou <code>null</code>.
+	 */
+	protected ViaCEPResponse open(String url, ViaCEPValidators validators) throws IOException {
+		ViaCEPRetryPolicy retryPolicy = getRetryPolicy();
+		long timeout = getTimeout();
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		for (int attempt = 1; ; attempt++){
+			try {
+				return send(url, validators);
+			} catch (IOException e) {
+				if (retryPolicy == null || attempt >= retryPolicy.getMaxAttempts() || !retryPolicy.isRetryable(e)){
+					throw e;
+				}
+				long delay = retryPolicy.getDelay(attempt);
+				if (timeout > 0 && System.nanoTime() + delay - deadline >= 0){
+					throw e;
+				}
+				try {
+					retryPolicy.sleep(delay);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrompido enquanto aguardava para repetir a requisição");
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Método interno que executa uma tentativa da requisição HTTP através do {@link ViaCEPTransport}, respeitando o 
+	 * {@link ViaCEPRateLimiter}, o {@link ViaCEPCircuitBreaker} e o {@link ViaCEPConcurrencyLimiter} configurados. 
+	 * Quando há uma {@link ViaCEPInstrumentation} configurada, o corpo da resposta retornada mede a sua leitura.
+	 */
+	protected ViaCEPResponse send(String url, ViaCEPValidators validators) throws IOException {
+		long waited = 0;
+		ViaCEPRateLimiter rateLimiter = getRateLimiter();
+		if (rateLimiter != null){
+			try {
+				waited += rateLimiter.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrompido enquanto aguardava o limitador de requisições");
+			}
+		}
+		ViaCEPCircuitBreaker circuitBreaker = getCircuitBreaker();
+		if (circuitBreaker != null && !circuitBreaker.allowRequest()){
+			throw new ViaCEPCircuitOpenException("Requisições ao web service suspensas temporariamente após falhas consecutivas");
+		}
+		ViaCEPConcurrencyLimiter concurrencyLimiter = getConcurrencyLimiter();
+		if (concurrencyLimiter != null){
+			try {
+				waited += concurrencyLimiter.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				InterruptedIOException error = new InterruptedIOException("Interrompido enquanto aguardava o limitador de concorrência");
+				if (circuitBreaker != null){
+					circuitBreaker.onError(error);
+				}
+				throw error;
+			}
+		}
+		ViaCEPInstrumentation instrumentation = getInstrumentation();
+		instrumentation.onQueueWait(waited);
 		
-		String urlString = getHost() + uf + "/" + localidade + "/" + logradouro + "/json/";
-		URL url = new URL(urlString);
-		HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
+		long start = System.nanoTime();
+		ViaCEPResponse response;
 		try {
-			InputStream in = new BufferedInputStream(urlConnection.getInputStream());
-			List<ViaCEPEndereco> obj = getService().listOfFrom(ViaCEPEndereco.class, in);
-			return obj;
+			response = getTransport().get(url, validators, instrumentation);
+		} catch (IOException e) {
+			complete(circuitBreaker, concurrencyLimiter, start, e);
+			throw e;
+		} catch (RuntimeException e) {
+			complete(circuitBreaker, concurrencyLimiter, start, new IOException(e));
+			throw e;
 		}
-		finally {
-			urlConnection.disconnect();
+		complete(circuitBreaker, concurrencyLimiter, start, null);
+		if (instrumentation != ViaCEPInstrumentation.NOOP){
+			InputStream in = new ViaCEPInstrumentedInputStream(response.getBody(), instrumentation);
+			response = new ViaCEPResponse(response.getStatusCode(), in, response.getValidators());
+		}
+		return response;
+	}
+	
+	private static void complete(ViaCEPCircuitBreaker circuitBreaker, ViaCEPConcurrencyLimiter concurrencyLimiter, long start, IOException error) {
+		if (concurrencyLimiter != null){
+			long latency = System.nanoTime() - start;
+			if (error == null){
+				concurrencyLimiter.release(latency, false);
+			}
+			else {
+				concurrencyLimiter.release(latency, error);
+			}
+		}
+		if (circuitBreaker != null){
+			if (error == null){
+				circuitBreaker.onSuccess();
+			}
+			else {
+				circuitBreaker.onError(error);
+			}
+		}
+	}
+	
+	/**
+	 * Método interno que aguarda o resultado de uma consulta, repassando os erros originais.
+	 */
+	protected static <T> T await(Future<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrompido enquanto aguardava a consulta");
+		} catch (ExecutionException e) {
+			throw unwrap(e);
 		}
 	}
 	
+	/**
+	 * Método interno que extrai o erro original de uma consulta. Erros que não são {@link IOException} são lançados diretamente.
+	 */
+	protected static IOException unwrap(ExecutionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof IOException){
+			return (IOException) cause;
+		}
+		if (cause instanceof RuntimeException){
+			throw (RuntimeException) cause;
+		}
+		if (cause instanceof Error){
+			throw (Error) cause;
+		}
+		return new IOException(cause);
+	}
+	
+	/**
+	 * Executa a consulta de endereço a partir de um CEP de forma assíncrona, utilizando o {@link ExecutorService} do client.
+	 * 
+	 * @param cep CEP da localidade onde se quer consultar o endereço. Veja {@link #getEndereco(String)}.
+	 * @param callback O retorno da consulta, ou <code>null</code> caso o resultado seja obtido apenas pelo {@link Future}.
+	 * Erros de validação de campos e de conexão são tratados no callback.
+	 * 
+	 * @return O {@link Future} da consulta. Cancelá-lo interrompe a espera pelo resultado.
+	 */
+	public Future<ViaCEPEndereco> getEnderecoAsync(String cep, ViaCEPCallback<ViaCEPEndereco> callback) {
+		return getEnderecoAsync(cep, 0, TimeUnit.MILLISECONDS, callback);
+	}
+	
+	/**
+	 * Executa a consulta de endereço a partir de um CEP de forma assíncrona, com tempo limite.
+	 * 
+	 * @param cep CEP da localidade onde se quer consultar o endereço. Veja {@link #getEndereco(String)}.
+	 * @param timeout Tempo limite da consulta. Ao ser excedido, a consulta é cancelada e o callback recebe uma
+	 * {@link java.util.concurrent.TimeoutException}. Use 0 para não utilizar tempo limite.
+	 * @param unit Unidade de tempo de <code>timeout</code>.
+	 * @param callback O retorno da consulta, ou <code>null</code> caso o resultado seja obtido apenas pelo {@link Future}.
+	 * 
+	 * @return O {@link Future} da consulta. Cancelá-lo interrompe a espera pelo resultado.
+	 */
+	public Future<ViaCEPEndereco> getEnderecoAsync(final String cep, long timeout, TimeUnit unit, ViaCEPCallback<ViaCEPEndereco> callback) {
+		return submit(new Callable<ViaCEPEndereco>() {
+			@Override
+			public ViaCEPEndereco call() throws Exception {
+				return getEndereco(cep);
+			}
+		}, timeout, unit, callback);
+	}
+	
+	/**
+	 * Executa a consulta de endereços a partir da UF, localidade e logradouro de forma assíncrona.
+	 * 
+	 * @param callback O retorno da consulta, ou <code>null</code> caso o resultado seja obtido apenas pelo {@link Future}.
+	 * Erros de validação de campos e de conexão são tratados no callback.
+	 * 
+	 * @return O {@link Future} da consulta. Cancelá-lo interrompe a espera pelo resultado.
+	 * @see #getEnderecos(String, String, String)
+	 */
+	public Future<List<ViaCEPEndereco>> getEnderecosAsync(String uf, String localidade, String logradouro, ViaCEPCallback<List<ViaCEPEndereco>> callback) {
+		return getEnderecosAsync(uf, localidade, logradouro, 0, TimeUnit.MILLISECONDS, callback);
+	}
+	
+	/**
+	 * Executa a consulta de endereços a partir da UF, localidade e logradouro de forma assíncrona, com tempo limite.
+	 * 
+	 * @param timeout Tempo limite da consulta. Ao ser excedido, a consulta é cancelada e o callback recebe uma
+	 * {@link java.util.concurrent.TimeoutException}. Use 0 para não utilizar tempo limite.
+	 * @param unit Unidade de tempo de <code>timeout</code>.
+	 * @param callback O retorno da consulta, ou <code>null</code> caso o resultado seja obtido apenas pelo {@link Future}.
+	 * 
+	 * @return O {@link Future} da consulta. Cancelá-lo interrompe a espera pelo resultado.
+	 * @see #getEnderecos(String, String, String)
+	 */
+	public Future<List<ViaCEPEndereco>> getEnderecosAsync(final String uf, final String localidade, final String logradouro, 
+			long timeout, TimeUnit unit, ViaCEPCallback<List<ViaCEPEndereco>> callback) {
+		return submit(new Callable<List<ViaCEPEndereco>>() {
+			@Override
+			public List<ViaCEPEndereco> call() throws Exception {
+				return getEnderecos(uf, localidade, logradouro);
+			}
+		}, timeout, unit, callback);
+	}
+	
+	/**
+	 * Método interno que submete uma consulta ao {@link ExecutorService} do client.
+	 */
+	protected <T> Future<T> submit(Callable<T> callable, long timeout, TimeUnit unit, ViaCEPCallback<T> callback) {
+		ViaCEPFutureTask<T> task = new ViaCEPFutureTask<T>(callable, callback);
+		ExecutorService executor = getExecutor();
+		executor.execute(task);
+		task.timeoutAfter(timeout, unit, executor);
+		return task;
+	}
+	
+	/**
+	 * Método interno que retorna a classe dos endereços desserializados: {@link ViaCEPCompactEndereco} caso o client
+	 * esteja {@link #isCompact() compacto}, ou {@link ViaCEPEndereco} caso contrário.
+	 */
+	protected Class<? extends ViaCEPEndereco> getEnderecoClass() {
+		return isCompact() ? ViaCEPCompactEndereco.class : ViaCEPEndereco.class;
+	}
+	
 	/**
 	 * Método interno que retorna o host dos webservices da ViaCEP. Por padrão é "http://viacep.com.br/ws/".
+	 * 
+	 * @see #setHost(String)
 	 */
 	protected String getHost(){
+		if (host != null){
+			return host;
+		}
+		String property = System.getProperty(HOST_PROPERTY);
+		if (property != null){
+			return property;
+		}
 		String host = (isUsingHTTPS() ? "https://" : "http://") + ViaCEPConstants.SERVICE_HOST;
 		return host;
 	}
 
+	/**
+	 * Seta a URL base dos web services, p.e. "http://localhost:8080/ws/", para utilizar um servidor compatível com a 
+	 * ViaCEP (como um servidor local de testes). Por padrão é <code>null</code>: é utilizada a propriedade de sistema 
+	 * {@link #HOST_PROPERTY}, ou o host da ViaCEP.
+	 */
+	public void setHost(String host) {
+		if (host != null && !host.endsWith("/")){
+			host += "/";
+		}
+		this.host = host;
+	}
+
 	/**
 	 * Retorna se o client está utilizando HTTP ou HTTPS para consultar os web services. Por padrão utiliza HTTP.
 	 */
@@ -170,9 +943,319 @@ public class ViaCEPClient {
 	}
 
 	/**
-	 * Seta um {@link JSON} customizado para a desserialização de objetos.
+	 * Seta um {@link JSON} customizado para a desserialização de objetos. O client passa a utilizar um {@link ViaCEPJsonDecoder}
+	 * com o {@link JSON} informado.
 	 */
 	public void setService(JSON service) {
 		this.service = service;
+		this.decoder = new ViaCEPJsonDecoder(service);
+	}
+
+	/**
+	 * Retorna o {@link ViaCEPDecoder} utilizado na desserialização das respostas.
+	 */
+	public ViaCEPDecoder getDecoder() {
+		return decoder;
+	}
+
+	/**
+	 * Seta o {@link ViaCEPDecoder} utilizado na desserialização das respostas. Por padrão é o {@link ViaCEPStreamingDecoder},
+	 * ou um {@link ViaCEPJsonDecoder} caso o client tenha sido criado com um {@link JSON} customizado.
+	 */
+	public void setDecoder(ViaCEPDecoder decoder) {
+		this.decoder = decoder;
+	}
+
+	/**
+	 * Retorna o {@link ViaCEPTransport} utilizado para executar as requisições HTTP.
+	 */
+	public ViaCEPTransport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * Seta um {@link ViaCEPTransport} customizado para executar as requisições HTTP.
+	 */
+	public void setTransport(ViaCEPTransport transport) {
+		this.transport = transport;
+	}
+
+	/**
+	 * Cria o {@link ViaCEPTransport} padrão dos clients, de acordo com a propriedade de sistema {@link #TRANSPORT_PROPERTY}.
+	 * 
+	 * @throws IllegalStateException caso o transport configurado não possa ser criado (p.e. o 
+	 * {@link #HTTP_CLIENT_TRANSPORT} em versões do Java anteriores à 11).
+	 */
+	public static ViaCEPTransport createDefaultTransport() {
+		String property = System.getProperty(TRANSPORT_PROPERTY);
+		if (property == null || property.trim().length() == 0){
+			return new HttpURLConnectionTransport();
+		}
+		String className = "httpclient".equalsIgnoreCase(property.trim()) ? HTTP_CLIENT_TRANSPORT : property.trim();
+		try {
+			return (ViaCEPTransport) Class.forName(className).getDeclaredConstructor().newInstance();
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException("Não foi possível criar o transport " + className, e.getCause());
+		} catch (Exception e) {
+			throw new IllegalStateException("Não foi possível criar o transport " + className, e);
+		} catch (LinkageError e) {
+			throw new IllegalStateException("O transport " + className + " não é suportado nessa versão do Java", e);
+		}
+	}
+
+	/**
+	 * Retorna o {@link ViaCEPCache} utilizado nas consultas por CEP, ou <code>null</code> caso o cache não esteja habilitado.
+	 */
+	public ViaCEPCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Seta o {@link ViaCEPCache} utilizado nas consultas por CEP. Por padrão é <code>null</code> (sem cache).
+	 */
+	public void setCache(ViaCEPCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Retorna o {@link ExecutorService} utilizado nas consultas assíncronas e na consulta em lote. Por padrão é um pool de
+	 * threads compartilhado por todos os clients, limitado a 64 threads: consultas além desse número aguardam em fila
+	 * (o tempo na fila conta para o tempo limite das consultas assíncronas).
+	 */
+	public ExecutorService getExecutor() {
+		if (executor == null){
+			return ViaCEPFutureTask.defaultExecutor();
+		}
+		return executor;
+	}
+
+	/**
+	 * Seta o {@link ExecutorService} utilizado nas consultas assíncronas.
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Retorna o {@link ViaCEPRateLimiter} aplicado às requisições feitas por esse client, ou <code>null</code> caso não haja limite.
+	 */
+	public ViaCEPRateLimiter getRateLimiter() {
+		if (rateLimiter == null){
+			return defaultRateLimiter;
+		}
+		return rateLimiter;
+	}
+
+	/**
+	 * Seta o {@link ViaCEPRateLimiter} aplicado às requisições feitas por esse client. Por padrão é <code>null</code>, e nesse caso
+	 * é utilizado o {@link #getDefaultRateLimiter() limitador padrão}. Consultas respondidas pelo cache não são limitadas.
+	 */
+	public void setRateLimiter(ViaCEPRateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Retorna o {@link ViaCEPConcurrencyLimiter} aplicado às requisições feitas por esse client, ou <code>null</code> caso não haja limite.
+	 */
+	public ViaCEPConcurrencyLimiter getConcurrencyLimiter() {
+		if (concurrencyLimiter == null){
+			return defaultConcurrencyLimiter;
+		}
+		return concurrencyLimiter;
+	}
+
+	/**
+	 * Seta o {@link ViaCEPConcurrencyLimiter} aplicado às requisições feitas por esse client. Por padrão é <code>null</code>, e nesse caso
+	 * é utilizado o {@link #getDefaultConcurrencyLimiter() limitador padrão}.
+	 */
+	public void setConcurrencyLimiter(ViaCEPConcurrencyLimiter concurrencyLimiter) {
+		this.concurrencyLimiter = concurrencyLimiter;
+	}
+
+	/**
+	 * Retorna o {@link ViaCEPRateLimiter} compartilhado por todos os clients da JVM que não possuem um limitador próprio, 
+	 * ou <code>null</code> caso não haja limite.
+	 */
+	public static ViaCEPRateLimiter getDefaultRateLimiter() {
+		return defaultRateLimiter;
+	}
+
+	/**
+	 * Seta o {@link ViaCEPRateLimiter} compartilhado por todos os clients da JVM que não possuem um limitador próprio.
+	 * Como o web service limita as requisições por IP, um único limitador deve ser utilizado por todos os clients. 
+	 * Por padrão é <code>null</code> (sem limite).
+	 */
+	public static void setDefaultRateLimiter(ViaCEPRateLimiter rateLimiter) {
+		defaultRateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Retorna o {@link ViaCEPConcurrencyLimiter} compartilhado por todos os clients da JVM que não possuem um limitador próprio,
+	 * ou <code>null</code> caso não haja limite.
+	 */
+	public static ViaCEPConcurrencyLimiter getDefaultConcurrencyLimiter() {
+		return defaultConcurrencyLimiter;
+	}
+
+	/**
+	 * Seta o {@link ViaCEPConcurrencyLimiter} compartilhado por todos os clients da JVM que não possuem um limitador próprio.
+	 * Por padrão é <code>null</code> (sem limite).
+	 */
+	public static void setDefaultConcurrencyLimiter(ViaCEPConcurrencyLimiter concurrencyLimiter) {
+		defaultConcurrencyLimiter = concurrencyLimiter;
+	}
+
+	/**
+	 * Retorna a {@link ViaCEPInstrumentation} notificada a cada fase das consultas.
+	 */
+	public ViaCEPInstrumentation getInstrumentation() {
+		return instrumentation;
+	}
+
+	/**
+	 * Seta a {@link ViaCEPInstrumentation} notificada a cada fase das consultas, como um {@link ViaCEPMetrics}. 
+	 * Por padrão é {@link ViaCEPInstrumentation#NOOP}, que desabilita as medições. Consultas respondidas pelo cache não são notificadas.
+	 */
+	public void setInstrumentation(ViaCEPInstrumentation instrumentation) {
+		this.instrumentation = instrumentation == null ? ViaCEPInstrumentation.NOOP : instrumentation;
+	}
+
+	/**
+	 * Retorna a {@link ViaCEPRetryPolicy} aplicada às requisições que falham, ou <code>null</code> caso as requisições não sejam repetidas.
+	 */
+	public ViaCEPRetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * Seta a {@link ViaCEPRetryPolicy} aplicada às requisições que falham por erros temporários. Por padrão é <code>null</code> (sem repetições).
+	 */
+	public void setRetryPolicy(ViaCEPRetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
+
+	/**
+	 * Retorna o {@link ViaCEPCircuitBreaker} aplicado às requisições, ou <code>null</code> caso não esteja habilitado.
+	 */
+	public ViaCEPCircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * Seta o {@link ViaCEPCircuitBreaker} aplicado às requisições. Por padrão é <code>null</code> (desabilitado).
+	 */
+	public void setCircuitBreaker(ViaCEPCircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	/**
+	 * Retorna o {@link CepResolver} utilizado nas consultas por CEP quando o web service falha, ou <code>null</code> caso não haja fallback.
+	 */
+	public CepResolver getFallback() {
+		return fallback;
+	}
+
+	/**
+	 * Seta o {@link CepResolver} utilizado nas consultas por CEP quando o web service falha ou o {@link ViaCEPCircuitBreaker} 
+	 * está aberto, como um {@link ViaCEPOfflineDatabase}. Por padrão é <code>null</code> (os erros são repassados ao chamador).
+	 */
+	public void setFallback(CepResolver fallback) {
+		this.fallback = fallback;
+	}
+
+	/**
+	 * Retorna a {@link ViaCEPHedgingPolicy} aplicada às consultas por CEP, ou <code>null</code> caso esteja desabilitada.
+	 */
+	public ViaCEPHedgingPolicy getHedgingPolicy() {
+		return hedgingPolicy;
+	}
+
+	/**
+	 * Seta a {@link ViaCEPHedgingPolicy} aplicada às consultas por CEP. Por padrão é <code>null</code> (desabilitada). 
+	 * Quando habilitada, as requisições passam a ser executadas por threads daemon internas, independentes do 
+	 * {@link #getExecutor() ExecutorService} do client.
+	 */
+	public void setHedgingPolicy(ViaCEPHedgingPolicy hedgingPolicy) {
+		this.hedgingPolicy = hedgingPolicy;
+	}
+
+	/**
+	 * Retorna o {@link ViaCEPRefreshAhead} que atualiza antecipadamente as entradas do cache, ou <code>null</code> caso esteja desabilitado.
+	 */
+	public ViaCEPRefreshAhead getRefreshAhead() {
+		return refreshAhead;
+	}
+
+	/**
+	 * Seta o {@link ViaCEPRefreshAhead} que atualiza em segundo plano as entradas do cache consultadas perto de expirar.
+	 * Só tem efeito quando há um {@link #getCache() cache} configurado. Por padrão é <code>null</code> (desabilitado).
+	 */
+	public void setRefreshAhead(ViaCEPRefreshAhead refreshAhead) {
+		this.refreshAhead = refreshAhead;
+	}
+
+	/**
+	 * Retorna o {@link ViaCEPSearchCache} utilizado nas consultas por UF, localidade e logradouro, ou <code>null</code> caso não haja cache.
+	 */
+	public ViaCEPSearchCache getSearchCache() {
+		return searchCache;
+	}
+
+	/**
+	 * Seta o {@link ViaCEPSearchCache} utilizado nas consultas por UF, localidade e logradouro. Por padrão é <code>null</code> (sem cache).
+	 */
+	public void setSearchCache(ViaCEPSearchCache searchCache) {
+		this.searchCache = searchCache;
+	}
+
+	/**
+	 * Retorna o {@link ViaCEPSearchIndex} que responde localmente às consultas por logradouro, ou <code>null</code> caso esteja desabilitado.
+	 */
+	public ViaCEPSearchIndex getSearchIndex() {
+		return searchIndex;
+	}
+
+	/**
+	 * Seta o {@link ViaCEPSearchIndex} que indexa os endereços retornados pelas consultas por logradouro e responde 
+	 * localmente às consultas cujo resultado já é conhecido. As respostas locais contêm os endereços cujo logradouro
+	 * contém o trecho consultado, como as do web service, mas ordenados por CEP. Os endereços das consultas por CEP não
+	 * são indexados. Por padrão é <code>null</code> (desabilitado).
+	 */
+	public void setSearchIndex(ViaCEPSearchIndex searchIndex) {
+		this.searchIndex = searchIndex;
+	}
+
+	/**
+	 * Retorna se os endereços retornados pelo client utilizam a representação compacta ({@link ViaCEPCompactEndereco}).
+	 */
+	public boolean isCompact() {
+		return compact;
+	}
+
+	/**
+	 * Seta se os endereços retornados pelo client devem utilizar a representação compacta ({@link ViaCEPCompactEndereco}), 
+	 * que ocupa várias vezes menos memória quando muitos endereços são mantidos em cache. Por padrão é <code>false</code>.
+	 */
+	public void setCompact(boolean compact) {
+		this.compact = compact;
+	}
+
+	/**
+	 * Retorna o tempo limite total, em milissegundos, de cada consulta, ou 0 caso não haja limite.
+	 */
+	public long getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * Seta o tempo limite total, em milissegundos, de cada consulta, incluindo as repetições feitas pela {@link ViaCEPRetryPolicy}:
+	 * uma nova tentativa não é feita caso o tempo limite seja excedido antes dela. O tempo de cada tentativa é limitado pelos tempos 
+	 * limite do {@link ViaCEPTransport} (veja {@link HttpURLConnectionTransport#setReadTimeout(int)}). Por padrão é 0 (sem limite).
+	 */
+	public void setTimeout(long timeout) {
+		if (timeout < 0){
+			throw new IllegalArgumentException("O tempo limite não pode ser negativo: " + timeout);
+		}
+		this.timeout = timeout;
 	}
 }
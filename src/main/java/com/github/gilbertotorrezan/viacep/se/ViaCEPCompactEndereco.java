@@ -0,0 +1,175 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * {@link ViaCEPEndereco} com representação compacta em memória, para aplicações que mantém muitos endereços em 
+ * memória (p.e. em um {@link ViaCEPCache} grande).
+ * 
+ * O CEP e o código IBGE são armazenados como <code>int</code>, e a UF como um <code>byte</code>. Complemento, bairro e
+ * localidade, que se repetem entre muitos endereços, são compartilhados através de um {@link ViaCEPStringPool}. Os 
+ * getters retornam exatamente os mesmos valores recebidos pelos setters: valores fora do formato esperado 
+ * (p.e. CEPs sem hífen) são armazenados como strings.
+ * 
+ * Como o CEP e o código IBGE são convertidos para string a cada chamada de {@link #getCep()} e {@link #getIbge()},
+ * essa representação troca um pouco de CPU por uma redução de várias vezes na memória ocupada por endereço.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPClient#setCompact(boolean)
+ */
+public class ViaCEPCompactEndereco extends ViaCEPEndereco {
+
+	private static final long serialVersionUID = 1L;
+	
+	private static final String[] UFS = {"AC", "AL", "AP", "AM", "BA", "CE", "DF", "ES", "GO", "MA", "MT", "MS", "MG", "PA", 
+			"PB", "PR", "PE", "PI", "RJ", "RN", "RS", "RO", "RR", "SC", "SP", "SE", "TO"};
+	
+	private int cep = -1;
+	private int ibge = -1;
+	private byte uf = -1;
+	
+	/**
+	 * Cria a versão compacta do endereço informado, ou retorna o próprio endereço caso ele já seja compacto.
+	 */
+	public static ViaCEPCompactEndereco compact(ViaCEPEndereco endereco) {
+		if (endereco == null){
+			return null;
+		}
+		if (endereco instanceof ViaCEPCompactEndereco){
+			return (ViaCEPCompactEndereco) endereco;
+		}
+		ViaCEPCompactEndereco compact = new ViaCEPCompactEndereco();
+		compact.setCep(endereco.getCep());
+		compact.setLogradouro(endereco.getLogradouro());
+		compact.setComplemento(endereco.getComplemento());
+		compact.setBairro(endereco.getBairro());
+		compact.setLocalidade(endereco.getLocalidade());
+		compact.setUf(endereco.getUf());
+		compact.setIbge(endereco.getIbge());
+		return compact;
+	}
+	
+	@Override
+	public String getCep() {
+		if (cep < 0){
+			return super.getCep();
+		}
+		return Cep.valueOf(cep).format();
+	}
+	
+	@Override
+	public void setCep(String cep) {
+		int value = -1;
+		if (cep != null && cep.length() == 9 && cep.charAt(5) == '-'){
+			value = Cep.toInt(cep);
+		}
+		this.cep = value;
+		super.setCep(value < 0 ? cep : null);
+	}
+	
+	@Override
+	public void setComplemento(String complemento) {
+		super.setComplemento(getPool().intern(complemento));
+	}
+	
+	@Override
+	public void setBairro(String bairro) {
+		super.setBairro(getPool().intern(bairro));
+	}
+	
+	@Override
+	public void setLocalidade(String localidade) {
+		super.setLocalidade(getPool().intern(localidade));
+	}
+	
+	@Override
+	public String getUf() {
+		if (uf < 0){
+			return super.getUf();
+		}
+		return UFS[uf];
+	}
+	
+	@Override
+	public void setUf(String uf) {
+		byte index = -1;
+		for (byte i = 0; i < UFS.length; i++){
+			if (UFS[i].equals(uf)){
+				index = i;
+				break;
+			}
+		}
+		this.uf = index;
+		super.setUf(index < 0 ? uf : null);
+	}
+	
+	@Override
+	public String getIbge() {
+		if (ibge < 0){
+			return super.getIbge();
+		}
+		return Integer.toString(ibge);
+	}
+	
+	@Override
+	public void setIbge(String ibge) {
+		int value = toInt(ibge);
+		this.ibge = value;
+		super.setIbge(value < 0 ? ibge : null);
+	}
+	
+	/**
+	 * Método interno que retorna o {@link ViaCEPStringPool} utilizado pelos campos que se repetem entre endereços.
+	 * Por padrão é {@link ViaCEPStringPool#getDefault()}.
+	 */
+	protected ViaCEPStringPool getPool() {
+		return ViaCEPStringPool.getDefault();
+	}
+	
+	/**
+	 * Converte a string para int apenas quando a conversão de volta resulta na mesma string (sem zeros à esquerda, 
+	 * sinais ou espaços). Retorna -1 caso contrário.
+	 */
+	private static int toInt(String value) {
+		if (value == null || value.length() == 0 || value.length() > 9 || (value.charAt(0) == '0' && value.length() > 1)){
+			return -1;
+		}
+		int result = 0;
+		for (int i = 0; i < value.length(); i++){
+			char c = value.charAt(i);
+			if (c < '0' || c > '9'){
+				return -1;
+			}
+			result = result * 10 + (c - '0');
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,277 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limitador adaptativo do número de requisições simultâneas feitas pelo {@link ViaCEPClient} aos web services da ViaCEP.
+ * 
+ * O limite é ajustado de acordo com o comportamento observado do web service (AIMD - additive increase, multiplicative
+ * decrease): cada requisição bem sucedida feita com o limite em uso aumenta o limite em <code>1 / limite</code>, 
+ * (aproximadamente +1 a cada "rodada" de requisições), e cada requisição que falha por erro temporário (veja
+ * {@link ViaCEPRetryPolicy#isTransient(IOException)}, incluindo respostas 429) ou que excede a latência máxima 
+ * configurada multiplica o limite por {@link #DEFAULT_BACKOFF_RATIO}. Assim o client converge para a maior vazão que 
+ * o web service suporta sem começar a recusar requisições.
+ * 
+ * O limite se aplica ao tempo de espera pela resposta do web service (até o recebimento dos cabeçalhos). Chamadas que 
+ * excedam o limite aguardam em fila até que uma requisição seja concluída.
+ * 
+ * Essa classe é thread-safe, e uma mesma instância pode ser compartilhada por vários clients (veja 
+ * {@link ViaCEPClient#setDefaultConcurrencyLimiter(ViaCEPConcurrencyLimiter)}). A espera na fila utiliza um 
+ * {@link ReentrantLock} ao invés de <code>synchronized</code>, para não prender a thread da plataforma quando as 
+ * chamadas são feitas a partir de virtual threads.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPClient#setConcurrencyLimiter(ViaCEPConcurrencyLimiter)
+ */
+public class ViaCEPConcurrencyLimiter {
+	
+	/**
+	 * Limite inicial padrão de requisições simultâneas.
+	 */
+	public static final int DEFAULT_INITIAL_LIMIT = 4;
+	
+	/**
+	 * Limite máximo padrão de requisições simultâneas.
+	 */
+	public static final int DEFAULT_MAX_LIMIT = 20;
+	
+	/**
+	 * Fator aplicado ao limite a cada requisição que falha.
+	 */
+	public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+	
+	protected final int minLimit;
+	protected final int maxLimit;
+	protected long maxLatencyNanos;
+	
+	protected double limit;
+	protected int inFlight;
+	protected int queued;
+	
+	protected final ReentrantLock lock = new ReentrantLock();
+	protected final Condition available = lock.newCondition();
+	
+	protected final AtomicLong waits = new AtomicLong();
+	protected final AtomicLong waitNanos = new AtomicLong();
+	
+	/**
+	 * Construtor padrão. Utiliza {@link #DEFAULT_INITIAL_LIMIT} e {@link #DEFAULT_MAX_LIMIT}, com limite mínimo de 1.
+	 */
+	public ViaCEPConcurrencyLimiter() {
+		this(DEFAULT_INITIAL_LIMIT, 1, DEFAULT_MAX_LIMIT);
+	}
+	
+	/**
+	 * Construtor que permite configurar os limites.
+	 * 
+	 * @param initialLimit Limite inicial de requisições simultâneas.
+	 * @param minLimit Menor limite possível.
+	 * @param maxLimit Maior limite possível. Não deve exceder o número de conexões do {@link ViaCEPTransport} 
+	 * (veja {@link HttpURLConnectionTransport#getMaxConnectionsPerHost()}).
+	 */
+	public ViaCEPConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+		if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit){
+			throw new IllegalArgumentException("Limites inválidos: " + minLimit + " <= " + initialLimit + " <= " + maxLimit);
+		}
+		this.limit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+	}
+	
+	/**
+	 * Aguarda até que uma requisição possa ser feita. Toda chamada bem sucedida deve ser seguida por uma chamada a
+	 * {@link #release(long, boolean)}.
+	 * 
+	 * @return O tempo de espera, em nanossegundos.
+	 * @throws InterruptedException caso a thread seja interrompida durante a espera.
+	 */
+	public long acquire() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			if (inFlight < (int) limit){
+				inFlight++;
+				return 0;
+			}
+			long start = System.nanoTime();
+			queued++;
+			try {
+				while (inFlight >= (int) limit){
+					available.await();
+				}
+			}
+			finally {
+				queued--;
+			}
+			inFlight++;
+			long waited = System.nanoTime() - start;
+			waits.incrementAndGet();
+			waitNanos.addAndGet(waited);
+			return waited;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Informa a conclusão de uma requisição e ajusta o limite.
+	 * 
+	 * @param latencyNanos Tempo de resposta da requisição, em nanossegundos.
+	 * @param dropped Se a requisição falhou por sobrecarga do web service.
+	 */
+	public void release(long latencyNanos, boolean dropped) {
+		lock.lock();
+		try {
+			if (dropped || (maxLatencyNanos > 0 && latencyNanos > maxLatencyNanos)){
+				limit = Math.max(minLimit, limit * DEFAULT_BACKOFF_RATIO);
+			}
+			else if (inFlight >= (int) limit){
+				limit = Math.min(maxLimit, limit + 1 / limit);
+			}
+			inFlight--;
+			available.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Informa a conclusão de uma requisição que falhou com o erro informado. Requisições que não chegaram a ser enviadas
+	 * ({@link ViaCEPConnectionUnavailableException}) não ajustam o limite.
+	 */
+	public void release(long latencyNanos, IOException e) {
+		if (e instanceof ViaCEPConnectionUnavailableException){
+			//a requisição não chegou a ser enviada: o limite não é ajustado
+			lock.lock();
+			try {
+				inFlight--;
+				available.signalAll();
+			}
+			finally {
+				lock.unlock();
+			}
+			return;
+		}
+		release(latencyNanos, ViaCEPRetryPolicy.isTransient(e));
+	}
+	
+	/**
+	 * Retorna o limite atual de requisições simultâneas.
+	 */
+	public int getLimit() {
+		lock.lock();
+		try {
+			return (int) limit;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Retorna o número de requisições em andamento.
+	 */
+	public int getInFlight() {
+		lock.lock();
+		try {
+			return inFlight;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Retorna o número de chamadas aguardando na fila.
+	 */
+	public int getQueueLength() {
+		lock.lock();
+		try {
+			return queued;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Número de chamadas que precisaram aguardar na fila.
+	 */
+	public long getWaitCount() {
+		return waits.get();
+	}
+	
+	/**
+	 * Tempo total, em nanossegundos, que as chamadas aguardaram na fila.
+	 */
+	public long getTotalWaitNanos() {
+		return waitNanos.get();
+	}
+	
+	/**
+	 * Retorna a latência máxima, em milissegundos, a partir da qual uma requisição reduz o limite, ou 0 caso a latência não seja considerada.
+	 */
+	public long getMaxLatency() {
+		lock.lock();
+		try {
+			return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Seta a latência máxima, em milissegundos, a partir da qual uma requisição reduz o limite. Por padrão é 0 
+	 * (apenas erros reduzem o limite).
+	 */
+	public void setMaxLatency(long maxLatency) {
+		if (maxLatency < 0){
+			throw new IllegalArgumentException("A latência máxima não pode ser negativa: " + maxLatency);
+		}
+		lock.lock();
+		try {
+			this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatency);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "ViaCEPConcurrencyLimiter [limit=" + getLimit() + ", inFlight=" + getInFlight() + ", queued=" + getQueueLength() + "]";
+	}
+
+}
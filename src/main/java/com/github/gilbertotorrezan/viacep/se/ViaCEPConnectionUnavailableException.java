@@ -0,0 +1,48 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.IOException;
+
+/**
+ * Erro lançado pelo {@link ViaCEPTransport} quando o limite local de conexões simultâneas por host foi atingido e
+ * nenhuma conexão foi liberada dentro do tempo de espera. A requisição não chega a ser enviada ao web service: o erro
+ * não indica uma falha do web service, e por isso não é repetido pelo {@link ViaCEPRetryPolicy} nem contabilizado pelo 
+ * {@link ViaCEPCircuitBreaker} e pelo {@link ViaCEPConcurrencyLimiter}.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see HttpURLConnectionTransport#getMaxConnectionsPerHost()
+ */
+public class ViaCEPConnectionUnavailableException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+	
+	public ViaCEPConnectionUnavailableException(String message) {
+		super(message);
+	}
+
+}
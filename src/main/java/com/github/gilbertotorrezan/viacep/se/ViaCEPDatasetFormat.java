@@ -0,0 +1,57 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.File;
+
+/**
+ * Formatos de arquivos de endereços suportados pelo {@link ViaCEPDatasetLoader} e pelo {@link ViaCEPDatasetWriter}.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+public enum ViaCEPDatasetFormat {
+	
+	/** 
+	 * JSON com um endereço por linha. Na leitura, também é aceito um array de endereços, lido sequencialmente. 
+	 */
+	JSON,
+	
+	/** 
+	 * CSV (RFC 4180) com cabeçalho, cujas colunas têm os mesmos nomes das propriedades de 
+	 * {@link com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco}, em qualquer ordem. 
+	 */
+	CSV;
+	
+	/**
+	 * Retorna o formato correspondente à extensão do arquivo: {@link #CSV} para arquivos <code>.csv</code> e 
+	 * {@link #JSON} para os demais.
+	 */
+	public static ViaCEPDatasetFormat forFile(File file) {
+		return file.getName().toLowerCase().endsWith(".csv") ? CSV : JSON;
+	}
+
+}
@@ -0,0 +1,565 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.jr.ob.JSON;
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Carga em lote de arquivos de endereços no formato da ViaCEP, utilizada para pré-carregar caches e construir bases
+ * locais a partir de bases completas, com milhões de endereços.
+ * 
+ * O arquivo é lido através de um {@link ReadableByteChannel} em partes de {@link #getChunkSize()} bytes, sempre
+ * terminadas no fim de um registro. As partes são interpretadas em paralelo, em até {@link #getParallelism()} threads,
+ * e os endereços são entregues ao destino ({@link ViaCEPEnderecoHandler}) na ordem do arquivo, sempre pela thread que 
+ * chamou {@link #load(File, ViaCEPEnderecoHandler)} - então o destino não precisa ser thread-safe. No máximo duas partes 
+ * por thread ficam em memória ao mesmo tempo, então o uso de memória é limitado pelo tamanho das partes, e não pelo 
+ * tamanho do arquivo.
+ * 
+ * Arquivos JSON com um array de endereços (ao invés de um endereço por linha) não podem ser divididos, e são lidos 
+ * sequencialmente.
+ * 
+ * Exemplo de uso, carregando uma base completa no cache do cliente:
+ * 
+ * <pre>
+ * ViaCEPDatasetLoader loader = new ViaCEPDatasetLoader();
+ * ViaCEPDatasetLoader.Progress progress = loader.load(new File("enderecos.csv"), ViaCEPDatasetLoader.toStore(client.getCache()));
+ * </pre>
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPDatasetWriter
+ */
+public class ViaCEPDatasetLoader {
+	
+	/**
+	 * Tamanho padrão, em bytes, das partes lidas do arquivo: 1 MiB.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+	
+	private static final JSON JSON_READER = JSON.std;
+	
+	protected int chunkSize = DEFAULT_CHUNK_SIZE;
+	protected int parallelism = Runtime.getRuntime().availableProcessors();
+	protected ExecutorService executor;
+	protected ProgressListener progressListener;
+	
+	/**
+	 * Recebe o progresso de uma carga, após cada parte entregue ao destino.
+	 */
+	public interface ProgressListener {
+		
+		/**
+		 * Chamado pela thread da carga após a entrega de cada parte do arquivo ao destino.
+		 */
+		void onProgress(Progress progress);
+		
+	}
+	
+	/**
+	 * Progresso de uma carga: quantidade de bytes e de endereços lidos, e a vazão.
+	 */
+	public static class Progress {
+		
+		private final long count;
+		private final long bytesRead;
+		private final long totalBytes;
+		private final long elapsedNanos;
+		
+		protected Progress(long count, long bytesRead, long totalBytes, long elapsedNanos) {
+			this.count = count;
+			this.bytesRead = bytesRead;
+			this.totalBytes = totalBytes;
+			this.elapsedNanos = elapsedNanos;
+		}
+		
+		/**
+		 * Número de endereços entregues ao destino.
+		 */
+		public long getCount() {
+			return count;
+		}
+		
+		/**
+		 * Número de bytes do arquivo já entregues ao destino.
+		 */
+		public long getBytesRead() {
+			return bytesRead;
+		}
+		
+		/**
+		 * Tamanho total do arquivo, em bytes, ou -1 caso seja desconhecido.
+		 */
+		public long getTotalBytes() {
+			return totalBytes;
+		}
+		
+		/**
+		 * Tempo decorrido desde o início da carga, em nanossegundos.
+		 */
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+		
+		/**
+		 * Proporção do arquivo já carregada, entre 0 e 1, ou -1 caso o tamanho do arquivo seja desconhecido.
+		 */
+		public double getFraction() {
+			if (totalBytes < 0){
+				return -1;
+			}
+			return totalBytes == 0 ? 1 : (double) bytesRead / totalBytes;
+		}
+		
+		/**
+		 * Vazão da carga, em endereços por segundo.
+		 */
+		public double getThroughput() {
+			return elapsedNanos == 0 ? 0 : count * 1e9 / elapsedNanos;
+		}
+		
+		@Override
+		public String toString() {
+			return count + " endereços, " + bytesRead + (totalBytes < 0 ? "" : "/" + totalBytes) + " bytes em " 
+					+ TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms (" + Math.round(getThroughput()) + " endereços/s)";
+		}
+	}
+	
+	/**
+	 * Retorna um destino que armazena cada endereço carregado no {@link CepStore} informado (p.e. um {@link ViaCEPCache}
+	 * ou um {@link ViaCEPDiskStore}). Endereços com CEPs inválidos são ignorados.
+	 */
+	public static ViaCEPEnderecoHandler toStore(final CepStore store) {
+		return new ViaCEPEnderecoHandler() {
+			@Override
+			public void onEndereco(ViaCEPEndereco endereco) throws IOException {
+				int cep = Cep.toInt(endereco.getCep());
+				if (cep >= 0){
+					store.put(Cep.valueOf(cep), endereco);
+				}
+			}
+		};
+	}
+	
+	/**
+	 * Carrega os endereços do arquivo, entregando-os ao destino. O formato é definido pela extensão do arquivo.
+	 * 
+	 * @see ViaCEPDatasetFormat#forFile(File)
+	 */
+	public Progress load(File dataset, ViaCEPEnderecoHandler sink) throws IOException {
+		return load(dataset, ViaCEPDatasetFormat.forFile(dataset), sink);
+	}
+	
+	/**
+	 * Carrega os endereços do arquivo no formato informado, entregando-os ao destino.
+	 */
+	public Progress load(File dataset, ViaCEPDatasetFormat format, ViaCEPEnderecoHandler sink) throws IOException {
+		FileInputStream in = new FileInputStream(dataset);
+		try {
+			FileChannel channel = in.getChannel();
+			return load(channel, format, channel.size(), sink);
+		}
+		finally {
+			in.close();
+		}
+	}
+	
+	/**
+	 * Carrega os endereços lidos do canal no formato informado, entregando-os ao destino. O canal não é fechado.
+	 * 
+	 * @param totalBytes O número de bytes a serem lidos, ou -1 caso seja desconhecido. Utilizado apenas no progresso.
+	 * @return O progresso final da carga.
+	 */
+	public Progress load(ReadableByteChannel channel, ViaCEPDatasetFormat format, long totalBytes, ViaCEPEnderecoHandler sink) throws IOException {
+		Load load = new Load(channel, format, totalBytes, sink);
+		ExecutorService pool = getExecutor();
+		boolean owned = false;
+		if (pool == null && parallelism > 1){
+			pool = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(parallelism * 2), 
+					new ViaCEPFutureTask.DaemonThreadFactory("viacep-dataset-"));
+			owned = true;
+		}
+		try {
+			load.run(pool);
+		}
+		finally {
+			if (owned){
+				pool.shutdownNow();
+			}
+		}
+		return load.progress();
+	}
+	
+	/**
+	 * Estado de uma carga em andamento.
+	 */
+	private class Load {
+		
+		private final ReadableByteChannel channel;
+		private final ViaCEPDatasetFormat format;
+		private final long totalBytes;
+		private final ViaCEPEnderecoHandler sink;
+		private final long start = System.nanoTime();
+		private final LinkedList<Chunk> pending = new LinkedList<Chunk>();
+		
+		private byte[] buffer = new byte[Math.max(chunkSize, 16)];
+		private int filled;
+		private boolean eof;
+		private List<String> header;
+		private long count;
+		private long bytesRead;
+		
+		Load(ReadableByteChannel channel, ViaCEPDatasetFormat format, long totalBytes, ViaCEPEnderecoHandler sink) {
+			this.channel = channel;
+			this.format = format;
+			this.totalBytes = totalBytes;
+			this.sink = sink;
+		}
+		
+		void run(ExecutorService pool) throws IOException {
+			try {
+				fill();
+				int offset = skipBom();
+				if (format == ViaCEPDatasetFormat.JSON && isArray(offset)){
+					readArray(offset);
+					return;
+				}
+				if (format == ViaCEPDatasetFormat.CSV){
+					offset = readHeader(offset);
+				}
+				while (true){
+					int end = findBoundary(offset);
+					if (end < 0 && eof){
+						end = filled;
+					}
+					if (end > offset){
+						byte[] bytes = new byte[end - offset];
+						System.arraycopy(buffer, offset, bytes, 0, bytes.length);
+						submit(new Chunk(bytes, header), pool);
+						offset = end;
+					}
+					if (eof && offset == filled){
+						break;
+					}
+					compact(offset);
+					offset = 0;
+					fill();
+				}
+				while (!pending.isEmpty()){
+					deliver(pending.removeFirst());
+				}
+			}
+			finally {
+				for (Chunk chunk : pending){
+					chunk.future.cancel(true);
+				}
+			}
+		}
+		
+		Progress progress() {
+			return new Progress(count, bytesRead, totalBytes, System.nanoTime() - start);
+		}
+		
+		/**
+		 * Preenche o buffer a partir do canal, aumentando-o caso esteja cheio (um registro maior do que a parte).
+		 */
+		private void fill() throws IOException {
+			if (filled == buffer.length){
+				byte[] larger = new byte[buffer.length * 2];
+				System.arraycopy(buffer, 0, larger, 0, filled);
+				buffer = larger;
+			}
+			ByteBuffer target = ByteBuffer.wrap(buffer, filled, buffer.length - filled);
+			while (target.hasRemaining()){
+				int read = channel.read(target);
+				if (read < 0){
+					eof = true;
+					break;
+				}
+			}
+			filled = target.position();
+		}
+		
+		private void compact(int offset) {
+			System.arraycopy(buffer, offset, buffer, 0, filled - offset);
+			filled -= offset;
+		}
+		
+		private int skipBom() {
+			if (filled >= 3 && buffer[0] == (byte) 0xEF && buffer[1] == (byte) 0xBB && buffer[2] == (byte) 0xBF){
+				bytesRead += 3;
+				return 3;
+			}
+			return 0;
+		}
+		
+		private boolean isArray(int offset) {
+			for (int i = offset; i < filled; i++){
+				if (!Character.isWhitespace(buffer[i])){
+					return buffer[i] == '[';
+				}
+			}
+			return false;
+		}
+		
+		/**
+		 * Retorna a posição seguinte ao último fim de registro a partir de <code>offset</code>, ou -1 caso não haja um
+		 * registro completo. Em CSV, quebras de linha entre aspas fazem parte do campo.
+		 */
+		private int findBoundary(int offset) {
+			if (format == ViaCEPDatasetFormat.JSON){
+				for (int i = filled - 1; i >= offset; i--){
+					if (buffer[i] == '\n'){
+						return i + 1;
+					}
+				}
+				return -1;
+			}
+			int end = -1;
+			boolean quoted = false;
+			for (int i = offset; i < filled; i++){
+				byte b = buffer[i];
+				if (b == '"'){
+					quoted = !quoted;
+				}
+				else if (b == '\n' && !quoted){
+					end = i + 1;
+				}
+			}
+			return end;
+		}
+		
+		private int readHeader(int offset) throws IOException {
+			int end = offset;
+			boolean quoted = false;
+			while (true){
+				if (end == filled){
+					if (eof){
+						break;
+					}
+					compact(offset);
+					end -= offset;
+					offset = 0;
+					fill();
+					continue;
+				}
+				byte b = buffer[end++];
+				if (b == '"'){
+					quoted = !quoted;
+				}
+				else if (b == '\n' && !quoted){
+					break;
+				}
+			}
+			bytesRead += end - offset;
+			BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(buffer, offset, end - offset), "UTF-8"));
+			List<String> names = ViaCEPDatasetReader.readCsvLine(reader);
+			header = new ArrayList<String>();
+			if (names != null){
+				for (String name : names){
+					header.add(name.trim());
+				}
+			}
+			return end;
+		}
+		
+		private void readArray(int offset) throws IOException {
+			InputStream in = new SequenceInputStream(new ByteArrayInputStream(buffer, offset, filled - offset), Channels.newInputStream(channel));
+			count += ViaCEPDatasetReader.readJson(in, JSON_READER, sink);
+			if (totalBytes >= 0){
+				bytesRead = totalBytes;
+			}
+			notifyProgress();
+		}
+		
+		private void submit(Chunk chunk, ExecutorService pool) throws IOException {
+			if (pool == null){
+				deliver(chunk);
+				return;
+			}
+			while (pending.size() >= parallelism * 2){
+				deliver(pending.removeFirst());
+			}
+			chunk.future = pool.submit(chunk);
+			pending.add(chunk);
+		}
+		
+		private void deliver(Chunk chunk) throws IOException {
+			List<ViaCEPEndereco> enderecos;
+			if (chunk.future == null){
+				enderecos = chunk.call();
+			}
+			else {
+				try {
+					enderecos = chunk.future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Carga interrompida");
+				} catch (ExecutionException e) {
+					throw ViaCEPClient.unwrap(e);
+				}
+			}
+			for (ViaCEPEndereco endereco : enderecos){
+				sink.onEndereco(endereco);
+			}
+			count += enderecos.size();
+			bytesRead += chunk.bytes.length;
+			notifyProgress();
+		}
+		
+		private void notifyProgress() {
+			ProgressListener listener = getProgressListener();
+			if (listener != null){
+				listener.onProgress(progress());
+			}
+		}
+	}
+	
+	/**
+	 * Parte do arquivo, terminada no fim de um registro, interpretada por uma das threads da carga.
+	 */
+	private class Chunk implements Callable<List<ViaCEPEndereco>> {
+		
+		private final byte[] bytes;
+		private final List<String> header;
+		private Future<List<ViaCEPEndereco>> future;
+		
+		Chunk(byte[] bytes, List<String> header) {
+			this.bytes = bytes;
+			this.header = header;
+		}
+		
+		@Override
+		public List<ViaCEPEndereco> call() throws IOException {
+			final List<ViaCEPEndereco> list = new ArrayList<ViaCEPEndereco>();
+			ViaCEPEnderecoHandler handler = new ViaCEPEnderecoHandler() {
+				@Override
+				public void onEndereco(ViaCEPEndereco endereco) {
+					list.add(endereco);
+				}
+			};
+			InputStream in = new ByteArrayInputStream(bytes);
+			if (header == null){
+				ViaCEPDatasetReader.readJson(in, JSON_READER, handler);
+			}
+			else {
+				ViaCEPDatasetReader.readCsv(new BufferedReader(new InputStreamReader(in, "UTF-8")), header, handler);
+			}
+			return list;
+		}
+	}
+	
+	/**
+	 * Retorna o tamanho, em bytes, das partes lidas do arquivo. Registros maiores do que uma parte são lidos inteiros.
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+	
+	/**
+	 * Seta o tamanho, em bytes, das partes lidas do arquivo. O padrão é {@link #DEFAULT_CHUNK_SIZE}.
+	 */
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1){
+			throw new IllegalArgumentException("O tamanho das partes deve ser positivo: " + chunkSize);
+		}
+		this.chunkSize = chunkSize;
+	}
+	
+	/**
+	 * Retorna o número de partes interpretadas em paralelo.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+	
+	/**
+	 * Seta o número de partes interpretadas em paralelo. O padrão é o número de processadores disponíveis. Com 1,
+	 * a carga é feita inteiramente pela thread que a chamou.
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1){
+			throw new IllegalArgumentException("O paralelismo deve ser positivo: " + parallelism);
+		}
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * Retorna o {@link ExecutorService} utilizado para interpretar as partes, ou <code>null</code> caso cada carga
+	 * utilize um pool de threads próprio.
+	 */
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+	
+	/**
+	 * Seta o {@link ExecutorService} utilizado para interpretar as partes. Por padrão é <code>null</code>: cada carga
+	 * cria um pool com {@link #getParallelism()} threads, encerrado ao fim da carga.
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+	
+	/**
+	 * Retorna o {@link ProgressListener} notificado durante as cargas, ou <code>null</code>.
+	 */
+	public ProgressListener getProgressListener() {
+		return progressListener;
+	}
+	
+	/**
+	 * Seta o {@link ProgressListener} notificado durante as cargas.
+	 */
+	public void setProgressListener(ProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+}
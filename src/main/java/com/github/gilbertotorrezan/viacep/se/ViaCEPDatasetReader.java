@@ -0,0 +1,204 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.jr.ob.JSON;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Leitura de arquivos com endereços no formato da ViaCEP, utilizada para construir bases locais.
+ * 
+ * São suportados JSON (um array de endereços, ou um endereço por linha) e CSV com cabeçalho, cujas colunas têm os 
+ * mesmos nomes das propriedades de {@link ViaCEPEndereco} (cep, logradouro, complemento, bairro, localidade, uf, ibge),
+ * em qualquer ordem.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+class ViaCEPDatasetReader {
+	
+	private ViaCEPDatasetReader(){}
+	
+	/**
+	 * Lê endereços em JSON, entregando cada um ao handler. Endereços sem CEP (p.e. <code>{"erro": true}</code>) são ignorados.
+	 * 
+	 * @return O número de endereços lidos.
+	 */
+	static int readJson(InputStream in, JSON json, ViaCEPEnderecoHandler handler) throws IOException {
+		JsonParser parser = json.getStreamingFactory().createParser(in);
+		try {
+			int count = 0;
+			JsonToken token;
+			while ((token = parser.nextToken()) != null){
+				if (token == JsonToken.START_OBJECT){
+					ViaCEPEndereco endereco = json.beanFrom(ViaCEPEndereco.class, parser);
+					if (endereco != null && endereco.getCep() != null){
+						handler.onEndereco(endereco);
+						count++;
+					}
+				}
+			}
+			return count;
+		}
+		finally {
+			parser.close();
+		}
+	}
+	
+	/**
+	 * Lê endereços em CSV, entregando cada um ao handler. A primeira linha deve conter os nomes das colunas.
+	 * 
+	 * @return O número de endereços lidos.
+	 */
+	static int readCsv(Reader reader, ViaCEPEnderecoHandler handler) throws IOException {
+		BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+		List<String> header = readCsvLine(in);
+		if (header == null){
+			return 0;
+		}
+		return readCsv(in, header, handler);
+	}
+	
+	/**
+	 * Lê registros CSV sem cabeçalho, entregando cada endereço ao handler. Utilizado na leitura em partes, onde o
+	 * cabeçalho é lido uma única vez no início do arquivo.
+	 * 
+	 * @param header Os nomes das colunas.
+	 * @return O número de endereços lidos.
+	 */
+	static int readCsv(BufferedReader in, List<String> header, ViaCEPEnderecoHandler handler) throws IOException {
+		int count = 0;
+		List<String> values;
+		while ((values = readCsvLine(in)) != null){
+			if (values.size() == 1 && values.get(0).length() == 0){
+				continue;
+			}
+			ViaCEPEndereco endereco = new ViaCEPEndereco();
+			for (int i = 0; i < header.size() && i < values.size(); i++){
+				setProperty(endereco, header.get(i).trim(), values.get(i));
+			}
+			if (endereco.getCep() != null){
+				handler.onEndereco(endereco);
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	private static void setProperty(ViaCEPEndereco endereco, String name, String value) {
+		if (value.length() == 0){
+			value = null;
+		}
+		if ("cep".equals(name)){
+			endereco.setCep(value);
+		}
+		else if ("logradouro".equals(name)){
+			endereco.setLogradouro(value);
+		}
+		else if ("complemento".equals(name)){
+			endereco.setComplemento(value);
+		}
+		else if ("bairro".equals(name)){
+			endereco.setBairro(value);
+		}
+		else if ("localidade".equals(name)){
+			endereco.setLocalidade(value);
+		}
+		else if ("uf".equals(name)){
+			endereco.setUf(value);
+		}
+		else if ("ibge".equals(name)){
+			endereco.setIbge(value);
+		}
+	}
+	
+	/**
+	 * Lê um registro CSV (RFC 4180), que pode ocupar mais de uma linha caso contenha campos entre aspas.
+	 * 
+	 * @return Os campos do registro, ou <code>null</code> no fim do arquivo.
+	 */
+	static List<String> readCsvLine(BufferedReader in) throws IOException {
+		String line = in.readLine();
+		if (line == null){
+			return null;
+		}
+		List<String> values = new ArrayList<String>();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		int i = 0;
+		while (true){
+			if (i == line.length()){
+				if (!quoted){
+					break;
+				}
+				line = in.readLine();
+				if (line == null){
+					throw new IOException("CSV inválido - aspas não fechadas no fim do arquivo");
+				}
+				value.append('\n');
+				i = 0;
+				continue;
+			}
+			char c = line.charAt(i++);
+			if (quoted){
+				if (c == '"'){
+					if (i < line.length() && line.charAt(i) == '"'){
+						value.append('"');
+						i++;
+					}
+					else {
+						quoted = false;
+					}
+				}
+				else {
+					value.append(c);
+				}
+			}
+			else if (c == '"'){
+				quoted = true;
+			}
+			else if (c == ','){
+				values.add(value.toString());
+				value.setLength(0);
+			}
+			else {
+				value.append(c);
+			}
+		}
+		values.add(value.toString());
+		return values;
+	}
+
+}
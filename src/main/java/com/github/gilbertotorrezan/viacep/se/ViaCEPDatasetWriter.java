@@ -0,0 +1,202 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.jr.ob.JSON;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Gravação de endereços em arquivos no formato da ViaCEP, nos mesmos formatos lidos pelo {@link ViaCEPDatasetLoader}:
+ * JSON com um endereço por linha, ou CSV com cabeçalho.
+ * 
+ * Os endereços são gravados à medida que são recebidos, então o writer pode ser utilizado como destino de uma carga
+ * ({@link ViaCEPDatasetLoader#load(File, ViaCEPEnderecoHandler)}) ou de uma consulta 
+ * ({@link ViaCEPClient#getEnderecos(String, String, String, ViaCEPEnderecoHandler)}) sem manter os endereços em memória.
+ * 
+ * Essa classe não é thread-safe.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+public class ViaCEPDatasetWriter implements ViaCEPEnderecoHandler, Flushable, Closeable {
+	
+	/**
+	 * Colunas gravadas em CSV, na ordem do cabeçalho.
+	 */
+	public static final String[] CSV_COLUMNS = {"cep", "logradouro", "complemento", "bairro", "localidade", "uf", "ibge"};
+	
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	private final ViaCEPDatasetFormat format;
+	private final Writer writer;
+	private final JsonGenerator generator;
+	private long count;
+	
+	/**
+	 * Cria o arquivo, com o formato definido pela sua extensão.
+	 * 
+	 * @see ViaCEPDatasetFormat#forFile(File)
+	 */
+	public ViaCEPDatasetWriter(File file) throws IOException {
+		this(file, ViaCEPDatasetFormat.forFile(file));
+	}
+	
+	/**
+	 * Cria o arquivo no formato informado.
+	 */
+	public ViaCEPDatasetWriter(File file, ViaCEPDatasetFormat format) throws IOException {
+		this(new FileOutputStream(file).getChannel(), format);
+	}
+	
+	/**
+	 * Grava os endereços no canal, no formato informado. O canal é fechado junto do writer.
+	 */
+	public ViaCEPDatasetWriter(WritableByteChannel channel, ViaCEPDatasetFormat format) throws IOException {
+		this.format = format;
+		this.writer = new BufferedWriter(Channels.newWriter(channel, "UTF-8"), BUFFER_SIZE);
+		if (format == ViaCEPDatasetFormat.JSON){
+			generator = JSON.std.getStreamingFactory().createGenerator(writer);
+			generator.setRootValueSeparator(null);
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		}
+		else {
+			generator = null;
+			for (int i = 0; i < CSV_COLUMNS.length; i++){
+				if (i > 0){
+					writer.write(',');
+				}
+				writer.write(CSV_COLUMNS[i]);
+			}
+			writer.write('\n');
+		}
+	}
+	
+	/**
+	 * Grava o endereço.
+	 */
+	@Override
+	public void onEndereco(ViaCEPEndereco endereco) throws IOException {
+		if (generator != null){
+			generator.writeStartObject();
+			writeField("cep", endereco.getCep());
+			writeField("logradouro", endereco.getLogradouro());
+			writeField("complemento", endereco.getComplemento());
+			writeField("bairro", endereco.getBairro());
+			writeField("localidade", endereco.getLocalidade());
+			writeField("uf", endereco.getUf());
+			writeField("ibge", endereco.getIbge());
+			generator.writeEndObject();
+			generator.writeRaw('\n');
+		}
+		else {
+			writeCsv(endereco.getCep());
+			writer.write(',');
+			writeCsv(endereco.getLogradouro());
+			writer.write(',');
+			writeCsv(endereco.getComplemento());
+			writer.write(',');
+			writeCsv(endereco.getBairro());
+			writer.write(',');
+			writeCsv(endereco.getLocalidade());
+			writer.write(',');
+			writeCsv(endereco.getUf());
+			writer.write(',');
+			writeCsv(endereco.getIbge());
+			writer.write('\n');
+		}
+		count++;
+	}
+	
+	private void writeField(String name, String value) throws IOException {
+		if (value != null){
+			generator.writeStringField(name, value);
+		}
+	}
+	
+	private void writeCsv(String value) throws IOException {
+		if (value == null){
+			return;
+		}
+		boolean quote = false;
+		for (int i = 0; i < value.length() && !quote; i++){
+			char c = value.charAt(i);
+			quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+		}
+		if (!quote){
+			writer.write(value);
+			return;
+		}
+		writer.write('"');
+		writer.write(value.replace("\"", "\"\""));
+		writer.write('"');
+	}
+	
+	/**
+	 * Retorna o formato do arquivo.
+	 */
+	public ViaCEPDatasetFormat getFormat() {
+		return format;
+	}
+	
+	/**
+	 * Retorna o número de endereços gravados.
+	 */
+	public long getCount() {
+		return count;
+	}
+	
+	@Override
+	public void flush() throws IOException {
+		if (generator != null){
+			generator.flush();
+		}
+		writer.flush();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		try {
+			if (generator != null){
+				generator.close();
+			}
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Desserializa as respostas JSON dos web services da ViaCEP.
+ * 
+ * O client utiliza por padrão o {@link ViaCEPStreamingDecoder}. O {@link ViaCEPJsonDecoder} permite utilizar um 
+ * {@link com.fasterxml.jackson.jr.ob.JSON} customizado. Implementações devem ser thread-safe.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPClient#setDecoder(ViaCEPDecoder)
+ */
+public interface ViaCEPDecoder {
+
+	/**
+	 * Lê a resposta de uma consulta por CEP.
+	 * 
+	 * @param in O corpo da resposta. Não é fechado pelo decoder.
+	 * @param type A classe do endereço a ser criado ({@link ViaCEPEndereco} ou uma subclasse).
+	 * @return O endereço lido, ou <code>null</code> caso o CEP não tenha sido encontrado.
+	 * @throws IOException em casos de erro de leitura ou JSON inválido.
+	 */
+	ViaCEPEndereco readEndereco(InputStream in, Class<? extends ViaCEPEndereco> type) throws IOException;
+
+	/**
+	 * Lê a resposta de uma consulta por UF, localidade e logradouro.
+	 * 
+	 * @param in O corpo da resposta. Não é fechado pelo decoder.
+	 * @param type A classe dos endereços a serem criados ({@link ViaCEPEndereco} ou uma subclasse).
+	 * @return Os endereços lidos, nunca <code>null</code>.
+	 * @throws IOException em casos de erro de leitura ou JSON inválido.
+	 */
+	List<ViaCEPEndereco> readEnderecos(InputStream in, Class<? extends ViaCEPEndereco> type) throws IOException;
+
+	/**
+	 * Lê a resposta de uma consulta por UF, localidade e logradouro, entregando cada endereço ao handler à medida
+	 * que ele é lido.
+	 * 
+	 * @param in O corpo da resposta. Não é fechado pelo decoder.
+	 * @param type A classe dos endereços a serem criados ({@link ViaCEPEndereco} ou uma subclasse).
+	 * @param handler Recebe os endereços lidos.
+	 * @return O número de endereços entregues ao handler.
+	 * @throws IOException em casos de erro de leitura ou JSON inválido, ou quando lançada pelo handler.
+	 */
+	int readEnderecos(InputStream in, Class<? extends ViaCEPEndereco> type, ViaCEPEnderecoHandler handler) throws IOException;
+
+}
@@ -0,0 +1,1079 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * {@link CepStore} persistente em disco, que mantém os endereços entre reinicializações da aplicação. Normalmente é
+ * utilizado como segunda camada de um {@link TieredCepResolver}, após um {@link ViaCEPCache}.
+ * 
+ * Os endereços são gravados sequencialmente no fim do arquivo (um log), em registros binários compactos protegidos por
+ * CRC32. O índice com a posição de cada CEP é mantido em memória em arrays de tipos primitivos, e gravado em um arquivo
+ * auxiliar (<code>&lt;arquivo&gt;.idx</code>) ao fechar o store e após cada compactação: ao abrir o arquivo, o índice é
+ * carregado desse arquivo auxiliar, e apenas os registros gravados depois dele são lidos do log. Sem o arquivo 
+ * auxiliar (ou após uma interrupção abrupta), o índice é reconstruído a partir do log. Registros incompletos ou 
+ * corrompidos no fim do log (p.e. após uma interrupção durante a gravação) são descartados.
+ * 
+ * Quando um CEP é gravado novamente com outro conteúdo, o registro anterior passa a ocupar espaço inútil no log. Quando
+ * esse espaço excede {@link #getCompactionRatio()} do espaço útil, o log é reescrito em segundo plano, apenas com os
+ * registros atuais e ordenado por CEP. CEPs não encontrados não são armazenados.
+ * 
+ * O índice em memória é ordenado por CEP, e responde a consultas por intervalo e por prefixo de CEP 
+ * ({@link CepRangeIndex}) sobre os endereços armazenados.
+ * 
+ * Essa classe é thread-safe. As consultas não aguardam as gravações nem a compactação: apenas a atualização do índice 
+ * em memória é feita com exclusão mútua.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+public class ViaCEPDiskStore implements CepStore, CepRangeIndex, Closeable {
+	
+	/**
+	 * Proporção padrão entre o espaço inútil e o espaço útil do log a partir da qual ele é compactado.
+	 */
+	public static final double DEFAULT_COMPACTION_RATIO = 0.5;
+	
+	/**
+	 * Espaço inútil mínimo, em bytes, para que o log seja compactado automaticamente: 1 MiB.
+	 */
+	public static final long MIN_COMPACTION_BYTES = 1 << 20;
+	
+	/**
+	 * Identificador do formato do arquivo: "VCDS".
+	 */
+	protected static final int MAGIC = 0x56434453;
+	protected static final int VERSION = 2;
+	
+	/**
+	 * Cabeçalho do arquivo: identificador do formato, versão e identificador do log (alterado a cada compactação).
+	 */
+	protected static final int HEADER_SIZE = 16;
+	
+	/**
+	 * Cabeçalho de cada registro: tamanho do conteúdo, CEP e CRC32 do CEP e do conteúdo.
+	 */
+	protected static final int RECORD_HEADER_SIZE = 12;
+	protected static final int MAX_RECORD_SIZE = 64 * 1024;
+	
+	/**
+	 * Identificador do formato do arquivo de índice: "VCDI".
+	 */
+	protected static final int INDEX_MAGIC = 0x56434449;
+	protected static final int INDEX_HEADER_SIZE = 36;
+	
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final SecureRandom RANDOM = new SecureRandom();
+	
+	protected final File file;
+	protected final File indexFile;
+	protected final ReentrantLock writeLock = new ReentrantLock();
+	protected final ReentrantLock checkpointLock = new ReentrantLock();
+	protected final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+	protected final AtomicBoolean compacting = new AtomicBoolean();
+	protected final AtomicLong compactions = new AtomicLong();
+	protected final ExecutorService compactor;
+	protected volatile double compactionRatio = DEFAULT_COMPACTION_RATIO;
+	
+	//alterados apenas com o writeLock e o indexLock (escrita)
+	protected FileChannel channel;
+	protected CepOffsetIndex index;
+	protected long id;
+	protected volatile boolean closed;
+	
+	//alterados apenas com o writeLock
+	protected long end;
+	protected long garbage;
+	
+	/**
+	 * Abre o arquivo informado, criando-o caso não exista. Arquivos gravados pela versão anterior do store são 
+	 * convertidos para o formato atual.
+	 * 
+	 * @throws IOException caso o arquivo não possa ser aberto ou não esteja no formato esperado.
+	 */
+	public ViaCEPDiskStore(File file) throws IOException {
+		this.file = file;
+		this.indexFile = new File(file.getPath() + ".idx");
+		this.channel = open(file);
+		boolean success = false;
+		try {
+			if (channel.size() == 0){
+				id = createHeader(channel);
+				end = HEADER_SIZE;
+				index = new CepOffsetIndex();
+			}
+			else {
+				ByteBuffer header = read(channel, 0, 8);
+				if (header.getInt(0) != MAGIC){
+					throw new IOException("Arquivo não é um armazenamento de CEPs: " + file);
+				}
+				int version = header.getInt(4);
+				if (version == 1){
+					migrate();
+				}
+				else if (version != VERSION){
+					throw new IOException("Versão não suportada do armazenamento de CEPs: " + file);
+				}
+				load();
+			}
+			success = true;
+		}
+		finally {
+			if (!success){
+				channel.close();
+			}
+		}
+		compactor = Executors.newSingleThreadExecutor(new ViaCEPFutureTask.DaemonThreadFactory("viacep-diskstore-"));
+	}
+	
+	/**
+	 * Método interno que carrega o índice: a partir do arquivo de índice, quando ele corresponde ao log, e dos
+	 * registros gravados depois dele. O log é truncado no primeiro registro inválido.
+	 */
+	protected void load() throws IOException {
+		long length = channel.size();
+		id = read(channel, 8, 8).getLong(0);
+		long position = loadIndexFile(length);
+		if (position < 0){
+			//um arquivo de índice rejeitado não pode ser aceito em uma abertura futura, após novas gravações no log
+			indexFile.delete();
+			index = new CepOffsetIndex();
+			garbage = 0;
+			position = HEADER_SIZE;
+		}
+		end = scan(channel, position, length, new RecordHandler() {
+			@Override
+			public void onRecord(int cep, long position, byte[] record, int length) {
+				if (index.put(cep, position) >= 0){
+					//estimativa: o registro anterior do mesmo CEP normalmente tem o mesmo tamanho
+					garbage += length;
+				}
+			}
+		});
+		if (end < length){
+			indexFile.delete();
+			channel.truncate(end);
+		}
+	}
+	
+	/**
+	 * Carrega o arquivo de índice, caso ele exista e corresponda ao log.
+	 * 
+	 * @return A posição do log até a qual o índice foi carregado, ou -1 caso o arquivo de índice não possa ser utilizado.
+	 */
+	protected long loadIndexFile(long length) throws IOException {
+		if (!indexFile.isFile() || indexFile.length() < INDEX_HEADER_SIZE + 4 || indexFile.length() > Integer.MAX_VALUE){
+			return -1;
+		}
+		byte[] bytes = new byte[(int) indexFile.length()];
+		RandomAccessFile in = new RandomAccessFile(indexFile, "r");
+		try {
+			in.readFully(bytes);
+		}
+		finally {
+			in.close();
+		}
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length - 4);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		if (buffer.getInt(0) != INDEX_MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != id 
+				|| (int) crc.getValue() != buffer.getInt(bytes.length - 4)){
+			return -1;
+		}
+		long logLength = buffer.getLong(16);
+		int count = buffer.getInt(32);
+		if (logLength > length || bytes.length != INDEX_HEADER_SIZE + count * 12 + 4){
+			return -1;
+		}
+		int[] keys = new int[count];
+		long[] offsets = new long[count];
+		buffer.position(INDEX_HEADER_SIZE);
+		buffer.asIntBuffer().get(keys);
+		buffer.position(INDEX_HEADER_SIZE + count * 4);
+		buffer.asLongBuffer().get(offsets);
+		index = new CepOffsetIndex(keys, offsets, count);
+		garbage = buffer.getLong(24);
+		return logLength;
+	}
+	
+	/**
+	 * Grava o arquivo de índice com o estado atual do log, permitindo que o store seja aberto sem a leitura do log.
+	 * É chamado automaticamente ao fechar o store e após cada compactação.
+	 */
+	public void checkpoint() throws IOException {
+		checkpointLock.lock();
+		try {
+			doCheckpoint();
+		}
+		finally {
+			checkpointLock.unlock();
+		}
+	}
+	
+	private void doCheckpoint() throws IOException {
+		int[] keys;
+		long[] offsets;
+		int count;
+		long logId;
+		long logLength;
+		long logGarbage;
+		writeLock.lock();
+		try {
+			ensureOpen();
+			//o arquivo de índice não pode referenciar registros que ainda não estão no disco
+			channel.force(false);
+			indexLock.writeLock().lock();
+			try {
+				index.merge();
+				keys = index.getKeys();
+				offsets = index.getValues();
+				count = index.size();
+			}
+			finally {
+				indexLock.writeLock().unlock();
+			}
+			logId = id;
+			logLength = end;
+			logGarbage = garbage;
+		}
+		finally {
+			writeLock.unlock();
+		}
+		
+		//os arrays do índice não são alterados após o merge, e podem ser gravados fora do lock
+		ByteBuffer buffer = ByteBuffer.allocate(INDEX_HEADER_SIZE + count * 12 + 4);
+		buffer.putInt(INDEX_MAGIC).putInt(VERSION).putLong(logId).putLong(logLength).putLong(logGarbage).putInt(count);
+		buffer.asIntBuffer().put(keys, 0, count);
+		buffer.position(INDEX_HEADER_SIZE + count * 4);
+		buffer.asLongBuffer().put(offsets, 0, count);
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), 0, buffer.capacity() - 4);
+		buffer.putInt(buffer.capacity() - 4, (int) crc.getValue());
+		buffer.rewind();
+		
+		File tmp = new File(indexFile.getPath() + ".tmp");
+		FileChannel out = new RandomAccessFile(tmp, "rw").getChannel();
+		try {
+			out.truncate(0);
+			write(out, buffer, 0);
+			out.force(true);
+		}
+		finally {
+			out.close();
+		}
+		replace(tmp, indexFile);
+	}
+	
+	@Override
+	public ViaCEPCache.Entry get(Cep cep) throws IOException {
+		int attempts = 0;
+		while (true){
+			FileChannel source;
+			long position;
+			indexLock.readLock().lock();
+			try {
+				position = index.get(cep.intValue());
+				source = channel;
+			}
+			finally {
+				indexLock.readLock().unlock();
+			}
+			if (position < 0){
+				return null;
+			}
+			try {
+				byte[] record = readRecord(source, position, cep.intValue());
+				return record == null ? null : new ViaCEPCache.Entry(decode(cep, record));
+			} catch (ClosedByInterruptException e) {
+				reopen(source);
+				throw new InterruptedIOException("Interrompido durante a leitura do CEP " + cep);
+			} catch (ClosedChannelException e) {
+				//o log foi substituído por uma compactação: a consulta é refeita no log novo
+				if (closed || ++attempts > 3){
+					throw e;
+				}
+				reopen(source);
+			}
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @throws IllegalArgumentException caso o endereço codificado exceda {@link #MAX_RECORD_SIZE} bytes. Nada é gravado.
+	 */
+	@Override
+	public void put(Cep cep, ViaCEPEndereco endereco) throws IOException {
+		if (endereco == null){
+			return;
+		}
+		byte[] record = encode(cep.intValue(), endereco);
+		boolean compactionDue;
+		writeLock.lock();
+		try {
+			byte[] existing;
+			long position = end;
+			int attempts = 0;
+			while (true){
+				ensureOpen();
+				FileChannel target = channel;
+				try {
+					long previous = index.get(cep.intValue());
+					existing = previous < 0 ? null : readRecord(target, previous, cep.intValue());
+					if (existing != null && Arrays.equals(existing, record)){
+						return;
+					}
+					write(target, ByteBuffer.wrap(record), position);
+					break;
+				} catch (ClosedByInterruptException e) {
+					reopen(target);
+					throw new InterruptedIOException("Interrompido durante a gravação do CEP " + cep);
+				} catch (ClosedChannelException e) {
+					//o log foi fechado pela interrupção de outra thread durante uma leitura
+					if (closed || ++attempts > 3){
+						throw e;
+					}
+					reopen(target);
+				}
+			}
+			end += record.length;
+			indexLock.writeLock().lock();
+			try {
+				index.put(cep.intValue(), position);
+			}
+			finally {
+				indexLock.writeLock().unlock();
+			}
+			if (existing != null){
+				garbage += existing.length;
+			}
+			compactionDue = garbage >= MIN_COMPACTION_BYTES && garbage > (end - HEADER_SIZE - garbage) * compactionRatio;
+		}
+		finally {
+			writeLock.unlock();
+		}
+		if (compactionDue && !compacting.get()){
+			try {
+				compactor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							compact();
+						} catch (IOException e) {
+							//o log atual continua válido, e a compactação é tentada novamente na próxima gravação
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				//store fechado
+			}
+		}
+	}
+	
+	@Override
+	public int count(CepRange range) {
+		IntBuffer[] ceps = sortedCeps();
+		return range.count(ceps[0]) + range.count(ceps[1]);
+	}
+	
+	@Override
+	public SortedMap<String, Integer> countByPrefix(CepRange range, int digits) {
+		IntBuffer[] ceps = sortedCeps();
+		SortedMap<String, Integer> counts = range.countByPrefix(ceps[0], digits);
+		for (Map.Entry<String, Integer> added : range.countByPrefix(ceps[1], digits).entrySet()){
+			Integer count = counts.get(added.getKey());
+			counts.put(added.getKey(), count == null ? added.getValue() : count + added.getValue());
+		}
+		return counts;
+	}
+	
+	@Override
+	public int getEnderecos(CepRange range, ViaCEPEnderecoHandler handler) throws IOException {
+		IntBuffer[] ceps = sortedCeps();
+		IntBuffer base = ceps[0];
+		IntBuffer added = ceps[1];
+		int i = range.start(base);
+		int baseEnd = range.end(base);
+		int j = range.start(added);
+		int addedEnd = range.end(added);
+		int count = 0;
+		while (i < baseEnd || j < addedEnd){
+			int cep;
+			if (j == addedEnd || (i < baseEnd && base.get(i) < added.get(j))){
+				cep = base.get(i++);
+			}
+			else {
+				cep = added.get(j++);
+			}
+			ViaCEPCache.Entry entry = get(Cep.valueOf(cep));
+			if (entry != null){
+				handler.onEndereco(entry.getEndereco());
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	@Override
+	public List<ViaCEPEndereco> getEnderecos(CepRange range) throws IOException {
+		final List<ViaCEPEndereco> enderecos = new ArrayList<ViaCEPEndereco>();
+		getEnderecos(range, new ViaCEPEnderecoHandler() {
+			@Override
+			public void onEndereco(ViaCEPEndereco endereco) {
+				enderecos.add(endereco);
+			}
+		});
+		return enderecos;
+	}
+	
+	/**
+	 * Método interno que retorna os CEPs armazenados em duas partes disjuntas, cada uma em ordem crescente: os CEPs do
+	 * array ordenado do índice e os CEPs gravados desde a última intercalação. Os buffers retornados não são alterados 
+	 * por gravações posteriores. Apenas o lock de leitura do índice é utilizado, e nenhuma cópia do índice é feita.
+	 */
+	protected IntBuffer[] sortedCeps() {
+		indexLock.readLock().lock();
+		try {
+			IntBuffer base = IntBuffer.wrap(index.getKeys(), 0, index.baseSize()).slice();
+			return new IntBuffer[]{base, IntBuffer.wrap(index.getAddedKeys())};
+		}
+		finally {
+			indexLock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Reescreve o log apenas com os registros atuais, ordenados por CEP. Normalmente é chamado automaticamente em 
+	 * segundo plano (veja {@link #getCompactionRatio()}). Consultas e gravações continuam sendo atendidas durante a
+	 * compactação; as gravações aguardam apenas a cópia dos registros gravados durante a compactação, ao fim do processo.
+	 * 
+	 * Caso outra compactação esteja em andamento, o método retorna imediatamente.
+	 */
+	public void compact() throws IOException {
+		if (!compacting.compareAndSet(false, true)){
+			return;
+		}
+		try {
+			doCompact();
+		}
+		finally {
+			compacting.set(false);
+		}
+	}
+	
+	private void doCompact() throws IOException {
+		final FileChannel source;
+		int[] keys;
+		long[] offsets;
+		int count;
+		long snapshotEnd;
+		writeLock.lock();
+		try {
+			ensureOpen();
+			indexLock.writeLock().lock();
+			try {
+				index.merge();
+				keys = index.getKeys();
+				offsets = index.getValues();
+				count = index.size();
+				source = channel;
+			}
+			finally {
+				indexLock.writeLock().unlock();
+			}
+			snapshotEnd = end;
+		}
+		finally {
+			writeLock.unlock();
+		}
+		
+		File tmp = new File(file.getPath() + ".compact");
+		final FileChannel target = new RandomAccessFile(tmp, "rw").getChannel();
+		boolean success = false;
+		try {
+			target.truncate(0);
+			long newId = createHeader(target);
+			final RecordWriter writer = new RecordWriter(target, HEADER_SIZE);
+			int[] newKeys = new int[count];
+			long[] newOffsets = new long[count];
+			int n = 0;
+			for (int i = 0; i < count; i++){
+				byte[] record = readRecord(source, offsets[i], keys[i]);
+				if (record != null){
+					newKeys[n] = keys[i];
+					newOffsets[n++] = writer.append(record, 0, record.length);
+				}
+			}
+			final CepOffsetIndex newIndex = new CepOffsetIndex(newKeys, newOffsets, n);
+			
+			writeLock.lock();
+			try {
+				ensureOpen();
+				//registros gravados durante a compactação
+				final long[] newGarbage = new long[1];
+				scan(source, snapshotEnd, end, new RecordHandler() {
+					@Override
+					public void onRecord(int cep, long position, byte[] record, int length) throws IOException {
+						if (newIndex.put(cep, writer.append(record, 0, length)) >= 0){
+							newGarbage[0] += length;
+						}
+					}
+				});
+				writer.flush();
+				target.force(true);
+				target.close();
+				
+				indexLock.writeLock().lock();
+				try {
+					source.close();
+					try {
+						replace(tmp, file);
+					}
+					finally {
+						channel = open(file);
+					}
+					index = newIndex;
+					id = newId;
+					end = writer.getPosition();
+					garbage = newGarbage[0];
+				}
+				finally {
+					indexLock.writeLock().unlock();
+				}
+				success = true;
+			}
+			finally {
+				writeLock.unlock();
+			}
+		}
+		finally {
+			if (!success){
+				target.close();
+				tmp.delete();
+			}
+		}
+		compactions.incrementAndGet();
+		checkpoint();
+	}
+	
+	/**
+	 * Método interno que converte um arquivo gravado pela versão 1 do store (registros sem CRC, com os textos gravados
+	 * por {@link java.io.DataOutput#writeUTF(String)}) para o formato atual.
+	 */
+	protected void migrate() throws IOException {
+		final CepOffsetIndex legacy = new CepOffsetIndex();
+		DataInputStream in = stream(channel, 8);
+		long length = channel.size();
+		long position = 8;
+		try {
+			while (position + 8 <= length){
+				int recordLength = in.readInt();
+				int cep = in.readInt();
+				if (recordLength < 1 || position + 8 + recordLength > length || in.skipBytes(recordLength) != recordLength){
+					break;
+				}
+				legacy.put(cep, position);
+				position += 8 + recordLength;
+			}
+		} catch (EOFException e) {
+			//registro incompleto
+		}
+		legacy.merge();
+		
+		File tmp = new File(file.getPath() + ".migrate");
+		FileChannel target = new RandomAccessFile(tmp, "rw").getChannel();
+		try {
+			target.truncate(0);
+			createHeader(target);
+			RecordWriter writer = new RecordWriter(target, HEADER_SIZE);
+			int[] keys = legacy.getKeys();
+			long[] offsets = legacy.getValues();
+			for (int i = 0; i < legacy.size(); i++){
+				ByteBuffer header = read(channel, offsets[i], 8);
+				byte[] payload = new byte[header.getInt(0)];
+				read(channel, ByteBuffer.wrap(payload), offsets[i] + 8);
+				DataInputStream fields = new DataInputStream(new ByteArrayInputStream(payload));
+				int nulls = fields.readByte();
+				ViaCEPEndereco endereco = new ViaCEPEndereco();
+				endereco.setLogradouro((nulls & 1) != 0 ? null : fields.readUTF());
+				endereco.setComplemento((nulls & 2) != 0 ? null : fields.readUTF());
+				endereco.setBairro((nulls & 4) != 0 ? null : fields.readUTF());
+				endereco.setLocalidade((nulls & 8) != 0 ? null : fields.readUTF());
+				endereco.setUf((nulls & 16) != 0 ? null : fields.readUTF());
+				endereco.setIbge((nulls & 32) != 0 ? null : fields.readUTF());
+				byte[] record = encode(keys[i], endereco);
+				writer.append(record, 0, record.length);
+			}
+			writer.flush();
+			target.force(true);
+		}
+		finally {
+			target.close();
+		}
+		channel.close();
+		try {
+			replace(tmp, file);
+		}
+		finally {
+			channel = open(file);
+		}
+	}
+	
+	/**
+	 * Retorna o número de CEPs armazenados.
+	 */
+	public int size() {
+		indexLock.readLock().lock();
+		try {
+			return index.size();
+		}
+		finally {
+			indexLock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Retorna o tamanho atual do log, em bytes.
+	 */
+	public long getLogSize() {
+		writeLock.lock();
+		try {
+			return end;
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Retorna o número de compactações concluídas desde a abertura do store.
+	 */
+	public long getCompactionCount() {
+		return compactions.get();
+	}
+	
+	/**
+	 * Retorna a proporção entre o espaço inútil e o espaço útil do log a partir da qual ele é compactado em segundo plano.
+	 * Por padrão é {@value #DEFAULT_COMPACTION_RATIO}.
+	 */
+	public double getCompactionRatio() {
+		return compactionRatio;
+	}
+	
+	/**
+	 * Seta a proporção entre o espaço inútil e o espaço útil do log a partir da qual ele é compactado em segundo plano.
+	 * A compactação automática só ocorre com pelo menos {@value #MIN_COMPACTION_BYTES} bytes de espaço inútil.
+	 */
+	public void setCompactionRatio(double compactionRatio) {
+		if (compactionRatio <= 0){
+			throw new IllegalArgumentException("A proporção deve ser positiva: " + compactionRatio);
+		}
+		this.compactionRatio = compactionRatio;
+	}
+	
+	/**
+	 * Grava no disco todas as alterações pendentes.
+	 */
+	public void flush() throws IOException {
+		writeLock.lock();
+		try {
+			ensureOpen();
+			channel.force(false);
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Grava o arquivo de índice ({@link #checkpoint()}) e fecha o store.
+	 */
+	@Override
+	public void close() throws IOException {
+		compactor.shutdown();
+		try {
+			compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrompido aguardando a compactação do log");
+		}
+		checkpointLock.lock();
+		try {
+			if (closed){
+				return;
+			}
+			try {
+				doCheckpoint();
+			}
+			finally {
+				//registros gravados após o checkpoint são recuperados do log na próxima abertura
+				writeLock.lock();
+				indexLock.writeLock().lock();
+				try {
+					closed = true;
+					channel.close();
+				}
+				finally {
+					indexLock.writeLock().unlock();
+					writeLock.unlock();
+				}
+			}
+		}
+		finally {
+			checkpointLock.unlock();
+		}
+	}
+	
+	private void ensureOpen() throws IOException {
+		if (closed){
+			throw new ClosedChannelException();
+		}
+	}
+	
+	/**
+	 * Reabre o log caso ele tenha sido fechado pela interrupção de uma thread durante uma leitura ou gravação.
+	 */
+	private void reopen(FileChannel stale) throws IOException {
+		writeLock.lock();
+		try {
+			indexLock.writeLock().lock();
+			try {
+				if (!closed && channel == stale && !channel.isOpen()){
+					channel = open(file);
+				}
+			}
+			finally {
+				indexLock.writeLock().unlock();
+			}
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Recebe os registros válidos lidos do log.
+	 */
+	private interface RecordHandler {
+		void onRecord(int cep, long position, byte[] record, int length) throws IOException;
+	}
+	
+	/**
+	 * Lê sequencialmente os registros do log entre as posições informadas, até o primeiro registro inválido.
+	 * 
+	 * @return A posição seguinte ao último registro válido.
+	 */
+	private static long scan(FileChannel source, long from, long to, RecordHandler handler) throws IOException {
+		DataInputStream in = stream(source, from);
+		byte[] record = new byte[256];
+		CRC32 crc = new CRC32();
+		long position = from;
+		try {
+			while (position + RECORD_HEADER_SIZE <= to){
+				int length = in.readInt();
+				int cep = in.readInt();
+				int checksum = in.readInt();
+				if (length < 1 || length > MAX_RECORD_SIZE || position + RECORD_HEADER_SIZE + length > to){
+					break;
+				}
+				int size = RECORD_HEADER_SIZE + length;
+				if (record.length < size){
+					record = new byte[Math.max(size, record.length * 2)];
+				}
+				in.readFully(record, RECORD_HEADER_SIZE, length);
+				if (checksum(crc, cep, record, RECORD_HEADER_SIZE, length) != checksum){
+					break;
+				}
+				ByteBuffer.wrap(record).putInt(length).putInt(cep).putInt(checksum);
+				handler.onRecord(cep, position, record, size);
+				position += size;
+			}
+		} catch (EOFException e) {
+			//registro incompleto
+		}
+		return position;
+	}
+	
+	/**
+	 * Lê o registro completo (cabeçalho e conteúdo) gravado na posição informada.
+	 * 
+	 * @return O registro, ou <code>null</code> caso ele esteja corrompido.
+	 */
+	private static byte[] readRecord(FileChannel source, long position, int cep) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(256);
+		read(source, buffer, position);
+		int length = buffer.getInt(0);
+		if (buffer.position() < RECORD_HEADER_SIZE || length < 1 || length > MAX_RECORD_SIZE || buffer.getInt(4) != cep){
+			return null;
+		}
+		byte[] record = new byte[RECORD_HEADER_SIZE + length];
+		if (record.length <= buffer.position()){
+			System.arraycopy(buffer.array(), 0, record, 0, record.length);
+		}
+		else {
+			System.arraycopy(buffer.array(), 0, record, 0, buffer.position());
+			ByteBuffer rest = ByteBuffer.wrap(record, buffer.position(), record.length - buffer.position());
+			read(source, rest, position + buffer.position());
+			if (rest.hasRemaining()){
+				return null;
+			}
+		}
+		if (checksum(new CRC32(), cep, record, RECORD_HEADER_SIZE, length) != buffer.getInt(8)){
+			return null;
+		}
+		return record;
+	}
+	
+	private static int checksum(CRC32 crc, int cep, byte[] payload, int offset, int length) {
+		crc.reset();
+		crc.update(cep >>> 24);
+		crc.update(cep >>> 16);
+		crc.update(cep >>> 8);
+		crc.update(cep);
+		crc.update(payload, offset, length);
+		return (int) crc.getValue();
+	}
+	
+	/**
+	 * Codifica o registro: cabeçalho, um byte com os campos nulos e, para cada campo não nulo, o tamanho (varint) e os
+	 * bytes em UTF-8.
+	 */
+	private static byte[] encode(int cep, ViaCEPEndereco endereco) {
+		String[] fields = {endereco.getLogradouro(), endereco.getComplemento(), endereco.getBairro(), 
+				endereco.getLocalidade(), endereco.getUf(), endereco.getIbge()};
+		byte[][] bytes = new byte[fields.length][];
+		int nulls = 0;
+		int length = 1;
+		for (int i = 0; i < fields.length; i++){
+			if (fields[i] == null){
+				nulls |= 1 << i;
+			}
+			else {
+				bytes[i] = fields[i].getBytes(UTF_8);
+				length += varintSize(bytes[i].length) + bytes[i].length;
+			}
+		}
+		if (length > MAX_RECORD_SIZE){
+			//o registro seria descartado na leitura, junto com todos os registros gravados depois dele
+			throw new IllegalArgumentException("Endereço excede o tamanho máximo de um registro (" + MAX_RECORD_SIZE 
+					+ " bytes): " + Cep.valueOf(cep));
+		}
+		byte[] record = new byte[RECORD_HEADER_SIZE + length];
+		int position = RECORD_HEADER_SIZE;
+		record[position++] = (byte) nulls;
+		for (byte[] field : bytes){
+			if (field != null){
+				int value = field.length;
+				while (value >= 0x80){
+					record[position++] = (byte) (value | 0x80);
+					value >>>= 7;
+				}
+				record[position++] = (byte) value;
+				System.arraycopy(field, 0, record, position, field.length);
+				position += field.length;
+			}
+		}
+		int checksum = checksum(new CRC32(), cep, record, RECORD_HEADER_SIZE, length);
+		ByteBuffer.wrap(record).putInt(length).putInt(cep).putInt(checksum);
+		return record;
+	}
+	
+	private static int varintSize(int value) {
+		int size = 1;
+		while (value >= 0x80){
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+	
+	private static ViaCEPEndereco decode(Cep cep, byte[] record) {
+		ViaCEPEndereco endereco = new ViaCEPEndereco();
+		endereco.setCep(cep.format());
+		int position = RECORD_HEADER_SIZE;
+		int nulls = record[position++];
+		String[] fields = new String[6];
+		for (int i = 0; i < fields.length; i++){
+			if ((nulls & (1 << i)) == 0){
+				int length = 0;
+				int shift = 0;
+				byte b;
+				do {
+					b = record[position++];
+					length |= (b & 0x7F) << shift;
+					shift += 7;
+				} while (b < 0);
+				fields[i] = new String(record, position, length, UTF_8);
+				position += length;
+			}
+		}
+		endereco.setLogradouro(fields[0]);
+		endereco.setComplemento(fields[1]);
+		endereco.setBairro(fields[2]);
+		endereco.setLocalidade(fields[3]);
+		endereco.setUf(fields[4]);
+		endereco.setIbge(fields[5]);
+		return endereco;
+	}
+	
+	private static FileChannel open(File file) throws IOException {
+		return new RandomAccessFile(file, "rw").getChannel();
+	}
+	
+	private static long createHeader(FileChannel target) throws IOException {
+		long id = RANDOM.nextLong();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).putLong(id).flip();
+		write(target, header, 0);
+		return id;
+	}
+	
+	/**
+	 * Retorna um stream para a leitura sequencial do canal a partir da posição informada. O stream não deve ser fechado,
+	 * pois isso fecharia o canal.
+	 */
+	private static DataInputStream stream(FileChannel source, long position) throws IOException {
+		source.position(position);
+		return new DataInputStream(new BufferedInputStream(Channels.newInputStream(source), BUFFER_SIZE));
+	}
+	
+	private static ByteBuffer read(FileChannel source, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		read(source, buffer, position);
+		if (buffer.hasRemaining()){
+			throw new EOFException();
+		}
+		return buffer;
+	}
+	
+	private static void read(FileChannel source, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()){
+			int read = source.read(buffer, position);
+			if (read < 0){
+				break;
+			}
+			position += read;
+		}
+	}
+	
+	private static void write(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()){
+			position += target.write(buffer, position);
+		}
+	}
+	
+	/**
+	 * Substitui o arquivo de destino pelo arquivo temporário.
+	 */
+	private static void replace(File tmp, File target) throws IOException {
+		if (!tmp.renameTo(target)){
+			target.delete();
+			if (!tmp.renameTo(target)){
+				throw new IOException("Não foi possível substituir o arquivo " + target);
+			}
+		}
+	}
+	
+	/**
+	 * Gravação sequencial de registros em um canal, através de um buffer.
+	 */
+	private static class RecordWriter {
+		
+		private final FileChannel target;
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		private long position;
+		
+		RecordWriter(FileChannel target, long position) {
+			this.target = target;
+			this.position = position;
+		}
+		
+		/**
+		 * @return A posição do registro no canal.
+		 */
+		long append(byte[] record, int offset, int length) throws IOException {
+			long recordPosition = position + buffer.position();
+			if (length > buffer.remaining()){
+				flush();
+				if (length > buffer.capacity()){
+					write(target, ByteBuffer.wrap(record, offset, length), position);
+					position += length;
+					return recordPosition;
+				}
+			}
+			buffer.put(record, offset, length);
+			return recordPosition;
+		}
+		
+		void flush() throws IOException {
+			buffer.flip();
+			long written = buffer.remaining();
+			write(target, buffer, position);
+			position += written;
+			buffer.clear();
+		}
+		
+		long getPosition() {
+			return position + buffer.position();
+		}
+	}
+
+}
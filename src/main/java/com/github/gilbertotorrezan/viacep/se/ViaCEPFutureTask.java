@@ -0,0 +1,187 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tarefa assíncrona utilizada internamente pelo {@link ViaCEPClient}: notifica um {@link ViaCEPCallback} ao ser
+ * concluída e pode ser cancelada automaticamente após um tempo limite.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+class ViaCEPFutureTask<T> extends FutureTask<T> {
+	
+	/**
+	 * Número máximo de threads do {@link #defaultExecutor() executor padrão}. Consultas além desse número aguardam em fila.
+	 */
+	static final int DEFAULT_MAX_THREADS = 64;
+	
+	private final ViaCEPCallback<T> callback;
+	private volatile Executor notifier;
+	private volatile boolean timedOut;
+	private volatile ScheduledFuture<?> timeout;
+	
+	ViaCEPFutureTask(Callable<T> callable, ViaCEPCallback<T> callback) {
+		super(callable);
+		this.callback = callback;
+	}
+	
+	/**
+	 * Agenda o cancelamento da tarefa caso ela não seja concluída dentro do tempo limite. O cancelamento é feito pela 
+	 * thread do agendador, compartilhada por todas as consultas: o callback é então chamado por uma thread do executor
+	 * informado, para que um callback lento não atrase os demais tempos limite.
+	 */
+	void timeoutAfter(long timeout, TimeUnit unit, Executor notifier) {
+		if (timeout <= 0 || isDone()){
+			return;
+		}
+		this.notifier = notifier;
+		this.timeout = Holder.SCHEDULER.schedule(new Runnable() {
+			@Override
+			public void run() {
+				if (!isDone()){
+					timedOut = true;
+					cancel(true);
+				}
+			}
+		}, timeout, unit);
+	}
+	
+	@Override
+	protected void done() {
+		ScheduledFuture<?> timeout = this.timeout;
+		if (timeout != null){
+			timeout.cancel(false);
+		}
+		if (callback == null){
+			return;
+		}
+		Executor notifier = this.notifier;
+		if (timedOut && notifier != null){
+			try {
+				notifier.execute(new Runnable() {
+					@Override
+					public void run() {
+						notifyCallback();
+					}
+				});
+				return;
+			} catch (RejectedExecutionException e) {
+				//executor encerrado: o callback é chamado pela thread do agendador
+			}
+		}
+		notifyCallback();
+	}
+	
+	private void notifyCallback() {
+		T result;
+		try {
+			result = get();
+		} catch (CancellationException e) {
+			callback.onFailure(timedOut ? new TimeoutException("Tempo limite excedido na consulta à ViaCEP") : e);
+			return;
+		} catch (ExecutionException e) {
+			callback.onFailure(e.getCause());
+			return;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			callback.onFailure(e);
+			return;
+		}
+		callback.onSuccess(result);
+	}
+	
+	/**
+	 * Retorna o {@link ExecutorService} padrão das consultas assíncronas, compartilhado por todos os clients. Utiliza no
+	 * máximo {@link #DEFAULT_MAX_THREADS} threads, que são encerradas após um minuto ociosas; as demais consultas 
+	 * aguardam em uma fila sem limite.
+	 */
+	static ExecutorService defaultExecutor() {
+		return Holder.EXECUTOR;
+	}
+	
+	/**
+	 * Retorna o {@link ExecutorService} interno das requisições da {@link ViaCEPHedgingPolicy}. É separado do executor
+	 * configurado no client para que as consultas não fiquem aguardando threads ocupadas pelas próprias consultas em lote
+	 * ou assíncronas.
+	 */
+	static ExecutorService hedgingExecutor() {
+		return Holder.HEDGING_EXECUTOR;
+	}
+	
+	/**
+	 * Inicialização tardia dos executores, apenas quando a API assíncrona é utilizada.
+	 */
+	private static class Holder {
+		static final ExecutorService EXECUTOR = newBoundedExecutor();
+		static final ExecutorService HEDGING_EXECUTOR = Executors.newCachedThreadPool(new DaemonThreadFactory("viacep-hedge-"));
+		static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("viacep-timeout-"));
+	}
+	
+	private static ExecutorService newBoundedExecutor() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_MAX_THREADS, DEFAULT_MAX_THREADS, 60, TimeUnit.SECONDS, 
+				new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("viacep-async-"));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+	
+	/**
+	 * Cria threads daemon nomeadas, que não impedem o encerramento da JVM.
+	 */
+	static class DaemonThreadFactory implements ThreadFactory {
+		private final String prefix;
+		private final AtomicInteger count = new AtomicInteger();
+		
+		DaemonThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+		
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Política de requisições "hedged" para as consultas por CEP do {@link ViaCEPClient}: quando a requisição não é 
+ * respondida dentro de um percentil da latência observada (p.e. p95), uma segunda requisição idêntica é enviada, e a
+ * primeira resposta recebida é utilizada. Isso reduz a latência de cauda (p99) causada por respostas lentas ocasionais,
+ * ao custo de algumas requisições extras.
+ * 
+ * As requisições extras são limitadas por um orçamento: cada consulta acumula <code>budget</code> créditos 
+ * (p.e. 0.05, ou 5% de requisições extras), e cada requisição extra consome 1 crédito. Nenhuma requisição extra é 
+ * feita até que {@link #MIN_SAMPLES} latências tenham sido observadas.
+ * 
+ * Essa classe é thread-safe. Cada instância mantém o seu próprio histórico de latências, e normalmente deve ser 
+ * utilizada por um único client.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPClient#setHedgingPolicy(ViaCEPHedgingPolicy)
+ */
+public class ViaCEPHedgingPolicy {
+	
+	/**
+	 * Percentil padrão da latência observada após o qual a requisição extra é enviada.
+	 */
+	public static final double DEFAULT_PERCENTILE = 95;
+	
+	/**
+	 * Proporção padrão de requisições extras: 5%.
+	 */
+	public static final double DEFAULT_BUDGET = 0.05;
+	
+	/**
+	 * Tempo mínimo padrão, em milissegundos, antes do envio da requisição extra.
+	 */
+	public static final long DEFAULT_MIN_DELAY = 5;
+	
+	/**
+	 * Número de latências observadas necessárias para que requisições extras sejam feitas.
+	 */
+	public static final int MIN_SAMPLES = 20;
+	
+	/**
+	 * Número máximo de créditos acumulados, que limita as rajadas de requisições extras.
+	 */
+	protected static final double MAX_CREDITS = 10;
+	
+	protected final double percentile;
+	protected final double budget;
+	protected final long minDelayNanos;
+	protected final ViaCEPLatencyHistogram latencies = new ViaCEPLatencyHistogram();
+	protected final AtomicLong hedges = new AtomicLong();
+	protected volatile long delayNanos = -1;
+	protected double credits;
+	
+	/**
+	 * Construtor padrão. Utiliza {@link #DEFAULT_PERCENTILE}, {@link #DEFAULT_BUDGET} e {@link #DEFAULT_MIN_DELAY}.
+	 */
+	public ViaCEPHedgingPolicy() {
+		this(DEFAULT_PERCENTILE, DEFAULT_BUDGET, DEFAULT_MIN_DELAY, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Construtor que permite configurar o percentil e o orçamento de requisições extras.
+	 * 
+	 * @param percentile Percentil da latência observada após o qual a requisição extra é enviada (entre 0 e 100).
+	 * @param budget Proporção máxima de requisições extras (entre 0 e 1).
+	 * @param minDelay Tempo mínimo antes do envio da requisição extra.
+	 * @param unit Unidade de tempo de <code>minDelay</code>.
+	 */
+	public ViaCEPHedgingPolicy(double percentile, double budget, long minDelay, TimeUnit unit) {
+		if (!(percentile > 0 && percentile <= 100)){
+			throw new IllegalArgumentException("Percentil inválido: " + percentile);
+		}
+		if (!(budget >= 0 && budget <= 1)){
+			throw new IllegalArgumentException("Orçamento inválido - deve estar entre 0 e 1: " + budget);
+		}
+		if (minDelay < 0){
+			throw new IllegalArgumentException("O tempo mínimo não pode ser negativo: " + minDelay);
+		}
+		this.percentile = percentile;
+		this.budget = budget;
+		this.minDelayNanos = unit.toNanos(minDelay);
+	}
+	
+	/**
+	 * Retorna o tempo, em nanossegundos, após o qual a requisição extra deve ser enviada, ou -1 caso ainda não haja 
+	 * latências suficientes para calculá-lo.
+	 */
+	public long getDelay() {
+		return delayNanos;
+	}
+	
+	/**
+	 * Registra a latência, em nanossegundos, de uma requisição concluída.
+	 */
+	public void record(long nanos) {
+		latencies.record(nanos);
+		long count = latencies.getCount();
+		//o percentil é recalculado periodicamente, e não a cada consulta
+		if (count >= MIN_SAMPLES && (count == MIN_SAMPLES || count % 16 == 0)){
+			delayNanos = Math.max(minDelayNanos, latencies.getPercentile(percentile));
+		}
+	}
+	
+	/**
+	 * Informa o início de uma consulta, acumulando o orçamento para requisições extras.
+	 */
+	public synchronized void onRequest() {
+		credits = Math.min(MAX_CREDITS, credits + budget);
+	}
+	
+	/**
+	 * Retorna se uma requisição extra pode ser enviada, consumindo o orçamento.
+	 */
+	public synchronized boolean tryHedge() {
+		if (credits < 1){
+			return false;
+		}
+		credits -= 1;
+		hedges.incrementAndGet();
+		return true;
+	}
+	
+	/**
+	 * Número de requisições extras enviadas.
+	 */
+	public long getHedgeCount() {
+		return hedges.get();
+	}
+	
+	/**
+	 * Retorna o histograma das latências observadas.
+	 */
+	public ViaCEPLatencyHistogram getLatencies() {
+		return latencies;
+	}
+
+}
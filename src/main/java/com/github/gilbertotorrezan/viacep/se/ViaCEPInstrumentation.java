@@ -0,0 +1,123 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+/**
+ * Pontos de instrumentação das consultas feitas pelo {@link ViaCEPClient}, para coleta de métricas e tracing.
+ * 
+ * Os métodos são chamados pela thread que executa a consulta, a cada fase da requisição, e recebem apenas valores
+ * primitivos e constantes: nenhum objeto é criado para notificá-los. As implementações devem ser thread-safe e rápidas.
+ * Tempos são sempre medidos em nanossegundos.
+ * 
+ * Por padrão o client utiliza {@link #NOOP}, e nesse caso nenhuma medição é feita.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPMetrics
+ * @see ViaCEPClient#setInstrumentation(ViaCEPInstrumentation)
+ */
+public interface ViaCEPInstrumentation {
+	
+	/**
+	 * Tipo de consulta.
+	 */
+	enum Operation {
+		/** Consulta por CEP. */
+		ENDERECO,
+		/** Consulta por UF, localidade e logradouro. */
+		ENDERECOS
+	}
+	
+	/**
+	 * Resultado de uma consulta.
+	 */
+	enum Outcome {
+		/** Endereços encontrados. */
+		FOUND,
+		/** Nenhum endereço encontrado. */
+		NOT_FOUND,
+		/** Parâmetros inválidos: a consulta não foi enviada. */
+		INVALID,
+		/** Erro de conexão ou de leitura da resposta. */
+		IO_ERROR,
+		/** O web service respondeu com um código HTTP de erro. */
+		HTTP_ERROR
+	}
+	
+	/**
+	 * Implementação que ignora todas as chamadas.
+	 */
+	ViaCEPInstrumentation NOOP = new ViaCEPInstrumentation() {
+		@Override
+		public void onQueueWait(long nanos) {
+		}
+		
+		@Override
+		public void onConnect(long nanos) {
+		}
+		
+		@Override
+		public void onFirstByte(int statusCode, long nanos) {
+		}
+		
+		@Override
+		public void onDecode(long bytes, long nanos) {
+		}
+		
+		@Override
+		public void onLookup(Operation operation, Outcome outcome, long nanos) {
+		}
+	};
+	
+	/**
+	 * Chamado antes do envio de cada requisição, com o tempo de espera pelo {@link ViaCEPRateLimiter} e pelo 
+	 * {@link ViaCEPConcurrencyLimiter} configurados (0 quando não houve espera).
+	 */
+	void onQueueWait(long nanos);
+	
+	/**
+	 * Chamado quando a conexão com o web service é estabelecida. Inclui a resolução de DNS e os handshakes TCP e TLS, 
+	 * e é próximo de zero quando uma conexão keep-alive é reutilizada.
+	 */
+	void onConnect(long nanos);
+	
+	/**
+	 * Chamado quando os cabeçalhos da resposta são recebidos, com o tempo desde o envio da requisição.
+	 */
+	void onFirstByte(int statusCode, long nanos);
+	
+	/**
+	 * Chamado quando o corpo da resposta é desserializado, com o número de bytes lidos.
+	 */
+	void onDecode(long bytes, long nanos);
+	
+	/**
+	 * Chamado ao fim de cada consulta que não foi respondida pelo cache, inclusive consultas com parâmetros inválidos,
+	 * com o tempo total da consulta.
+	 */
+	void onLookup(Operation operation, Outcome outcome, long nanos);
+
+}
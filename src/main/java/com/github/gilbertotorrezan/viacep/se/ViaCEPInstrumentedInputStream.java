@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stream que conta os bytes lidos do corpo da resposta e, ao ser fechado, notifica 
+ * {@link ViaCEPInstrumentation#onDecode(long, long)} com o tempo desde a sua criação.
+ * 
+ * Só é utilizado quando o client possui uma instrumentação diferente de {@link ViaCEPInstrumentation#NOOP}.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+class ViaCEPInstrumentedInputStream extends FilterInputStream {
+	
+	private final ViaCEPInstrumentation instrumentation;
+	private final long start = System.nanoTime();
+	private long bytes;
+	private boolean closed;
+	
+	ViaCEPInstrumentedInputStream(InputStream in, ViaCEPInstrumentation instrumentation) {
+		super(in);
+		this.instrumentation = instrumentation;
+	}
+	
+	@Override
+	public int read() throws IOException {
+		int b = in.read();
+		if (b != -1){
+			bytes++;
+		}
+		return b;
+	}
+	
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int read = in.read(b, off, len);
+		if (read > 0){
+			bytes += read;
+		}
+		return read;
+	}
+	
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = in.skip(n);
+		if (skipped > 0){
+			bytes += skipped;
+		}
+		return skipped;
+	}
+	
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if (closed){
+			return;
+		}
+		closed = true;
+		long elapsed = System.nanoTime() - start;
+		try {
+			in.close();
+		}
+		finally {
+			instrumentation.onDecode(bytes, elapsed);
+		}
+	}
+
+}
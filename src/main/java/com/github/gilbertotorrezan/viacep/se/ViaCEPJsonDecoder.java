@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.jr.ob.JSON;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * {@link ViaCEPDecoder} baseado no binding de beans do Jackson-jr, que permite utilizar um {@link JSON} customizado.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPClient#setService(JSON)
+ */
+public class ViaCEPJsonDecoder implements ViaCEPDecoder {
+	
+	protected final JSON service;
+	
+	/**
+	 * Construtor que utiliza o serviço JSON informado para converter as respostas.
+	 */
+	public ViaCEPJsonDecoder(JSON service) {
+		this.service = service;
+	}
+	
+	@Override
+	public ViaCEPEndereco readEndereco(InputStream in, Class<? extends ViaCEPEndereco> type) throws IOException {
+		JsonParser parser = createParser(in);
+		try {
+			ViaCEPEndereco obj = service.beanFrom(type, parser);
+			if (obj == null || obj.getCep() == null){
+				return null;
+			}
+			return obj;
+		}
+		finally {
+			parser.close();
+		}
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<ViaCEPEndereco> readEnderecos(InputStream in, Class<? extends ViaCEPEndereco> type) throws IOException {
+		JsonParser parser = createParser(in);
+		try {
+			return (List<ViaCEPEndereco>) service.listOfFrom(type, parser);
+		}
+		finally {
+			parser.close();
+		}
+	}
+	
+	@Override
+	public int readEnderecos(InputStream in, Class<? extends ViaCEPEndereco> type, ViaCEPEnderecoHandler handler) throws IOException {
+		JsonParser parser = createParser(in);
+		try {
+			int count = 0;
+			if (parser.nextToken() == JsonToken.START_ARRAY){
+				while (parser.nextToken() == JsonToken.START_OBJECT){
+					handler.onEndereco(service.beanFrom(type, parser));
+					count++;
+				}
+			}
+			return count;
+		}
+		finally {
+			parser.close();
+		}
+	}
+	
+	/**
+	 * Método interno que cria o parser para o corpo da resposta. O stream não é fechado junto com o parser, já que 
+	 * pertence a quem chamou o decoder.
+	 */
+	protected JsonParser createParser(InputStream in) throws IOException {
+		return service.getStreamingFactory().createParser(in).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+	}
+	
+	/**
+	 * Retorna o {@link JSON} utilizado na desserialização.
+	 */
+	public JSON getService() {
+		return service;
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latências com precisão relativa constante (no estilo do HdrHistogram): cada potência de 2 é dividida
+ * em 16 faixas, o que resulta em um erro máximo de cerca de 6% em qualquer percentil, para valores de 1 nanossegundo
+ * até centenas de anos.
+ * 
+ * O registro de valores e a consulta de percentis não criam objetos nem utilizam locks, e podem ser feitos por várias 
+ * threads simultaneamente.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPMetrics
+ */
+public class ViaCEPLatencyHistogram {
+	
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+	
+	/**
+	 * Registra um valor, em nanossegundos. Valores negativos são registrados como 0.
+	 */
+	public void record(long nanos) {
+		if (nanos < 0){
+			nanos = 0;
+		}
+		counts.incrementAndGet(indexOf(nanos));
+		count.incrementAndGet();
+		sum.addAndGet(nanos);
+		long current;
+		while (nanos > (current = max.get())){
+			if (max.compareAndSet(current, nanos)){
+				break;
+			}
+		}
+	}
+	
+	static int indexOf(long value) {
+		if (value < SUB_BUCKETS){
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+	}
+	
+	/**
+	 * Retorna o maior valor representado pela faixa informada.
+	 */
+	static long highestValueOf(int index) {
+		if (index < SUB_BUCKETS){
+			return index;
+		}
+		int shift = index / SUB_BUCKETS - 1;
+		long sub = index % SUB_BUCKETS + SUB_BUCKETS;
+		return ((sub + 1) << shift) - 1;
+	}
+	
+	/**
+	 * Retorna o valor, em nanossegundos, abaixo do qual estão <code>percentile</code>% dos valores registrados 
+	 * (p.e. 99 para o p99), ou 0 caso nenhum valor tenha sido registrado.
+	 */
+	public long getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100){
+			throw new IllegalArgumentException("Percentil inválido: " + percentile);
+		}
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++){
+			total += counts.get(i);
+		}
+		if (total == 0){
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(total * percentile / 100));
+		long accumulated = 0;
+		for (int i = 0; i < BUCKETS; i++){
+			accumulated += counts.get(i);
+			if (accumulated >= target){
+				return Math.min(highestValueOf(i), getMax());
+			}
+		}
+		return getMax();
+	}
+	
+	/**
+	 * Retorna o número de valores registrados.
+	 */
+	public long getCount() {
+		return count.get();
+	}
+	
+	/**
+	 * Retorna a média dos valores registrados, em nanossegundos.
+	 */
+	public double getMean() {
+		long n = count.get();
+		return n == 0 ? 0 : sum.get() / (double) n;
+	}
+	
+	/**
+	 * Retorna o maior valor registrado, em nanossegundos.
+	 */
+	public long getMax() {
+		return max.get();
+	}
+	
+	/**
+	 * Remove todos os valores registrados.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++){
+			counts.set(i, 0);
+		}
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+	
+	@Override
+	public String toString() {
+		return "ViaCEPLatencyHistogram [count=" + getCount() + ", mean=" + toMillis((long) getMean()) + "ms, p50=" 
+				+ toMillis(getPercentile(50)) + "ms, p99=" + toMillis(getPercentile(99)) + "ms, max=" + toMillis(getMax()) + "ms]";
+	}
+	
+	private static double toMillis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+}
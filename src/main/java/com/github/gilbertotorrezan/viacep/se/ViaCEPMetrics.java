@@ -0,0 +1,180 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link ViaCEPInstrumentation} que acumula métricas das consultas: histogramas de latência de cada fase, contadores
+ * por resultado e por tipo de consulta, e o volume de dados recebido.
+ * 
+ * Uma mesma instância pode ser compartilhada por vários clients.
+ * 
+ * <pre>
+ * <code>
+ * ViaCEPMetrics metrics = new ViaCEPMetrics();
+ * client.setInstrumentation(metrics);
+ * ...
+ * long p99 = metrics.getLookupLatency(Operation.ENDERECO).getPercentile(99);
+ * </code>
+ * </pre>
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+public class ViaCEPMetrics implements ViaCEPInstrumentation {
+	
+	private final ViaCEPLatencyHistogram queueWait = new ViaCEPLatencyHistogram();
+	private final ViaCEPLatencyHistogram connect = new ViaCEPLatencyHistogram();
+	private final ViaCEPLatencyHistogram firstByte = new ViaCEPLatencyHistogram();
+	private final ViaCEPLatencyHistogram decode = new ViaCEPLatencyHistogram();
+	private final ViaCEPLatencyHistogram[] lookups = new ViaCEPLatencyHistogram[Operation.values().length];
+	private final AtomicLongArray outcomes = new AtomicLongArray(Operation.values().length * Outcome.values().length);
+	private final AtomicLongArray statusCodes = new AtomicLongArray(6);
+	private final AtomicLong bytes = new AtomicLong();
+	
+	/**
+	 * Construtor padrão, com todas as métricas zeradas.
+	 */
+	public ViaCEPMetrics() {
+		for (int i = 0; i < lookups.length; i++){
+			lookups[i] = new ViaCEPLatencyHistogram();
+		}
+	}
+	
+	@Override
+	public void onQueueWait(long nanos) {
+		queueWait.record(nanos);
+	}
+	
+	@Override
+	public void onConnect(long nanos) {
+		connect.record(nanos);
+	}
+	
+	@Override
+	public void onFirstByte(int statusCode, long nanos) {
+		firstByte.record(nanos);
+		int statusClass = statusCode / 100;
+		if (statusClass >= 1 && statusClass <= 5){
+			statusCodes.incrementAndGet(statusClass);
+		}
+		else {
+			statusCodes.incrementAndGet(0);
+		}
+	}
+	
+	@Override
+	public void onDecode(long bytes, long nanos) {
+		decode.record(nanos);
+		if (bytes > 0){
+			this.bytes.addAndGet(bytes);
+		}
+	}
+	
+	@Override
+	public void onLookup(Operation operation, Outcome outcome, long nanos) {
+		if (outcome != Outcome.INVALID){
+			lookups[operation.ordinal()].record(nanos);
+		}
+		outcomes.incrementAndGet(operation.ordinal() * Outcome.values().length + outcome.ordinal());
+	}
+	
+	/**
+	 * Tempo de espera das requisições pelos limitadores de taxa e de concorrência.
+	 */
+	public ViaCEPLatencyHistogram getQueueWaitLatency() {
+		return queueWait;
+	}
+	
+	/**
+	 * Latência para estabelecer conexões (DNS, TCP e TLS).
+	 */
+	public ViaCEPLatencyHistogram getConnectLatency() {
+		return connect;
+	}
+	
+	/**
+	 * Latência entre o envio da requisição e o recebimento dos cabeçalhos da resposta.
+	 */
+	public ViaCEPLatencyHistogram getFirstByteLatency() {
+		return firstByte;
+	}
+	
+	/**
+	 * Tempo de desserialização das respostas.
+	 */
+	public ViaCEPLatencyHistogram getDecodeLatency() {
+		return decode;
+	}
+	
+	/**
+	 * Latência total das consultas do tipo informado. Consultas com parâmetros inválidos não são incluídas.
+	 */
+	public ViaCEPLatencyHistogram getLookupLatency(Operation operation) {
+		return lookups[operation.ordinal()];
+	}
+	
+	/**
+	 * Número de consultas do tipo informado que terminaram com o resultado informado.
+	 */
+	public long getCount(Operation operation, Outcome outcome) {
+		return outcomes.get(operation.ordinal() * Outcome.values().length + outcome.ordinal());
+	}
+	
+	/**
+	 * Número de respostas recebidas com códigos HTTP da classe informada (p.e. 2 para 2xx, 5 para 5xx).
+	 */
+	public long getStatusCount(int statusClass) {
+		if (statusClass < 1 || statusClass > 5){
+			throw new IllegalArgumentException("Classe de código HTTP inválida: " + statusClass);
+		}
+		return statusCodes.get(statusClass);
+	}
+	
+	/**
+	 * Total de bytes lidos das respostas.
+	 */
+	public long getBytesRead() {
+		return bytes.get();
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("ViaCEPMetrics [");
+		for (Operation operation : Operation.values()){
+			builder.append(operation).append("={");
+			for (Outcome outcome : Outcome.values()){
+				builder.append(outcome).append('=').append(getCount(operation, outcome)).append(", ");
+			}
+			builder.append("latency=").append(getLookupLatency(operation)).append("}, ");
+		}
+		return builder.append("queueWait=").append(queueWait).append(", connect=").append(connect).append(", firstByte=").append(firstByte)
+				.append(", decode=").append(decode).append(", bytes=").append(getBytesRead()).append("]").toString();
+	}
+
+}
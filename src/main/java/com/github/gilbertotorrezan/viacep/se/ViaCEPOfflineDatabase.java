@@ -0,0 +1,382 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Base de CEPs local, somente leitura, para consultas sem acesso à rede.
+ * 
+ * A base é construída a partir de um arquivo de endereços (JSON ou CSV, veja {@link #build(File, File)}) e gravada em
+ * um formato binário compacto: um índice ordenado com os valores numéricos dos CEPs, os campos de cada endereço como
+ * referências a uma tabela de textos sem repetições, e a tabela de textos em UTF-8. 
+ * 
+ * Em tempo de execução o arquivo é mapeado em memória ({@link FileChannel#map}), de forma que a abertura é imediata e 
+ * os dados ficam fora do heap da JVM. Cada consulta é uma busca binária no índice; objetos são criados apenas para 
+ * montar o endereço retornado.
+ * 
+ * O índice ordenado também responde a consultas por intervalo e por prefixo de CEP ({@link CepRangeIndex}).
+ * 
+ * Essa classe é thread-safe.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+public class ViaCEPOfflineDatabase implements CepResolver, CepRangeIndex, Closeable {
+	
+	/**
+	 * Identificador do formato do arquivo: "VCEP".
+	 */
+	protected static final int MAGIC = 0x56434550;
+	protected static final int VERSION = 1;
+	protected static final int HEADER_SIZE = 16;
+	
+	/**
+	 * Campos de texto armazenados por endereço: logradouro, complemento, bairro, localidade, uf e ibge.
+	 */
+	protected static final int FIELDS = 6;
+	
+	protected final RandomAccessFile file;
+	protected final MappedByteBuffer buffer;
+	protected final IntBuffer index;
+	protected final IntBuffer records;
+	protected final IntBuffer stringOffsets;
+	protected final int stringsStart;
+	protected final int size;
+	
+	/**
+	 * Abre uma base previamente construída por {@link #build(File, File)}.
+	 * 
+	 * @throws IOException caso o arquivo não exista ou não esteja no formato esperado.
+	 */
+	public ViaCEPOfflineDatabase(File file) throws IOException {
+		this.file = new RandomAccessFile(file, "r");
+		boolean success = false;
+		try {
+			FileChannel channel = this.file.getChannel();
+			if (channel.size() > Integer.MAX_VALUE){
+				throw new IOException("Arquivo não é uma base de CEPs: " + file);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC){
+				throw new IOException("Arquivo não é uma base de CEPs: " + file);
+			}
+			if (buffer.getInt(4) != VERSION){
+				throw new IOException("Versão não suportada da base de CEPs: " + buffer.getInt(4));
+			}
+			size = buffer.getInt(8);
+			int stringCount = buffer.getInt(12);
+			//as seções são validadas antes de serem mapeadas, para que arquivos corrompidos resultem em IOException
+			long sections = HEADER_SIZE + 4L * size * (1 + FIELDS) + 4L * (stringCount + 1L);
+			if (size < 0 || stringCount < 0 || sections > buffer.capacity()){
+				throw new IOException("Base de CEPs incompleta: " + file);
+			}
+			
+			int position = HEADER_SIZE;
+			index = slice(position, size);
+			position += size * 4;
+			records = slice(position, size * FIELDS);
+			position += size * FIELDS * 4;
+			stringOffsets = slice(position, stringCount + 1);
+			position += (stringCount + 1) * 4;
+			stringsStart = position;
+			int stringsLength = stringOffsets.get(stringCount);
+			if (stringOffsets.get(0) != 0 || stringsLength < 0 || (long) stringsStart + stringsLength > buffer.capacity()){
+				throw new IOException("Base de CEPs incompleta: " + file);
+			}
+			//offsets e referências de strings são validados uma única vez, para que as leituras não precisem de verificações
+			for (int i = 0; i < stringCount; i++){
+				if (stringOffsets.get(i) > stringOffsets.get(i + 1)){
+					throw new IOException("Base de CEPs corrompida: " + file);
+				}
+			}
+			for (int i = 0; i < size * FIELDS; i++){
+				if (records.get(i) >= stringCount){
+					throw new IOException("Base de CEPs corrompida: " + file);
+				}
+			}
+			success = true;
+		}
+		finally {
+			if (!success){
+				this.file.close();
+			}
+		}
+	}
+	
+	private IntBuffer slice(int position, int length) {
+		ByteBuffer view = buffer.duplicate();
+		view.position(position);
+		view.limit(position + length * 4);
+		return view.slice().asIntBuffer();
+	}
+	
+	/**
+	 * Executa a consulta de endereço a partir de um CEP, com o mesmo contrato de {@link ViaCEPClient#getEndereco(String)}.
+	 * 
+	 * @return O endereço encontrado para o CEP, ou <code>null</code> caso não exista na base.
+	 * @throws IllegalArgumentException para CEPs que não possuam 8 dígitos.
+	 */
+	public ViaCEPEndereco getEndereco(String cep) {
+		return getEndereco(Cep.parse(cep));
+	}
+	
+	/**
+	 * Executa a consulta de endereço a partir de um {@link Cep}.
+	 * 
+	 * @return O endereço encontrado para o CEP, ou <code>null</code> caso não exista na base.
+	 */
+	@Override
+	public ViaCEPEndereco getEndereco(Cep cep) {
+		int position = indexOf(cep.intValue());
+		if (position < 0){
+			return null;
+		}
+		return read(position, cep);
+	}
+	
+	/**
+	 * Retorna se o CEP existe na base.
+	 */
+	public boolean contains(Cep cep) {
+		return indexOf(cep.intValue()) >= 0;
+	}
+	
+	@Override
+	public int count(CepRange range) {
+		return range.count(index);
+	}
+	
+	@Override
+	public SortedMap<String, Integer> countByPrefix(CepRange range, int digits) {
+		return range.countByPrefix(index, digits);
+	}
+	
+	@Override
+	public int getEnderecos(CepRange range, ViaCEPEnderecoHandler handler) throws IOException {
+		int start = range.start(index);
+		int end = range.end(index);
+		for (int i = start; i < end; i++){
+			handler.onEndereco(read(i, Cep.valueOf(index.get(i))));
+		}
+		return end - start;
+	}
+	
+	@Override
+	public List<ViaCEPEndereco> getEnderecos(CepRange range) {
+		int start = range.start(index);
+		int end = range.end(index);
+		List<ViaCEPEndereco> enderecos = new ArrayList<ViaCEPEndereco>(end - start);
+		for (int i = start; i < end; i++){
+			enderecos.add(read(i, Cep.valueOf(index.get(i))));
+		}
+		return enderecos;
+	}
+	
+	/**
+	 * Método interno que busca a posição do CEP no índice.
+	 * 
+	 * @return A posição do CEP, ou um valor negativo caso não exista na base.
+	 */
+	protected int indexOf(int cep) {
+		int low = 0;
+		int high = size - 1;
+		while (low <= high){
+			int mid = (low + high) >>> 1;
+			int value = index.get(mid);
+			if (value < cep){
+				low = mid + 1;
+			}
+			else if (value > cep){
+				high = mid - 1;
+			}
+			else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+	
+	/**
+	 * Método interno que monta o endereço armazenado na posição informada do índice.
+	 */
+	protected ViaCEPEndereco read(int position, Cep cep) {
+		int base = position * FIELDS;
+		ViaCEPEndereco endereco = new ViaCEPEndereco();
+		endereco.setCep(cep.format());
+		endereco.setLogradouro(string(records.get(base)));
+		endereco.setComplemento(string(records.get(base + 1)));
+		endereco.setBairro(string(records.get(base + 2)));
+		endereco.setLocalidade(string(records.get(base + 3)));
+		endereco.setUf(string(records.get(base + 4)));
+		endereco.setIbge(string(records.get(base + 5)));
+		return endereco;
+	}
+	
+	private String string(int id) {
+		if (id < 0){
+			return null;
+		}
+		int start = stringOffsets.get(id);
+		int end = stringOffsets.get(id + 1);
+		byte[] bytes = new byte[end - start];
+		ByteBuffer view = buffer.duplicate();
+		view.position(stringsStart + start);
+		view.get(bytes);
+		try {
+			return new String(bytes, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Retorna o número de CEPs na base.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Fecha o arquivo da base. O mapeamento em memória é liberado pela JVM quando a base não for mais referenciada.
+	 */
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+	
+	/**
+	 * Constrói uma base a partir de um arquivo de endereços. Arquivos com extensão <code>.csv</code> são lidos como CSV
+	 * com cabeçalho; os demais, como JSON (um array de endereços, ou um endereço por linha).
+	 * 
+	 * @param dataset Arquivo de endereços no formato da ViaCEP.
+	 * @param output Arquivo onde a base será gravada.
+	 * @return O número de CEPs gravados.
+	 */
+	public static int build(File dataset, File output) throws IOException {
+		final List<ViaCEPEndereco> enderecos = new ArrayList<ViaCEPEndereco>();
+		ViaCEPEnderecoHandler handler = new ViaCEPEnderecoHandler() {
+			@Override
+			public void onEndereco(ViaCEPEndereco endereco) throws IOException {
+				enderecos.add(endereco);
+			}
+		};
+		new ViaCEPDatasetLoader().load(dataset, handler);
+		return build(enderecos, output);
+	}
+	
+	/**
+	 * Constrói uma base a partir dos endereços informados. Endereços com CEPs inválidos são ignorados; para CEPs
+	 * repetidos, prevalece o último endereço.
+	 * 
+	 * @param enderecos Os endereços da base.
+	 * @param output Arquivo onde a base será gravada.
+	 * @return O número de CEPs gravados.
+	 */
+	public static int build(Iterable<ViaCEPEndereco> enderecos, File output) throws IOException {
+		TreeMap<Integer, ViaCEPEndereco> sorted = new TreeMap<Integer, ViaCEPEndereco>();
+		for (ViaCEPEndereco endereco : enderecos){
+			int cep = Cep.toInt(endereco.getCep());
+			if (cep >= 0){
+				sorted.put(cep, endereco);
+			}
+		}
+		
+		Map<String, Integer> ids = new HashMap<String, Integer>();
+		List<byte[]> strings = new ArrayList<byte[]>();
+		int[] fields = new int[sorted.size() * FIELDS];
+		int i = 0;
+		for (ViaCEPEndereco endereco : sorted.values()){
+			fields[i++] = stringId(endereco.getLogradouro(), ids, strings);
+			fields[i++] = stringId(endereco.getComplemento(), ids, strings);
+			fields[i++] = stringId(endereco.getBairro(), ids, strings);
+			fields[i++] = stringId(endereco.getLocalidade(), ids, strings);
+			fields[i++] = stringId(endereco.getUf(), ids, strings);
+			fields[i++] = stringId(endereco.getIbge(), ids, strings);
+		}
+		
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(sorted.size());
+			out.writeInt(strings.size());
+			for (Integer cep : sorted.keySet()){
+				out.writeInt(cep);
+			}
+			for (int field : fields){
+				out.writeInt(field);
+			}
+			int offset = 0;
+			out.writeInt(offset);
+			for (byte[] string : strings){
+				offset += string.length;
+				out.writeInt(offset);
+			}
+			for (byte[] string : strings){
+				out.write(string);
+			}
+		}
+		finally {
+			out.close();
+		}
+		return sorted.size();
+	}
+	
+	private static int stringId(String value, Map<String, Integer> ids, List<byte[]> strings) throws UnsupportedEncodingException {
+		if (value == null){
+			return -1;
+		}
+		Integer id = ids.get(value);
+		if (id == null){
+			id = strings.size();
+			ids.put(value, id);
+			strings.add(value.getBytes("UTF-8"));
+		}
+		return id;
+	}
+
+}
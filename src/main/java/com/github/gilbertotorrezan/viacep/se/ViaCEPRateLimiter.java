@@ -0,0 +1,167 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limitador de taxa (token bucket) para as requisições feitas pelo {@link ViaCEPClient} aos web services da ViaCEP.
+ * 
+ * Permite até <code>burst</code> requisições imediatas; a partir daí, as requisições são espaçadas de forma a não
+ * exceder <code>permitsPerSecond</code> requisições por segundo.
+ * 
+ * Essa classe é thread-safe, e uma mesma instância pode ser compartilhada por vários clients (veja 
+ * {@link ViaCEPClient#setDefaultRateLimiter(ViaCEPRateLimiter)}).
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPClient#setRateLimiter(ViaCEPRateLimiter)
+ */
+public class ViaCEPRateLimiter {
+	
+	protected final long intervalNanos;
+	protected final int burst;
+	protected long nextPermit;
+	
+	protected final AtomicLong waits = new AtomicLong();
+	protected final AtomicLong waitNanos = new AtomicLong();
+	
+	/**
+	 * Construtor que permite definir a taxa máxima de requisições por segundo, sem rajadas.
+	 */
+	public ViaCEPRateLimiter(double permitsPerSecond) {
+		this(permitsPerSecond, 1);
+	}
+	
+	/**
+	 * Construtor que permite definir a taxa máxima de requisições por segundo e o tamanho máximo das rajadas.
+	 * 
+	 * @param permitsPerSecond Número máximo de requisições por segundo.
+	 * @param burst Número de requisições que podem ser feitas imediatamente após um período de ociosidade.
+	 */
+	public ViaCEPRateLimiter(double permitsPerSecond, int burst) {
+		if (!(permitsPerSecond > 0)){
+			throw new IllegalArgumentException("A taxa de requisições deve ser positiva: " + permitsPerSecond);
+		}
+		if (burst < 1){
+			throw new IllegalArgumentException("O tamanho da rajada deve ser positivo: " + burst);
+		}
+		this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+		this.burst = burst;
+		this.nextPermit = now() - (burst - 1) * intervalNanos;
+	}
+	
+	/**
+	 * Aguarda até que uma requisição possa ser feita.
+	 * 
+	 * @return O tempo de espera, em nanossegundos.
+	 * @throws InterruptedException caso a thread seja interrompida durante a espera.
+	 */
+	public long acquire() throws InterruptedException {
+		long wait = reserve();
+		if (wait > 0){
+			waits.incrementAndGet();
+			waitNanos.addAndGet(wait);
+			sleep(wait);
+			return wait;
+		}
+		return 0;
+	}
+	
+	/**
+	 * Tenta obter permissão para uma requisição, sem aguardar.
+	 * 
+	 * @return <code>true</code> caso a requisição possa ser feita imediatamente.
+	 */
+	public synchronized boolean tryAcquire() {
+		long now = now();
+		long earliest = now - (burst - 1) * intervalNanos;
+		long next = Math.max(nextPermit, earliest);
+		if (next > now){
+			return false;
+		}
+		nextPermit = next + intervalNanos;
+		return true;
+	}
+	
+	/**
+	 * Método interno que reserva a próxima permissão e retorna o tempo de espera, em nanossegundos.
+	 */
+	protected synchronized long reserve() {
+		long now = now();
+		long earliest = now - (burst - 1) * intervalNanos;
+		if (nextPermit < earliest){
+			nextPermit = earliest;
+		}
+		long wait = nextPermit - now;
+		nextPermit += intervalNanos;
+		return wait;
+	}
+	
+	/**
+	 * Retorna o número máximo de requisições por segundo.
+	 */
+	public double getPermitsPerSecond() {
+		return TimeUnit.SECONDS.toNanos(1) / (double) intervalNanos;
+	}
+	
+	/**
+	 * Retorna o número de requisições que podem ser feitas imediatamente após um período de ociosidade.
+	 */
+	public int getBurst() {
+		return burst;
+	}
+	
+	/**
+	 * Número de requisições que precisaram aguardar.
+	 */
+	public long getWaitCount() {
+		return waits.get();
+	}
+	
+	/**
+	 * Tempo total, em nanossegundos, que as requisições aguardaram.
+	 */
+	public long getTotalWaitNanos() {
+		return waitNanos.get();
+	}
+	
+	/**
+	 * Método interno que retorna o tempo atual, em nanossegundos.
+	 */
+	protected long now() {
+		return System.nanoTime();
+	}
+	
+	/**
+	 * Método interno que aguarda o tempo informado, em nanossegundos.
+	 */
+	protected void sleep(long nanos) throws InterruptedException {
+		TimeUnit.NANOSECONDS.sleep(nanos);
+	}
+
+}
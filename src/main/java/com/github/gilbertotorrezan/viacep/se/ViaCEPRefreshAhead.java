@@ -0,0 +1,195 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+
+/**
+ * Atualização antecipada ("refresh-ahead") das entradas do {@link ViaCEPCache}: quando uma entrada é consultada após
+ * consumir parte do seu tempo de vida (p.e. 75%), o {@link ViaCEPClient} retorna o valor ainda válido e agenda a 
+ * atualização da entrada em segundo plano. Assim, os CEPs consultados com frequência raramente expiram, e os 
+ * chamadores não pagam a latência do web service periodicamente.
+ * 
+ * As atualizações são executadas por um pool próprio de threads daemon, limitado em número de atualizações simultâneas
+ * e pendentes. Atualizações que excedem esses limites são descartadas (a entrada expira normalmente), e cada CEP possui
+ * no máximo uma atualização pendente.
+ * 
+ * Essa classe é thread-safe, e uma mesma instância pode ser compartilhada por vários clients.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPClient#setRefreshAhead(ViaCEPRefreshAhead)
+ */
+public class ViaCEPRefreshAhead {
+	
+	/**
+	 * Proporção padrão do tempo de vida após a qual as entradas consultadas são atualizadas: 75%.
+	 */
+	public static final double DEFAULT_REFRESH_AFTER = 0.75;
+	
+	/**
+	 * Número máximo padrão de atualizações simultâneas.
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT_REFRESHES = 2;
+	
+	/**
+	 * Número máximo padrão de atualizações aguardando execução.
+	 */
+	public static final int DEFAULT_MAX_PENDING_REFRESHES = 100;
+	
+	protected final double refreshAfter;
+	protected final ThreadPoolExecutor executor;
+	protected final ConcurrentMap<Cep, Boolean> pending = new ConcurrentHashMap<Cep, Boolean>();
+	protected final ViaCEPLatencyHistogram lag = new ViaCEPLatencyHistogram();
+	protected final AtomicLong refreshes = new AtomicLong();
+	protected final AtomicLong failures = new AtomicLong();
+	protected final AtomicLong rejected = new AtomicLong();
+	
+	/**
+	 * Construtor padrão. Utiliza {@link #DEFAULT_REFRESH_AFTER}, {@link #DEFAULT_MAX_CONCURRENT_REFRESHES} e 
+	 * {@link #DEFAULT_MAX_PENDING_REFRESHES}.
+	 */
+	public ViaCEPRefreshAhead() {
+		this(DEFAULT_REFRESH_AFTER, DEFAULT_MAX_CONCURRENT_REFRESHES, DEFAULT_MAX_PENDING_REFRESHES);
+	}
+	
+	/**
+	 * Construtor que permite configurar quando as entradas são atualizadas e os limites de atualizações.
+	 * 
+	 * @param refreshAfter Proporção do tempo de vida após a qual as entradas consultadas são atualizadas (entre 0 e 1).
+	 * @param maxConcurrentRefreshes Número máximo de atualizações simultâneas.
+	 * @param maxPendingRefreshes Número máximo de atualizações aguardando execução.
+	 */
+	public ViaCEPRefreshAhead(double refreshAfter, int maxConcurrentRefreshes, int maxPendingRefreshes) {
+		if (!(refreshAfter > 0 && refreshAfter < 1)){
+			throw new IllegalArgumentException("Proporção inválida - deve estar entre 0 e 1: " + refreshAfter);
+		}
+		if (maxConcurrentRefreshes < 1 || maxPendingRefreshes < 1){
+			throw new IllegalArgumentException("Os limites de atualizações devem ser positivos: " + maxConcurrentRefreshes + ", " + maxPendingRefreshes);
+		}
+		this.refreshAfter = refreshAfter;
+		this.executor = new ThreadPoolExecutor(maxConcurrentRefreshes, maxConcurrentRefreshes, 30, TimeUnit.SECONDS, 
+				new ArrayBlockingQueue<Runnable>(maxPendingRefreshes), new ViaCEPFutureTask.DaemonThreadFactory("viacep-refresh-"));
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+	
+	/**
+	 * Agenda a atualização de um CEP.
+	 * 
+	 * @param refresh Executa a consulta e armazena o resultado no cache.
+	 * @return <code>true</code> caso a atualização tenha sido agendada, <code>false</code> caso já exista uma atualização
+	 * pendente para o CEP ou os limites de atualizações tenham sido atingidos.
+	 */
+	public boolean submit(final Cep cep, final Callable<?> refresh) {
+		if (pending.putIfAbsent(cep, Boolean.TRUE) != null){
+			return false;
+		}
+		final long start = System.nanoTime();
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						refresh.call();
+						refreshes.incrementAndGet();
+						lag.record(System.nanoTime() - start);
+					} catch (Exception e) {
+						//a entrada continua válida até expirar, e a próxima consulta tenta novamente
+						failures.incrementAndGet();
+					}
+					finally {
+						pending.remove(cep);
+					}
+				}
+			});
+			return true;
+		} catch (RejectedExecutionException e) {
+			pending.remove(cep);
+			rejected.incrementAndGet();
+			return false;
+		}
+	}
+	
+	/**
+	 * Retorna a proporção do tempo de vida após a qual as entradas consultadas são atualizadas.
+	 */
+	public double getRefreshAfter() {
+		return refreshAfter;
+	}
+	
+	/**
+	 * Número de atualizações concluídas com sucesso.
+	 */
+	public long getRefreshCount() {
+		return refreshes.get();
+	}
+	
+	/**
+	 * Número de atualizações que falharam. As entradas correspondentes continuam válidas até expirarem.
+	 */
+	public long getFailureCount() {
+		return failures.get();
+	}
+	
+	/**
+	 * Número de atualizações descartadas por exceder os limites de atualizações simultâneas e pendentes.
+	 */
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+	
+	/**
+	 * Número de atualizações agendadas ou em execução.
+	 */
+	public int getPendingCount() {
+		return pending.size();
+	}
+	
+	/**
+	 * Retorna o histograma do atraso das atualizações concluídas com sucesso: o tempo entre o agendamento e o 
+	 * armazenamento do novo valor no cache.
+	 */
+	public ViaCEPLatencyHistogram getLag() {
+		return lag;
+	}
+	
+	/**
+	 * Encerra o pool de threads. Atualizações pendentes são executadas, e novas atualizações são descartadas.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Resposta de uma requisição executada pelo {@link ViaCEPTransport}.
+ * 
+ * A resposta deve sempre ser fechada pelo chamador. O fechamento libera a conexão para ser reutilizada em 
+ * requisições futuras.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+public class ViaCEPResponse implements Closeable {
+	
+	/**
+	 * Código HTTP de respostas a requisições condicionais cujo conteúdo não mudou.
+	 */
+	public static final int NOT_MODIFIED = 304;
+	
+	private final int statusCode;
+	private final InputStream body;
+	private final ViaCEPValidators validators;
+	
+	/**
+	 * @param statusCode O código HTTP da resposta.
+	 * @param body O corpo da resposta, já descompactado. Vazio para respostas 304.
+	 * @param validators Os validadores da resposta, ou <code>null</code> caso o servidor não os tenha enviado.
+	 */
+	public ViaCEPResponse(int statusCode, InputStream body, ViaCEPValidators validators) {
+		this.statusCode = statusCode;
+		this.body = body;
+		this.validators = validators;
+	}
+	
+	/**
+	 * Retorna o código HTTP da resposta.
+	 */
+	public int getStatusCode() {
+		return statusCode;
+	}
+	
+	/**
+	 * Retorna se a resposta é um 304 (Not Modified): o conteúdo não mudou desde a resposta que gerou os validadores 
+	 * enviados na requisição.
+	 */
+	public boolean isNotModified() {
+		return statusCode == NOT_MODIFIED;
+	}
+	
+	/**
+	 * Retorna o corpo da resposta, já descompactado. Nunca é <code>null</code>.
+	 */
+	public InputStream getBody() {
+		return body;
+	}
+	
+	/**
+	 * Retorna os validadores (<code>ETag</code> e <code>Last-Modified</code>) da resposta, ou <code>null</code> caso o 
+	 * servidor não os tenha enviado.
+	 */
+	public ViaCEPValidators getValidators() {
+		return validators;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		body.close();
+	}
+
+}
@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Política de repetição das requisições feitas pelo {@link ViaCEPClient} que falham por erros temporários: erros de
+ * conexão, tempos limite excedidos e respostas HTTP 5xx ou 429. Requisições com outros códigos HTTP de erro, 
+ * interrompidas ou bloqueadas pelo {@link ViaCEPCircuitBreaker} não são repetidas.
+ * 
+ * O intervalo entre as tentativas cresce exponencialmente a partir de <code>baseDelay</code>, até <code>maxDelay</code>, 
+ * e é sorteado entre 0 e esse valor ("full jitter"), para que vários clients não repitam as requisições ao mesmo tempo.
+ * 
+ * Essa classe é thread-safe, e uma mesma instância pode ser compartilhada por vários clients.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPClient#setRetryPolicy(ViaCEPRetryPolicy)
+ */
+public class ViaCEPRetryPolicy {
+	
+	/**
+	 * Número máximo padrão de tentativas, incluindo a primeira.
+	 */
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+	
+	/**
+	 * Intervalo base padrão entre tentativas, em milissegundos.
+	 */
+	public static final long DEFAULT_BASE_DELAY = 100;
+	
+	/**
+	 * Intervalo máximo padrão entre tentativas, em milissegundos.
+	 */
+	public static final long DEFAULT_MAX_DELAY = 2000;
+	
+	protected final int maxAttempts;
+	protected final long baseDelayNanos;
+	protected final long maxDelayNanos;
+	
+	/**
+	 * Construtor padrão. Utiliza {@link #DEFAULT_MAX_ATTEMPTS}, {@link #DEFAULT_BASE_DELAY} e {@link #DEFAULT_MAX_DELAY}.
+	 */
+	public ViaCEPRetryPolicy() {
+		this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Construtor que permite configurar o número de tentativas e os intervalos entre elas.
+	 * 
+	 * @param maxAttempts Número máximo de tentativas, incluindo a primeira.
+	 * @param baseDelay Intervalo máximo antes da segunda tentativa. Dobra a cada nova tentativa.
+	 * @param maxDelay Limite do intervalo entre tentativas.
+	 * @param unit Unidade de tempo de <code>baseDelay</code> e <code>maxDelay</code>.
+	 */
+	public ViaCEPRetryPolicy(int maxAttempts, long baseDelay, long maxDelay, TimeUnit unit) {
+		if (maxAttempts < 1){
+			throw new IllegalArgumentException("O número de tentativas deve ser positivo: " + maxAttempts);
+		}
+		if (baseDelay < 0 || maxDelay < baseDelay){
+			throw new IllegalArgumentException("Intervalos inválidos: " + baseDelay + ", " + maxDelay);
+		}
+		this.maxAttempts = maxAttempts;
+		this.baseDelayNanos = unit.toNanos(baseDelay);
+		this.maxDelayNanos = unit.toNanos(maxDelay);
+	}
+	
+	/**
+	 * Retorna se a requisição que falhou com o erro informado pode ser repetida.
+	 */
+	public boolean isRetryable(IOException e) {
+		return isTransient(e);
+	}
+	
+	/**
+	 * Retorna o tempo de espera, em nanossegundos, antes da próxima tentativa.
+	 * 
+	 * @param attempt O número da tentativa que falhou, a partir de 1.
+	 */
+	public long getDelay(int attempt) {
+		long delay = baseDelayNanos;
+		for (int i = 1; i < attempt && delay < maxDelayNanos; i++){
+			delay <<= 1;
+		}
+		return (long) (random() * Math.min(delay, maxDelayNanos));
+	}
+	
+	/**
+	 * Retorna o número máximo de tentativas, incluindo a primeira.
+	 */
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+	
+	/**
+	 * Método interno que retorna um número aleatório entre 0 (inclusive) e 1 (exclusive).
+	 */
+	protected double random() {
+		return Math.random();
+	}
+	
+	/**
+	 * Método interno que aguarda o tempo informado, em nanossegundos.
+	 */
+	protected void sleep(long nanos) throws InterruptedException {
+		TimeUnit.NANOSECONDS.sleep(nanos);
+	}
+	
+	/**
+	 * Retorna se o erro é temporário: tempos limite de conexão e de leitura ({@link SocketTimeoutException}), erros de
+	 * conexão ({@link SocketException}, como {@link java.net.ConnectException}) e respostas HTTP 5xx ou 429. 
+	 * 
+	 * Os demais erros não são temporários, pois se repetiriam em todas as tentativas: URLs inválidas, hosts 
+	 * desconhecidos, respostas malformadas, interrupções e requisições que não chegaram a ser enviadas 
+	 * ({@link ViaCEPCircuitOpenException}, {@link ViaCEPConnectionUnavailableException}).
+	 */
+	public static boolean isTransient(IOException e) {
+		if (e instanceof ViaCEPHttpException){
+			return ((ViaCEPHttpException) e).isTransient();
+		}
+		return e instanceof SocketTimeoutException || e instanceof SocketException;
+	}
+
+}
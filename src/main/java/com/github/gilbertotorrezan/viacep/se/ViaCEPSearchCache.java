@@ -0,0 +1,232 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Cache em memória dos resultados das consultas por UF, localidade e logradouro do {@link ViaCEPClient}, indexado
+ * pela chave canônica da consulta ({@link ViaCEPSearchKey}).
+ * 
+ * Como uma única consulta pode retornar dezenas de endereços, o cache é limitado pelo número total de endereços 
+ * retidos, e não pelo número de consultas: quando o limite é atingido, os resultados menos recentemente utilizados 
+ * (LRU) são descartados. Resultados vazios contam como um endereço. Cada resultado expira após um tempo de vida (TTL).
+ * 
+ * Essa classe é thread-safe. As listas armazenadas não podem ser alteradas, e os objetos {@link ViaCEPEndereco} são
+ * compartilhados entre todos os chamadores e não devem ser alterados.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPClient#setSearchCache(ViaCEPSearchCache)
+ */
+public class ViaCEPSearchCache {
+	
+	/**
+	 * Número máximo padrão de endereços retidos no cache.
+	 */
+	public static final int DEFAULT_MAX_ENDERECOS = 10000;
+	
+	/**
+	 * Tempo de vida padrão, em milissegundos, dos resultados: 1 dia.
+	 */
+	public static final long DEFAULT_TTL = TimeUnit.DAYS.toMillis(1);
+	
+	protected final int maxEnderecos;
+	protected final long ttlNanos;
+	protected final LinkedHashMap<ViaCEPSearchKey, Entry> entries = new LinkedHashMap<ViaCEPSearchKey, Entry>(16, 0.75f, true);
+	protected int retained;
+	
+	protected final AtomicLong hits = new AtomicLong();
+	protected final AtomicLong misses = new AtomicLong();
+	protected final AtomicLong evictions = new AtomicLong();
+	
+	/**
+	 * Construtor padrão. Utiliza {@link #DEFAULT_MAX_ENDERECOS} e {@link #DEFAULT_TTL}.
+	 */
+	public ViaCEPSearchCache() {
+		this(DEFAULT_MAX_ENDERECOS, DEFAULT_TTL, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Construtor que permite configurar o limite de endereços e o tempo de vida dos resultados.
+	 * 
+	 * @param maxEnderecos Número máximo de endereços retidos, somando todos os resultados.
+	 * @param ttl Tempo de vida dos resultados.
+	 * @param unit Unidade de tempo de <code>ttl</code>.
+	 */
+	public ViaCEPSearchCache(int maxEnderecos, long ttl, TimeUnit unit) {
+		if (maxEnderecos < 1){
+			throw new IllegalArgumentException("O número máximo de endereços deve ser positivo: " + maxEnderecos);
+		}
+		if (ttl < 0){
+			throw new IllegalArgumentException("O tempo de vida não pode ser negativo: " + ttl);
+		}
+		this.maxEnderecos = maxEnderecos;
+		this.ttlNanos = unit.toNanos(ttl);
+	}
+	
+	/**
+	 * Retorna o resultado armazenado para a consulta, ou <code>null</code> caso a consulta não esteja no cache ou o resultado tenha expirado.
+	 */
+	public List<ViaCEPEndereco> get(ViaCEPSearchKey key) {
+		long now = now();
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(key);
+			if (entry != null && now - entry.expiresAt >= 0){
+				entries.remove(key);
+				retained -= entry.weight();
+				evictions.incrementAndGet();
+				entry = null;
+			}
+		}
+		if (entry == null){
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return entry.enderecos;
+	}
+	
+	/**
+	 * Armazena o resultado de uma consulta. Resultados maiores do que o limite do cache não são armazenados, e o 
+	 * resultado anterior da mesma consulta é descartado, para que não continue sendo retornado.
+	 */
+	public void put(ViaCEPSearchKey key, List<ViaCEPEndereco> enderecos) {
+		if (ttlNanos == 0){
+			return;
+		}
+		Entry entry = new Entry(Collections.unmodifiableList(enderecos), now() + ttlNanos);
+		if (entry.weight() > maxEnderecos){
+			synchronized (entries) {
+				Entry previous = entries.remove(key);
+				if (previous != null){
+					retained -= previous.weight();
+				}
+			}
+			return;
+		}
+		synchronized (entries) {
+			Entry previous = entries.put(key, entry);
+			if (previous != null){
+				retained -= previous.weight();
+			}
+			retained += entry.weight();
+			Iterator<Entry> iterator = entries.values().iterator();
+			while (retained > maxEnderecos && iterator.hasNext()){
+				Entry eldest = iterator.next();
+				iterator.remove();
+				retained -= eldest.weight();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+	
+	/**
+	 * Remove todos os resultados do cache. Os contadores não são alterados.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+			retained = 0;
+		}
+	}
+	
+	/**
+	 * Retorna o número de consultas no cache.
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+	
+	/**
+	 * Retorna o número de endereços retidos no cache, somando todos os resultados.
+	 */
+	public int getRetainedCount() {
+		synchronized (entries) {
+			return retained;
+		}
+	}
+	
+	/**
+	 * Número de consultas que encontraram um resultado válido no cache.
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+	
+	/**
+	 * Número de consultas que não encontraram um resultado válido no cache.
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+	
+	/**
+	 * Número de resultados removidos por falta de espaço ou por expiração.
+	 */
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+	
+	/**
+	 * Retorna o número máximo de endereços retidos no cache.
+	 */
+	public int getMaxEnderecos() {
+		return maxEnderecos;
+	}
+	
+	/**
+	 * Método interno que retorna o tempo atual, em nanossegundos.
+	 */
+	protected long now() {
+		return System.nanoTime();
+	}
+	
+	private static class Entry {
+		final List<ViaCEPEndereco> enderecos;
+		final long expiresAt;
+		
+		Entry(List<ViaCEPEndereco> enderecos, long expiresAt) {
+			this.enderecos = enderecos;
+			this.expiresAt = expiresAt;
+		}
+		
+		int weight() {
+			return Math.max(1, enderecos.size());
+		}
+	}
+
+}
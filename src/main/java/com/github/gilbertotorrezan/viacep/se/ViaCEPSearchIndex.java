@@ -0,0 +1,519 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Índice local, em memória, dos endereços retornados pelo {@link ViaCEPClient} ou carregados de um arquivo, que 
+ * responde a buscas por prefixo de logradouro e bairro em microssegundos - p.e. para o preenchimento automático de 
+ * formulários de endereço.
+ * 
+ * O índice é particionado por UF e localidade. Em cada partição, as palavras do logradouro e do bairro são normalizadas
+ * (sem acentos e em minúsculas, veja {@link #fold(String)}) e mantidas em uma árvore ordenada, de forma que uma busca por 
+ * prefixo percorre apenas as palavras que começam com o prefixo. Uma busca retorna os endereços em que cada palavra da 
+ * consulta é prefixo de alguma palavra do logradouro ou do bairro: "av paul" encontra "Avenida Paulista".
+ * 
+ * O índice sabe quando a sua resposta é completa: uma consulta ao web service que retorna menos de 
+ * {@link #REMOTE_RESULT_LIMIT} endereços contém todos os endereços daquela busca, então buscas que estendem a mesma
+ * consulta (p.e. "paul" após "pau") podem ser respondidas localmente, por {@link #findByLogradouro(String, String, String, int)}
+ * - que utiliza o mesmo critério do web service (trecho do logradouro), e não a busca por prefixo de palavras. Partições 
+ * carregadas de um arquivo com {@link #load(File)} são completas para qualquer busca. Nos demais casos, o 
+ * {@link ViaCEPClient} consulta o web service.
+ * 
+ * O índice não descarta endereços: o {@link ViaCEPClient} indexa apenas os resultados das consultas por logradouro 
+ * (e não os das consultas por CEP), e o índice pode ser esvaziado com {@link #clear()}.
+ * 
+ * Essa classe é thread-safe. Os objetos {@link ViaCEPEndereco} indexados são compartilhados entre todos os chamadores e 
+ * não devem ser alterados.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPClient#setSearchIndex(ViaCEPSearchIndex)
+ */
+public class ViaCEPSearchIndex implements ViaCEPEnderecoHandler {
+	
+	/**
+	 * Número máximo de endereços retornados pelo web service em uma consulta por UF, localidade e logradouro.
+	 */
+	public static final int REMOTE_RESULT_LIMIT = 50;
+	
+	private static final Comparator<Document> BY_CEP = new Comparator<Document>() {
+		@Override
+		public int compare(Document o1, Document o2) {
+			return o1.cep.compareTo(o2.cep);
+		}
+	};
+	
+	protected final ConcurrentMap<String, Partition> partitions = new ConcurrentHashMap<String, Partition>();
+	
+	/**
+	 * Adiciona um endereço ao índice. Endereços sem CEP, UF ou localidade são ignorados; um endereço com o mesmo CEP de 
+	 * um endereço já indexado o substitui.
+	 */
+	public void add(ViaCEPEndereco endereco) {
+		if (endereco == null || endereco.getCep() == null || endereco.getUf() == null || endereco.getLocalidade() == null){
+			return;
+		}
+		getPartition(endereco.getUf(), endereco.getLocalidade(), true).add(endereco);
+	}
+	
+	/**
+	 * Adiciona os endereços ao índice.
+	 * 
+	 * @see #add(ViaCEPEndereco)
+	 */
+	public void addAll(Collection<? extends ViaCEPEndereco> enderecos) {
+		for (ViaCEPEndereco endereco : enderecos){
+			add(endereco);
+		}
+	}
+	
+	@Override
+	public void onEndereco(ViaCEPEndereco endereco) {
+		add(endereco);
+	}
+	
+	/**
+	 * Registra que o índice contém todos os endereços que correspondem à busca na partição informada, de forma que 
+	 * essa busca, e qualquer busca que a estenda, pode ser respondida localmente.
+	 */
+	public void markComplete(String uf, String localidade, String query) {
+		getPartition(uf, localidade, true).markComplete(fold(query));
+	}
+	
+	/**
+	 * Registra que o índice contém todos os endereços da partição informada.
+	 */
+	public void markComplete(String uf, String localidade) {
+		markComplete(uf, localidade, "");
+	}
+	
+	/**
+	 * Retorna se o índice possui todos os endereços que o web service retornaria para a busca, de forma que ela pode ser
+	 * respondida localmente por {@link #findByLogradouro(String, String, String, int)}. 
+	 */
+	public boolean isComplete(String uf, String localidade, String query) {
+		Partition partition = getPartition(uf, localidade, false);
+		return partition != null && partition.isComplete(fold(query));
+	}
+	
+	/**
+	 * Busca os endereços indexados da partição cujas palavras do logradouro ou do bairro começam com as palavras da busca.
+	 * Os endereços são ordenados pela palavra correspondente à busca e, em seguida, por CEP. A busca termina assim que 
+	 * <code>limit</code> endereços são encontrados, então o seu custo não depende do tamanho da partição.
+	 * 
+	 * @param uf Unidade Federativa.
+	 * @param localidade Localidade (p.e. município), com ou sem acentos.
+	 * @param query Prefixos das palavras do logradouro ou do bairro, com ou sem acentos.
+	 * @param limit Número máximo de endereços retornados.
+	 * 
+	 * @return Os endereços encontrados, nunca <code>null</code>.
+	 */
+	public List<ViaCEPEndereco> search(String uf, String localidade, String query, int limit) {
+		Partition partition = getPartition(uf, localidade, false);
+		if (partition == null || limit < 1){
+			return Collections.emptyList();
+		}
+		return partition.search(tokenize(fold(query)), limit);
+	}
+	
+	/**
+	 * Busca os endereços indexados da partição cujo logradouro contém o trecho informado, com o mesmo critério das
+	 * consultas por UF, localidade e logradouro do web service: o trecho pode começar e terminar no meio de palavras, e o
+	 * bairro não é considerado. Acentos, maiúsculas e pontuação são ignorados. Os endereços são ordenados por CEP, o que
+	 * pode diferir da ordem retornada pelo web service.
+	 * 
+	 * Diferente de {@link #search(String, String, String, int)}, o custo da busca é proporcional ao tamanho da partição 
+	 * quando o trecho possui apenas uma palavra.
+	 * 
+	 * @param uf Unidade Federativa.
+	 * @param localidade Localidade (p.e. município), com ou sem acentos.
+	 * @param logradouro Trecho do logradouro, com ou sem acentos.
+	 * @param limit Número máximo de endereços retornados.
+	 * 
+	 * @return Os endereços encontrados, nunca <code>null</code>.
+	 * @see #isComplete(String, String, String)
+	 */
+	public List<ViaCEPEndereco> findByLogradouro(String uf, String localidade, String logradouro, int limit) {
+		Partition partition = getPartition(uf, localidade, false);
+		if (partition == null || limit < 1){
+			return Collections.emptyList();
+		}
+		return partition.findByLogradouro(tokenize(fold(logradouro)), limit);
+	}
+	
+	/**
+	 * Carrega os endereços de um arquivo no formato da ViaCEP, e marca as partições carregadas como completas. Arquivos 
+	 * com extensão <code>.csv</code> são lidos como CSV com cabeçalho; os demais, como JSON.
+	 * 
+	 * @return O número de endereços lidos.
+	 * @see ViaCEPDatasetLoader
+	 * @see ViaCEPOfflineDatabase#build(File, File)
+	 */
+	public int load(File dataset) throws IOException {
+		final Set<Partition> loaded = new HashSet<Partition>();
+		ViaCEPEnderecoHandler handler = new ViaCEPEnderecoHandler() {
+			@Override
+			public void onEndereco(ViaCEPEndereco endereco) throws IOException {
+				add(endereco);
+				if (endereco.getUf() != null && endereco.getLocalidade() != null){
+					loaded.add(getPartition(endereco.getUf(), endereco.getLocalidade(), true));
+				}
+			}
+		};
+		int count = (int) new ViaCEPDatasetLoader().load(dataset, handler).getCount();
+		for (Partition partition : loaded){
+			partition.markComplete("");
+		}
+		return count;
+	}
+	
+	/**
+	 * Número de endereços indexados.
+	 */
+	public int size() {
+		int size = 0;
+		for (Partition partition : partitions.values()){
+			size += partition.size();
+		}
+		return size;
+	}
+	
+	/**
+	 * Número de partições (pares de UF e localidade) do índice.
+	 */
+	public int getPartitionCount() {
+		return partitions.size();
+	}
+	
+	/**
+	 * Remove todos os endereços do índice.
+	 */
+	public void clear() {
+		partitions.clear();
+	}
+	
+	/**
+	 * Método interno que retorna a partição de uma UF e localidade, criando-a se necessário.
+	 */
+	protected Partition getPartition(String uf, String localidade, boolean create) {
+		String key = fold(uf) + '/' + fold(localidade);
+		Partition partition = partitions.get(key);
+		if (partition == null && create){
+			partition = new Partition();
+			Partition existing = partitions.putIfAbsent(key, partition);
+			if (existing != null){
+				partition = existing;
+			}
+		}
+		return partition;
+	}
+	
+	/**
+	 * Normaliza um texto para buscas: remove acentos e converte para minúsculas. Caracteres que não são letras nem 
+	 * dígitos são convertidos em espaços.
+	 */
+	public static String fold(String text) {
+		if (text == null){
+			return "";
+		}
+		String normalized = text;
+		for (int i = 0; i < text.length(); i++){
+			if (text.charAt(i) > 127){
+				normalized = Normalizer.normalize(text, Normalizer.Form.NFD);
+				break;
+			}
+		}
+		StringBuilder folded = new StringBuilder(normalized.length());
+		for (int i = 0; i < normalized.length(); i++){
+			char c = normalized.charAt(i);
+			if (Character.getType(c) == Character.NON_SPACING_MARK){
+				continue;
+			}
+			folded.append(Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : ' ');
+		}
+		return folded.toString();
+	}
+	
+	private static String[] tokenize(String folded) {
+		List<String> tokens = new ArrayList<String>();
+		int start = -1;
+		for (int i = 0; i <= folded.length(); i++){
+			boolean space = i == folded.length() || folded.charAt(i) == ' ';
+			if (space && start >= 0){
+				tokens.add(folded.substring(start, i));
+				start = -1;
+			}
+			else if (!space && start < 0){
+				start = i;
+			}
+		}
+		return tokens.toArray(new String[tokens.size()]);
+	}
+	
+	/**
+	 * Endereço indexado, junto das palavras normalizadas do logradouro e do bairro.
+	 */
+	private static class Document {
+		final ViaCEPEndereco endereco;
+		final String cep;
+		final String[] tokens;
+		final String logradouro;
+		
+		Document(ViaCEPEndereco endereco) {
+			this.endereco = endereco;
+			this.cep = endereco.getCep();
+			this.logradouro = Partition.join(tokenize(fold(endereco.getLogradouro())));
+			Set<String> distinct = new LinkedHashSet<String>();
+			Collections.addAll(distinct, tokenize(fold(endereco.getLogradouro()) + ' ' + fold(endereco.getBairro())));
+			this.tokens = distinct.toArray(new String[distinct.size()]);
+		}
+		
+		boolean matches(String prefix) {
+			for (String token : tokens){
+				if (token.startsWith(prefix)){
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+	
+	/**
+	 * Endereços de uma UF e localidade.
+	 */
+	protected static class Partition {
+		
+		private final ReadWriteLock lock = new ReentrantReadWriteLock();
+		private final Map<String, Document> byCep = new HashMap<String, Document>();
+		private final TreeMap<String, List<Document>> byToken = new TreeMap<String, List<Document>>();
+		private final List<String> complete = new ArrayList<String>();
+		
+		void add(ViaCEPEndereco endereco) {
+			Document document = new Document(endereco);
+			lock.writeLock().lock();
+			try {
+				Document previous = byCep.put(endereco.getCep(), document);
+				if (previous != null){
+					for (String token : previous.tokens){
+						List<Document> documents = byToken.get(token);
+						documents.remove(previous);
+						if (documents.isEmpty()){
+							byToken.remove(token);
+						}
+					}
+				}
+				for (String token : document.tokens){
+					List<Document> documents = byToken.get(token);
+					if (documents == null){
+						documents = new ArrayList<Document>(1);
+						byToken.put(token, documents);
+					}
+					//cada lista é mantida ordenada por CEP
+					int index = Collections.binarySearch(documents, document, BY_CEP);
+					documents.add(index < 0 ? -index - 1 : index, document);
+				}
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+		}
+		
+		void markComplete(String foldedQuery) {
+			String normalized = join(tokenize(foldedQuery));
+			lock.writeLock().lock();
+			try {
+				if (!isCompleteUnlocked(normalized)){
+					complete.add(normalized);
+				}
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+		}
+		
+		boolean isComplete(String foldedQuery) {
+			String normalized = join(tokenize(foldedQuery));
+			lock.readLock().lock();
+			try {
+				return isCompleteUnlocked(normalized);
+			}
+			finally {
+				lock.readLock().unlock();
+			}
+		}
+		
+		private boolean isCompleteUnlocked(String normalized) {
+			for (String prefix : complete){
+				if (normalized.startsWith(prefix)){
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		List<ViaCEPEndereco> search(String[] query, int limit) {
+			List<ViaCEPEndereco> result = new ArrayList<ViaCEPEndereco>();
+			lock.readLock().lock();
+			try {
+				if (query.length == 0){
+					for (Document document : byCep.values()){
+						if (result.size() >= limit){
+							break;
+						}
+						result.add(document.endereco);
+					}
+				}
+				else {
+					//os candidatos vêm da palavra da busca com menos endereços correspondentes
+					SortedMap<String, List<Document>> range = null;
+					int candidates = Integer.MAX_VALUE;
+					for (String token : query){
+						SortedMap<String, List<Document>> tokenRange = byToken.subMap(token, token + Character.MAX_VALUE);
+						int count = 0;
+						for (List<Document> documents : tokenRange.values()){
+							count += documents.size();
+							if (count >= candidates){
+								break;
+							}
+						}
+						if (count < candidates){
+							candidates = count;
+							range = tokenRange;
+						}
+					}
+					Map<Document, Boolean> seen = new IdentityHashMap<Document, Boolean>();
+					Iterator<List<Document>> iterator = range.values().iterator();
+					while (result.size() < limit && iterator.hasNext()){
+						for (Document document : iterator.next()){
+							if (seen.put(document, Boolean.TRUE) == null && matchesAll(document, query)){
+								result.add(document.endereco);
+								if (result.size() >= limit){
+									break;
+								}
+							}
+						}
+					}
+				}
+			}
+			finally {
+				lock.readLock().unlock();
+			}
+			return result;
+		}
+		
+		List<ViaCEPEndereco> findByLogradouro(String[] query, int limit) {
+			String phrase = join(query);
+			List<Document> matches = new ArrayList<Document>();
+			lock.readLock().lock();
+			try {
+				Collection<Document> candidates;
+				if (query.length > 1){
+					//a última palavra do trecho começa no início de uma palavra do logradouro
+					Map<Document, Boolean> seen = new IdentityHashMap<Document, Boolean>();
+					String last = query[query.length - 1];
+					for (List<Document> documents : byToken.subMap(last, last + Character.MAX_VALUE).values()){
+						for (Document document : documents){
+							seen.put(document, Boolean.TRUE);
+						}
+					}
+					candidates = seen.keySet();
+				}
+				else {
+					candidates = byCep.values();
+				}
+				for (Document document : candidates){
+					if (document.logradouro.contains(phrase)){
+						matches.add(document);
+					}
+				}
+			}
+			finally {
+				lock.readLock().unlock();
+			}
+			Collections.sort(matches, BY_CEP);
+			List<ViaCEPEndereco> result = new ArrayList<ViaCEPEndereco>(Math.min(limit, matches.size()));
+			for (int i = 0; i < matches.size() && i < limit; i++){
+				result.add(matches.get(i).endereco);
+			}
+			return result;
+		}
+		
+		private static boolean matchesAll(Document document, String[] query) {
+			for (String prefix : query){
+				if (!document.matches(prefix)){
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		int size() {
+			lock.readLock().lock();
+			try {
+				return byCep.size();
+			}
+			finally {
+				lock.readLock().unlock();
+			}
+		}
+		
+		private static String join(String[] tokens) {
+			StringBuilder joined = new StringBuilder();
+			for (String token : tokens){
+				if (joined.length() > 0){
+					joined.append(' ');
+				}
+				joined.append(token);
+			}
+			return joined.toString();
+		}
+	}
+
+}
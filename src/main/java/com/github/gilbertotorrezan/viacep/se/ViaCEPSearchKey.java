@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.util.Locale;
+
+/**
+ * Chave canônica de uma consulta de endereços por UF, localidade e logradouro: a UF em maiúsculas, e a localidade e o 
+ * logradouro sem acentos, em minúsculas e com os espaços normalizados (veja {@link ViaCEPSearchIndex#fold(String)}).
+ * Dessa forma, "São Paulo" e "sao  paulo" correspondem à mesma consulta.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ * @see ViaCEPSearchCache
+ */
+public final class ViaCEPSearchKey {
+	
+	private final String uf;
+	private final String localidade;
+	private final String logradouro;
+	private final int hash;
+	
+	private ViaCEPSearchKey(String uf, String localidade, String logradouro) {
+		this.uf = uf;
+		this.localidade = localidade;
+		this.logradouro = logradouro;
+		this.hash = (uf.hashCode() * 31 + localidade.hashCode()) * 31 + logradouro.hashCode();
+	}
+	
+	/**
+	 * Retorna a chave canônica da consulta.
+	 */
+	public static ViaCEPSearchKey of(String uf, String localidade, String logradouro) {
+		return new ViaCEPSearchKey(uf == null ? "" : uf.trim().toUpperCase(Locale.ENGLISH), canonical(localidade), canonical(logradouro));
+	}
+	
+	private static String canonical(String text) {
+		String folded = ViaCEPSearchIndex.fold(text);
+		StringBuilder canonical = new StringBuilder(folded.length());
+		for (int i = 0; i < folded.length(); i++){
+			char c = folded.charAt(i);
+			if (c != ' ' || (canonical.length() > 0 && canonical.charAt(canonical.length() - 1) != ' ')){
+				canonical.append(c);
+			}
+		}
+		int length = canonical.length();
+		if (length > 0 && canonical.charAt(length - 1) == ' '){
+			canonical.setLength(length - 1);
+		}
+		return canonical.toString();
+	}
+	
+	/**
+	 * Retorna a UF em maiúsculas.
+	 */
+	public String getUf() {
+		return uf;
+	}
+	
+	/**
+	 * Retorna a localidade sem acentos, em minúsculas e com os espaços normalizados.
+	 */
+	public String getLocalidade() {
+		return localidade;
+	}
+	
+	/**
+	 * Retorna o logradouro sem acentos, em minúsculas e com os espaços normalizados.
+	 */
+	public String getLogradouro() {
+		return logradouro;
+	}
+	
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj){
+			return true;
+		}
+		if (!(obj instanceof ViaCEPSearchKey)){
+			return false;
+		}
+		ViaCEPSearchKey other = (ViaCEPSearchKey) obj;
+		return hash == other.hash && uf.equals(other.uf) && localidade.equals(other.localidade) && logradouro.equals(other.logradouro);
+	}
+	
+	@Override
+	public String toString() {
+		return uf + "/" + localidade + "/" + logradouro;
+	}
+
+}
@@ -0,0 +1,200 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.jr.ob.JSON;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * {@link ViaCEPDecoder} escrito especificamente para o formato das respostas da ViaCEP: lê os campos diretamente do
+ * {@link JsonParser}, sem reflexão nem objetos intermediários além das próprias strings dos campos. Campos 
+ * desconhecidos são ignorados. Respostas com o campo <code>erro</code> (<code>{"erro": true}</code>) representam
+ * CEPs não encontrados.
+ * 
+ * Esse é o decoder padrão do {@link ViaCEPClient}. Essa classe é thread-safe.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+public class ViaCEPStreamingDecoder implements ViaCEPDecoder {
+	
+	protected final JsonFactory factory;
+	
+	/**
+	 * Construtor padrão. Utiliza o {@link JsonFactory} do {@link JSON#std}.
+	 */
+	public ViaCEPStreamingDecoder() {
+		this(JSON.std.getStreamingFactory());
+	}
+	
+	/**
+	 * Construtor que permite definir o {@link JsonFactory} utilizado para criar os parsers.
+	 */
+	public ViaCEPStreamingDecoder(JsonFactory factory) {
+		this.factory = factory;
+	}
+	
+	@Override
+	public ViaCEPEndereco readEndereco(InputStream in, Class<? extends ViaCEPEndereco> type) throws IOException {
+		JsonParser parser = createParser(in);
+		try {
+			if (parser.nextToken() != JsonToken.START_OBJECT){
+				return null;
+			}
+			ViaCEPEndereco endereco = newEndereco(type);
+			if (!readFields(parser, endereco) || endereco.getCep() == null){
+				return null;
+			}
+			return endereco;
+		}
+		finally {
+			parser.close();
+		}
+	}
+	
+	@Override
+	public List<ViaCEPEndereco> readEnderecos(InputStream in, Class<? extends ViaCEPEndereco> type) throws IOException {
+		final List<ViaCEPEndereco> enderecos = new ArrayList<ViaCEPEndereco>();
+		readEnderecos(in, type, new ViaCEPEnderecoHandler() {
+			@Override
+			public void onEndereco(ViaCEPEndereco endereco) {
+				enderecos.add(endereco);
+			}
+		});
+		return enderecos;
+	}
+	
+	@Override
+	public int readEnderecos(InputStream in, Class<? extends ViaCEPEndereco> type, ViaCEPEnderecoHandler handler) throws IOException {
+		JsonParser parser = createParser(in);
+		try {
+			int count = 0;
+			if (parser.nextToken() == JsonToken.START_ARRAY){
+				JsonToken token;
+				while ((token = parser.nextToken()) == JsonToken.START_OBJECT){
+					ViaCEPEndereco endereco = newEndereco(type);
+					if (readFields(parser, endereco)){
+						handler.onEndereco(endereco);
+						count++;
+					}
+				}
+				if (token != JsonToken.END_ARRAY){
+					throw new JsonParseException("Era esperado um objeto ou o fim da lista: " + token, parser.getCurrentLocation());
+				}
+			}
+			return count;
+		}
+		finally {
+			parser.close();
+		}
+	}
+	
+	/**
+	 * Método interno que lê os campos do objeto atual do parser (posicionado no início do objeto) para o endereço.
+	 * 
+	 * @return <code>false</code> caso o objeto represente um erro (CEP não encontrado).
+	 */
+	protected boolean readFields(JsonParser parser, ViaCEPEndereco endereco) throws IOException {
+		boolean found = true;
+		JsonToken token;
+		while ((token = parser.nextToken()) == JsonToken.FIELD_NAME){
+			String name = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+			if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY){
+				parser.skipChildren();
+			}
+			else if ("cep".equals(name)){
+				endereco.setCep(text(parser, value));
+			}
+			else if ("logradouro".equals(name)){
+				endereco.setLogradouro(text(parser, value));
+			}
+			else if ("complemento".equals(name)){
+				endereco.setComplemento(text(parser, value));
+			}
+			else if ("bairro".equals(name)){
+				endereco.setBairro(text(parser, value));
+			}
+			else if ("localidade".equals(name)){
+				endereco.setLocalidade(text(parser, value));
+			}
+			else if ("uf".equals(name)){
+				endereco.setUf(text(parser, value));
+			}
+			else if ("ibge".equals(name)){
+				endereco.setIbge(text(parser, value));
+			}
+			else if ("erro".equals(name)){
+				//a ViaCEP já retornou tanto {"erro": true} quanto {"erro": "true"}
+				found = value == JsonToken.VALUE_FALSE || "false".equals(text(parser, value));
+			}
+			//os valores de campos desconhecidos não são convertidos para String
+		}
+		if (token != JsonToken.END_OBJECT){
+			throw new JsonParseException("Era esperado um campo ou o fim do objeto: " + token, parser.getCurrentLocation());
+		}
+		return found;
+	}
+	
+	/**
+	 * Método interno que cria o parser para o corpo da resposta. O stream não é fechado junto com o parser, já que 
+	 * pertence a quem chamou o decoder.
+	 */
+	protected JsonParser createParser(InputStream in) throws IOException {
+		return factory.createParser(in).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+	}
+	
+	private static String text(JsonParser parser, JsonToken value) throws IOException {
+		return value == JsonToken.VALUE_NULL ? null : parser.getText();
+	}
+	
+	/**
+	 * Método interno que cria um endereço da classe informada. As classes da biblioteca são criadas sem reflexão.
+	 */
+	protected ViaCEPEndereco newEndereco(Class<? extends ViaCEPEndereco> type) throws IOException {
+		if (type == ViaCEPEndereco.class){
+			return new ViaCEPEndereco();
+		}
+		if (type == ViaCEPCompactEndereco.class){
+			return new ViaCEPCompactEndereco();
+		}
+		try {
+			return type.getDeclaredConstructor().newInstance();
+		} catch (Exception e) {
+			throw new IOException("Não foi possível criar o endereço do tipo " + type.getName(), e);
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pool de strings utilizado para compartilhar uma única instância de valores que se repetem entre muitos endereços,
+ * como bairros e localidades (veja {@link ViaCEPCompactEndereco}).
+ * 
+ * Diferente de {@link String#intern()}, o pool é limitado em número de entradas (valores excedentes simplesmente não
+ * são compartilhados) e pode ser descartado. Em JVMs antigas o {@link String#intern()} também utiliza a PermGen,
+ * que é pequena.
+ * 
+ * Essa classe é thread-safe.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+public class ViaCEPStringPool {
+	
+	/**
+	 * Número máximo padrão de strings no pool.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 100000;
+	
+	private static final ViaCEPStringPool DEFAULT = new ViaCEPStringPool(DEFAULT_MAX_SIZE);
+	
+	protected final ConcurrentMap<String, String> strings = new ConcurrentHashMap<String, String>();
+	protected final int maxSize;
+	
+	/**
+	 * Construtor que permite definir o número máximo de strings no pool.
+	 */
+	public ViaCEPStringPool(int maxSize) {
+		if (maxSize < 1){
+			throw new IllegalArgumentException("O tamanho máximo do pool deve ser positivo: " + maxSize);
+		}
+		this.maxSize = maxSize;
+	}
+	
+	/**
+	 * Retorna a instância compartilhada da string informada, ou a própria string caso o pool esteja cheio.
+	 */
+	public String intern(String value) {
+		if (value == null){
+			return null;
+		}
+		String existing = strings.get(value);
+		if (existing != null){
+			return existing;
+		}
+		if (strings.size() >= maxSize){
+			return value;
+		}
+		existing = strings.putIfAbsent(value, value);
+		return existing == null ? value : existing;
+	}
+	
+	/**
+	 * Retorna o número de strings no pool.
+	 */
+	public int size() {
+		return strings.size();
+	}
+	
+	/**
+	 * Remove todas as strings do pool. Os endereços criados anteriormente continuam válidos.
+	 */
+	public void clear() {
+		strings.clear();
+	}
+	
+	/**
+	 * Retorna o pool compartilhado utilizado por padrão pelos {@link ViaCEPCompactEndereco}.
+	 */
+	public static ViaCEPStringPool getDefault() {
+		return DEFAULT;
+	}
+
+}
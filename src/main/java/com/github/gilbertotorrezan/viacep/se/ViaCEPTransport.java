@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.IOException;
+
+/**
+ * Camada de transporte utilizada pelo {@link ViaCEPClient} para executar as requisições HTTP aos web services da ViaCEP.
+ * 
+ * A implementação padrão é o {@link HttpURLConnectionTransport}. Implementações customizadas podem ser setadas
+ * através de {@link ViaCEPClient#setTransport(ViaCEPTransport)}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+public interface ViaCEPTransport {
+
+	/**
+	 * Executa uma requisição GET para a URL informada e retorna a resposta. Respostas compactadas (gzip ou deflate) 
+	 * devem ser descompactadas pelo transport.
+	 * 
+	 * A resposta retornada deve sempre ser fechada pelo chamador. O fechamento da resposta libera a conexão
+	 * para ser reutilizada em requisições futuras.
+	 * 
+	 * @param url A URL completa a ser consultada.
+	 * @param validators Os validadores de uma resposta anterior, enviados como <code>If-None-Match</code> e 
+	 * <code>If-Modified-Since</code>, ou <code>null</code> para uma requisição incondicional.
+	 * @param instrumentation Deve ser notificado do tempo de conexão ({@link ViaCEPInstrumentation#onConnect(long)}) e 
+	 * do recebimento dos cabeçalhos da resposta ({@link ViaCEPInstrumentation#onFirstByte(int, long)}). Nunca é <code>null</code>.
+	 * @return A resposta, nunca <code>null</code>. Pode ser um 304 (Not Modified) apenas quando <code>validators</code> é informado.
+	 * @throws ViaCEPHttpException quando o servidor responde com um código HTTP de erro.
+	 * @throws IOException em casos de erro de conexão.
+	 */
+	ViaCEPResponse get(String url, ViaCEPValidators validators, ViaCEPInstrumentation instrumentation) throws IOException;
+
+}
@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.Serializable;
+
+/**
+ * Validadores HTTP (cabeçalhos <code>ETag</code> e <code>Last-Modified</code>) de uma resposta dos web services da ViaCEP.
+ * São armazenados junto às entradas do {@link ViaCEPCache}, e permitem que uma entrada expirada seja revalidada através
+ * de uma requisição condicional, que recebe apenas uma resposta 304 (Not Modified) quando o endereço não mudou.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+public class ViaCEPValidators implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	
+	private final String etag;
+	private final String lastModified;
+	
+	public ViaCEPValidators(String etag, String lastModified) {
+		this.etag = etag;
+		this.lastModified = lastModified;
+	}
+	
+	/**
+	 * Retorna os validadores informados, ou <code>null</code> caso ambos sejam <code>null</code>.
+	 */
+	public static ViaCEPValidators of(String etag, String lastModified) {
+		if (etag == null && lastModified == null){
+			return null;
+		}
+		return new ViaCEPValidators(etag, lastModified);
+	}
+	
+	/**
+	 * Retorna o valor do cabeçalho <code>ETag</code>, enviado como <code>If-None-Match</code>.
+	 */
+	public String getEtag() {
+		return etag;
+	}
+	
+	/**
+	 * Retorna o valor do cabeçalho <code>Last-Modified</code>, enviado como <code>If-Modified-Since</code>.
+	 */
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	@Override
+	public String toString() {
+		return "ViaCEPValidators [etag=" + etag + ", lastModified=" + lastModified + "]";
+	}
+
+}
@@ -0,0 +1,185 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.shared;
+
+import java.io.Serializable;
+
+/**
+ * Representação compacta de um CEP (Código de Endereçamento Postal): os 8 dígitos são armazenados em um <code>int</code>.
+ * 
+ * A conversão de texto ignora qualquer caractere que não seja dígito, sem criar objetos intermediários. As
+ * representações em texto são geradas apenas quando solicitadas.
+ * 
+ * Instâncias dessa classe são imutáveis e podem ser utilizadas como chave de mapas e caches.
+ * 
+ * @author Gilberto Torrezan Filho
+ *
+ * @since v.1.2.1
+ */
+public final class Cep implements Serializable, Comparable<Cep> {
+
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Maior valor numérico possível para um CEP.
+	 */
+	public static final int MAX_VALUE = 99999999;
+	
+	private int value;
+	private transient String digits;
+	
+	/**
+	 * Construtor utilizado apenas para serialização.
+	 */
+	@SuppressWarnings("unused")
+	private Cep() {
+	}
+	
+	private Cep(int value) {
+		this.value = value;
+	}
+	
+	/**
+	 * Retorna o CEP correspondente ao valor numérico informado (p.e. <code>1311000</code> para "01311-000").
+	 * 
+	 * @throws IllegalArgumentException para valores negativos ou maiores do que {@link #MAX_VALUE}.
+	 */
+	public static Cep valueOf(int value) {
+		if (value < 0 || value > MAX_VALUE){
+			throw new IllegalArgumentException("CEP inválido - deve conter 8 dígitos: " + value);
+		}
+		return new Cep(value);
+	}
+	
+	/**
+	 * Converte um texto em CEP. Caracteres que não são dígitos são ignorados.
+	 * 
+	 * @param text Texto contendo o CEP. CEPs válidos (que contém 8 dígitos): "20930-040", "abc0 1311000xy z", "20930 040". 
+	 * CEPs inválidos (que não contém 8 dígitos): "00000", "abc", "123456789"
+	 * 
+	 * @throws IllegalArgumentException para textos que não possuam 8 dígitos.
+	 */
+	public static Cep parse(CharSequence text) {
+		int value = toInt(text);
+		if (value < 0){
+			throw new IllegalArgumentException("CEP inválido - deve conter 8 dígitos: " + digitsOf(text));
+		}
+		return new Cep(value);
+	}
+	
+	/**
+	 * Converte um texto no valor numérico do CEP, sem alocar nenhum objeto. Caracteres que não são dígitos são ignorados.
+	 * 
+	 * @return O valor numérico do CEP, ou <code>-1</code> caso o texto seja <code>null</code> ou não possua exatamente 8 dígitos.
+	 */
+	public static int toInt(CharSequence text) {
+		if (text == null){
+			return -1;
+		}
+		int value = 0;
+		int count = 0;
+		int length = text.length();
+		for (int i = 0; i < length; i++){
+			int digit = Character.digit(text.charAt(i), 10);
+			if (digit >= 0){
+				if (++count > 8){
+					return -1;
+				}
+				value = value * 10 + digit;
+			}
+		}
+		return count == 8 ? value : -1;
+	}
+	
+	private static String digitsOf(CharSequence text) {
+		if (text == null){
+			return null;
+		}
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < text.length(); i++){
+			char c = text.charAt(i);
+			if (Character.isDigit(c)){
+				builder.append(c);
+			}
+		}
+		return builder.toString();
+	}
+	
+	/**
+	 * Retorna o valor numérico do CEP.
+	 */
+	public int intValue() {
+		return value;
+	}
+	
+	/**
+	 * Retorna os 8 dígitos do CEP, sem formatação (p.e. "01311000"). Esse é o formato utilizado pelos web services da ViaCEP.
+	 */
+	@Override
+	public String toString() {
+		String s = digits;
+		if (s == null){
+			char[] chars = new char[8];
+			int v = value;
+			for (int i = 7; i >= 0; i--){
+				chars[i] = (char) ('0' + v % 10);
+				v /= 10;
+			}
+			s = new String(chars);
+			digits = s;
+		}
+		return s;
+	}
+	
+	/**
+	 * Retorna o CEP formatado com hífen (p.e. "01311-000").
+	 */
+	public String format() {
+		String s = toString();
+		return s.substring(0, 5) + "-" + s.substring(5);
+	}
+	
+	@Override
+	public int hashCode() {
+		return value;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj){
+			return true;
+		}
+		if (!(obj instanceof Cep)){
+			return false;
+		}
+		return value == ((Cep) obj).value;
+	}
+	
+	@Override
+	public int compareTo(Cep other) {
+		return value < other.value ? -1 : (value == other.value ? 0 : 1);
+	}
+
+}
@@ -109,8 +109,8 @@ public class ViaCEPEndereco implements Serializable {
 
 	@Override
 	public String toString() {
-		return "ViaCEPEndereco [cep=" + cep + ", logradouro=" + logradouro + ", complemento=" + complemento
-				+ ", bairro=" + bairro + ", localidade=" + localidade + ", uf=" + uf + ", ibge=" + ibge + "]";
+		return "ViaCEPEndereco [cep=" + getCep() + ", logradouro=" + getLogradouro() + ", complemento=" + getComplemento()
+				+ ", bairro=" + getBairro() + ", localidade=" + getLocalidade() + ", uf=" + getUf() + ", ibge=" + getIbge() + "]";
 	}
 	
 }
@@ -0,0 +1,305 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.se;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Implementação de {@link ViaCEPTransport} baseada no {@link HttpClient} do Java 11, indicada para aplicações que
+ * executam as consultas em virtual threads.
+ * 
+ * As chamadas continuam bloqueantes para quem chama o {@link ViaCEPClient}, mas a espera pela resposta não prende a 
+ * thread da plataforma: o {@link HttpClient} não utiliza <code>synchronized</code> durante as operações de rede (como
+ * o {@link java.net.HttpURLConnection}). 
+ * 
+ * O número de requisições simultâneas por host pode ser limitado por {@link #HttpClientTransport(int)} (por padrão 
+ * não há limite). Requisições além do limite aguardam por no máximo {@link #getConnectTimeout()} e então falham com
+ * {@link ViaCEPConnectionUnavailableException}. As conexões são mantidas pelo pool do próprio {@link HttpClient}, que também negocia HTTP/2 
+ * quando o servidor o suporta.
+ * 
+ * O corpo da resposta é recebido por completo antes de ser entregue ao {@link ViaCEPClient}, dentro do tempo limite
+ * {@link #getReadTimeout()}: um servidor que interrompe o envio no meio do corpo não prende a thread que fez a consulta.
+ * 
+ * Essa classe exige Java 11 ou superior. Ela é compilada separadamente (em <code>src/main/java11</code>) e publicada
+ * em <code>META-INF/versions/11</code> do jar multi-release, de forma que só é visível em Java 11 ou superior. Pode 
+ * ser utilizada diretamente, ou selecionada pela propriedade de sistema {@link ViaCEPClient#TRANSPORT_PROPERTY}.
+ * 
+ * O {@link HttpClient} não expõe o tempo de conexão: {@link ViaCEPInstrumentation#onConnect(long)} é sempre 
+ * notificado com 0, e {@link ViaCEPInstrumentation#onFirstByte(int, long)} inclui o tempo de conexão.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+public class HttpClientTransport implements ViaCEPTransport {
+
+	/**
+	 * Número máximo padrão de requisições simultâneas por host: sem limite.
+	 */
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = Integer.MAX_VALUE;
+
+	protected final HttpClient client;
+	protected final ConcurrentMap<String, Semaphore> permits = new ConcurrentHashMap<String, Semaphore>();
+	protected final int maxConnectionsPerHost;
+	protected int connectTimeout = HttpURLConnectionTransport.DEFAULT_CONNECT_TIMEOUT;
+	protected int readTimeout = HttpURLConnectionTransport.DEFAULT_READ_TIMEOUT;
+	protected boolean compression = true;
+
+	/**
+	 * Construtor padrão, sem limite de requisições simultâneas por host.
+	 */
+	public HttpClientTransport() {
+		this(DEFAULT_MAX_CONNECTIONS_PER_HOST);
+	}
+
+	/**
+	 * Construtor que permite definir o número máximo de requisições simultâneas por host.
+	 */
+	public HttpClientTransport(int maxConnectionsPerHost) {
+		this(HttpClient.newBuilder()
+				.connectTimeout(Duration.ofMillis(HttpURLConnectionTransport.DEFAULT_CONNECT_TIMEOUT))
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.build(), maxConnectionsPerHost);
+	}
+
+	/**
+	 * Construtor que permite utilizar um {@link HttpClient} customizado (p.e. com proxy, {@link javax.net.ssl.SSLContext}
+	 * ou executor próprios). O tempo limite de conexão é o configurado no {@link HttpClient}.
+	 */
+	public HttpClientTransport(HttpClient client, int maxConnectionsPerHost) {
+		if (maxConnectionsPerHost < 1){
+			throw new IllegalArgumentException("O número máximo de conexões por host deve ser positivo: " + maxConnectionsPerHost);
+		}
+		this.client = client;
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+	}
+
+	@Override
+	public ViaCEPResponse get(String url, ViaCEPValidators validators, ViaCEPInstrumentation instrumentation) throws IOException {
+		URI uri = URI.create(url);
+		Semaphore semaphore = getPermits(uri);
+		try {
+			if (connectTimeout > 0){
+				if (!semaphore.tryAcquire(connectTimeout, TimeUnit.MILLISECONDS)){
+					throw new ViaCEPConnectionUnavailableException("Tempo limite excedido enquanto aguardava uma conexão livre para " + uri.getHost());
+				}
+			}
+			else {
+				semaphore.acquire();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrompido enquanto aguardava uma conexão livre para " + uri.getHost());
+		}
+
+		try {
+			HttpRequest.Builder request = HttpRequest.newBuilder(uri).GET();
+			if (readTimeout > 0){
+				request.timeout(Duration.ofMillis(readTimeout));
+			}
+			if (compression){
+				request.header("Accept-Encoding", "gzip, deflate");
+			}
+			if (validators != null){
+				if (validators.getEtag() != null){
+					request.header("If-None-Match", validators.getEtag());
+				}
+				if (validators.getLastModified() != null){
+					request.header("If-Modified-Since", validators.getLastModified());
+				}
+			}
+			final long start = System.nanoTime();
+			instrumentation.onConnect(0);
+			final ViaCEPInstrumentation listener = instrumentation;
+			HttpResponse.BodyHandler<byte[]> handler = new HttpResponse.BodyHandler<byte[]>() {
+				@Override
+				public HttpResponse.BodySubscriber<byte[]> apply(HttpResponse.ResponseInfo info) {
+					listener.onFirstByte(info.statusCode(), System.nanoTime() - start);
+					return HttpResponse.BodySubscribers.ofByteArray();
+				}
+			};
+			HttpResponse<byte[]> response = receive(uri, client.sendAsync(request.build(), handler));
+			int statusCode = response.statusCode();
+			if (statusCode >= 400){
+				throw new ViaCEPHttpException(statusCode, url);
+			}
+			
+			ViaCEPValidators responseValidators = ViaCEPValidators.of(response.headers().firstValue("ETag").orElse(null), 
+					response.headers().firstValue("Last-Modified").orElse(null));
+			InputStream body = new ByteArrayInputStream(response.body());
+			if (statusCode == ViaCEPResponse.NOT_MODIFIED){
+				//respostas 304 não possuem corpo, e podem omitir os validadores
+				return new ViaCEPResponse(statusCode, body, responseValidators == null ? validators : responseValidators);
+			}
+			String encoding = response.headers().firstValue("Content-Encoding").orElse(null);
+			if ("gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)){
+				body = new GZIPInputStream(body);
+			}
+			else if ("deflate".equalsIgnoreCase(encoding)){
+				body = new InflaterInputStream(body);
+			}
+			return new ViaCEPResponse(statusCode, body, responseValidators);
+		}
+		finally {
+			//o corpo já foi recebido, e a conexão já foi devolvida ao pool
+			semaphore.release();
+		}
+	}
+
+	/**
+	 * Método interno que aguarda a resposta completa (cabeçalhos e corpo) por no máximo {@link #getReadTimeout()}. 
+	 * A requisição é cancelada caso o tempo limite seja excedido ou a thread seja interrompida. Tempos limite excedidos
+	 * (de conexão ou de resposta) são lançados como {@link SocketTimeoutException}, assim como no 
+	 * {@link HttpURLConnectionTransport}, para que sejam reconhecidos por {@link ViaCEPRetryPolicy#isTransient(IOException)}.
+	 */
+	protected <T> HttpResponse<T> receive(URI uri, CompletableFuture<HttpResponse<T>> future) throws IOException {
+		try {
+			return readTimeout > 0 ? future.get(readTimeout, TimeUnit.MILLISECONDS) : future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrompido enquanto aguardava a resposta de " + uri.getHost());
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			throw new SocketTimeoutException("Tempo limite excedido enquanto aguardava a resposta de " + uri.getHost());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof HttpTimeoutException){
+				SocketTimeoutException timeout = new SocketTimeoutException(cause.getMessage());
+				timeout.initCause(cause);
+				throw timeout;
+			}
+			if (cause instanceof IOException){
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException){
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Método interno que retorna o controle de requisições simultâneas para o host da URI.
+	 */
+	protected Semaphore getPermits(URI uri) {
+		String key = uri.getScheme() + "://" + uri.getAuthority();
+		Semaphore semaphore = permits.get(key);
+		if (semaphore == null){
+			semaphore = new Semaphore(maxConnectionsPerHost);
+			Semaphore existing = permits.putIfAbsent(key, semaphore);
+			if (existing != null){
+				semaphore = existing;
+			}
+		}
+		return semaphore;
+	}
+
+	/**
+	 * Retorna o {@link HttpClient} utilizado nas requisições.
+	 */
+	public HttpClient getClient() {
+		return client;
+	}
+
+	/**
+	 * Retorna o número máximo de requisições simultâneas por host. Por padrão não há limite 
+	 * ({@link #DEFAULT_MAX_CONNECTIONS_PER_HOST}).
+	 */
+	public int getMaxConnectionsPerHost() {
+		return maxConnectionsPerHost;
+	}
+
+	/**
+	 * Retorna o tempo limite, em milissegundos, de espera por uma conexão livre.
+	 */
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	/**
+	 * Seta o tempo limite, em milissegundos, de espera por uma conexão livre. Use 0 para não utilizar tempo limite.
+	 * O tempo limite para estabelecer a conexão é configurado no {@link HttpClient}.
+	 */
+	public void setConnectTimeout(int connectTimeout) {
+		if (connectTimeout < 0){
+			throw new IllegalArgumentException("O tempo limite não pode ser negativo: " + connectTimeout);
+		}
+		this.connectTimeout = connectTimeout;
+	}
+
+	/**
+	 * Retorna o tempo limite, em milissegundos, de espera pela resposta completa (cabeçalhos e corpo). Por padrão é
+	 * {@value HttpURLConnectionTransport#DEFAULT_READ_TIMEOUT}.
+	 */
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	/**
+	 * Seta o tempo limite, em milissegundos, de espera pela resposta completa (cabeçalhos e corpo). Use 0 para não 
+	 * utilizar tempo limite.
+	 */
+	public void setReadTimeout(int readTimeout) {
+		if (readTimeout < 0){
+			throw new IllegalArgumentException("O tempo limite não pode ser negativo: " + readTimeout);
+		}
+		this.readTimeout = readTimeout;
+	}
+
+	/**
+	 * Retorna se as respostas são solicitadas compactadas (gzip ou deflate). Por padrão é <code>true</code>.
+	 */
+	public boolean isCompression() {
+		return compression;
+	}
+
+	/**
+	 * Seta se as respostas devem ser solicitadas compactadas (gzip ou deflate).
+	 */
+	public void setCompression(boolean compression) {
+		this.compression = compression;
+	}
+
+}
@@ -0,0 +1,203 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.CepRange;
+import com.github.gilbertotorrezan.viacep.se.CepRangeIndex;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPDiskStore;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPEnderecoHandler;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPOfflineDatabase;
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários da classe {@link CepRange} e das implementações de {@link CepRangeIndex}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class CepRangeIndexTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private static final String[] CEPS = {"01310-000", "01310-100", "01310-200", "01310-930", "01311-000", "01311-100",
+		"04538-132", "20930-040", "20930-041", "22041-001", "30130-010", "99999-999"};
+	
+	private static List<ViaCEPEndereco> enderecos() {
+		List<ViaCEPEndereco> enderecos = new ArrayList<ViaCEPEndereco>();
+		//fora de ordem, como chegam de um cache
+		for (int i = CEPS.length - 1; i >= 0; i--){
+			ViaCEPEndereco endereco = new ViaCEPEndereco();
+			endereco.setCep(CEPS[i]);
+			endereco.setLogradouro("Rua " + CEPS[i]);
+			endereco.setLocalidade("Cidade");
+			endereco.setUf("UF");
+			enderecos.add(endereco);
+		}
+		return enderecos;
+	}
+	
+	@Test
+	public void testPrefixo() throws Exception {
+		CepRange range = CepRange.prefix("01310-xxx");
+		Assert.assertEquals("01310-000..01310-999", range.toString());
+		Assert.assertEquals(range, CepRange.prefix("01310"));
+		Assert.assertTrue(range.contains(Cep.parse("01310-930")));
+		Assert.assertFalse(range.contains(Cep.parse("01311-000")));
+		Assert.assertEquals("20000-000..29999-999", CepRange.prefix("2").toString());
+		Assert.assertEquals("20930-040..20930-040", CepRange.prefix("20930040").toString());
+		Assert.assertEquals("00000-000..99999-999", CepRange.all().toString());
+		Assert.assertEquals("01310-100..01311-000", CepRange.of(Cep.parse("01310100"), Cep.parse("01311000")).toString());
+	}
+	
+	@Test
+	public void testPrefixoInvalido() throws Exception {
+		for (String prefix : new String[]{"", "xxx", "123456789"}){
+			try {
+				CepRange.prefix(prefix);
+				Assert.fail("Prefixo inválido aceito: " + prefix);
+			} catch (IllegalArgumentException e) {
+				//esperado
+			}
+		}
+		try {
+			CepRange.of(Cep.parse("01311000"), Cep.parse("01310000"));
+			Assert.fail("Intervalo invertido aceito");
+		} catch (IllegalArgumentException e) {
+			//esperado
+		}
+	}
+	
+	private static void assertConsultas(CepRangeIndex index) throws Exception {
+		Assert.assertEquals(12, index.count(CepRange.all()));
+		Assert.assertEquals(4, index.count(CepRange.prefix("01310")));
+		Assert.assertEquals(3, index.count(CepRange.prefix("2")));
+		Assert.assertEquals(0, index.count(CepRange.prefix("5")));
+		Assert.assertEquals(4, index.count(CepRange.of(Cep.parse("01310-100"), Cep.parse("01311-000"))));
+		
+		SortedMap<String, Integer> regioes = index.countByPrefix(CepRange.all(), 1);
+		Assert.assertEquals("{0=7, 2=3, 3=1, 9=1}", regioes.toString());
+		Assert.assertEquals("{01310=4, 01311=2}", index.countByPrefix(CepRange.prefix("0131"), 5).toString());
+		Assert.assertEquals("{20930040=1, 20930041=1}", index.countByPrefix(CepRange.prefix("20930"), 8).toString());
+		Assert.assertTrue(index.countByPrefix(CepRange.prefix("5"), 3).isEmpty());
+		
+		List<ViaCEPEndereco> enderecos = index.getEnderecos(CepRange.prefix("01310-xxx"));
+		Assert.assertEquals(4, enderecos.size());
+		Assert.assertEquals("01310-000", enderecos.get(0).getCep());
+		Assert.assertEquals("Rua 01310-930", enderecos.get(3).getLogradouro());
+		
+		final List<String> ceps = new ArrayList<String>();
+		int count = index.getEnderecos(CepRange.prefix("2"), new ViaCEPEnderecoHandler() {
+			@Override
+			public void onEndereco(ViaCEPEndereco endereco) {
+				ceps.add(endereco.getCep());
+			}
+		});
+		Assert.assertEquals(3, count);
+		Assert.assertEquals("[20930-040, 20930-041, 22041-001]", ceps.toString());
+	}
+	
+	@Test
+	public void testOfflineDatabase() throws Exception {
+		File file = folder.newFile("ceps.db");
+		ViaCEPOfflineDatabase.build(enderecos(), file);
+		ViaCEPOfflineDatabase database = new ViaCEPOfflineDatabase(file);
+		try {
+			assertConsultas(database);
+		}
+		finally {
+			database.close();
+		}
+	}
+	
+	@Test
+	public void testDiskStore() throws Exception {
+		File file = folder.newFile("ceps.log");
+		ViaCEPDiskStore store = new ViaCEPDiskStore(file);
+		try {
+			for (ViaCEPEndereco endereco : enderecos()){
+				store.put(Cep.parse(endereco.getCep()), endereco);
+			}
+			assertConsultas(store);
+			
+			//CEPs gravados após uma consulta também são encontrados
+			ViaCEPEndereco endereco = new ViaCEPEndereco();
+			endereco.setLogradouro("Rua Nova");
+			store.put(Cep.parse("01310-500"), endereco);
+			Assert.assertEquals(5, store.count(CepRange.prefix("01310")));
+			Assert.assertEquals("Rua Nova", store.getEnderecos(CepRange.prefix("01310-5")).get(0).getLogradouro());
+		}
+		finally {
+			store.close();
+		}
+	}
+	
+	@Test
+	public void testDiskStoreReaberto() throws Exception {
+		File file = folder.newFile("ceps.log");
+		List<ViaCEPEndereco> enderecos = enderecos();
+		ViaCEPDiskStore store = new ViaCEPDiskStore(file);
+		for (int i = 0; i < enderecos.size(); i += 2){
+			store.put(Cep.parse(enderecos.get(i).getCep()), enderecos.get(i));
+		}
+		store.close();
+		
+		//metade dos CEPs vem do índice gravado, e a outra metade das gravações posteriores
+		store = new ViaCEPDiskStore(file);
+		try {
+			for (int i = 1; i < enderecos.size(); i += 2){
+				store.put(Cep.parse(enderecos.get(i).getCep()), enderecos.get(i));
+			}
+			store.put(Cep.parse(enderecos.get(0).getCep()), enderecos.get(0));
+			assertConsultas(store);
+			
+			List<String> ceps = new ArrayList<String>();
+			for (ViaCEPEndereco endereco : store.getEnderecos(CepRange.all())){
+				ceps.add(endereco.getCep());
+			}
+			Assert.assertEquals(Arrays.asList(CEPS), ceps);
+		}
+		finally {
+			store.close();
+		}
+	}
+
+}
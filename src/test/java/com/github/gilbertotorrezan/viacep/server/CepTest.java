@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+
+/**
+ * Testes unitários da classe {@link Cep}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class CepTest {
+	
+	@Test
+	public void testParseValido() throws Exception {
+		Assert.assertEquals(20930040, Cep.parse("20930-040").intValue());
+		Assert.assertEquals(1311000, Cep.parse("abc0 1311000xy z").intValue());
+		Assert.assertEquals("01311000", Cep.parse(" 01311000 ").toString());
+		Assert.assertEquals("01311-000", Cep.parse("01311000").format());
+		Assert.assertEquals("00000000", Cep.valueOf(0).toString());
+	}
+	
+	@Test
+	public void testToIntInvalido() throws Exception {
+		Assert.assertEquals(-1, Cep.toInt("00000"));
+		Assert.assertEquals(-1, Cep.toInt("abc"));
+		Assert.assertEquals(-1, Cep.toInt("123456789"));
+		Assert.assertEquals(-1, Cep.toInt(null));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseInvalido() throws Exception {
+		Cep.parse("2093004");
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testValueOfInvalido() throws Exception {
+		Cep.valueOf(100000000);
+	}
+	
+	@Test
+	public void testEquals() throws Exception {
+		Assert.assertEquals(Cep.parse("20930-040"), Cep.parse("20930040"));
+		Assert.assertEquals(Cep.parse("20930-040").hashCode(), Cep.valueOf(20930040).hashCode());
+		Assert.assertFalse(Cep.parse("20930-040").equals(Cep.parse("20930-041")));
+		Assert.assertTrue(Cep.parse("01311000").compareTo(Cep.parse("20930040")) < 0);
+	}
+
+}
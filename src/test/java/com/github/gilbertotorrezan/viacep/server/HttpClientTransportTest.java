@@ -0,0 +1,212 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPCache;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPTransport;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários do transport baseado no <code>java.net.http.HttpClient</code> ({@link ViaCEPClient#HTTP_CLIENT_TRANSPORT}), 
+ * utilizando o {@link ViaCEPStubServer}. Os testes são ignorados em versões do Java anteriores à 11.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class HttpClientTransportTest {
+
+	private ViaCEPStubServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		try {
+			Class.forName(ViaCEPClient.HTTP_CLIENT_TRANSPORT);
+		} catch (Throwable e) {
+			Assume.assumeNoException(e);
+		}
+		server = new ViaCEPStubServer();
+		server.loadDefaultFixtures();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (server != null){
+			server.stop();
+		}
+	}
+
+	private ViaCEPClient createClient(int maxConnectionsPerHost) throws Exception {
+		ViaCEPTransport transport = (ViaCEPTransport) Class.forName(ViaCEPClient.HTTP_CLIENT_TRANSPORT)
+				.getConstructor(int.class).newInstance(maxConnectionsPerHost);
+		ViaCEPClient client = new ViaCEPClient();
+		client.setHost(server.getHost());
+		client.setTransport(transport);
+		return client;
+	}
+
+	@Test
+	public void testConsultas() throws Exception {
+		ViaCEPClient client = createClient(1);
+		for (int i = 0; i < 5; i++){
+			Assert.assertEquals("São Paulo", client.getEndereco("01311-000").getLocalidade());
+			Assert.assertNull(client.getEndereco("99999-999"));
+		}
+		Assert.assertFalse(client.getEnderecos("SP", "São Paulo", "Paulista").isEmpty());
+		Assert.assertEquals(11, server.getRequestCount());
+		Assert.assertEquals(1, server.getConnectionCount());
+	}
+
+	@Test
+	public void testPropriedadeDeSistema() throws Exception {
+		System.setProperty(ViaCEPClient.TRANSPORT_PROPERTY, "httpclient");
+		try {
+			Assert.assertEquals(ViaCEPClient.HTTP_CLIENT_TRANSPORT, new ViaCEPClient().getTransport().getClass().getName());
+		}
+		finally {
+			System.clearProperty(ViaCEPClient.TRANSPORT_PROPERTY);
+		}
+		Assert.assertNotEquals(ViaCEPClient.HTTP_CLIENT_TRANSPORT, new ViaCEPClient().getTransport().getClass().getName());
+	}
+
+	@Test(timeout = 10000)
+	public void testConexaoLiberadaAposErro() throws Exception {
+		ViaCEPClient client = createClient(1);
+		server.failNext(3, 400);
+		for (int i = 0; i < 3; i++){
+			try {
+				client.getEndereco("01311000");
+				Assert.fail("Era esperado um erro HTTP 400");
+			} catch (IOException e) {
+				//esperado
+			}
+		}
+		Assert.assertEquals("São Paulo", client.getEndereco("01311000").getLocalidade());
+	}
+
+	@Test
+	public void testCompressaoERevalidacao() throws Exception {
+		server.setCompression(true);
+		ViaCEPClient client = createClient(1);
+		//as entradas expiram imediatamente, e toda consulta precisa ser revalidada
+		client.setCache(new ViaCEPCache(10, 1, 1, TimeUnit.NANOSECONDS));
+		ViaCEPEndereco endereco = client.getEndereco("01311-000");
+		Assert.assertEquals("Avenida Paulista", endereco.getLogradouro());
+		Assert.assertSame(endereco, client.getEndereco("01311-000"));
+		Assert.assertEquals(1, server.getNotModifiedCount());
+	}
+
+	@Test(timeout = 10000)
+	public void testCorpoInterrompido() throws Exception {
+		final ServerSocket socket = new ServerSocket(0);
+		Thread stalled = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Socket connection = socket.accept();
+					connection.getInputStream().read(new byte[4096]);
+					OutputStream out = connection.getOutputStream();
+					out.write("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: 1000\r\n\r\n{\"cep\": ".getBytes("UTF-8"));
+					out.flush();
+					//o corpo nunca é concluído
+					Thread.sleep(20000);
+					connection.close();
+				} catch (Exception e) {
+					//ignora
+				}
+			}
+		};
+		stalled.setDaemon(true);
+		stalled.start();
+		try {
+			ViaCEPClient client = createClient(1);
+			client.getTransport().getClass().getMethod("setReadTimeout", int.class).invoke(client.getTransport(), 500);
+			client.setHost("http://127.0.0.1:" + socket.getLocalPort() + "/ws/");
+			long start = System.nanoTime();
+			try {
+				client.getEndereco("01311000");
+				Assert.fail("Era esperado um erro de tempo limite");
+			} catch (IOException e) {
+				//esperado
+			}
+			Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+			
+			//a conexão foi liberada
+			client.setHost(server.getHost());
+			Assert.assertEquals("São Paulo", client.getEndereco("01311000").getLocalidade());
+		}
+		finally {
+			socket.close();
+		}
+	}
+
+	@Test(timeout = 20000)
+	public void testConsultasSimultaneas() throws Exception {
+		server.setLatency(50);
+		final ViaCEPClient client = createClient(100);
+		ExecutorService executor = Executors.newFixedThreadPool(100);
+		try {
+			List<Future<ViaCEPEndereco>> futures = new ArrayList<Future<ViaCEPEndereco>>();
+			for (int i = 0; i < 200; i++){
+				final String cep = i % 2 == 0 ? "01311-000" : "20930-040";
+				futures.add(executor.submit(new Callable<ViaCEPEndereco>() {
+					@Override
+					public ViaCEPEndereco call() throws Exception {
+						return client.getEndereco(cep);
+					}
+				}));
+			}
+			for (Future<ViaCEPEndereco> future : futures){
+				Assert.assertNotNull(future.get());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
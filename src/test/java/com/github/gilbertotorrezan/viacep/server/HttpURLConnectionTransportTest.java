@@ -0,0 +1,187 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.HttpURLConnectionTransport;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPCircuitBreaker;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPConcurrencyLimiter;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPConnectionUnavailableException;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPRetryPolicy;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários da classe {@link HttpURLConnectionTransport}, utilizando o {@link ViaCEPStubServer}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class HttpURLConnectionTransportTest {
+
+	private ViaCEPStubServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new ViaCEPStubServer();
+		server.addResponse("01311000/json/", "{\"cep\": \"01311-000\", \"logradouro\": \"Avenida Paulista\", \"localidade\": \"São Paulo\", \"uf\": \"SP\"}\n");
+		server.addResponse("99999999/json/", "{\"erro\": true}\n");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+	}
+
+	private ViaCEPClient createClient(int maxConnectionsPerHost) {
+		ViaCEPClient client = new ViaCEPClient() {
+			@Override
+			protected String getHost() {
+				return server.getHost();
+			}
+		};
+		client.setTransport(new HttpURLConnectionTransport(maxConnectionsPerHost));
+		return client;
+	}
+
+	@Test
+	public void testConexaoReutilizada() throws Exception {
+		ViaCEPClient client = createClient(HttpURLConnectionTransport.DEFAULT_MAX_CONNECTIONS_PER_HOST);
+		for (int i = 0; i < 10; i++){
+			ViaCEPEndereco endereco = client.getEndereco("01311-000");
+			Assert.assertEquals("São Paulo", endereco.getLocalidade());
+			Assert.assertNull(client.getEndereco("99999-999"));
+		}
+		Assert.assertEquals(20, server.getRequestCount());
+		Assert.assertEquals(1, server.getConnectionCount());
+	}
+
+	@Test(timeout = 10000)
+	public void testConexaoLiberadaAposErro() throws Exception {
+		ViaCEPClient client = createClient(1);
+		for (int i = 0; i < 3; i++){
+			try {
+				client.getEndereco("12345678");
+				Assert.fail("Era esperado um erro HTTP 400");
+			} catch (IOException e) {
+				//esperado
+			}
+		}
+		Assert.assertEquals("São Paulo", client.getEndereco("01311000").getLocalidade());
+	}
+
+	@Test
+	public void testCompressao() throws Exception {
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < 50; i++){
+			if (i > 0){
+				json.append(",");
+			}
+			json.append("{\"cep\": \"01311-").append(100 + i).append("\", \"logradouro\": \"Avenida Paulista\", \"localidade\": \"São Paulo\", \"uf\": \"SP\"}");
+		}
+		json.append("]");
+		server.addResponse("SP/Osasco/Paulista/json/", json.toString());
+		
+		HttpURLConnectionTransport transport = new HttpURLConnectionTransport();
+		ViaCEPClient client = createClient(1);
+		client.setTransport(transport);
+		
+		transport.setCompression(false);
+		Assert.assertEquals(50, client.getEnderecos("SP", "Osasco", "Paulista").size());
+		long plain = server.getBytesSent();
+		
+		server.setCompression(true);
+		transport.setCompression(true);
+		List<ViaCEPEndereco> enderecos = client.getEnderecos("SP", "Osasco", "Paulista");
+		long compressed = server.getBytesSent() - plain;
+		Assert.assertEquals(50, enderecos.size());
+		Assert.assertEquals("01311-149", enderecos.get(49).getCep());
+		Assert.assertEquals("São Paulo", enderecos.get(49).getLocalidade());
+		Assert.assertTrue("Resposta compactada com " + compressed + " bytes, original com " + plain, compressed * 5 < plain);
+		
+		//a conexão é liberada após a leitura da resposta compactada
+		Assert.assertEquals("São Paulo", client.getEndereco("01311000").getLocalidade());
+	}
+
+	@Test(timeout = 10000)
+	public void testLimiteLocalDeConexoes() throws Exception {
+		final ViaCEPClient client = createClient(1);
+		HttpURLConnectionTransport transport = new HttpURLConnectionTransport(1);
+		transport.setConnectTimeout(100);
+		client.setTransport(transport);
+		client.setRetryPolicy(new ViaCEPRetryPolicy(3, 1, 1, TimeUnit.MILLISECONDS));
+		ViaCEPCircuitBreaker circuitBreaker = new ViaCEPCircuitBreaker(1, 30, TimeUnit.SECONDS);
+		client.setCircuitBreaker(circuitBreaker);
+		ViaCEPConcurrencyLimiter concurrencyLimiter = new ViaCEPConcurrencyLimiter(10, 1, 10);
+		client.setConcurrencyLimiter(concurrencyLimiter);
+		
+		server.slowNext(1, 1000);
+		Thread slow = new Thread() {
+			@Override
+			public void run() {
+				try {
+					client.getEndereco("01311000");
+				} catch (IOException e) {
+					//ignora
+				}
+			}
+		};
+		slow.start();
+		while (server.getRequestCount() == 0){
+			Thread.sleep(10);
+		}
+		
+		//a falta de conexões locais não é uma falha do web service: não há novas tentativas nem abertura do circuito
+		try {
+			client.getEndereco("99999999");
+			Assert.fail("Era esperado um ViaCEPConnectionUnavailableException");
+		} catch (ViaCEPConnectionUnavailableException e) {
+			//esperado
+		}
+		Assert.assertEquals(1, server.getRequestCount());
+		Assert.assertEquals(ViaCEPCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+		Assert.assertEquals(10, concurrencyLimiter.getLimit());
+		slow.join();
+		Assert.assertEquals("São Paulo", client.getEndereco("01311000").getLocalidade());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMaxConnectionsInvalido() throws Exception {
+		new HttpURLConnectionTransport(0);
+	}
+
+}
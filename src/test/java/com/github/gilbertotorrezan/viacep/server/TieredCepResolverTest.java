@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.CepResolver;
+import com.github.gilbertotorrezan.viacep.se.TieredCepResolver;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPCache;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPDiskStore;
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários das classes {@link TieredCepResolver} e {@link ViaCEPDiskStore}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class TieredCepResolverTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * Origem que conhece apenas o CEP 01311-000 e conta as consultas recebidas.
+	 */
+	private static class CountingResolver implements CepResolver {
+		int count;
+		
+		@Override
+		public ViaCEPEndereco getEndereco(Cep cep) throws IOException {
+			count++;
+			if (cep.intValue() != 1311000){
+				return null;
+			}
+			ViaCEPEndereco endereco = new ViaCEPEndereco();
+			endereco.setCep(cep.format());
+			endereco.setLogradouro("Avenida Paulista");
+			endereco.setLocalidade("São Paulo");
+			endereco.setUf("SP");
+			return endereco;
+		}
+	}
+	
+	@Test
+	public void testCamadas() throws Exception {
+		File file = folder.newFile("ceps.log");
+		file.delete();
+		CountingResolver origin = new CountingResolver();
+		Cep cep = Cep.parse("01311-000");
+		
+		ViaCEPDiskStore disk = new ViaCEPDiskStore(file);
+		ViaCEPCache memory = new ViaCEPCache();
+		TieredCepResolver resolver = new TieredCepResolver(origin, memory, disk);
+		Assert.assertEquals("Avenida Paulista", resolver.getEndereco(cep).getLogradouro());
+		Assert.assertEquals("Avenida Paulista", resolver.getEndereco(cep).getLogradouro());
+		Assert.assertNull(resolver.getEndereco(Cep.parse("99999-999")));
+		Assert.assertNull(resolver.getEndereco(Cep.parse("99999-999")));
+		Assert.assertEquals(2, origin.count);
+		Assert.assertEquals(1, disk.size());
+		disk.close();
+		
+		//reinicialização: o cache em memória é aquecido a partir do disco
+		disk = new ViaCEPDiskStore(file);
+		memory = new ViaCEPCache();
+		resolver = new TieredCepResolver(origin, memory, disk);
+		ViaCEPEndereco endereco = resolver.getEndereco(cep);
+		Assert.assertEquals("01311-000", endereco.getCep());
+		Assert.assertEquals("São Paulo", endereco.getLocalidade());
+		Assert.assertNull(endereco.getBairro());
+		Assert.assertEquals(2, origin.count);
+		Assert.assertNotNull(memory.get(cep));
+		disk.close();
+	}
+	
+	@Test
+	public void testRegistroIncompleto() throws Exception {
+		File file = folder.newFile("ceps.log");
+		file.delete();
+		ViaCEPDiskStore disk = new ViaCEPDiskStore(file);
+		CountingResolver origin = new CountingResolver();
+		disk.put(Cep.parse("01311-000"), origin.getEndereco(Cep.parse("01311-000")));
+		disk.close();
+		
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		long length = raf.length();
+		raf.seek(length);
+		raf.writeInt(100);
+		raf.writeInt(20930040);
+		raf.close();
+		
+		disk = new ViaCEPDiskStore(file);
+		Assert.assertEquals(1, disk.size());
+		Assert.assertEquals(length, file.length());
+		Assert.assertEquals("SP", disk.get(Cep.parse("01311-000")).getEndereco().getUf());
+		disk.close();
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPCache;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPValidators;
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários da classe {@link ViaCEPCache}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPCacheTest {
+
+	/**
+	 * Cache com relógio controlado pelo teste.
+	 */
+	private static class TestCache extends ViaCEPCache {
+		long time;
+
+		TestCache(int maxSize, long ttl, long notFoundTtl) {
+			super(maxSize, ttl, notFoundTtl, TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		protected long now() {
+			return time;
+		}
+	}
+
+	private static ViaCEPEndereco endereco(String cep) {
+		ViaCEPEndereco endereco = new ViaCEPEndereco();
+		endereco.setCep(cep);
+		return endereco;
+	}
+
+	@Test
+	public void testHitMiss() throws Exception {
+		TestCache cache = new TestCache(10, 100, 10);
+		Assert.assertNull(cache.get(Cep.parse("01311000")));
+		cache.put(Cep.parse("01311000"), endereco("01311-000"));
+		Assert.assertEquals("01311-000", cache.get(Cep.parse("01311000")).getEndereco().getCep());
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void testExpiracao() throws Exception {
+		TestCache cache = new TestCache(10, 100, 10);
+		cache.put(Cep.parse("01311000"), endereco("01311-000"));
+		cache.put(Cep.parse("99999999"), null);
+
+		cache.time = 9;
+		Assert.assertTrue(cache.get(Cep.parse("99999999")).isNotFound());
+		cache.time = 10;
+		Assert.assertNull(cache.get(Cep.parse("99999999")));
+		Assert.assertNotNull(cache.get(Cep.parse("01311000")));
+		cache.time = 100;
+		Assert.assertNull(cache.get(Cep.parse("01311000")));
+		Assert.assertEquals(2, cache.getEvictionCount());
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testLRU() throws Exception {
+		TestCache cache = new TestCache(2, 100, 10);
+		cache.put(Cep.parse("00000001"), endereco("00000-001"));
+		cache.put(Cep.parse("00000002"), endereco("00000-002"));
+		cache.get(Cep.parse("00000001"));
+		cache.put(Cep.parse("00000003"), endereco("00000-003"));
+
+		Assert.assertNotNull(cache.get(Cep.parse("00000001")));
+		Assert.assertNull(cache.get(Cep.parse("00000002")));
+		Assert.assertNotNull(cache.get(Cep.parse("00000003")));
+		Assert.assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void testEntradaExpiradaComValidadores() throws Exception {
+		TestCache cache = new TestCache(10, 100, 10);
+		cache.put(Cep.parse("01311000"), endereco("01311-000"), new ViaCEPValidators("\"abc\"", null));
+		cache.put(Cep.parse("01311100"), endereco("01311-100"));
+		Assert.assertNull(cache.getStale(Cep.parse("01311100")));
+		
+		cache.time = 100;
+		Assert.assertNull(cache.get(Cep.parse("01311000")));
+		Assert.assertNull(cache.get(Cep.parse("01311100")));
+		Assert.assertEquals("\"abc\"", cache.getStale(Cep.parse("01311000")).getValidators().getEtag());
+		Assert.assertEquals(1, cache.getEvictionCount());
+		Assert.assertEquals(2, cache.getMissCount());
+		
+		cache.put(Cep.parse("01311200"), endereco("01311-200"));
+		cache.time = 200;
+		cache.cleanUp();
+		Assert.assertEquals("\"abc\"", cache.getStale(Cep.parse("01311000")).getValidators().getEtag());
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(2, cache.getEvictionCount());
+	}
+
+	@Test
+	public void testRevalidacao() throws Exception {
+		final ViaCEPStubServer server = new ViaCEPStubServer();
+		try {
+			server.addResponse("01311000/json/", "{\"cep\": \"01311-000\", \"localidade\": \"São Paulo\"}");
+			ViaCEPClient client = new ViaCEPClient() {
+				@Override
+				protected String getHost() {
+					return server.getHost();
+				}
+			};
+			//as entradas expiram imediatamente, e toda consulta precisa ser revalidada
+			client.setCache(new ViaCEPCache(10, 1, 1, TimeUnit.NANOSECONDS));
+			
+			ViaCEPEndereco endereco = client.getEndereco("01311-000");
+			Assert.assertEquals("São Paulo", endereco.getLocalidade());
+			long bytes = server.getBytesSent();
+			for (int i = 0; i < 3; i++){
+				Assert.assertSame(endereco, client.getEndereco("01311-000"));
+			}
+			Assert.assertEquals(4, server.getRequestCount());
+			Assert.assertEquals(3, server.getNotModifiedCount());
+			Assert.assertEquals(bytes, server.getBytesSent());
+			
+			//uma alteração no servidor é detectada pela requisição condicional
+			server.addResponse("01311000/json/", "{\"cep\": \"01311-000\", \"localidade\": \"Sampa\"}");
+			Assert.assertEquals("Sampa", client.getEndereco("01311-000").getLocalidade());
+			Assert.assertEquals(3, server.getNotModifiedCount());
+		}
+		finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testClientComCache() throws Exception {
+		final ViaCEPStubServer server = new ViaCEPStubServer();
+		try {
+			server.addResponse("01311000/json/", "{\"cep\": \"01311-000\", \"localidade\": \"São Paulo\"}");
+			server.addResponse("99999999/json/", "{\"erro\": true}");
+			ViaCEPClient client = new ViaCEPClient() {
+				@Override
+				protected String getHost() {
+					return server.getHost();
+				}
+			};
+			client.setCache(new ViaCEPCache());
+
+			for (int i = 0; i < 5; i++){
+				Assert.assertEquals("São Paulo", client.getEndereco("01311-000").getLocalidade());
+				Assert.assertNull(client.getEndereco("99999999"));
+			}
+			Assert.assertEquals(2, server.getRequestCount());
+			Assert.assertEquals(8, client.getCache().getHitCount());
+		}
+		finally {
+			server.stop();
+		}
+	}
+
+}
@@ -0,0 +1,145 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPCallback;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários dos métodos assíncronos da classe {@link ViaCEPClient}, utilizando o {@link ViaCEPStubServer}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPClientAsyncTest {
+	
+	private ViaCEPStubServer server;
+	private ViaCEPClient client;
+	
+	@Before
+	public void setUp() throws Exception {
+		server = new ViaCEPStubServer();
+		server.addResponse("01311000/json/", "{\"cep\": \"01311-000\", \"localidade\": \"São Paulo\"}");
+		server.addResponse("SP/Campinas/Andrade/json/", "[{\"cep\": \"13070-001\", \"localidade\": \"Campinas\"}]");
+		client = new ViaCEPClient() {
+			@Override
+			protected String getHost() {
+				return server.getHost();
+			}
+		};
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+	}
+	
+	/**
+	 * Callback que guarda o resultado da consulta.
+	 */
+	private static class TestCallback<T> implements ViaCEPCallback<T> {
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicReference<T> response = new AtomicReference<T>();
+		final AtomicReference<Throwable> exception = new AtomicReference<Throwable>();
+		volatile String thread;
+		
+		@Override
+		public void onSuccess(T response) {
+			this.response.set(response);
+			latch.countDown();
+		}
+		
+		@Override
+		public void onFailure(Throwable exception) {
+			this.exception.set(exception);
+			this.thread = Thread.currentThread().getName();
+			latch.countDown();
+		}
+		
+		void await() throws InterruptedException {
+			Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+		}
+	}
+	
+	@Test
+	public void testGetEnderecoAsync() throws Exception {
+		TestCallback<ViaCEPEndereco> callback = new TestCallback<ViaCEPEndereco>();
+		Future<ViaCEPEndereco> future = client.getEnderecoAsync("01311-000", callback);
+		Assert.assertEquals("São Paulo", future.get(5, TimeUnit.SECONDS).getLocalidade());
+		callback.await();
+		Assert.assertEquals("São Paulo", callback.response.get().getLocalidade());
+	}
+	
+	@Test
+	public void testGetEnderecosAsync() throws Exception {
+		Future<List<ViaCEPEndereco>> future = client.getEnderecosAsync("SP", "Campinas", "Andrade", null);
+		Assert.assertEquals(1, future.get(5, TimeUnit.SECONDS).size());
+	}
+	
+	@Test
+	public void testGetEnderecoAsyncInvalido() throws Exception {
+		TestCallback<ViaCEPEndereco> callback = new TestCallback<ViaCEPEndereco>();
+		Future<ViaCEPEndereco> future = client.getEnderecoAsync("123", callback);
+		callback.await();
+		Assert.assertTrue(callback.exception.get() instanceof IllegalArgumentException);
+		try {
+			future.get();
+			Assert.fail();
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+	}
+	
+	@Test
+	public void testGetEnderecoAsyncTimeout() throws Exception {
+		server.setLatency(2000);
+		TestCallback<ViaCEPEndereco> callback = new TestCallback<ViaCEPEndereco>();
+		Future<ViaCEPEndereco> future = client.getEnderecoAsync("01311-000", 100, TimeUnit.MILLISECONDS, callback);
+		callback.await();
+		Assert.assertTrue(callback.exception.get() instanceof TimeoutException);
+		Assert.assertTrue(future.isCancelled());
+		//o callback não é executado pela thread compartilhada dos tempos limite
+		Assert.assertTrue(callback.thread, callback.thread.startsWith("viacep-async-"));
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.util.Arrays;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPBulkResult;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários das consultas em lote e do agrupamento de consultas simultâneas da classe {@link ViaCEPClient}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPClientBulkTest {
+	
+	private ViaCEPStubServer server;
+	private ViaCEPClient client;
+	
+	@Before
+	public void setUp() throws Exception {
+		server = new ViaCEPStubServer();
+		server.addResponse("01311000/json/", "{\"cep\": \"01311-000\", \"localidade\": \"São Paulo\"}");
+		server.addResponse("20930040/json/", "{\"cep\": \"20930-040\", \"localidade\": \"Rio de Janeiro\"}");
+		server.addResponse("99999999/json/", "{\"erro\": true}");
+		client = new ViaCEPClient() {
+			@Override
+			protected String getHost() {
+				return server.getHost();
+			}
+		};
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+	}
+	
+	@Test
+	public void testResolveAll() throws Exception {
+		ViaCEPBulkResult result = client.resolveAll(Arrays.asList("01311-000", "01311000", " 01311000 ", "20930-040", 
+				"99999999", "123", "12345678"), 3);
+		
+		Assert.assertEquals(4, server.getRequestCount());
+		Assert.assertEquals(2, result.getEnderecos().size());
+		Assert.assertEquals("São Paulo", result.get("01311-000").getLocalidade());
+		Assert.assertEquals("Rio de Janeiro", result.getEnderecos().get(Cep.parse("20930040")).getLocalidade());
+		Assert.assertEquals(Arrays.asList(Cep.parse("99999999")), Arrays.asList(result.getNotFound().toArray()));
+		Assert.assertTrue(result.getFailures().containsKey(Cep.parse("12345678")));
+		Assert.assertEquals(Arrays.asList("123"), result.getInvalid());
+	}
+	
+	@Test
+	public void testConsultasSimultaneasAgrupadas() throws Exception {
+		server.setLatency(300);
+		Future<ViaCEPEndereco> first = client.getEnderecoAsync("01311-000", null);
+		Future<ViaCEPEndereco> second = client.getEnderecoAsync("01311000", null);
+		ViaCEPEndereco endereco = client.getEndereco("01311-000");
+		
+		Assert.assertSame(endereco, first.get(5, TimeUnit.SECONDS));
+		Assert.assertSame(endereco, second.get(5, TimeUnit.SECONDS));
+		Assert.assertEquals(1, server.getRequestCount());
+	}
+
+}
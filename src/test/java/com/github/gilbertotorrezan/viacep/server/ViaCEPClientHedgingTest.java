@@ -0,0 +1,157 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPHedgingPolicy;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPInstrumentation.Operation;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPInstrumentation.Outcome;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPMetrics;
+
+/**
+ * Testes unitários da {@link ViaCEPHedgingPolicy}, utilizando o {@link ViaCEPStubServer}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPClientHedgingTest {
+
+	private ViaCEPStubServer server;
+	private ViaCEPClient client;
+	private ViaCEPHedgingPolicy policy;
+	private ViaCEPMetrics metrics;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new ViaCEPStubServer();
+		server.addResponse("01311000/json/", "{\"cep\": \"01311-000\", \"localidade\": \"São Paulo\"}");
+		client = new ViaCEPClient() {
+			@Override
+			protected String getHost() {
+				return server.getHost();
+			}
+		};
+		policy = new ViaCEPHedgingPolicy(95, 0.05, 20, TimeUnit.MILLISECONDS);
+		client.setHedgingPolicy(policy);
+		metrics = new ViaCEPMetrics();
+		client.setInstrumentation(metrics);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+	}
+
+	private void aquecer() throws Exception {
+		Assert.assertEquals(-1, policy.getDelay());
+		for (int i = 0; i < ViaCEPHedgingPolicy.MIN_SAMPLES; i++){
+			client.getEndereco("01311000");
+		}
+		Assert.assertTrue(policy.getDelay() >= TimeUnit.MILLISECONDS.toNanos(20));
+	}
+
+	@Test(timeout = 10000)
+	public void testRequisicaoExtra() throws Exception {
+		aquecer();
+		server.slowNext(1, 3000);
+		long start = System.nanoTime();
+		Assert.assertEquals("São Paulo", client.getEndereco("01311000").getLocalidade());
+		Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(2000));
+		Assert.assertEquals(1, policy.getHedgeCount());
+		Assert.assertEquals(ViaCEPHedgingPolicy.MIN_SAMPLES + 2, server.getRequestCount());
+	}
+
+	@Test(timeout = 10000)
+	public void testOrcamento() throws Exception {
+		aquecer();
+		server.slowNext(1, 100);
+		client.getEndereco("01311000");
+		Assert.assertEquals(1, policy.getHedgeCount());
+		
+		//as duas requisições correspondem a uma única consulta, mesmo após a conclusão da requisição lenta
+		Thread.sleep(300);
+		Assert.assertEquals(ViaCEPHedgingPolicy.MIN_SAMPLES + 1, metrics.getCount(Operation.ENDERECO, Outcome.FOUND));
+		Assert.assertEquals(0, metrics.getCount(Operation.ENDERECO, Outcome.IO_ERROR));
+
+		//o orçamento foi consumido: a requisição lenta não é repetida
+		server.slowNext(1, 100);
+		long start = System.nanoTime();
+		client.getEndereco("01311000");
+		Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+		Assert.assertEquals(1, policy.getHedgeCount());
+	}
+
+	@Test(timeout = 10000)
+	public void testExecutorDoClientOcupado() throws Exception {
+		aquecer();
+		final CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(1);
+		try {
+			executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+			client.setExecutor(executor);
+			server.slowNext(1, 3000);
+			Assert.assertEquals("São Paulo", client.getEndereco("01311000").getLocalidade());
+			Assert.assertEquals(1, policy.getHedgeCount());
+		}
+		finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testSemRequisicaoExtraParaRespostasRapidas() throws Exception {
+		aquecer();
+		for (int i = 0; i < 10; i++){
+			client.getEndereco("01311000");
+		}
+		Assert.assertEquals(0, policy.getHedgeCount());
+		Assert.assertEquals(ViaCEPHedgingPolicy.MIN_SAMPLES + 10, server.getRequestCount());
+	}
+
+}
@@ -0,0 +1,258 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.MalformedURLException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.CepResolver;
+import com.github.gilbertotorrezan.viacep.se.HttpURLConnectionTransport;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPCircuitBreaker;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPCircuitOpenException;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPHttpException;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPRetryPolicy;
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários dos tempos limite, da {@link ViaCEPRetryPolicy} e do {@link ViaCEPCircuitBreaker}, 
+ * utilizando o {@link ViaCEPStubServer}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPClientResilienceTest {
+
+	/**
+	 * Circuit breaker com relógio controlado pelo teste.
+	 */
+	private static class TestCircuitBreaker extends ViaCEPCircuitBreaker {
+		long time;
+
+		TestCircuitBreaker(int failureThreshold, long openDuration) {
+			super(failureThreshold, openDuration, TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		protected long now() {
+			return time;
+		}
+	}
+
+	private ViaCEPStubServer server;
+	private ViaCEPClient client;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new ViaCEPStubServer();
+		server.addResponse("01311000/json/", "{\"cep\": \"01311-000\", \"localidade\": \"São Paulo\"}");
+		client = new ViaCEPClient() {
+			@Override
+			protected String getHost() {
+				return server.getHost();
+			}
+		};
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+	}
+
+	@Test
+	public void testRepeticaoErroTemporario() throws Exception {
+		client.setRetryPolicy(new ViaCEPRetryPolicy(3, 1, 10, TimeUnit.MILLISECONDS));
+		server.failNext(2, 503);
+		Assert.assertEquals("São Paulo", client.getEndereco("01311000").getLocalidade());
+		Assert.assertEquals(3, server.getRequestCount());
+
+		server.failNext(3, 429);
+		try {
+			client.getEndereco("01311000");
+			Assert.fail("Era esperado um erro HTTP 429");
+		} catch (ViaCEPHttpException e) {
+			Assert.assertEquals(429, e.getStatusCode());
+		}
+		Assert.assertEquals(6, server.getRequestCount());
+	}
+
+	@Test
+	public void testErroPermanenteNaoRepetido() throws Exception {
+		client.setRetryPolicy(new ViaCEPRetryPolicy(3, 1, 10, TimeUnit.MILLISECONDS));
+		try {
+			client.getEndereco("12345678");
+			Assert.fail("Era esperado um erro HTTP 400");
+		} catch (ViaCEPHttpException e) {
+			Assert.assertEquals(400, e.getStatusCode());
+		}
+		Assert.assertEquals(1, server.getRequestCount());
+	}
+
+	@Test
+	public void testRespostaMalformadaNaoRepetida() throws Exception {
+		client.setRetryPolicy(new ViaCEPRetryPolicy(3, 1, 10, TimeUnit.MILLISECONDS));
+		server.addResponse("20930040/json/", "{\"cep\": ");
+		try {
+			client.getEndereco("20930040");
+			Assert.fail("Era esperado um erro de leitura da resposta");
+		} catch (IOException e) {
+			Assert.assertFalse(ViaCEPRetryPolicy.isTransient(e));
+		}
+		Assert.assertEquals(1, server.getRequestCount());
+	}
+
+	@Test
+	public void testErrosTemporarios() throws Exception {
+		Assert.assertTrue(ViaCEPRetryPolicy.isTransient(new SocketTimeoutException()));
+		Assert.assertTrue(ViaCEPRetryPolicy.isTransient(new ConnectException()));
+		Assert.assertTrue(ViaCEPRetryPolicy.isTransient(new SocketException("Connection reset")));
+		Assert.assertTrue(ViaCEPRetryPolicy.isTransient(new ViaCEPHttpException(503, "url")));
+		Assert.assertFalse(ViaCEPRetryPolicy.isTransient(new ViaCEPHttpException(404, "url")));
+		Assert.assertFalse(ViaCEPRetryPolicy.isTransient(new UnknownHostException("viacep.com.br")));
+		Assert.assertFalse(ViaCEPRetryPolicy.isTransient(new MalformedURLException()));
+		Assert.assertFalse(ViaCEPRetryPolicy.isTransient(new InterruptedIOException()));
+	}
+
+	@Test
+	public void testTempoLimiteTotal() throws Exception {
+		client.setRetryPolicy(new ViaCEPRetryPolicy(10, 200, 200, TimeUnit.MILLISECONDS) {
+			@Override
+			protected double random() {
+				return 0.99;
+			}
+		});
+		client.setTimeout(300);
+		server.failNext(10, 500);
+		try {
+			client.getEndereco("01311000");
+			Assert.fail("Era esperado um erro HTTP 500");
+		} catch (ViaCEPHttpException e) {
+			Assert.assertEquals(500, e.getStatusCode());
+		}
+		Assert.assertEquals(2, server.getRequestCount());
+	}
+
+	@Test(timeout = 10000)
+	public void testReadTimeout() throws Exception {
+		HttpURLConnectionTransport transport = new HttpURLConnectionTransport();
+		transport.setReadTimeout(100);
+		client.setTransport(transport);
+		server.setLatency(1000);
+		try {
+			client.getEndereco("01311000");
+			Assert.fail("Era esperado um SocketTimeoutException");
+		} catch (SocketTimeoutException e) {
+			//esperado
+		}
+	}
+
+	@Test
+	public void testJitter() throws Exception {
+		ViaCEPRetryPolicy policy = new ViaCEPRetryPolicy(5, 100, 1000, TimeUnit.NANOSECONDS) {
+			@Override
+			protected double random() {
+				return 0.5;
+			}
+		};
+		Assert.assertEquals(50, policy.getDelay(1));
+		Assert.assertEquals(100, policy.getDelay(2));
+		Assert.assertEquals(200, policy.getDelay(3));
+		Assert.assertEquals(500, policy.getDelay(5));
+		Assert.assertEquals(500, policy.getDelay(100));
+	}
+
+	@Test
+	public void testCircuitBreaker() throws Exception {
+		TestCircuitBreaker breaker = new TestCircuitBreaker(2, 100);
+		client.setCircuitBreaker(breaker);
+		server.failNext(3, 502);
+		for (int i = 0; i < 2; i++){
+			try {
+				client.getEndereco("01311000");
+				Assert.fail("Era esperado um erro HTTP 502");
+			} catch (ViaCEPHttpException e) {
+				//esperado
+			}
+		}
+		Assert.assertEquals(ViaCEPCircuitBreaker.State.OPEN, breaker.getState());
+		try {
+			client.getEndereco("01311000");
+			Assert.fail("Era esperado o circuito aberto");
+		} catch (ViaCEPCircuitOpenException e) {
+			//esperado
+		}
+		Assert.assertEquals(2, server.getRequestCount());
+
+		//a requisição de teste falha e o circuito é aberto novamente
+		breaker.time = 100;
+		try {
+			client.getEndereco("01311000");
+			Assert.fail("Era esperado um erro HTTP 502");
+		} catch (ViaCEPHttpException e) {
+			//esperado
+		}
+		Assert.assertEquals(ViaCEPCircuitBreaker.State.OPEN, breaker.getState());
+
+		breaker.time = 200;
+		Assert.assertEquals("São Paulo", client.getEndereco("01311000").getLocalidade());
+		Assert.assertEquals(ViaCEPCircuitBreaker.State.CLOSED, breaker.getState());
+		Assert.assertEquals(4, server.getRequestCount());
+	}
+
+	@Test
+	public void testFallback() throws Exception {
+		client.setCircuitBreaker(new ViaCEPCircuitBreaker(1, 1, TimeUnit.HOURS));
+		client.setFallback(new CepResolver() {
+			@Override
+			public ViaCEPEndereco getEndereco(Cep cep) throws IOException {
+				ViaCEPEndereco endereco = new ViaCEPEndereco();
+				endereco.setCep(cep.format());
+				endereco.setLocalidade("Offline");
+				return endereco;
+			}
+		});
+		server.failNext(1, 503);
+		Assert.assertEquals("Offline", client.getEndereco("01311000").getLocalidade());
+		Assert.assertEquals("Offline", client.getEndereco("01311000").getLocalidade());
+		Assert.assertEquals(1, server.getRequestCount());
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPEnderecoHandler;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários da consulta de endereços com leitura incremental da classe {@link ViaCEPClient}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPClientStreamingTest {
+	
+	private ViaCEPStubServer server;
+	private ViaCEPClient client;
+	
+	@Before
+	public void setUp() throws Exception {
+		server = new ViaCEPStubServer();
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < 1000; i++){
+			if (i > 0){
+				json.append(",");
+			}
+			json.append("{\"cep\": \"20000-").append(1000 + i).append("\", \"logradouro\": \"Avenida Brasil\", \"localidade\": \"Rio de Janeiro\", \"uf\": \"RJ\"}");
+		}
+		json.append("]");
+		server.addResponse("RJ/Rio/Brasil/json/", json.toString());
+		server.addResponse("AC/Nunca/Casa/json/", "[]");
+		client = new ViaCEPClient() {
+			@Override
+			protected String getHost() {
+				return server.getHost();
+			}
+		};
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+	}
+	
+	@Test
+	public void testGetEnderecosHandler() throws Exception {
+		final List<String> ceps = new ArrayList<String>();
+		int count = client.getEnderecos("RJ", "Rio", "Brasil", new ViaCEPEnderecoHandler() {
+			@Override
+			public void onEndereco(ViaCEPEndereco endereco) throws IOException {
+				ceps.add(endereco.getCep());
+			}
+		});
+		Assert.assertEquals(1000, count);
+		Assert.assertEquals(1000, ceps.size());
+		Assert.assertEquals("20000-1000", ceps.get(0));
+		Assert.assertEquals("20000-1999", ceps.get(999));
+		Assert.assertEquals(client.getEnderecos("RJ", "Rio", "Brasil").size(), count);
+	}
+	
+	@Test
+	public void testGetEnderecosHandlerVazio() throws Exception {
+		int count = client.getEnderecos("AC", "Nunca", "Casa", new ViaCEPEnderecoHandler() {
+			@Override
+			public void onEndereco(ViaCEPEndereco endereco) throws IOException {
+				Assert.fail();
+			}
+		});
+		Assert.assertEquals(0, count);
+	}
+	
+	@Test(expected = IOException.class)
+	public void testGetEnderecosHandlerInterrompido() throws Exception {
+		client.getEnderecos("RJ", "Rio", "Brasil", new ViaCEPEnderecoHandler() {
+			@Override
+			public void onEndereco(ViaCEPEndereco endereco) throws IOException {
+				throw new IOException("interrompido");
+			}
+		});
+	}
+
+}
@@ -26,7 +26,9 @@ package com.github.gilbertotorrezan.viacep.server;
 
 import java.util.List;
 
+import org.junit.AfterClass;
 import org.junit.Assert;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -37,6 +39,9 @@ import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
 /**
  * Testes unitários dos métodos da classe {@link ViaCEPClient}.
  * 
+ * Por padrão os testes utilizam o {@link ViaCEPStubServer} com os endereços de exemplo. Para executá-los contra o 
+ * web service real, utilize <code>-Dviacep.host=http://viacep.com.br/ws/</code>.
+ * 
  * @author Gilberto Torrezan Filho
  *
  * @since v.1.0.0
@@ -44,9 +49,34 @@ import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
 @RunWith(JUnit4.class)
 public class ViaCEPClientTest {
 	
+	private static ViaCEPStubServer server;
+	
+	@BeforeClass
+	public static void setUpClass() throws Exception {
+		if (System.getProperty(ViaCEPClient.HOST_PROPERTY) == null){
+			server = new ViaCEPStubServer();
+			server.loadDefaultFixtures();
+		}
+	}
+	
+	@AfterClass
+	public static void tearDownClass() throws Exception {
+		if (server != null){
+			server.stop();
+		}
+	}
+	
+	private static ViaCEPClient createClient() {
+		ViaCEPClient client = new ViaCEPClient();
+		if (server != null){
+			client.setHost(server.getHost());
+		}
+		return client;
+	}
+	
 	@Test
 	public void testGetEnderecoValido() throws Exception {
-		ViaCEPClient client = new ViaCEPClient();
+		ViaCEPClient client = createClient();
 		ViaCEPEndereco endereco = client.getEndereco("20930-040");
 		Assert.assertTrue(endereco.getLocalidade().equalsIgnoreCase("Rio de Janeiro"));
 		Assert.assertTrue(endereco.getLogradouro().toLowerCase().contains("avenida brasil"));
@@ -58,19 +88,19 @@ public class ViaCEPClientTest {
 	
 	@Test(expected = IllegalArgumentException.class)
 	public void testGetEnderecoInvalido() throws Exception {
-		ViaCEPClient client = new ViaCEPClient();
+		ViaCEPClient client = createClient();
 		client.getEndereco("2093004");
 	}
 	
 	@Test
 	public void testGetEnderecoInexistente() throws Exception {
-		ViaCEPClient client = new ViaCEPClient();
+		ViaCEPClient client = createClient();
 		Assert.assertNull(client.getEndereco("99999999"));
 	}
 	
 	@Test
 	public void testGetEnderecosValidos() throws Exception {
-		ViaCEPClient client = new ViaCEPClient();
+		ViaCEPClient client = createClient();
 		List<ViaCEPEndereco> enderecos = client.getEnderecos("RJ", "Rio de Janeiro", "Avenida Brasil");
 		Assert.assertFalse(enderecos.isEmpty());
 		
@@ -80,13 +110,13 @@ public class ViaCEPClientTest {
 	
 	@Test(expected = IllegalArgumentException.class)
 	public void testGetEnderecosInvalidos() throws Exception {
-		ViaCEPClient client = new ViaCEPClient();
+		ViaCEPClient client = createClient();
 		client.getEnderecos("asd", "a", "b");
 	}
 	
 	@Test
 	public void testGetEnderecosInexistentes() throws Exception {
-		ViaCEPClient client = new ViaCEPClient();
+		ViaCEPClient client = createClient();
 		List<ViaCEPEndereco> enderecos = client.getEnderecos("AC", "Terra do Nunca", "Casa do Peter Pan");
 		Assert.assertTrue(enderecos.isEmpty());
 	}
@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPCompactEndereco;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPStringPool;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários das classes {@link ViaCEPCompactEndereco} e {@link ViaCEPStringPool}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPCompactEnderecoTest {
+
+	private static ViaCEPEndereco endereco(String cep, String uf, String ibge) {
+		ViaCEPEndereco endereco = new ViaCEPEndereco();
+		endereco.setCep(cep);
+		endereco.setLogradouro("Avenida Paulista");
+		endereco.setComplemento("de 1047 a 1865 - lado ímpar");
+		endereco.setBairro("Bela Vista");
+		endereco.setLocalidade("São Paulo");
+		endereco.setUf(uf);
+		endereco.setIbge(ibge);
+		return endereco;
+	}
+
+	private static void assertMesmosValores(ViaCEPEndereco expected, ViaCEPEndereco actual) {
+		Assert.assertEquals(expected.toString(), actual.toString());
+	}
+
+	@Test
+	public void testValoresPreservados() throws Exception {
+		ViaCEPEndereco[] enderecos = {
+				endereco("01311-000", "SP", "3550308"),
+				endereco("00000-000", "TO", "0"),
+				endereco("01311000", "sp", "03550308"),
+				endereco(" 01311-000", "XX", "3550308a"),
+				endereco(null, null, null),
+				endereco("", "", ""),
+		};
+		for (ViaCEPEndereco endereco : enderecos){
+			assertMesmosValores(endereco, ViaCEPCompactEndereco.compact(endereco));
+		}
+	}
+
+	@Test
+	public void testPool() throws Exception {
+		ViaCEPCompactEndereco a = ViaCEPCompactEndereco.compact(endereco("01311-000", "SP", "3550308"));
+		ViaCEPCompactEndereco b = ViaCEPCompactEndereco.compact(endereco("01311-100", "SP", "3550308"));
+		Assert.assertSame(a.getBairro(), b.getBairro());
+		Assert.assertSame(a.getLocalidade(), b.getLocalidade());
+		Assert.assertSame(a.getUf(), b.getUf());
+
+		ViaCEPStringPool pool = new ViaCEPStringPool(1);
+		String first = new String("Bela Vista");
+		Assert.assertSame(first, pool.intern(first));
+		Assert.assertSame(first, pool.intern(new String("Bela Vista")));
+		String other = new String("Consolação");
+		Assert.assertSame(other, pool.intern(other));
+		Assert.assertEquals(1, pool.size());
+	}
+
+	@Test
+	public void testSerializacao() throws Exception {
+		ViaCEPCompactEndereco endereco = ViaCEPCompactEndereco.compact(endereco("01311-000", "SP", "3550308"));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(endereco);
+		out.close();
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertMesmosValores(endereco, (ViaCEPEndereco) in.readObject());
+	}
+
+	@Test
+	public void testClientCompacto() throws Exception {
+		final ViaCEPStubServer server = new ViaCEPStubServer();
+		try {
+			server.addResponse("01311000/json/", "{\"cep\": \"01311-000\", \"logradouro\": \"Avenida Paulista\", \"bairro\": \"Bela Vista\", "
+					+ "\"localidade\": \"São Paulo\", \"uf\": \"SP\", \"ibge\": \"3550308\"}");
+			server.addResponse("99999999/json/", "{\"erro\": true}");
+			server.addResponse("SP/Campinas/Andrade/json/", "[{\"cep\": \"13000-000\", \"uf\": \"SP\"}, {\"cep\": \"13000-001\", \"uf\": \"SP\"}]");
+			ViaCEPClient client = new ViaCEPClient() {
+				@Override
+				protected String getHost() {
+					return server.getHost();
+				}
+			};
+			client.setCompact(true);
+
+			ViaCEPEndereco endereco = client.getEndereco("01311000");
+			Assert.assertTrue(endereco instanceof ViaCEPCompactEndereco);
+			Assert.assertEquals("01311-000", endereco.getCep());
+			Assert.assertEquals("SP", endereco.getUf());
+			Assert.assertEquals("3550308", endereco.getIbge());
+			Assert.assertEquals("Bela Vista", endereco.getBairro());
+			Assert.assertNull(client.getEndereco("99999999"));
+
+			List<ViaCEPEndereco> enderecos = client.getEnderecos("SP", "Campinas", "Andrade");
+			Assert.assertEquals(2, enderecos.size());
+			Assert.assertTrue(enderecos.get(1) instanceof ViaCEPCompactEndereco);
+			Assert.assertEquals("13000-001", enderecos.get(1).getCep());
+		}
+		finally {
+			server.stop();
+		}
+	}
+
+}
@@ -0,0 +1,180 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPConcurrencyLimiter;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPHttpException;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPMetrics;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários da classe {@link ViaCEPConcurrencyLimiter}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPConcurrencyLimiterTest {
+	
+	@Test
+	public void testAIMD() throws Exception {
+		ViaCEPConcurrencyLimiter limiter = new ViaCEPConcurrencyLimiter(2, 1, 3);
+		
+		//aumenta apenas quando o limite está em uso
+		limiter.acquire();
+		limiter.release(0, false);
+		Assert.assertEquals(2, limiter.getLimit());
+		
+		for (int i = 0; i < 4; i++){
+			limiter.acquire();
+			limiter.acquire();
+			limiter.release(0, false);
+			limiter.release(0, false);
+		}
+		Assert.assertEquals(3, limiter.getLimit());
+		
+		limiter.acquire();
+		limiter.release(0, true);
+		Assert.assertEquals(2, limiter.getLimit());
+		for (int i = 0; i < 20; i++){
+			limiter.acquire();
+			limiter.release(0, true);
+		}
+		Assert.assertEquals(1, limiter.getLimit());
+		Assert.assertEquals(0, limiter.getInFlight());
+	}
+	
+	@Test
+	public void testLatenciaMaxima() throws Exception {
+		ViaCEPConcurrencyLimiter limiter = new ViaCEPConcurrencyLimiter(10, 1, 10);
+		limiter.setMaxLatency(100);
+		limiter.acquire();
+		limiter.release(TimeUnit.MILLISECONDS.toNanos(50), false);
+		Assert.assertEquals(10, limiter.getLimit());
+		limiter.acquire();
+		limiter.release(TimeUnit.MILLISECONDS.toNanos(150), false);
+		Assert.assertEquals(9, limiter.getLimit());
+	}
+	
+	@Test(timeout = 10000)
+	public void testFila() throws Exception {
+		final ViaCEPConcurrencyLimiter limiter = new ViaCEPConcurrencyLimiter(1, 1, 1);
+		limiter.acquire();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Long> waited = executor.submit(new Callable<Long>() {
+				@Override
+				public Long call() throws Exception {
+					long waited = limiter.acquire();
+					limiter.release(0, false);
+					return waited;
+				}
+			});
+			while (limiter.getQueueLength() == 0){
+				Thread.sleep(1);
+			}
+			Thread.sleep(20);
+			limiter.release(0, false);
+			Assert.assertTrue(waited.get() >= TimeUnit.MILLISECONDS.toNanos(20));
+			Assert.assertEquals(1, limiter.getWaitCount());
+			Assert.assertEquals(0, limiter.getInFlight());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test(timeout = 10000)
+	public void testClientsCompartilhados() throws Exception {
+		final ViaCEPStubServer server = new ViaCEPStubServer();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		ViaCEPConcurrencyLimiter limiter = new ViaCEPConcurrencyLimiter(2, 1, 2);
+		ViaCEPClient.setDefaultConcurrencyLimiter(limiter);
+		try {
+			server.addResponse("01311000/json/", "{\"cep\": \"01311-000\"}");
+			server.setLatency(20);
+			final ViaCEPMetrics metrics = new ViaCEPMetrics();
+			List<Future<ViaCEPEndereco>> futures = new ArrayList<Future<ViaCEPEndereco>>();
+			for (int i = 0; i < 8; i++){
+				futures.add(executor.submit(new Callable<ViaCEPEndereco>() {
+					@Override
+					public ViaCEPEndereco call() throws Exception {
+						ViaCEPClient client = new ViaCEPClient() {
+							@Override
+							protected String getHost() {
+								return server.getHost();
+							}
+						};
+						client.setInstrumentation(metrics);
+						return client.getEndereco("01311000");
+					}
+				}));
+			}
+			for (Future<ViaCEPEndereco> future : futures){
+				Assert.assertEquals("01311-000", future.get().getCep());
+			}
+			Assert.assertEquals(8, server.getRequestCount());
+			Assert.assertTrue(limiter.getWaitCount() >= 6);
+			Assert.assertEquals(8, metrics.getQueueWaitLatency().getCount());
+			Assert.assertTrue(metrics.getQueueWaitLatency().getMax() >= TimeUnit.MILLISECONDS.toNanos(20));
+			
+			//erros temporários reduzem o limite
+			server.failNext(1, 429);
+			try {
+				new ViaCEPClient() {
+					@Override
+					protected String getHost() {
+						return server.getHost();
+					}
+				}.getEndereco("01311000");
+				Assert.fail("Era esperado um erro HTTP 429");
+			} catch (ViaCEPHttpException e) {
+				//esperado
+			}
+			Assert.assertEquals(1, limiter.getLimit());
+		}
+		finally {
+			ViaCEPClient.setDefaultConcurrencyLimiter(null);
+			executor.shutdownNow();
+			server.stop();
+		}
+	}
+
+}
@@ -0,0 +1,206 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPCache;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPDatasetFormat;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPDatasetLoader;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPDatasetWriter;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPEnderecoHandler;
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários das classes {@link ViaCEPDatasetLoader} e {@link ViaCEPDatasetWriter}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPDatasetLoaderTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * Destino que mantém os endereços carregados em uma lista.
+	 */
+	private static class ListHandler implements ViaCEPEnderecoHandler {
+		final List<ViaCEPEndereco> enderecos = new ArrayList<ViaCEPEndereco>();
+		
+		@Override
+		public void onEndereco(ViaCEPEndereco endereco) {
+			enderecos.add(endereco);
+		}
+	}
+	
+	private static ViaCEPEndereco endereco(int i) {
+		ViaCEPEndereco endereco = new ViaCEPEndereco();
+		endereco.setCep(Cep.valueOf(20000000 + i).toString());
+		endereco.setLogradouro(i % 7 == 0 ? "Avenida \"Brasil\", pista\ncentral" : "Avenida Brasil");
+		endereco.setComplemento(i % 2 == 0 ? "lado par" : null);
+		endereco.setBairro("São Cristóvão");
+		endereco.setLocalidade("Rio de Janeiro");
+		endereco.setUf("RJ");
+		endereco.setIbge("3304557");
+		return endereco;
+	}
+	
+	private File write(String name, int count) throws IOException {
+		File file = folder.newFile(name);
+		ViaCEPDatasetWriter writer = new ViaCEPDatasetWriter(file);
+		try {
+			for (int i = 0; i < count; i++){
+				writer.onEndereco(endereco(i));
+			}
+			Assert.assertEquals(count, writer.getCount());
+		}
+		finally {
+			writer.close();
+		}
+		return file;
+	}
+	
+	private void assertLoaded(File file, int count, int chunkSize, int parallelism) throws IOException {
+		ViaCEPDatasetLoader loader = new ViaCEPDatasetLoader();
+		loader.setChunkSize(chunkSize);
+		loader.setParallelism(parallelism);
+		ListHandler handler = new ListHandler();
+		ViaCEPDatasetLoader.Progress progress = loader.load(file, handler);
+		
+		Assert.assertEquals(count, progress.getCount());
+		Assert.assertEquals(file.length(), progress.getBytesRead());
+		Assert.assertEquals(count, handler.enderecos.size());
+		for (int i = 0; i < count; i++){
+			ViaCEPEndereco expected = endereco(i);
+			ViaCEPEndereco endereco = handler.enderecos.get(i);
+			Assert.assertEquals(expected.getCep(), endereco.getCep());
+			Assert.assertEquals(expected.getLogradouro(), endereco.getLogradouro());
+			Assert.assertEquals(expected.getComplemento(), endereco.getComplemento());
+			Assert.assertEquals(expected.getBairro(), endereco.getBairro());
+			Assert.assertEquals(expected.getIbge(), endereco.getIbge());
+		}
+	}
+	
+	@Test
+	public void testJson() throws Exception {
+		File file = write("ceps.json", 2000);
+		assertLoaded(file, 2000, ViaCEPDatasetLoader.DEFAULT_CHUNK_SIZE, 4);
+		//partes pequenas, com vários registros divididos entre duas leituras
+		assertLoaded(file, 2000, 1000, 4);
+		assertLoaded(file, 2000, 1000, 1);
+		//partes menores do que um registro
+		assertLoaded(file, 2000, 16, 2);
+	}
+	
+	@Test
+	public void testCsv() throws Exception {
+		File file = write("ceps.csv", 2000);
+		assertLoaded(file, 2000, ViaCEPDatasetLoader.DEFAULT_CHUNK_SIZE, 4);
+		assertLoaded(file, 2000, 1000, 4);
+		assertLoaded(file, 2000, 1000, 1);
+		assertLoaded(file, 2000, 16, 2);
+	}
+	
+	@Test
+	public void testArrayJson() throws Exception {
+		File file = folder.newFile("ceps.json");
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		writer.write("﻿ [{\"cep\": \"01311-000\", \"localidade\": \"São Paulo\"},\n{\"cep\": \"20930-040\"}, {\"erro\": true}]");
+		writer.close();
+		
+		ListHandler handler = new ListHandler();
+		ViaCEPDatasetLoader loader = new ViaCEPDatasetLoader();
+		loader.setChunkSize(8);
+		Assert.assertEquals(2, loader.load(file, handler).getCount());
+		Assert.assertEquals("São Paulo", handler.enderecos.get(0).getLocalidade());
+	}
+	
+	@Test
+	public void testProgressoECache() throws Exception {
+		File file = write("ceps.csv", 500);
+		final List<ViaCEPDatasetLoader.Progress> progress = new ArrayList<ViaCEPDatasetLoader.Progress>();
+		ViaCEPDatasetLoader loader = new ViaCEPDatasetLoader();
+		loader.setChunkSize(4096);
+		loader.setProgressListener(new ViaCEPDatasetLoader.ProgressListener() {
+			@Override
+			public void onProgress(ViaCEPDatasetLoader.Progress p) {
+				progress.add(p);
+			}
+		});
+		ViaCEPCache cache = new ViaCEPCache();
+		ViaCEPDatasetLoader.Progress result = loader.load(file, ViaCEPDatasetLoader.toStore(cache));
+		
+		Assert.assertEquals(500, cache.size());
+		Assert.assertEquals("Rio de Janeiro", cache.get(Cep.parse("20000499")).getEndereco().getLocalidade());
+		Assert.assertTrue(progress.size() > 1);
+		for (int i = 1; i < progress.size(); i++){
+			Assert.assertTrue(progress.get(i).getCount() >= progress.get(i - 1).getCount());
+			Assert.assertTrue(progress.get(i).getBytesRead() > progress.get(i - 1).getBytesRead());
+		}
+		Assert.assertEquals(1.0, result.getFraction(), 0);
+		Assert.assertTrue(result.getThroughput() > 0);
+	}
+	
+	@Test
+	public void testConversao() throws Exception {
+		File json = write("ceps.json", 300);
+		File csv = folder.newFile("ceps.csv");
+		ViaCEPDatasetWriter writer = new ViaCEPDatasetWriter(csv, ViaCEPDatasetFormat.CSV);
+		try {
+			new ViaCEPDatasetLoader().load(json, writer);
+		}
+		finally {
+			writer.close();
+		}
+		assertLoaded(csv, 300, 512, 2);
+	}
+	
+	@Test(expected = IOException.class)
+	public void testCsvInvalido() throws Exception {
+		File file = folder.newFile("ceps.csv");
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		writer.write("cep,logradouro\n01311-000,\"Avenida Paulista\n");
+		writer.close();
+		new ViaCEPDatasetLoader().load(file, new ListHandler());
+	}
+
+}
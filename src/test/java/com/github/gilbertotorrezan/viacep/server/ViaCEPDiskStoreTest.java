@@ -0,0 +1,372 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPDiskStore;
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários da classe {@link ViaCEPDiskStore}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPDiskStoreTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private static ViaCEPEndereco endereco(int cep, String logradouro) {
+		ViaCEPEndereco endereco = new ViaCEPEndereco();
+		endereco.setCep(Cep.valueOf(cep).format());
+		endereco.setLogradouro(logradouro);
+		endereco.setLocalidade("São Paulo");
+		endereco.setUf("SP");
+		endereco.setIbge("3550308");
+		return endereco;
+	}
+	
+	private static String logradouro(ViaCEPDiskStore store, int cep) throws IOException {
+		return store.get(Cep.valueOf(cep)).getEndereco().getLogradouro();
+	}
+	
+	private static void copy(File source, File target) throws IOException {
+		InputStream in = new FileInputStream(source);
+		OutputStream out = new FileOutputStream(target);
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) >= 0){
+				out.write(buffer, 0, read);
+			}
+		}
+		finally {
+			in.close();
+			out.close();
+		}
+	}
+	
+	@Test
+	public void testReaberturaComIndice() throws Exception {
+		File file = folder.newFile("ceps.log");
+		ViaCEPDiskStore store = new ViaCEPDiskStore(file);
+		for (int i = 0; i < 5000; i++){
+			store.put(Cep.valueOf(1310000 + i), endereco(1310000 + i, "Rua " + i));
+		}
+		store.close();
+		Assert.assertTrue(new File(file.getPath() + ".idx").isFile());
+		
+		store = new ViaCEPDiskStore(file);
+		Assert.assertEquals(5000, store.size());
+		Assert.assertEquals("Rua 1234", logradouro(store, 1311234));
+		ViaCEPEndereco endereco = store.get(Cep.parse("01314999")).getEndereco();
+		Assert.assertEquals("01314-999", endereco.getCep());
+		Assert.assertEquals("São Paulo", endereco.getLocalidade());
+		Assert.assertNull(endereco.getBairro());
+		Assert.assertNull(store.get(Cep.parse("01315000")));
+		store.close();
+	}
+	
+	@Test
+	public void testRegistroMuitoGrande() throws Exception {
+		File file = folder.newFile("ceps.log");
+		ViaCEPDiskStore store = new ViaCEPDiskStore(file);
+		store.put(Cep.valueOf(1310100), endereco(1310100, "Avenida Paulista"));
+		long length = file.length();
+		StringBuilder logradouro = new StringBuilder();
+		while (logradouro.length() <= 64 * 1024){
+			logradouro.append("Rua muito longa ");
+		}
+		try {
+			store.put(Cep.valueOf(1310200), endereco(1310200, logradouro.toString()));
+			Assert.fail("Registro muito grande aceito");
+		} catch (IllegalArgumentException e) {
+			//esperado
+		}
+		Assert.assertEquals(length, file.length());
+		Assert.assertNull(store.get(Cep.valueOf(1310200)));
+		
+		//os registros gravados depois continuam válidos após a reabertura
+		store.put(Cep.valueOf(1310300), endereco(1310300, "Rua Augusta"));
+		store.close();
+		store = new ViaCEPDiskStore(file);
+		Assert.assertEquals(2, store.size());
+		Assert.assertEquals("Rua Augusta", logradouro(store, 1310300));
+		store.close();
+	}
+	
+	@Test
+	public void testReaberturaAposInterrupcao() throws Exception {
+		File file = folder.newFile("ceps.log");
+		ViaCEPDiskStore store = new ViaCEPDiskStore(file);
+		store.put(Cep.valueOf(1310100), endereco(1310100, "Avenida Paulista"));
+		store.close();
+		
+		//registros gravados após o último arquivo de índice são lidos do log
+		store = new ViaCEPDiskStore(file);
+		store.put(Cep.valueOf(1310200), endereco(1310200, "Avenida Paulista"));
+		store.put(Cep.valueOf(1310100), endereco(1310100, "Av. Paulista"));
+		store.flush();
+		File copia = new File(folder.getRoot(), "copia.log");
+		copy(file, copia);
+		copy(new File(file.getPath() + ".idx"), new File(copia.getPath() + ".idx"));
+		store.close();
+		
+		ViaCEPDiskStore recuperado = new ViaCEPDiskStore(copia);
+		Assert.assertEquals(2, recuperado.size());
+		Assert.assertEquals("Av. Paulista", logradouro(recuperado, 1310100));
+		Assert.assertEquals("Avenida Paulista", logradouro(recuperado, 1310200));
+		recuperado.close();
+		
+		//sem o arquivo de índice, o índice é reconstruído a partir do log
+		Assert.assertTrue(new File(file.getPath() + ".idx").delete());
+		store = new ViaCEPDiskStore(file);
+		Assert.assertEquals(2, store.size());
+		Assert.assertEquals("Av. Paulista", logradouro(store, 1310100));
+		store.close();
+	}
+	
+	@Test
+	public void testRegistroCorrompido() throws Exception {
+		File file = folder.newFile("ceps.log");
+		ViaCEPDiskStore store = new ViaCEPDiskStore(file);
+		store.put(Cep.valueOf(1310100), endereco(1310100, "Rua A"));
+		store.put(Cep.valueOf(1310200), endereco(1310200, "Rua B"));
+		long length = store.getLogSize();
+		store.put(Cep.valueOf(1310300), endereco(1310300, "Rua C"));
+		store.close();
+		Assert.assertTrue(new File(file.getPath() + ".idx").delete());
+		
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.seek(raf.length() - 3);
+		raf.write('X');
+		raf.close();
+		
+		store = new ViaCEPDiskStore(file);
+		Assert.assertEquals(2, store.size());
+		Assert.assertEquals(length, file.length());
+		Assert.assertEquals("Rua B", logradouro(store, 1310200));
+		Assert.assertNull(store.get(Cep.valueOf(1310300)));
+		
+		store.put(Cep.valueOf(1310300), endereco(1310300, "Rua C"));
+		Assert.assertEquals("Rua C", logradouro(store, 1310300));
+		store.close();
+	}
+	
+	@Test
+	public void testIndiceDescartadoAposPerdaDoLog() throws Exception {
+		File file = folder.newFile("ceps.log");
+		ViaCEPDiskStore store = new ViaCEPDiskStore(file);
+		store.put(Cep.valueOf(1310100), endereco(1310100, "Avenida Paulista"));
+		store.put(Cep.valueOf(1310200), endereco(1310200, "Avenida Paulista"));
+		store.close();
+		
+		//queda de energia: as gravações do log não chegaram ao disco, mas o arquivo de índice sim
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(16);
+		raf.close();
+		
+		store = new ViaCEPDiskStore(file);
+		Assert.assertEquals(0, store.size());
+		Assert.assertFalse(new File(file.getPath() + ".idx").exists());
+		store.put(Cep.valueOf(20930040), endereco(20930040, "Rua Ferreira de Araújo"));
+		store.put(Cep.valueOf(20930041), endereco(20930041, "Rua Ferreira de Araújo"));
+		store.put(Cep.valueOf(20930042), endereco(20930042, "Rua Ferreira de Araújo"));
+		store.flush();
+		
+		//reabertura sem close(): o arquivo de índice antigo não pode ser reutilizado
+		ViaCEPDiskStore reaberto = new ViaCEPDiskStore(file);
+		Assert.assertEquals(3, reaberto.size());
+		Assert.assertEquals("Rua Ferreira de Araújo", logradouro(reaberto, 20930041));
+		reaberto.close();
+		store.close();
+	}
+	
+	@Test
+	public void testCompactacao() throws Exception {
+		File file = folder.newFile("ceps.log");
+		ViaCEPDiskStore store = new ViaCEPDiskStore(file);
+		for (int i = 0; i < 100; i++){
+			store.put(Cep.valueOf(1310000 + i), endereco(1310000 + i, "Rua " + i));
+		}
+		long length = store.getLogSize();
+		
+		//regravações idênticas não ocupam espaço
+		store.put(Cep.valueOf(1310000), endereco(1310000, "Rua 0"));
+		Assert.assertEquals(length, store.getLogSize());
+		
+		for (int round = 1; round <= 5; round++){
+			for (int i = 0; i < 100; i++){
+				store.put(Cep.valueOf(1310000 + i), endereco(1310000 + i, "Rua " + i + "-" + round));
+			}
+		}
+		Assert.assertTrue(store.getLogSize() > 5 * length);
+		store.compact();
+		Assert.assertEquals(1, store.getCompactionCount());
+		Assert.assertTrue("Log com " + store.getLogSize() + " bytes", store.getLogSize() < length + length / 10);
+		Assert.assertEquals(100, store.size());
+		Assert.assertEquals("Rua 42-5", logradouro(store, 1310042));
+		
+		store.put(Cep.valueOf(1310042), endereco(1310042, "Rua 42-6"));
+		store.close();
+		
+		store = new ViaCEPDiskStore(file);
+		Assert.assertEquals(100, store.size());
+		Assert.assertEquals("Rua 42-6", logradouro(store, 1310042));
+		Assert.assertEquals("Rua 99-5", logradouro(store, 1310099));
+		store.close();
+	}
+	
+	@Test(timeout = 60000)
+	public void testCompactacaoAutomatica() throws Exception {
+		File file = folder.newFile("ceps.log");
+		ViaCEPDiskStore store = new ViaCEPDiskStore(file);
+		int round = 0;
+		while (store.getCompactionCount() == 0){
+			round++;
+			for (int i = 0; i < 1000; i++){
+				store.put(Cep.valueOf(1310000 + i), endereco(1310000 + i, "Rua " + i + "-" + round));
+			}
+			if (round > 100){
+				Thread.sleep(10);
+			}
+		}
+		Assert.assertTrue(round > 1);
+		Assert.assertEquals(1000, store.size());
+		Assert.assertEquals("Rua 999-" + round, logradouro(store, 1310999));
+		store.close();
+	}
+	
+	@Test(timeout = 60000)
+	public void testLeiturasConcorrentes() throws Exception {
+		File file = folder.newFile("ceps.log");
+		final ViaCEPDiskStore store = new ViaCEPDiskStore(file);
+		for (int i = 0; i < 1000; i++){
+			store.put(Cep.valueOf(1310000 + i), endereco(1310000 + i, "Rua " + i));
+		}
+		
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		List<Thread> readers = new ArrayList<Thread>();
+		for (int t = 0; t < 4; t++){
+			final int offset = t;
+			Thread reader = new Thread() {
+				@Override
+				public void run() {
+					try {
+						int i = offset;
+						while (running.get()){
+							i = (i + 7) % 1000;
+							String logradouro = logradouro(store, 1310000 + i);
+							if (!logradouro.startsWith("Rua " + i)){
+								throw new AssertionError(logradouro);
+							}
+						}
+					} catch (Throwable e) {
+						error.compareAndSet(null, e);
+					}
+				}
+			};
+			reader.start();
+			readers.add(reader);
+		}
+		
+		for (int round = 0; round < 10; round++){
+			for (int i = 0; i < 1000; i++){
+				store.put(Cep.valueOf(1310000 + i), endereco(1310000 + i, "Rua " + i + "-" + round));
+				store.put(Cep.valueOf(2000000 + round * 1000 + i), endereco(2000000 + round * 1000 + i, "Nova"));
+			}
+			store.compact();
+		}
+		running.set(false);
+		for (Thread reader : readers){
+			reader.join();
+		}
+		if (error.get() != null){
+			throw new AssertionError(error.get());
+		}
+		Assert.assertEquals(11000, store.size());
+		Assert.assertEquals("Rua 500-9", logradouro(store, 1310500));
+		store.close();
+	}
+	
+	@Test
+	public void testMigracaoVersao1() throws Exception {
+		File file = folder.newFile("ceps.log");
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+		out.writeInt(0x56434453);
+		out.writeInt(1);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream record = new DataOutputStream(bytes);
+		record.writeByte(2 | 4);
+		record.writeUTF("Avenida Paulista");
+		record.writeUTF("São Paulo");
+		record.writeUTF("SP");
+		record.writeUTF("3550308");
+		out.writeInt(bytes.size());
+		out.writeInt(1310100);
+		out.write(bytes.toByteArray());
+		out.writeInt(100);
+		out.close();
+		
+		ViaCEPDiskStore store = new ViaCEPDiskStore(file);
+		Assert.assertEquals(1, store.size());
+		ViaCEPEndereco endereco = store.get(Cep.parse("01310-100")).getEndereco();
+		Assert.assertEquals("Avenida Paulista", endereco.getLogradouro());
+		Assert.assertNull(endereco.getComplemento());
+		Assert.assertEquals("São Paulo", endereco.getLocalidade());
+		Assert.assertEquals("3550308", endereco.getIbge());
+		store.close();
+		
+		store = new ViaCEPDiskStore(file);
+		Assert.assertEquals("Avenida Paulista", logradouro(store, 1310100));
+		store.close();
+	}
+
+}
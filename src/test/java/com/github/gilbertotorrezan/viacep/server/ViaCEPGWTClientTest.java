@@ -0,0 +1,141 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fusesource.restygwt.client.Method;
+import org.fusesource.restygwt.client.MethodCallback;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.gwt.ViaCEPGWTCache;
+import com.github.gilbertotorrezan.viacep.gwt.ViaCEPGWTClient;
+import com.github.gilbertotorrezan.viacep.gwt.ViaCEPGWTService;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários do agrupamento de consultas e do cache do {@link ViaCEPGWTClient}, utilizando um 
+ * {@link ViaCEPGWTService} que apenas armazena as requisições.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPGWTClientTest {
+	
+	private final List<String> requests = new ArrayList<String>();
+	private final List<MethodCallback<ViaCEPEndereco>> pending = new ArrayList<MethodCallback<ViaCEPEndereco>>();
+	private ViaCEPGWTClient client;
+	
+	@Before
+	public void setUp() throws Exception {
+		client = new ViaCEPGWTClient(new ViaCEPGWTService() {
+			@Override
+			public void getEndereco(String cep, MethodCallback<ViaCEPEndereco> callback) {
+				requests.add(cep);
+				pending.add(callback);
+			}
+			
+			@Override
+			public void getEnderecos(String uf, String localidade, String logradouro, MethodCallback<List<ViaCEPEndereco>> callback) {
+				requests.add(uf + "/" + localidade + "/" + logradouro);
+			}
+		});
+	}
+	
+	private static ViaCEPEndereco endereco(String cep) {
+		ViaCEPEndereco endereco = new ViaCEPEndereco();
+		endereco.setCep(cep);
+		return endereco;
+	}
+	
+	@Test
+	public void testConsultasAgrupadas() throws Exception {
+		Callback a = new Callback();
+		Callback b = new Callback();
+		client.getEndereco("01311-000", a);
+		client.getEndereco("01311000", b);
+		Assert.assertEquals(1, requests.size());
+		
+		pending.get(0).onSuccess(null, endereco("01311-000"));
+		Assert.assertEquals("01311-000", a.result.getCep());
+		Assert.assertSame(a.result, b.result);
+		
+		//a requisição já foi concluída: uma nova consulta gera uma nova requisição
+		client.getEndereco("01311000", new Callback());
+		Assert.assertEquals(2, requests.size());
+		
+		Callback c = new Callback();
+		Callback d = new Callback();
+		client.getEndereco("01311100", c);
+		client.getEndereco("01311100", d);
+		Assert.assertEquals(3, requests.size());
+		pending.get(2).onFailure(null, new IllegalStateException());
+		Assert.assertTrue(c.failure instanceof IllegalStateException);
+		Assert.assertSame(c.failure, d.failure);
+	}
+	
+	@Test
+	public void testCache() throws Exception {
+		Assert.assertNull(client.getCache());
+		client.setCache(new ViaCEPGWTCache());
+		
+		client.getEndereco("01311000", new Callback());
+		pending.get(0).onSuccess(null, endereco("01311-000"));
+		
+		Callback callback = new Callback();
+		client.getEndereco("01311-000", callback);
+		Assert.assertEquals(1, requests.size());
+		Assert.assertEquals("01311-000", callback.result.getCep());
+		
+		//endereços não encontrados não são armazenados
+		client.getEndereco("99999999", new Callback());
+		pending.get(1).onSuccess(null, null);
+		client.getEndereco("99999999", new Callback());
+		Assert.assertEquals(3, requests.size());
+	}
+	
+	private static class Callback implements MethodCallback<ViaCEPEndereco> {
+		ViaCEPEndereco result;
+		Throwable failure;
+		
+		@Override
+		public void onSuccess(Method method, ViaCEPEndereco response) {
+			result = response;
+		}
+		
+		@Override
+		public void onFailure(Method method, Throwable exception) {
+			failure = exception;
+		}
+	}
+
+}
@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPCache;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPHttpException;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPInstrumentation.Operation;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPInstrumentation.Outcome;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPLatencyHistogram;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPMetrics;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários das classes {@link ViaCEPMetrics} e {@link ViaCEPLatencyHistogram}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPMetricsTest {
+
+	@Test
+	public void testHistograma() throws Exception {
+		ViaCEPLatencyHistogram histogram = new ViaCEPLatencyHistogram();
+		Assert.assertEquals(0, histogram.getPercentile(99));
+		for (int i = 1; i <= 1000; i++){
+			histogram.record(i * 1000L);
+		}
+		Assert.assertEquals(1000, histogram.getCount());
+		Assert.assertEquals(1000000L, histogram.getMax());
+		Assert.assertEquals(500500.0, histogram.getMean(), 0.001);
+		assertAproximado(500000, histogram.getPercentile(50));
+		assertAproximado(990000, histogram.getPercentile(99));
+		Assert.assertEquals(1000000L, histogram.getPercentile(100));
+		
+		histogram.reset();
+		Assert.assertEquals(0, histogram.getCount());
+		Assert.assertEquals(0, histogram.getPercentile(50));
+	}
+	
+	@Test
+	public void testHistogramaValoresExtremos() throws Exception {
+		ViaCEPLatencyHistogram histogram = new ViaCEPLatencyHistogram();
+		histogram.record(-1);
+		histogram.record(0);
+		histogram.record(Long.MAX_VALUE);
+		Assert.assertEquals(0, histogram.getPercentile(50));
+		Assert.assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+	}
+	
+	private static void assertAproximado(long expected, long actual) {
+		Assert.assertTrue("Esperado ~" + expected + ", obtido " + actual, Math.abs(expected - actual) <= expected / 16);
+	}
+
+	@Test
+	public void testClienteInstrumentado() throws Exception {
+		final ViaCEPStubServer server = new ViaCEPStubServer();
+		try {
+			server.addResponse("01311000/json/", "{\"cep\": \"01311-000\", \"localidade\": \"São Paulo\"}");
+			server.addResponse("99999999/json/", "{\"erro\": true}");
+			server.addResponse("SP/Campinas/Andrade/json/", "[{\"cep\": \"13000-000\"}, {\"cep\": \"13000-001\"}]");
+			ViaCEPClient client = new ViaCEPClient() {
+				@Override
+				protected String getHost() {
+					return server.getHost();
+				}
+			};
+			client.setCache(new ViaCEPCache());
+			ViaCEPMetrics metrics = new ViaCEPMetrics();
+			client.setInstrumentation(metrics);
+			
+			for (int i = 0; i < 3; i++){
+				Assert.assertNotNull(client.getEndereco("01311000"));
+			}
+			Assert.assertNull(client.getEndereco("99999999"));
+			try {
+				client.getEndereco("123");
+				Assert.fail("Era esperado um CEP inválido");
+			} catch (IllegalArgumentException e) {
+				//esperado
+			}
+			try {
+				client.getEndereco("12345678");
+				Assert.fail("Era esperado um erro HTTP 400");
+			} catch (ViaCEPHttpException e) {
+				Assert.assertEquals(400, e.getStatusCode());
+			}
+			List<ViaCEPEndereco> enderecos = client.getEnderecos("SP", "Campinas", "Andrade");
+			Assert.assertEquals(2, enderecos.size());
+			try {
+				client.getEnderecos("SP", "Ca", "Andrade");
+				Assert.fail("Era esperada uma localidade inválida");
+			} catch (IllegalArgumentException e) {
+				//esperado
+			}
+			
+			Assert.assertEquals(1, metrics.getCount(Operation.ENDERECO, Outcome.FOUND));
+			Assert.assertEquals(1, metrics.getCount(Operation.ENDERECO, Outcome.NOT_FOUND));
+			Assert.assertEquals(1, metrics.getCount(Operation.ENDERECO, Outcome.INVALID));
+			Assert.assertEquals(1, metrics.getCount(Operation.ENDERECO, Outcome.HTTP_ERROR));
+			Assert.assertEquals(1, metrics.getCount(Operation.ENDERECOS, Outcome.FOUND));
+			Assert.assertEquals(1, metrics.getCount(Operation.ENDERECOS, Outcome.INVALID));
+			
+			Assert.assertEquals(3, metrics.getLookupLatency(Operation.ENDERECO).getCount());
+			Assert.assertEquals(1, metrics.getLookupLatency(Operation.ENDERECOS).getCount());
+			Assert.assertEquals(4, metrics.getConnectLatency().getCount());
+			Assert.assertEquals(4, metrics.getFirstByteLatency().getCount());
+			Assert.assertEquals(3, metrics.getStatusCount(2));
+			Assert.assertEquals(1, metrics.getStatusCount(4));
+			Assert.assertEquals(3, metrics.getDecodeLatency().getCount());
+			Assert.assertTrue(metrics.getBytesRead() > 0);
+			Assert.assertTrue(metrics.getLookupLatency(Operation.ENDERECO).getPercentile(99) > 0);
+		}
+		finally {
+			server.stop();
+		}
+	}
+
+}
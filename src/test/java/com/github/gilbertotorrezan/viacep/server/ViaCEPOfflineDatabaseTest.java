@@ -0,0 +1,207 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPOfflineDatabase;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários da classe {@link ViaCEPOfflineDatabase}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPOfflineDatabaseTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private File write(String name, String content) throws Exception {
+		File file = folder.newFile(name);
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		writer.write(content);
+		writer.close();
+		return file;
+	}
+	
+	@Test
+	public void testBuildJson() throws Exception {
+		File dataset = write("ceps.json", "[{\"cep\": \"20930-040\", \"logradouro\": \"Avenida Brasil\", \"bairro\": \"São Cristóvão\", "
+				+ "\"localidade\": \"Rio de Janeiro\", \"uf\": \"RJ\", \"ibge\": \"3304557\"},"
+				+ "{\"cep\": \"01311-000\", \"logradouro\": \"Avenida Paulista\", \"complemento\": \"até 610 - lado par\", "
+				+ "\"bairro\": \"Bela Vista\", \"localidade\": \"São Paulo\", \"uf\": \"SP\", \"ibge\": \"3550308\"},"
+				+ "{\"cep\": \"20930-041\", \"logradouro\": \"Avenida Brasil\", \"bairro\": \"São Cristóvão\", "
+				+ "\"localidade\": \"Rio de Janeiro\", \"uf\": \"RJ\", \"ibge\": \"3304557\"}]");
+		File output = folder.newFile("ceps.db");
+		Assert.assertEquals(3, ViaCEPOfflineDatabase.build(dataset, output));
+		
+		ViaCEPOfflineDatabase database = new ViaCEPOfflineDatabase(output);
+		try {
+			Assert.assertEquals(3, database.size());
+			ViaCEPEndereco endereco = database.getEndereco("01311000");
+			Assert.assertEquals("01311-000", endereco.getCep());
+			Assert.assertEquals("Avenida Paulista", endereco.getLogradouro());
+			Assert.assertEquals("até 610 - lado par", endereco.getComplemento());
+			Assert.assertEquals("São Paulo", endereco.getLocalidade());
+			Assert.assertEquals("3550308", endereco.getIbge());
+			
+			endereco = database.getEndereco("20930-041");
+			Assert.assertEquals("São Cristóvão", endereco.getBairro());
+			Assert.assertNull(endereco.getComplemento());
+			
+			Assert.assertNull(database.getEndereco("20930-042"));
+			Assert.assertNull(database.getEndereco("00000-000"));
+			Assert.assertNull(database.getEndereco("99999-999"));
+		}
+		finally {
+			database.close();
+		}
+	}
+	
+	@Test
+	public void testBuildCsv() throws Exception {
+		File dataset = write("ceps.csv", "uf,localidade,cep,logradouro,bairro\n"
+				+ "SP,São Paulo,01311-000,Avenida Paulista,Bela Vista\n"
+				+ "RJ,Rio de Janeiro,20930-040,\"Avenida Brasil, pista \"\"central\"\"\",São Cristóvão\n");
+		File output = folder.newFile("ceps.db");
+		Assert.assertEquals(2, ViaCEPOfflineDatabase.build(dataset, output));
+		
+		ViaCEPOfflineDatabase database = new ViaCEPOfflineDatabase(output);
+		try {
+			Assert.assertEquals("Avenida Brasil, pista \"central\"", database.getEndereco("20930040").getLogradouro());
+			Assert.assertEquals("Bela Vista", database.getEndereco("01311000").getBairro());
+		}
+		finally {
+			database.close();
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetEnderecoInvalido() throws Exception {
+		File output = folder.newFile("vazio.db");
+		ViaCEPOfflineDatabase.build(new ArrayList<ViaCEPEndereco>(), output);
+		ViaCEPOfflineDatabase database = new ViaCEPOfflineDatabase(output);
+		try {
+			database.getEndereco("123");
+		}
+		finally {
+			database.close();
+		}
+	}
+	
+	@Test(expected = IOException.class)
+	public void testArquivoInvalido() throws Exception {
+		new ViaCEPOfflineDatabase(write("invalido.db", "{}"));
+	}
+	
+	@Test
+	public void testArquivoCorrompido() throws Exception {
+		ViaCEPEndereco endereco = new ViaCEPEndereco();
+		endereco.setCep("01311-000");
+		endereco.setLocalidade("São Paulo");
+		File output = folder.newFile("ceps.db");
+		ViaCEPOfflineDatabase.build(Collections.singletonList(endereco), output);
+		new ViaCEPOfflineDatabase(output).close();
+		
+		//tamanho do índice, número de textos e fim da tabela de textos inconsistentes com o tamanho do arquivo,
+		//e campo do endereço (a localidade) referenciando um texto inexistente
+		//cabeçalho, índice com 1 CEP, 6 campos e o início da tabela de textos, que possui um único texto
+		int localidade = 16 + 4 + 3 * 4;
+		int stringsEnd = 16 + 4 + 6 * 4 + 4;
+		int[][] corruptions = {{8, Integer.MAX_VALUE / 4}, {8, -1}, {12, Integer.MAX_VALUE}, {12, -2}, {stringsEnd, 1 << 20}, {stringsEnd, -1}, 
+				{localidade, 1}, {localidade, Integer.MAX_VALUE}};
+		for (int[] corruption : corruptions){
+			File corrupted = folder.newFile("ceps-" + corruption[0] + "-" + corruption[1] + ".db");
+			copy(output, corrupted);
+			RandomAccessFile file = new RandomAccessFile(corrupted, "rw");
+			try {
+				file.seek(corruption[0]);
+				file.writeInt(corruption[1]);
+			}
+			finally {
+				file.close();
+			}
+			try {
+				new ViaCEPOfflineDatabase(corrupted).close();
+				Assert.fail("Base corrompida aceita: " + corrupted.getName());
+			} catch (IOException e) {
+				//esperado
+			}
+		}
+		
+		File truncated = folder.newFile("truncado.db");
+		copy(output, truncated);
+		RandomAccessFile file = new RandomAccessFile(truncated, "rw");
+		try {
+			file.setLength(20);
+		}
+		finally {
+			file.close();
+		}
+		try {
+			new ViaCEPOfflineDatabase(truncated).close();
+			Assert.fail("Base truncada aceita");
+		} catch (IOException e) {
+			//esperado
+		}
+	}
+	
+	private static void copy(File from, File to) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(from, "r");
+		try {
+			byte[] bytes = new byte[(int) in.length()];
+			in.readFully(bytes);
+			FileOutputStream out = new FileOutputStream(to);
+			try {
+				out.write(bytes);
+			}
+			finally {
+				out.close();
+			}
+		}
+		finally {
+			in.close();
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPRateLimiter;
+
+/**
+ * Testes unitários da classe {@link ViaCEPRateLimiter}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPRateLimiterTest {
+	
+	/**
+	 * Limitador com relógio controlado pelo teste: o tempo avança apenas quando o limitador aguarda.
+	 */
+	private static class TestRateLimiter extends ViaCEPRateLimiter {
+		long time;
+		
+		TestRateLimiter(double permitsPerSecond, int burst) {
+			super(permitsPerSecond, burst);
+		}
+		
+		@Override
+		protected long now() {
+			return time;
+		}
+		
+		@Override
+		protected void sleep(long nanos) throws InterruptedException {
+			time += nanos;
+		}
+	}
+	
+	@Test
+	public void testTaxa() throws Exception {
+		TestRateLimiter limiter = new TestRateLimiter(10, 1);
+		for (int i = 0; i < 11; i++){
+			limiter.acquire();
+		}
+		Assert.assertEquals(1000000000L, limiter.time);
+		Assert.assertEquals(10, limiter.getWaitCount());
+		Assert.assertEquals(1000000000L, limiter.getTotalWaitNanos());
+	}
+	
+	@Test
+	public void testRajada() throws Exception {
+		TestRateLimiter limiter = new TestRateLimiter(10, 5);
+		for (int i = 0; i < 5; i++){
+			Assert.assertTrue(limiter.tryAcquire());
+		}
+		Assert.assertFalse(limiter.tryAcquire());
+		
+		limiter.time += 100000000L;
+		Assert.assertTrue(limiter.tryAcquire());
+		Assert.assertFalse(limiter.tryAcquire());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testTaxaInvalida() throws Exception {
+		new ViaCEPRateLimiter(0);
+	}
+
+}
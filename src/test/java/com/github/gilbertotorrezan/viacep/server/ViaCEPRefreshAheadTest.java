@@ -0,0 +1,181 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPCache;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPRefreshAhead;
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+
+/**
+ * Testes unitários da classe {@link ViaCEPRefreshAhead}, utilizando o {@link ViaCEPStubServer}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPRefreshAheadTest {
+
+	/**
+	 * Cache com relógio controlado pelo teste.
+	 */
+	private static class TestCache extends ViaCEPCache {
+		volatile long time;
+
+		TestCache(long ttl) {
+			super(10, ttl, ttl, TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		protected long now() {
+			return time;
+		}
+	}
+
+	private ViaCEPStubServer server;
+	private ViaCEPRefreshAhead refreshAhead;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new ViaCEPStubServer();
+		server.addResponse("01311000/json/", "{\"cep\": \"01311-000\", \"localidade\": \"São Paulo\"}");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (refreshAhead != null){
+			refreshAhead.shutdown();
+		}
+		server.stop();
+	}
+
+	private static void awaitRefreshes(ViaCEPRefreshAhead refreshAhead, long count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while ((refreshAhead.getRefreshCount() + refreshAhead.getFailureCount() < count || refreshAhead.getPendingCount() > 0)
+				&& System.currentTimeMillis() < deadline){
+			Thread.sleep(5);
+		}
+	}
+
+	@Test
+	public void testAtualizacaoAntecipada() throws Exception {
+		ViaCEPClient client = new ViaCEPClient() {
+			@Override
+			protected String getHost() {
+				return server.getHost();
+			}
+		};
+		TestCache cache = new TestCache(100);
+		refreshAhead = new ViaCEPRefreshAhead(0.75, 1, 10);
+		client.setCache(cache);
+		client.setRefreshAhead(refreshAhead);
+
+		Assert.assertEquals("São Paulo", client.getEndereco("01311000").getLocalidade());
+		cache.time = 50;
+		client.getEndereco("01311000");
+		Assert.assertEquals(1, server.getRequestCount());
+
+		//perto de expirar: o valor atual é retornado e a atualização acontece em segundo plano
+		server.addResponse("01311000/json/", "{\"cep\": \"01311-000\", \"localidade\": \"Sampa\"}");
+		cache.time = 80;
+		Assert.assertEquals("São Paulo", client.getEndereco("01311000").getLocalidade());
+		awaitRefreshes(refreshAhead, 1);
+		Assert.assertEquals(1, refreshAhead.getRefreshCount());
+		Assert.assertEquals(1, refreshAhead.getLag().getCount());
+		Assert.assertEquals(2, server.getRequestCount());
+
+		//a entrada atualizada vale até 180, e não expira no tempo em que a original expiraria
+		cache.time = 150;
+		Assert.assertEquals("Sampa", client.getEndereco("01311000").getLocalidade());
+		Assert.assertEquals(2, server.getRequestCount());
+		Assert.assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void testFalhaMantemEntrada() throws Exception {
+		ViaCEPClient client = new ViaCEPClient() {
+			@Override
+			protected String getHost() {
+				return server.getHost();
+			}
+		};
+		TestCache cache = new TestCache(100);
+		refreshAhead = new ViaCEPRefreshAhead();
+		client.setCache(cache);
+		client.setRefreshAhead(refreshAhead);
+		client.setRetryPolicy(null);
+
+		client.getEndereco("01311000");
+		server.failNext(1, 503);
+		cache.time = 90;
+		Assert.assertEquals("São Paulo", client.getEndereco("01311000").getLocalidade());
+		awaitRefreshes(refreshAhead, 1);
+		Assert.assertEquals(1, refreshAhead.getFailureCount());
+		Assert.assertEquals(0, refreshAhead.getRefreshCount());
+		Assert.assertEquals("São Paulo", client.getEndereco("01311000").getLocalidade());
+	}
+
+	@Test
+	public void testLimites() throws Exception {
+		refreshAhead = new ViaCEPRefreshAhead(0.5, 1, 1);
+		final CountDownLatch release = new CountDownLatch(1);
+		Callable<Void> blocked = new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				release.await();
+				return null;
+			}
+		};
+		Assert.assertTrue(refreshAhead.submit(Cep.parse("00000001"), blocked));
+		Assert.assertFalse("Já existe uma atualização pendente para o CEP", refreshAhead.submit(Cep.parse("00000001"), blocked));
+		Assert.assertTrue(refreshAhead.submit(Cep.parse("00000002"), blocked));
+		Assert.assertFalse(refreshAhead.submit(Cep.parse("00000003"), blocked));
+		Assert.assertEquals(1, refreshAhead.getRejectedCount());
+		Assert.assertEquals(2, refreshAhead.getPendingCount());
+
+		release.countDown();
+		awaitRefreshes(refreshAhead, 2);
+		Assert.assertEquals(2, refreshAhead.getRefreshCount());
+		Assert.assertTrue(refreshAhead.submit(Cep.parse("00000003"), blocked));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testProporcaoInvalida() throws Exception {
+		new ViaCEPRefreshAhead(1, 1, 1);
+	}
+
+}
@@ -0,0 +1,234 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPInstrumentation.Operation;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPInstrumentation.Outcome;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPMetrics;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPSearchCache;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPSearchKey;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários das classes {@link ViaCEPSearchCache} e {@link ViaCEPSearchKey}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPSearchCacheTest {
+
+	/**
+	 * Cache com relógio controlado pelo teste.
+	 */
+	private static class TestCache extends ViaCEPSearchCache {
+		long time;
+
+		TestCache(int maxEnderecos, long ttl) {
+			super(maxEnderecos, ttl, TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		protected long now() {
+			return time;
+		}
+	}
+
+	private static List<ViaCEPEndereco> enderecos(int count) {
+		List<ViaCEPEndereco> enderecos = new ArrayList<ViaCEPEndereco>();
+		for (int i = 0; i < count; i++){
+			ViaCEPEndereco endereco = new ViaCEPEndereco();
+			endereco.setCep("01311-" + (100 + i));
+			enderecos.add(endereco);
+		}
+		return enderecos;
+	}
+
+	@Test
+	public void testChaveCanonica() throws Exception {
+		ViaCEPSearchKey key = ViaCEPSearchKey.of("SP", "São Paulo", "Avenida Paulista");
+		Assert.assertEquals(key, ViaCEPSearchKey.of(" sp", "sao  paulo ", "AVENIDA   PAULISTA"));
+		Assert.assertEquals(key.hashCode(), ViaCEPSearchKey.of("sp", "SÃO PAULO", "avenida paulista").hashCode());
+		Assert.assertEquals("SP", key.getUf());
+		Assert.assertEquals("sao paulo", key.getLocalidade());
+		Assert.assertEquals("avenida paulista", key.getLogradouro());
+		Assert.assertFalse(key.equals(ViaCEPSearchKey.of("SP", "São Paulo", "Avenida Paulist")));
+		Assert.assertFalse(key.equals(ViaCEPSearchKey.of("RJ", "São Paulo", "Avenida Paulista")));
+	}
+
+	@Test
+	public void testLimitePorEnderecos() throws Exception {
+		TestCache cache = new TestCache(10, 100);
+		ViaCEPSearchKey a = ViaCEPSearchKey.of("SP", "São Paulo", "Paulista");
+		ViaCEPSearchKey b = ViaCEPSearchKey.of("SP", "São Paulo", "Augusta");
+		ViaCEPSearchKey c = ViaCEPSearchKey.of("SP", "São Paulo", "Consolação");
+		ViaCEPSearchKey d = ViaCEPSearchKey.of("SP", "São Paulo", "Inexistente");
+		
+		cache.put(a, enderecos(4));
+		cache.put(b, enderecos(4));
+		Assert.assertNotNull(cache.get(a));
+		cache.put(c, enderecos(4));
+		
+		//o resultado menos recentemente utilizado é descartado para manter o limite de endereços
+		Assert.assertNull(cache.get(b));
+		Assert.assertEquals(4, cache.get(a).size());
+		Assert.assertEquals(4, cache.get(c).size());
+		Assert.assertEquals(8, cache.getRetainedCount());
+		Assert.assertEquals(1, cache.getEvictionCount());
+		
+		//resultados vazios contam como um endereço
+		cache.put(d, Collections.<ViaCEPEndereco>emptyList());
+		Assert.assertTrue(cache.get(d).isEmpty());
+		Assert.assertEquals(9, cache.getRetainedCount());
+		
+		//resultados maiores do que o limite não são armazenados
+		cache.put(b, enderecos(11));
+		Assert.assertNull(cache.get(b));
+		Assert.assertEquals(3, cache.size());
+		
+		//o resultado anterior da mesma consulta também é descartado
+		cache.put(a, enderecos(11));
+		Assert.assertNull(cache.get(a));
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(5, cache.getRetainedCount());
+		
+		cache.clear();
+		Assert.assertEquals(0, cache.getRetainedCount());
+	}
+
+	@Test
+	public void testExpiracao() throws Exception {
+		TestCache cache = new TestCache(10, 100);
+		ViaCEPSearchKey key = ViaCEPSearchKey.of("SP", "São Paulo", "Paulista");
+		cache.put(key, enderecos(3));
+		cache.time = 99;
+		Assert.assertNotNull(cache.get(key));
+		cache.time = 100;
+		Assert.assertNull(cache.get(key));
+		Assert.assertEquals(0, cache.getRetainedCount());
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(1, cache.getMissCount());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testResultadoImutavel() throws Exception {
+		ViaCEPSearchCache cache = new ViaCEPSearchCache();
+		ViaCEPSearchKey key = ViaCEPSearchKey.of("SP", "São Paulo", "Paulista");
+		cache.put(key, enderecos(3));
+		cache.get(key).clear();
+	}
+
+	@Test
+	public void testClientComCache() throws Exception {
+		ViaCEPStubServer server = new ViaCEPStubServer();
+		try {
+			server.loadDefaultFixtures();
+			ViaCEPClient client = new ViaCEPClient();
+			client.setHost(server.getHost());
+			client.setSearchCache(new ViaCEPSearchCache());
+			ViaCEPMetrics metrics = new ViaCEPMetrics();
+			client.setInstrumentation(metrics);
+			
+			List<ViaCEPEndereco> enderecos = client.getEnderecos("SP", "São Paulo", "Avenida Paulista");
+			Assert.assertFalse(enderecos.isEmpty());
+			
+			//cada chamador recebe a sua própria cópia do resultado
+			enderecos.clear();
+			Assert.assertFalse(client.getEnderecos("sp", "sao paulo", "avenida  paulista").isEmpty());
+			Assert.assertFalse(client.getEnderecos("SP", "SÃO PAULO ", "Avenida Paulista").isEmpty());
+			Assert.assertTrue(client.getEnderecos("SP", "São Paulo", "Rua Inexistente").isEmpty());
+			Assert.assertTrue(client.getEnderecos("SP", "Sao Paulo", "rua inexistente").isEmpty());
+			
+			Assert.assertEquals(2, server.getRequestCount());
+			Assert.assertEquals(3, client.getSearchCache().getHitCount());
+			
+			//consultas respondidas pelo cache não são notificadas
+			Assert.assertEquals(1, metrics.getCount(Operation.ENDERECOS, Outcome.FOUND));
+			Assert.assertEquals(1, metrics.getCount(Operation.ENDERECOS, Outcome.NOT_FOUND));
+		}
+		finally {
+			server.stop();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testConsultasAgrupadas() throws Exception {
+		ViaCEPStubServer server = new ViaCEPStubServer();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			server.loadDefaultFixtures();
+			server.setLatency(300);
+			final ViaCEPClient client = new ViaCEPClient();
+			client.setHost(server.getHost());
+			ViaCEPMetrics metrics = new ViaCEPMetrics();
+			client.setInstrumentation(metrics);
+			
+			List<Future<List<ViaCEPEndereco>>> futures = new ArrayList<Future<List<ViaCEPEndereco>>>();
+			for (int i = 0; i < 8; i++){
+				final String localidade = i % 2 == 0 ? "São Paulo" : "sao paulo";
+				futures.add(executor.submit(new Callable<List<ViaCEPEndereco>>() {
+					@Override
+					public List<ViaCEPEndereco> call() throws Exception {
+						return client.getEnderecos("SP", localidade, "Paulista");
+					}
+				}));
+			}
+			List<ViaCEPEndereco> first = futures.get(0).get();
+			Assert.assertFalse(first.isEmpty());
+			for (Future<List<ViaCEPEndereco>> future : futures){
+				List<ViaCEPEndereco> enderecos = future.get();
+				Assert.assertEquals(first, enderecos);
+				if (future != futures.get(0)){
+					Assert.assertNotSame(first, enderecos);
+				}
+			}
+			//sem cache, consultas simultâneas equivalentes são agrupadas
+			Assert.assertTrue("Requisições: " + server.getRequestCount(), server.getRequestCount() < 8);
+			//as consultas agrupadas são notificadas uma única vez
+			Assert.assertEquals(server.getRequestCount(), metrics.getCount(Operation.ENDERECOS, Outcome.FOUND));
+		}
+		finally {
+			executor.shutdownNow();
+			server.stop();
+		}
+	}
+
+}
@@ -0,0 +1,202 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPSearchIndex;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários da classe {@link ViaCEPSearchIndex}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPSearchIndexTest {
+
+	private static ViaCEPEndereco endereco(String cep, String logradouro, String bairro, String localidade, String uf) {
+		ViaCEPEndereco endereco = new ViaCEPEndereco();
+		endereco.setCep(cep);
+		endereco.setLogradouro(logradouro);
+		endereco.setBairro(bairro);
+		endereco.setLocalidade(localidade);
+		endereco.setUf(uf);
+		return endereco;
+	}
+
+	private static ViaCEPSearchIndex createIndex() {
+		ViaCEPSearchIndex index = new ViaCEPSearchIndex();
+		index.add(endereco("01311-200", "Avenida Paulista", "Bela Vista", "São Paulo", "SP"));
+		index.add(endereco("01310-100", "Avenida Paulista", "Bela Vista", "São Paulo", "SP"));
+		index.add(endereco("01415-000", "Rua da Consolação", "Consolação", "São Paulo", "SP"));
+		index.add(endereco("04094-050", "Avenida Pedro Álvares Cabral", "Vila Mariana", "São Paulo", "SP"));
+		index.add(endereco("06010-000", "Avenida Paulista", "Centro", "Osasco", "SP"));
+		return index;
+	}
+
+	@Test
+	public void testFold() throws Exception {
+		Assert.assertEquals("sao paulo", ViaCEPSearchIndex.fold("São Paulo"));
+		Assert.assertEquals("consolacao", ViaCEPSearchIndex.fold("CONSOLAÇÃO"));
+		Assert.assertEquals("d  pedro ii", ViaCEPSearchIndex.fold("D. Pedro II"));
+		Assert.assertEquals("", ViaCEPSearchIndex.fold(null));
+	}
+
+	@Test
+	public void testBuscaPorPrefixo() throws Exception {
+		ViaCEPSearchIndex index = createIndex();
+		Assert.assertEquals(5, index.size());
+		Assert.assertEquals(2, index.getPartitionCount());
+
+		List<ViaCEPEndereco> result = index.search("SP", "Sao Paulo", "paul", 50);
+		Assert.assertEquals(2, result.size());
+		Assert.assertEquals("01310-100", result.get(0).getCep());
+		Assert.assertEquals("01311-200", result.get(1).getCep());
+
+		Assert.assertEquals(2, index.search("sp", "SÃO PAULO", "av pa", 50).size());
+		Assert.assertEquals(1, index.search("SP", "São Paulo", "consol", 50).size());
+		Assert.assertEquals("04094-050", index.search("SP", "São Paulo", "alvares", 50).get(0).getCep());
+		Assert.assertEquals("04094-050", index.search("SP", "São Paulo", "mariana", 50).get(0).getCep());
+		Assert.assertEquals(1, index.search("SP", "São Paulo", "av paul", 1).size());
+		Assert.assertEquals(0, index.search("SP", "São Paulo", "av consol", 50).size());
+		Assert.assertEquals(1, index.search("SP", "Osasco", "paulista", 50).size());
+		Assert.assertEquals(0, index.search("RJ", "Rio de Janeiro", "paulista", 50).size());
+	}
+
+	@Test
+	public void testBuscaPorTrechoDoLogradouro() throws Exception {
+		ViaCEPSearchIndex index = createIndex();
+		List<ViaCEPEndereco> result = index.findByLogradouro("SP", "Sao Paulo", "ulist", 50);
+		Assert.assertEquals(2, result.size());
+		Assert.assertEquals("01310-100", result.get(0).getCep());
+		Assert.assertEquals("01311-200", result.get(1).getCep());
+		
+		Assert.assertEquals(2, index.findByLogradouro("SP", "São Paulo", "nida Paul", 50).size());
+		Assert.assertEquals(1, index.findByLogradouro("SP", "São Paulo", "avenida paulista", 1).size());
+		Assert.assertEquals("01415-000", index.findByLogradouro("SP", "São Paulo", "RUA DA CONSOLAÇÃO", 50).get(0).getCep());
+		//o bairro não é considerado, e as palavras precisam estar em sequência
+		Assert.assertEquals(0, index.findByLogradouro("SP", "São Paulo", "mariana", 50).size());
+		Assert.assertEquals(0, index.findByLogradouro("SP", "São Paulo", "paulista avenida", 50).size());
+		Assert.assertEquals(0, index.findByLogradouro("RJ", "Rio de Janeiro", "paulista", 50).size());
+	}
+
+	@Test
+	public void testSubstituicao() throws Exception {
+		ViaCEPSearchIndex index = createIndex();
+		index.add(endereco("01415-000", "Rua Augusta", "Consolação", "São Paulo", "SP"));
+		Assert.assertEquals(5, index.size());
+		Assert.assertEquals(0, index.search("SP", "São Paulo", "rua da", 50).size());
+		Assert.assertEquals("Rua Augusta", index.search("SP", "São Paulo", "augu", 50).get(0).getLogradouro());
+	}
+
+	@Test
+	public void testCompleto() throws Exception {
+		ViaCEPSearchIndex index = createIndex();
+		Assert.assertFalse(index.isComplete("SP", "São Paulo", "paulista"));
+		index.markComplete("SP", "Sao Paulo", "Paul");
+		Assert.assertTrue(index.isComplete("SP", "São Paulo", "paulista"));
+		Assert.assertTrue(index.isComplete("SP", "São Paulo", "  PAULISTA  "));
+		Assert.assertFalse(index.isComplete("SP", "São Paulo", "pau"));
+		Assert.assertFalse(index.isComplete("SP", "Osasco", "paulista"));
+
+		index.markComplete("SP", "Osasco");
+		Assert.assertTrue(index.isComplete("SP", "Osasco", "qualquer"));
+	}
+
+	@Test
+	public void testLoad() throws Exception {
+		File file = File.createTempFile("viacep", ".json");
+		try {
+			OutputStream out = new FileOutputStream(file);
+			out.write(("[{\"cep\": \"01311-200\", \"logradouro\": \"Avenida Paulista\", \"bairro\": \"Bela Vista\", \"localidade\": \"São Paulo\", \"uf\": \"SP\"},"
+					+ "{\"cep\": \"01415-000\", \"logradouro\": \"Rua da Consolação\", \"bairro\": \"Consolação\", \"localidade\": \"São Paulo\", \"uf\": \"SP\"}]").getBytes("UTF-8"));
+			out.close();
+
+			ViaCEPSearchIndex index = new ViaCEPSearchIndex();
+			Assert.assertEquals(2, index.load(file));
+			Assert.assertTrue(index.isComplete("SP", "São Paulo", "x"));
+			Assert.assertEquals(1, index.search("SP", "São Paulo", "consolacao", 50).size());
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testClientComIndice() throws Exception {
+		final ViaCEPStubServer server = new ViaCEPStubServer();
+		try {
+			server.addResponse("SP/Osasco/Pau/json/", "[{\"cep\": \"06010-000\", \"logradouro\": \"Avenida Paulista\", \"bairro\": \"Centro\", \"localidade\": \"Osasco\", \"uf\": \"SP\"},"
+					+ "{\"cep\": \"06020-000\", \"logradouro\": \"Rua Paulo Freire\", \"bairro\": \"Centro\", \"localidade\": \"Osasco\", \"uf\": \"SP\"}]");
+			server.addResponse("SP/Osasco/Rua/json/", "[]");
+			ViaCEPClient client = new ViaCEPClient() {
+				@Override
+				protected String getHost() {
+					return server.getHost();
+				}
+			};
+			client.setSearchIndex(new ViaCEPSearchIndex());
+
+			Assert.assertEquals(2, client.getEnderecos("SP", "Osasco", "Pau").size());
+			Assert.assertEquals(1, server.getRequestCount());
+
+			//buscas que estendem uma consulta completa são respondidas pelo índice
+			List<ViaCEPEndereco> local = client.getEnderecos("SP", "Osasco", "Paulo");
+			Assert.assertEquals(1, local.size());
+			Assert.assertEquals("Rua Paulo Freire", local.get(0).getLogradouro());
+			Assert.assertEquals(2, client.getEnderecos("SP", "Osasco", "Paul").size());
+			Assert.assertEquals(1, server.getRequestCount());
+
+			Assert.assertTrue(client.getEnderecos("SP", "Osasco", "Rua").isEmpty());
+			Assert.assertEquals(2, server.getRequestCount());
+			
+			//o bairro não é considerado, como no web service
+			client.getSearchIndex().markComplete("SP", "Osasco");
+			Assert.assertTrue(client.getEnderecos("SP", "Osasco", "Centro").isEmpty());
+			Assert.assertEquals(2, server.getRequestCount());
+			
+			//os endereços das consultas por CEP não são indexados
+			server.addResponse("01311000/json/", "{\"cep\": \"01311-000\", \"logradouro\": \"Avenida Paulista\", \"localidade\": \"São Paulo\", \"uf\": \"SP\"}");
+			client.getEndereco("01311000");
+			Assert.assertEquals(2, client.getSearchIndex().size());
+		}
+		finally {
+			server.stop();
+		}
+	}
+
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.fasterxml.jackson.jr.ob.JSON;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPCompactEndereco;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPDecoder;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPJsonDecoder;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPStreamingDecoder;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários da classe {@link ViaCEPStreamingDecoder}, comparando os resultados com o {@link ViaCEPJsonDecoder}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPStreamingDecoderTest {
+	
+	private static final String ENDERECO = "{\"cep\": \"01311-000\", \"logradouro\": \"Avenida Paulista\", \"complemento\": \"de 1047 a 1865 - lado ímpar\", "
+			+ "\"bairro\": \"Bela Vista\", \"localidade\": \"São Paulo\", \"uf\": \"SP\", \"unidade\": \"\", \"ibge\": \"3550308\", \"gia\": \"1004\", "
+			+ "\"ddd\": 11, \"extra\": {\"a\": [1, 2, {\"cep\": \"x\"}]}, \"lista\": [\"b\"]}";
+	
+	private final ViaCEPDecoder decoder = new ViaCEPStreamingDecoder();
+	private final ViaCEPDecoder jsonDecoder = new ViaCEPJsonDecoder(JSON.std);
+	
+	private static class CloseTrackingStream extends FilterInputStream {
+		boolean closed;
+		
+		CloseTrackingStream(String json) throws IOException {
+			super(stream(json));
+		}
+		
+		@Override
+		public void close() throws IOException {
+			closed = true;
+			super.close();
+		}
+	}
+	
+	private static InputStream stream(String json) throws IOException {
+		return new ByteArrayInputStream(json.getBytes("UTF-8"));
+	}
+	
+	@Test
+	public void testEndereco() throws Exception {
+		ViaCEPEndereco endereco = decoder.readEndereco(stream(ENDERECO), ViaCEPEndereco.class);
+		Assert.assertEquals(jsonDecoder.readEndereco(stream(ENDERECO), ViaCEPEndereco.class).toString(), endereco.toString());
+		Assert.assertEquals("de 1047 a 1865 - lado ímpar", endereco.getComplemento());
+		
+		ViaCEPEndereco compact = decoder.readEndereco(stream(ENDERECO), ViaCEPCompactEndereco.class);
+		Assert.assertTrue(compact instanceof ViaCEPCompactEndereco);
+		Assert.assertEquals(endereco.toString(), compact.toString());
+	}
+	
+	@Test
+	public void testNaoEncontrado() throws Exception {
+		Assert.assertNull(decoder.readEndereco(stream("{\"erro\": true}"), ViaCEPEndereco.class));
+		Assert.assertNull(decoder.readEndereco(stream("{\"erro\": \"true\"}"), ViaCEPEndereco.class));
+		Assert.assertNull(decoder.readEndereco(stream("{}"), ViaCEPEndereco.class));
+		Assert.assertNull(decoder.readEndereco(stream("[]"), ViaCEPEndereco.class));
+		Assert.assertNotNull(decoder.readEndereco(stream("{\"erro\": false, \"cep\": \"01311-000\"}"), ViaCEPEndereco.class));
+	}
+	
+	@Test
+	public void testValoresNulos() throws Exception {
+		ViaCEPEndereco endereco = decoder.readEndereco(stream("{\"cep\": \"01311-000\", \"bairro\": null, \"ibge\": 3550308}"), ViaCEPEndereco.class);
+		Assert.assertNull(endereco.getBairro());
+		Assert.assertEquals("3550308", endereco.getIbge());
+	}
+	
+	@Test
+	public void testEnderecos() throws Exception {
+		String json = "[" + ENDERECO + ", {\"cep\": \"01311-100\"}, {\"erro\": true}]";
+		List<ViaCEPEndereco> enderecos = decoder.readEnderecos(stream(json), ViaCEPEndereco.class);
+		Assert.assertEquals(2, enderecos.size());
+		Assert.assertEquals("01311-100", enderecos.get(1).getCep());
+		Assert.assertEquals(jsonDecoder.readEnderecos(stream(json), ViaCEPEndereco.class).get(0).toString(), enderecos.get(0).toString());
+		
+		Assert.assertTrue(decoder.readEnderecos(stream("[]"), ViaCEPEndereco.class).isEmpty());
+		Assert.assertTrue(decoder.readEnderecos(stream("{\"erro\": true}"), ViaCEPEndereco.class).isEmpty());
+	}
+	
+	@Test
+	public void testStreamNaoFechado() throws Exception {
+		for (ViaCEPDecoder d : new ViaCEPDecoder[]{decoder, jsonDecoder}){
+			CloseTrackingStream in = new CloseTrackingStream("[" + ENDERECO + "]");
+			Assert.assertEquals(1, d.readEnderecos(in, ViaCEPEndereco.class).size());
+			Assert.assertFalse(d.getClass().getSimpleName(), in.closed);
+			
+			in = new CloseTrackingStream(ENDERECO);
+			Assert.assertNotNull(d.readEndereco(in, ViaCEPEndereco.class));
+			Assert.assertFalse(d.getClass().getSimpleName(), in.closed);
+		}
+	}
+	
+	@Test(expected = IOException.class)
+	public void testJsonInvalido() throws Exception {
+		decoder.readEnderecos(stream("[{\"cep\": \"01311-000\"}, 1]"), ViaCEPEndereco.class);
+	}
+	
+	@Test(expected = IOException.class)
+	public void testJsonTruncado() throws Exception {
+		decoder.readEndereco(stream("{\"cep\": \"01311-000\", \"bairro\": "), ViaCEPEndereco.class);
+	}
+
+}
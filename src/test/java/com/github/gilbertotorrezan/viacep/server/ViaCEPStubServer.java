@@ -0,0 +1,524 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.jr.ob.JSON;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPSearchIndex;
+import com.github.gilbertotorrezan.viacep.shared.Cep;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Servidor HTTP local compatível com os web services da ViaCEP, para testes que não dependem de rede e para testes
+ * de carga reproduzíveis.
+ * 
+ * As rotas <code>/ws/{cep}/json/</code> e <code>/ws/{uf}/{localidade}/{logradouro}/json/</code> são respondidas a partir
+ * de endereços carregados com {@link #loadFixtures(InputStream)} (ou {@link #loadDefaultFixtures()}), da mesma forma que o
+ * web service: CEPs desconhecidos retornam <code>{"erro": true}</code>, e as buscas por logradouro retornam até 50 
+ * endereços. Respostas fixas para um caminho podem ser registradas com {@link #addResponse(String, String)}. Enquanto
+ * nenhum endereço for carregado, caminhos sem resposta registrada retornam "400 Bad Request".
+ * 
+ * Para simular condições reais, o servidor permite configurar a distribuição da latência das respostas 
+ * ({@link #setLatency(Latency)}), uma taxa de erros ({@link #setErrorRate(double, int)}) e um limite de requisições por 
+ * segundo ({@link #setThrottle(int)}), além de compressão gzip e respostas "304 Not Modified".
+ * 
+ * O servidor faz parte do test-jar do projeto, e pode ser executado de forma isolada para testes de carga:
+ * 
+ * <pre>
+ * <code>
+ * java -cp ... com.github.gilbertotorrezan.viacep.server.ViaCEPStubServer 8080 enderecos.json
+ * </code>
+ * </pre>
+ * 
+ * O {@link com.github.gilbertotorrezan.viacep.se.ViaCEPClient} é apontado para o servidor com 
+ * {@link com.github.gilbertotorrezan.viacep.se.ViaCEPClient#setHost(String) setHost(server.getHost())}, ou com a 
+ * propriedade de sistema {@link com.github.gilbertotorrezan.viacep.se.ViaCEPClient#HOST_PROPERTY viacep.host}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+public class ViaCEPStubServer {
+
+	static {
+		//evita o atraso do algoritmo de Nagle entre o envio dos cabeçalhos e do corpo das respostas
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	/**
+	 * Número máximo de endereços retornados nas buscas por logradouro, como no web service.
+	 */
+	public static final int SEARCH_LIMIT = 50;
+
+	/**
+	 * Distribuição da latência, em milissegundos, das respostas do servidor.
+	 */
+	public static abstract class Latency {
+
+		/**
+		 * Retorna a latência, em milissegundos, da próxima resposta.
+		 */
+		public abstract long next(Random random);
+
+		/**
+		 * Latência constante.
+		 */
+		public static Latency fixed(final long millis) {
+			return new Latency() {
+				@Override
+				public long next(Random random) {
+					return millis;
+				}
+			};
+		}
+
+		/**
+		 * Latência com distribuição uniforme entre <code>min</code> e <code>max</code> milissegundos.
+		 */
+		public static Latency uniform(final long min, final long max) {
+			return new Latency() {
+				@Override
+				public long next(Random random) {
+					return min + (long) (random.nextDouble() * (max - min));
+				}
+			};
+		}
+
+		/**
+		 * Latência com distribuição log-normal, que reproduz a cauda longa das latências de serviços reais.
+		 * 
+		 * @param median Mediana, em milissegundos.
+		 * @param sigma Desvio padrão do logaritmo da latência. Com 0.5, o p99 é cerca de 3,2 vezes a mediana.
+		 */
+		public static Latency logNormal(final long median, final double sigma) {
+			return new Latency() {
+				@Override
+				public long next(Random random) {
+					return Math.round(median * Math.exp(sigma * random.nextGaussian()));
+				}
+			};
+		}
+	}
+
+	private final HttpServer server;
+	private final Map<String, String> responses = Collections.synchronizedMap(new HashMap<String, String>());
+	private final Map<Cep, ViaCEPEndereco> fixtures = Collections.synchronizedMap(new TreeMap<Cep, ViaCEPEndereco>());
+	private final Set<Integer> remotePorts = Collections.synchronizedSet(new HashSet<Integer>());
+	private final Random random = new Random();
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicInteger failures = new AtomicInteger();
+	private volatile int failureStatus;
+	private volatile Latency latency = Latency.fixed(0);
+	private final AtomicInteger slow = new AtomicInteger();
+	private volatile long slowLatency;
+	private volatile double errorRate;
+	private volatile int errorStatus;
+	private volatile int throttle;
+	private long throttleWindow;
+	private int throttleCount;
+	private final AtomicInteger throttled = new AtomicInteger();
+	private volatile boolean compression;
+	private final AtomicInteger notModified = new AtomicInteger();
+	private final AtomicLong bytesSent = new AtomicLong();
+
+	/**
+	 * Cria o servidor em uma porta livre.
+	 */
+	public ViaCEPStubServer() throws IOException {
+		this(0);
+	}
+
+	/**
+	 * Cria o servidor na porta informada, ou em uma porta livre caso seja 0.
+	 */
+	public ViaCEPStubServer(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+		server.createContext("/ws/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					ViaCEPStubServer.this.handle(exchange);
+				}
+				finally {
+					exchange.close();
+				}
+			}
+		});
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		remotePorts.add(exchange.getRemoteAddress().getPort());
+
+		InputStream in = exchange.getRequestBody();
+		while (in.read() != -1){
+			//consome o corpo da requisição
+		}
+
+		if (!acquireThrottle()){
+			throttled.incrementAndGet();
+			exchange.getResponseHeaders().set("Retry-After", "1");
+			send(exchange, 429, "<h1>Too Many Requests</h1>");
+			return;
+		}
+
+		long delay = latency.next(random);
+		if (slow.get() > 0 && slow.getAndDecrement() > 0){
+			delay = slowLatency;
+		}
+		if (delay > 0){
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		if (failures.get() > 0 && failures.getAndDecrement() > 0){
+			send(exchange, failureStatus, "<h1>Error " + failureStatus + "</h1>");
+			return;
+		}
+		if (errorRate > 0 && random.nextDouble() < errorRate){
+			send(exchange, errorStatus, "<h1>Error " + errorStatus + "</h1>");
+			return;
+		}
+
+		String body = responses.get(exchange.getRequestURI().getRawPath().substring("/ws/".length()));
+		if (body == null && !fixtures.isEmpty()){
+			body = route(exchange.getRequestURI().getPath().substring("/ws/".length()));
+		}
+		if (body == null){
+			send(exchange, 400, "<h1>Bad Request</h1>");
+			return;
+		}
+
+		String etag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+		exchange.getResponseHeaders().set("ETag", etag);
+		if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))){
+			notModified.incrementAndGet();
+			exchange.sendResponseHeaders(304, -1);
+			return;
+		}
+		send(exchange, 200, body);
+	}
+
+	private void send(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes("UTF-8");
+		exchange.getResponseHeaders().set("Content-Type", status == 200 ? "application/json; charset=utf-8" : "text/html; charset=utf-8");
+		String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		if (status == 200 && compression && acceptEncoding != null && acceptEncoding.contains("gzip")){
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			GZIPOutputStream gzip = new GZIPOutputStream(buffer);
+			gzip.write(bytes);
+			gzip.close();
+			bytes = buffer.toByteArray();
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+		}
+		bytesSent.addAndGet(bytes.length);
+		exchange.sendResponseHeaders(status, bytes.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(bytes);
+		out.close();
+	}
+
+	/**
+	 * Responde às rotas do web service a partir dos endereços carregados. Retorna <code>null</code> para requisições inválidas.
+	 */
+	private String route(String path) {
+		String[] parts = path.split("/");
+		if (parts.length == 2 && parts[1].equals("json")){
+			int cep = Cep.toInt(parts[0]);
+			if (cep < 0 || parts[0].length() != 8){
+				return null;
+			}
+			ViaCEPEndereco endereco = fixtures.get(Cep.valueOf(cep));
+			return endereco == null ? "{\n  \"erro\": true\n}" : toJson(endereco, "");
+		}
+		if (parts.length == 4 && parts[3].equals("json")){
+			if (parts[0].length() != 2 || parts[1].length() < 3 || parts[2].length() < 3){
+				return null;
+			}
+			String localidade = ViaCEPSearchIndex.fold(parts[1]).trim();
+			String logradouro = ViaCEPSearchIndex.fold(parts[2]).trim();
+			List<ViaCEPEndereco> found = new ArrayList<ViaCEPEndereco>();
+			synchronized (fixtures) {
+				for (ViaCEPEndereco endereco : fixtures.values()){
+					if (parts[0].equalsIgnoreCase(endereco.getUf()) 
+							&& localidade.equals(ViaCEPSearchIndex.fold(endereco.getLocalidade()).trim())
+							&& ViaCEPSearchIndex.fold(endereco.getLogradouro()).contains(logradouro)){
+						found.add(endereco);
+						if (found.size() >= SEARCH_LIMIT){
+							break;
+						}
+					}
+				}
+			}
+			StringBuilder json = new StringBuilder("[");
+			for (int i = 0; i < found.size(); i++){
+				json.append(i == 0 ? "\n" : ",\n").append(toJson(found.get(i), "  "));
+			}
+			return json.append("\n]").toString();
+		}
+		return null;
+	}
+
+	private synchronized boolean acquireThrottle() {
+		int limit = throttle;
+		if (limit <= 0){
+			return true;
+		}
+		long window = System.nanoTime() / 1000000000L;
+		if (window != throttleWindow){
+			throttleWindow = window;
+			throttleCount = 0;
+		}
+		return ++throttleCount <= limit;
+	}
+
+	/**
+	 * Serializa o endereço no mesmo formato do web service.
+	 */
+	private static String toJson(ViaCEPEndereco endereco, String indent) {
+		StringBuilder json = new StringBuilder();
+		json.append(indent).append("{\n");
+		appendField(json, indent, "cep", endereco.getCep(), false);
+		appendField(json, indent, "logradouro", endereco.getLogradouro(), false);
+		appendField(json, indent, "complemento", endereco.getComplemento(), false);
+		appendField(json, indent, "bairro", endereco.getBairro(), false);
+		appendField(json, indent, "localidade", endereco.getLocalidade(), false);
+		appendField(json, indent, "uf", endereco.getUf(), false);
+		appendField(json, indent, "ibge", endereco.getIbge(), true);
+		return json.append(indent).append("}").toString();
+	}
+
+	private static void appendField(StringBuilder json, String indent, String name, String value, boolean last) {
+		json.append(indent).append("  \"").append(name).append("\": \"");
+		if (value != null){
+			for (int i = 0; i < value.length(); i++){
+				char c = value.charAt(i);
+				if (c == '"' || c == '\\'){
+					json.append('\\').append(c);
+				}
+				else if (c < 0x20){
+					json.append(String.format("\\u%04x", (int) c));
+				}
+				else {
+					json.append(c);
+				}
+			}
+		}
+		json.append(last ? "\"\n" : "\",\n");
+	}
+
+	/**
+	 * Registra a resposta JSON para o caminho informado, relativo a "/ws/" (p.e. "01311000/json/"). As respostas 
+	 * registradas têm precedência sobre os endereços carregados.
+	 */
+	public void addResponse(String path, String json) {
+		responses.put(path, json);
+	}
+
+	/**
+	 * Adiciona um endereço às respostas do servidor.
+	 */
+	public void addEndereco(ViaCEPEndereco endereco) {
+		fixtures.put(Cep.parse(endereco.getCep()), endereco);
+	}
+
+	/**
+	 * Carrega endereços de um array JSON no formato da ViaCEP.
+	 * 
+	 * @return O número de endereços carregados.
+	 */
+	public int loadFixtures(InputStream in) throws IOException {
+		try {
+			List<ViaCEPEndereco> enderecos = JSON.std.listOfFrom(ViaCEPEndereco.class, in);
+			for (ViaCEPEndereco endereco : enderecos){
+				addEndereco(endereco);
+			}
+			return enderecos.size();
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Carrega os endereços de exemplo distribuídos junto do servidor (<code>fixtures.json</code>).
+	 * 
+	 * @return O número de endereços carregados.
+	 */
+	public int loadDefaultFixtures() throws IOException {
+		return loadFixtures(ViaCEPStubServer.class.getResourceAsStream("fixtures.json"));
+	}
+
+	/**
+	 * Faz com que as próximas <code>count</code> requisições sejam respondidas com o código HTTP informado.
+	 */
+	public void failNext(int count, int status) {
+		this.failureStatus = status;
+		this.failures.set(count);
+	}
+
+	/**
+	 * Faz com que uma proporção aleatória das requisições seja respondida com o código HTTP informado.
+	 * 
+	 * @param rate Proporção das requisições com erro, entre 0 e 1.
+	 * @param status O código HTTP dos erros, p.e. 503.
+	 */
+	public void setErrorRate(double rate, int status) {
+		this.errorStatus = status;
+		this.errorRate = rate;
+	}
+
+	/**
+	 * Limita o número de requisições por segundo. As requisições excedentes são respondidas com "429 Too Many Requests".
+	 * Use 0 para não limitar.
+	 */
+	public synchronized void setThrottle(int requestsPerSecond) {
+		this.throttle = requestsPerSecond;
+		this.throttleCount = 0;
+	}
+
+	/**
+	 * Seta o tempo, em milissegundos, que o servidor aguarda antes de responder cada requisição.
+	 */
+	public void setLatency(long latency) {
+		setLatency(Latency.fixed(latency));
+	}
+
+	/**
+	 * Seta a distribuição do tempo que o servidor aguarda antes de responder cada requisição.
+	 */
+	public void setLatency(Latency latency) {
+		this.latency = latency;
+	}
+
+	/**
+	 * Faz com que as próximas <code>count</code> requisições aguardem <code>latency</code> milissegundos antes de serem respondidas.
+	 */
+	public void slowNext(int count, long latency) {
+		this.slowLatency = latency;
+		this.slow.set(count);
+	}
+
+	/**
+	 * Seta a semente dos números aleatórios utilizados pela distribuição de latência e pela taxa de erros, para 
+	 * execuções reproduzíveis.
+	 */
+	public void setSeed(long seed) {
+		random.setSeed(seed);
+	}
+
+	/**
+	 * Seta se as respostas devem ser compactadas com gzip quando o client aceitar (<code>Accept-Encoding</code>).
+	 */
+	public void setCompression(boolean compression) {
+		this.compression = compression;
+	}
+
+	/**
+	 * Retorna o host que deve ser utilizado pelo client para acessar esse servidor.
+	 */
+	public String getHost() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/ws/";
+	}
+
+	/**
+	 * Número de requisições recebidas.
+	 */
+	public int getRequestCount() {
+		return requests.get();
+	}
+
+	/**
+	 * Número de requisições recusadas pelo limite de requisições por segundo.
+	 */
+	public int getThrottledCount() {
+		return throttled.get();
+	}
+
+	/**
+	 * Número de requisições condicionais respondidas com "304 Not Modified".
+	 */
+	public int getNotModifiedCount() {
+		return notModified.get();
+	}
+
+	/**
+	 * Número de bytes enviados nos corpos das respostas.
+	 */
+	public long getBytesSent() {
+		return bytesSent.get();
+	}
+
+	/**
+	 * Número de conexões TCP distintas (portas de origem) utilizadas pelos clientes.
+	 */
+	public int getConnectionCount() {
+		return remotePorts.size();
+	}
+
+	public void stop() {
+		server.stop(0);
+	}
+
+	/**
+	 * Executa o servidor de forma isolada.
+	 * 
+	 * @param args Porta (opcional, padrão 8080) e arquivo JSON de endereços (opcional, padrão são os endereços de exemplo).
+	 */
+	public static void main(String[] args) throws IOException {
+		ViaCEPStubServer server = new ViaCEPStubServer(args.length > 0 ? Integer.parseInt(args[0]) : 8080);
+		int count = args.length > 1 ? server.loadFixtures(new FileInputStream(new File(args[1]))) : server.loadDefaultFixtures();
+		System.out.println(count + " endereços disponíveis em " + server.getHost());
+	}
+
+}
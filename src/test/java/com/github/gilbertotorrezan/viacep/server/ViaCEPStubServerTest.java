@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 Gilberto Torrezan Filho
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ */
+package com.github.gilbertotorrezan.viacep.server;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.github.gilbertotorrezan.viacep.se.ViaCEPClient;
+import com.github.gilbertotorrezan.viacep.se.ViaCEPHttpException;
+import com.github.gilbertotorrezan.viacep.shared.ViaCEPEndereco;
+
+/**
+ * Testes unitários da classe {@link ViaCEPStubServer}.
+ * 
+ * @author Gilberto Torrezan Filho
+ * 
+ * @since v.1.2.1
+ */
+@RunWith(JUnit4.class)
+public class ViaCEPStubServerTest {
+
+	private ViaCEPStubServer server;
+	private ViaCEPClient client;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new ViaCEPStubServer();
+		Assert.assertEquals(10, server.loadDefaultFixtures());
+		client = new ViaCEPClient();
+		client.setHost(server.getHost());
+		client.setRetryPolicy(null);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+	}
+
+	@Test
+	public void testRotas() throws Exception {
+		ViaCEPEndereco endereco = client.getEndereco("01311-000");
+		Assert.assertEquals("Avenida Paulista", endereco.getLogradouro());
+		Assert.assertEquals("3550308", endereco.getIbge());
+		Assert.assertNull(client.getEndereco("99999-999"));
+
+		List<ViaCEPEndereco> enderecos = client.getEnderecos("SP", "Sao Paulo", "paulista");
+		Assert.assertEquals(3, enderecos.size());
+		Assert.assertEquals("01310-100", enderecos.get(0).getCep());
+		Assert.assertEquals(2, client.getEnderecos("RJ", "Rio de Janeiro", "Avenida Brasil").size());
+		Assert.assertTrue(client.getEnderecos("PR", "Curitiba", "Paulista").isEmpty());
+	}
+
+	@Test
+	public void testTaxaDeErros() throws Exception {
+		server.setSeed(42);
+		server.setErrorRate(0.5, 503);
+		int errors = 0;
+		for (int i = 0; i < 40; i++){
+			try {
+				client.getEndereco("01311-000");
+			} catch (ViaCEPHttpException e) {
+				Assert.assertEquals(503, e.getStatusCode());
+				errors++;
+			}
+		}
+		Assert.assertTrue("Erros: " + errors, errors > 5 && errors < 35);
+	}
+
+	@Test
+	public void testLimiteDeRequisicoes() throws Exception {
+		server.setThrottle(5);
+		int throttled = 0;
+		for (int i = 0; i < 10; i++){
+			try {
+				client.getEndereco("01311-000");
+			} catch (ViaCEPHttpException e) {
+				Assert.assertEquals(429, e.getStatusCode());
+				throttled++;
+			}
+		}
+		//as requisições podem atravessar a virada de um segundo
+		Assert.assertTrue("Recusadas: " + throttled, throttled >= 1 && throttled <= 5);
+		Assert.assertEquals(throttled, server.getThrottledCount());
+	}
+
+	@Test
+	public void testDistribuicaoDeLatencia() throws Exception {
+		Random random = new Random(1);
+		ViaCEPStubServer.Latency latency = ViaCEPStubServer.Latency.logNormal(10, 0.5);
+		long[] samples = new long[1000];
+		for (int i = 0; i < samples.length; i++){
+			samples[i] = latency.next(random);
+		}
+		Arrays.sort(samples);
+		Assert.assertTrue("Mediana: " + samples[500], samples[500] >= 9 && samples[500] <= 11);
+		Assert.assertTrue("p99: " + samples[990], samples[990] > 25);
+
+		ViaCEPStubServer.Latency uniform = ViaCEPStubServer.Latency.uniform(5, 10);
+		for (int i = 0; i < 100; i++){
+			long value = uniform.next(random);
+			Assert.assertTrue(value >= 5 && value <= 10);
+		}
+
+		server.setLatency(ViaCEPStubServer.Latency.uniform(20, 30));
+		long start = System.nanoTime();
+		client.getEndereco("01311-000");
+		Assert.assertTrue((System.nanoTime() - start) / 1000000 >= 20);
+	}
+
+}